@@ -0,0 +1,52 @@
+/*
+ * @(#)SnapshotView.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+
+package org.jhotdraw.app;
+
+import java.io.*;
+
+/**
+ * SnapshotView is implemented by View's which can be saved while the user
+ * continues to edit them.
+ * <p>
+ * The SaveAction creates a snapshot of the view on the AWT Event
+ * Dispatcher Thread, and then writes the snapshot on the worker thread of
+ * the view. The view remains enabled while the snapshot is written.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public interface SnapshotView extends View {
+    /**
+     * Creates an immutable snapshot of the contents of the view.
+     * By convention this method is invoked on the AWT Event Dispatcher Thread.
+     */
+    public Object createSnapshot();
+
+    /**
+     * Writes a snapshot to the specified file.
+     * By convention this method is never invoked on the AWT Event Dispatcher Thread.
+     *
+     * @param f The file to which the snapshot is written.
+     * @param snapshot A snapshot created by method createSnapshot.
+     */
+    public void write(File f, Object snapshot) throws IOException;
+
+    /**
+     * Marks all changes up to the creation of the snapshot as saved.
+     * Changes which have been made after the snapshot was created remain
+     * unsaved.
+     */
+    public void markChangesAsSaved(Object snapshot);
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)SaveAction.java  1.3  2008-03-23
+ * @(#)SaveAction.java  1.4  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -30,7 +30,9 @@ import org.jhotdraw.gui.event.*;
  * SaveAction.
  *
  * @author  Werner Randelshofer
- * @version 1.3 2008-03-23 Added call to view#canSaveTo(File) when determining
+ * @version 1.4 2026-10-18 Views which implement SnapshotView are saved
+ * in the background, while the user continues to edit them.
+ * <br>1.3 2008-03-23 Added call to view#canSaveTo(File) when determining
  * whether a file chooser needs to be displayed. 
  * <br>1.2.1 2006-07-25 Add saved file to recent file list of application.
  * <br>1.2 2006-05-19 Make filename acceptable by ExtensionFileFilter.
@@ -91,6 +93,10 @@ public class SaveAction extends AbstractViewAction {
     }
     
     protected void saveToFile(final View view, final File file) {
+        if (view instanceof SnapshotView) {
+            saveSnapshotToFile((SnapshotView) view, file);
+            return;
+        }
         view.execute(new Worker() {
             public Object construct() {
                 try {
@@ -105,6 +111,36 @@ public class SaveAction extends AbstractViewAction {
             }
         });
     }
+    /**
+     * Saves a snapshot of the view on the worker thread of the view.
+     * The view is enabled again, as soon as the snapshot has been
+     * created, so that the user can continue to edit the view while
+     * the snapshot is being written.
+     */
+    protected void saveSnapshotToFile(final SnapshotView view, final File file) {
+        final Object snapshot = view.createSnapshot();
+        view.setEnabled(true);
+        if (oldFocusOwner != null) {
+            oldFocusOwner.requestFocus();
+            oldFocusOwner = null;
+        }
+        view.execute(new Worker() {
+            public Object construct() {
+                try {
+                    view.write(file, snapshot);
+                    return null;
+                } catch (IOException e) {
+                    return e;
+                }
+            }
+            public void finished(Object value) {
+                if (value == null) {
+                    view.markChangesAsSaved(snapshot);
+                }
+                fileSaved(view, file, value);
+            }
+        });
+    }
     /**
      * XXX - Change type of value to Throwable
      *
@@ -113,7 +149,9 @@ public class SaveAction extends AbstractViewAction {
     protected void fileSaved(final View view, File file, Object value) {
         if (value == null) {
             view.setFile(file);
-            view.markChangesAsSaved();
+            if (!(view instanceof SnapshotView)) {
+                view.markChangesAsSaved();
+            }
             int multiOpenId = 1;
             for (View p : view.getApplication().views()) {
                 if (p != view && p.getFile() != null && p.getFile().equals(file)) {
@@ -1,5 +1,5 @@
 /*
- * @(#)AbstractAttributedCompositeFigure.java  2.0 2007-05-18
+ * @(#)AbstractAttributedCompositeFigure.java  2.1  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -27,12 +27,13 @@ import org.jhotdraw.xml.DOMOutput;
  * its own attribute set.
  *
  * @author Werner Randelshofer
- * @version 2.0 2007-05-18 Changed due to changes in Figure interface. 
+ * @version 2.1 2026-10-18 Attributes are held in an AttributeMap.
+ * <br>2.0 2007-05-18 Changed due to changes in Figure interface. 
  * <br>1.0 July 9, 2006 Created.
  */
 public abstract class AbstractAttributedCompositeFigure extends AbstractCompositeFigure {
 
-    private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey, Object>();
+    private AttributeMap attributes = new AttributeMap();
     /**
      * Forbidden attributes can't be set by the setAttribute() operation.
      * They can only be changed by setAttribute().
@@ -67,7 +68,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
 
     @Override
     public Map<AttributeKey, Object> getAttributes() {
-        return new HashMap<AttributeKey, Object>(attributes);
+        return attributes.clone();
     }
 
     /**
@@ -101,7 +102,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
     @Override
     public Object getAttributesRestoreData() {
         LinkedList<Object> list = new LinkedList<Object>();
-        list.add(new HashMap<AttributeKey, Object>(getAttributes()));
+        list.add(getAttributes());
         for (Figure child : getChildren()) {
             list.add(child.getAttributesRestoreData());
         }
@@ -198,7 +199,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
 
     public AbstractAttributedCompositeFigure clone() {
         AbstractAttributedCompositeFigure that = (AbstractAttributedCompositeFigure) super.clone();
-        that.attributes = new HashMap<AttributeKey, Object>(this.attributes);
+        that.attributes = this.attributes.clone();
         if (this.forbiddenAttributes != null) {
             that.forbiddenAttributes = new HashSet<AttributeKey>(this.forbiddenAttributes);
         }
@@ -1,5 +1,5 @@
 /*
- * @(#)AbstractAttributedFigure.java  4.1  2007-05-18
+ * @(#)AbstractAttributedFigure.java  4.3  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -27,7 +27,10 @@ import org.jhotdraw.xml.DOMOutput;
  * <p>
  *
  * @author Werner Randelshofer
- * @version 4.1 2007-05-18 Changed due to changes in Figure interface.
+ * @version 4.3 2026-10-18 Attributes of type Double can be read without
+ * boxing them.
+ * <br>4.2 2026-10-18 Attributes are held in an AttributeMap.
+ * <br>4.1 2007-05-18 Changed due to changes in Figure interface.
  * <br>4.0 2007-01-03 Renamed from AttributedFigure to
  * AbstractAttributedFigure.
  * <br>3.2 2006-12-07 Changed method setAttributes(HashMap)
@@ -42,7 +45,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     /**
      * Holds the attributes of the figure.
      */
-    private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey,Object>();
+    private AttributeMap attributes = new AttributeMap();
     /**
      * Forbidden attributes can't be set by the setAttribute() operation.
      * They can only be changed by setAttribute().
@@ -75,7 +78,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
         }
     }
     public Map<AttributeKey, Object> getAttributes() {
-        return new HashMap<AttributeKey,Object>(attributes);
+        return attributes.clone();
     }
     public Object getAttributesRestoreData() {
         return getAttributes();
@@ -83,7 +86,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     @SuppressWarnings("unchecked")
     public void restoreAttributesTo(Object restoreData) {
         attributes.clear();
-        setAttributes((HashMap<AttributeKey,Object>) restoreData);
+        setAttributes((Map<AttributeKey,Object>) restoreData);
     }
     /**
      * Sets an attribute of the figure.
@@ -103,6 +106,13 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     public <T> T getAttribute(AttributeKey<T> key) {
         return hasAttribute(key) ? key.get(attributes) : key.getDefaultValue();
     }
+    /**
+     * Gets an attribute of type Double from the figure without boxing it.
+     * This method is used by {@link AttributeKey#getDouble}.
+     */
+    double getDoubleAttribute(AttributeKey<Double> key) {
+        return attributes.isUnboxed(key) ? attributes.getUnboxed(key) : key.get(this);
+    }
     
     
     public void draw(Graphics2D g) {
@@ -110,7 +120,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
             g.setColor(AttributeKeys.FILL_COLOR.get(this));
             drawFill(g);
         }
-        if (STROKE_COLOR.get(this) != null && STROKE_WIDTH.get(this) > 0d) {
+        if (STROKE_COLOR.get(this) != null && STROKE_WIDTH.getDouble(this) > 0d) {
             g.setStroke(AttributeKeys.getStroke(this));
             g.setColor(STROKE_COLOR.get(this));
             
@@ -179,7 +189,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     
     public AbstractAttributedFigure clone() {
         AbstractAttributedFigure that = (AbstractAttributedFigure) super.clone();
-        that.attributes = new HashMap<AttributeKey,Object>(this.attributes);
+        that.attributes = this.attributes.clone();
         if (this.forbiddenAttributes != null) {
             that.forbiddenAttributes = new HashSet<AttributeKey>(this.forbiddenAttributes);
         }
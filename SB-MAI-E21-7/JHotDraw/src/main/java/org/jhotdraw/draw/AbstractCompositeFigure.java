@@ -1,5 +1,5 @@
 /*
- * @(#)AbstractCompositeFigure.java  1.0.2  2009-04-16
+ * @(#)AbstractCompositeFigure.java  1.1  2026-10-18
  *
  * Copyright (c) 2007-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -29,7 +29,8 @@ import static org.jhotdraw.draw.AttributeKeys.*;
  * AbstractCompositeFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0.2 2009-04-16 Guard against infinity in method setBounds.
+ * @version 1.1 2026-10-18 Method addAll(int, Collection) is not final anymore.
+ * <br>1.0.2 2009-04-16 Guard against infinity in method setBounds.
  * <br>1.0.1 2008-03-30 Made basicRemove method non-final.
  * <br>1.0 July 17, 2007 Created.
  */
@@ -136,7 +137,7 @@ public abstract class AbstractCompositeFigure
         addAll(getChildCount(), figures);
     }
 
-    public final void addAll(int index, Collection<? extends Figure> figures) {
+    public void addAll(int index, Collection<? extends Figure> figures) {
         for (Figure f : figures) {
             basicAdd(index++, f);
             if (getDrawing() != null) {
@@ -1,5 +1,5 @@
 /*
- * @(#)AbstractDrawing.java  4.1  2007-12-16
+ * @(#)AbstractDrawing.java  4.4  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -15,6 +15,7 @@ package org.jhotdraw.draw;
 
 import org.jhotdraw.xml.*;
 import java.awt.font.*;
+import java.awt.geom.*;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.undo.*;
@@ -25,7 +26,12 @@ import java.io.*;
  * AbstractDrawing.
  *
  * @author Werner Randelshofer
- * @version 4.1 2007-12-16 Drawing hold attributes on its own. 
+ * @version 4.4 2026-10-18 The clones of the children are only kept for
+ * subsequent snapshots, while they are retained by a client. Invalidated
+ * areas do not increase the modification count.
+ * <br>4.3 2026-10-18 Added support for update transactions.
+ * <br>4.2 2026-10-18 Added support for snapshots.
+ * <br>4.1 2007-12-16 Drawing hold attributes on its own. 
  * <br>4.0 2007-07-17 Adapted to changes in Drawing interface. 
  * <br>3.0 2007-05-18 Don't fire UndoableEdit events when Figures
  * are added/removed from a Drawing. The
@@ -37,11 +43,63 @@ import java.io.*;
  * <br>1.0 2003-12-01 Derived from JHotDraw 5.4b1.
  */
 public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure implements Drawing {
+    private final static long serialVersionUID = 1L;
     private final static Object lock = new JPanel().getTreeLock();
     private transient FontRenderContext fontRenderContext;
     private LinkedList<InputFormat> inputFormats = new LinkedList<InputFormat>();
     private LinkedList<OutputFormat> outputFormats = new LinkedList<OutputFormat>();
     private final static boolean DEBUG = false;
+    /**
+     * Holds the clones of all children, which have not changed since
+     * the last snapshot was created. This is null, if the clones are not
+     * retained.
+     */
+    private transient HashMap<Figure, Figure> snapshotClones;
+    /**
+     * The number of clients, which retain the snapshot clones.
+     */
+    private transient int snapshotClonesRetainCount;
+    /**
+     * Invalidates the snapshot clones of changed children.
+     */
+    private SnapshotHandler snapshotHandler = new SnapshotHandler();
+    /**
+     * The number of modifications of this drawing.
+     */
+    private transient long modificationCount;
+    /**
+     * The nesting depth of update transactions.
+     */
+    private transient int updateDepth;
+    /**
+     * The union of the areas which have been invalidated during the current
+     * update transaction. This is null if no area has been invalidated.
+     */
+    private transient Rectangle2D.Double pendingInvalidatedArea;
+    /**
+     * Set to true if a figureChanged event has been buffered during the
+     * current update transaction.
+     */
+    private transient boolean isPendingFigureChanged;
+
+    /**
+     * Invalidates the snapshot clone of a child whenever the child
+     * changes.
+     */
+    private class SnapshotHandler extends FigureAdapter implements Serializable {
+
+        private final static long serialVersionUID = 1L;
+
+        @Override
+        public void figureChanged(FigureEvent e) {
+            invalidateSnapshotClone(e.getFigure());
+        }
+
+        @Override
+        public void attributeChanged(FigureEvent e) {
+            invalidateSnapshotClone(e.getFigure());
+        }
+    }
 
     /** Creates a new instance. */
     public AbstractDrawing() {
@@ -79,6 +137,301 @@ public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure
         }
     }
 
+    @Override
+    public void basicAdd(int index, Figure figure) {
+        super.basicAdd(index, figure);
+        figure.addFigureListener(snapshotHandler);
+        modificationCount++;
+    }
+
+    @Override
+    public Figure basicRemoveChild(int index) {
+        Figure figure = super.basicRemoveChild(index);
+        figure.removeFigureListener(snapshotHandler);
+        invalidateSnapshotClone(figure);
+        return figure;
+    }
+
+    @Override
+    public <T> void setAttribute(AttributeKey<T> key, T newValue) {
+        super.setAttribute(key, newValue);
+        modificationCount++;
+    }
+
+    @Override
+    public <T> void removeAttribute(AttributeKey<T> key) {
+        if (hasAttribute(key)) {
+            super.removeAttribute(key);
+            modificationCount++;
+        }
+    }
+
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth <= 0) {
+            throw new InternalError("endUpdate was called without a prior call to beginUpdate.");
+        }
+        if (--updateDepth == 0) {
+            fireUpdateEnded();
+        }
+    }
+
+    public boolean isUpdating() {
+        return updateDepth > 0;
+    }
+
+    /**
+     * Fires the summary events of an update transaction. This method is
+     * invoked when the outermost update transaction ends.
+     * <p>
+     * All areas, which have been invalidated during the transaction, are
+     * merged into a single areaInvalidated event. If figures have been
+     * changed, a single figureChanged event is fired as well.
+     */
+    protected void fireUpdateEnded() {
+        Rectangle2D.Double area = pendingInvalidatedArea;
+        boolean isFigureChanged = isPendingFigureChanged;
+        pendingInvalidatedArea = null;
+        isPendingFigureChanged = false;
+        if (area != null) {
+            if (isFigureChanged) {
+                super.fireFigureChanged(area);
+            }
+            super.fireAreaInvalidated(area);
+        }
+    }
+
+    /**
+     * Adds the specified area to the invalidated area of the current update
+     * transaction.
+     */
+    private void addPendingInvalidatedArea(Rectangle2D.Double area) {
+        if (area != null) {
+            if (pendingInvalidatedArea == null) {
+                pendingInvalidatedArea = (Rectangle2D.Double) area.clone();
+            } else {
+                pendingInvalidatedArea.add(area);
+            }
+        }
+    }
+
+    @Override
+    protected void fireAreaInvalidated(Rectangle2D.Double invalidatedArea) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(invalidatedArea);
+        } else {
+            super.fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    @Override
+    protected void fireAreaInvalidated(FigureEvent event) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(event.getInvalidatedArea());
+        } else {
+            super.fireAreaInvalidated(event);
+        }
+    }
+
+    @Override
+    protected void fireFigureChanged(Rectangle2D.Double changedArea) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(changedArea);
+            isPendingFigureChanged = true;
+        } else {
+            super.fireFigureChanged(changedArea);
+        }
+    }
+
+    @Override
+    protected void fireFigureChanged(FigureEvent event) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(event.getInvalidatedArea());
+            isPendingFigureChanged = true;
+        } else {
+            super.fireFigureChanged(event);
+        }
+    }
+
+    /**
+     * Fires a figureAdded event. During an update transaction, the drawing
+     * area of the figure is added to the invalidated area of the
+     * transaction as well.
+     */
+    @Override
+    protected void fireFigureAdded(Figure f, int zIndex) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(f.getDrawingArea());
+        }
+        super.fireFigureAdded(f, zIndex);
+    }
+
+    /**
+     * Fires a figureRemoved event. During an update transaction, the drawing
+     * area of the figure is added to the invalidated area of the
+     * transaction as well.
+     */
+    @Override
+    protected void fireFigureRemoved(Figure f, int zIndex) {
+        if (updateDepth > 0) {
+            addPendingInvalidatedArea(f.getDrawingArea());
+        }
+        super.fireFigureRemoved(f, zIndex);
+    }
+
+    /**
+     * Adds the figures within a single update transaction.
+     */
+    @Override
+    public void addAll(int index, Collection<? extends Figure> figures) {
+        beginUpdate();
+        try {
+            super.addAll(index, figures);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Removes the figures within a single update transaction.
+     */
+    @Override
+    public void removeAll(Collection<? extends Figure> figures) {
+        beginUpdate();
+        try {
+            super.removeAll(figures);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Returns the number of modifications of this drawing.
+     * <p>
+     * The number is increased whenever a child is added, removed or
+     * changed, and whenever an attribute of the drawing is changed.
+     * Areas, which are invalidated without a change, for example for
+     * repainting a figure, do not increase the number.
+     * It can be used to find out whether a drawing has been modified
+     * after a snapshot has been created.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Increases the modification count. Subclasses must invoke this method,
+     * when they change the sequence of the children without invoking
+     * basicAdd and basicRemoveChild.
+     */
+    protected void incrementModificationCount() {
+        modificationCount++;
+    }
+
+    private void invalidateSnapshotClone(Figure child) {
+        if (snapshotClones != null) {
+            snapshotClones.remove(child);
+        }
+        modificationCount++;
+    }
+
+    /**
+     * Retains the clones of the children, which are created by method
+     * {@code createSnapshot}, so that subsequent snapshots can share them.
+     * <p>
+     * Clients, which create snapshots repeatedly, such as autosave and
+     * progressive rendering, invoke this method once, and invoke method
+     * {@code releaseSnapshotClones} when they stop creating snapshots.
+     * Without a client, the drawing does not keep a second copy of its
+     * children.
+     */
+    public void retainSnapshotClones() {
+        snapshotClonesRetainCount++;
+    }
+
+    /**
+     * Releases the clones of the children, which have been retained by
+     * method {@code retainSnapshotClones}. The clones are discarded, when
+     * the last client releases them.
+     */
+    public void releaseSnapshotClones() {
+        if (snapshotClonesRetainCount <= 0) {
+            throw new InternalError("releaseSnapshotClones was called without a prior call to retainSnapshotClones.");
+        }
+        if (--snapshotClonesRetainCount == 0) {
+            snapshotClones = null;
+        }
+    }
+
+    /**
+     * Creates a snapshot of this drawing.
+     * <p>
+     * The snapshot is a copy of this drawing, which can be written on a
+     * worker thread, while the user continues to edit this drawing.
+     * The snapshot must not be changed.
+     * <p>
+     * While the snapshot clones are retained, snapshots share the clones of
+     * all children, which have not changed since the previous snapshot was
+     * created. Therefore creating a snapshot only takes time proportional
+     * to the number of children, plus the time needed for cloning the
+     * changed children.
+     * <p>
+     * This method must be invoked on the AWT Event Dispatcher Thread, or
+     * on the thread which changes the drawing.
+     *
+     * @see #retainSnapshotClones
+     */
+    public AbstractDrawing createSnapshot() {
+        if (snapshotClones == null && snapshotClonesRetainCount > 0) {
+            snapshotClones = new HashMap<Figure, Figure>();
+        }
+
+        // Clone the drawing without its children
+        ArrayList<Figure> savedChildren = children;
+        AbstractDrawing that;
+        children = new ArrayList<Figure>();
+        try {
+            that = clone();
+        } finally {
+            children = savedChildren;
+        }
+
+        for (Figure child : children) {
+            Figure thatChild = (snapshotClones == null) ? null : snapshotClones.get(child);
+            if (thatChild == null) {
+                thatChild = (Figure) child.clone();
+                if (snapshotClones != null) {
+                    snapshotClones.put(child, thatChild);
+                }
+            }
+            that.basicAdd(thatChild);
+            // The snapshot does not need to listen to its children,
+            // because they are not changed.
+            thatChild.removeFigureListener(that.eventHandler);
+            thatChild.removeFigureListener(that.snapshotHandler);
+        }
+        that.invalidate();
+        return that;
+    }
+
+    @Override
+    public AbstractDrawing clone() {
+        AbstractDrawing that = (AbstractDrawing) super.clone();
+        that.snapshotClones = null;
+        that.snapshotClonesRetainCount = 0;
+        that.updateDepth = 0;
+        that.pendingInvalidatedArea = null;
+        that.isPendingFigureChanged = false;
+        that.snapshotHandler = that.new SnapshotHandler();
+        for (Figure child : that.children) {
+            child.addFigureListener(that.snapshotHandler);
+        }
+        return that;
+    }
+
     public FontRenderContext getFontRenderContext() {
         return fontRenderContext;
     }
@@ -0,0 +1,198 @@
+/*
+ * @(#)AttributeChangeEdit.java  1.0.1  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.util.*;
+import javax.swing.undo.*;
+
+/**
+ * An UndoableEdit which undoes and redoes the change of a set of attributes
+ * on a set of figures.
+ * <p>
+ * Unlike an edit which is based on {@link Figure#getAttributesRestoreData},
+ * this edit only records the old values of the changed attributes. The new
+ * values are shared by all figures. Thus the memory used by the edit grows
+ * with the number of changed attributes, and not with the number of
+ * attributes of the figures. The old values of the descendants of composite
+ * figures are recorded as well, because composite figures may pass their
+ * attributes on to their children.
+ * <p>
+ * Usage:
+ * <pre>
+ * AttributeChangeEdit edit = new AttributeChangeEdit(name, figures, newValues);
+ * ...apply the new values to the figures...
+ * drawing.fireUndoableEditHappened(edit);
+ * </pre>
+ * <p>
+ * While an edit is adjusting, it absorbs subsequent edits, which change the
+ * same attributes on the same figures. This is used to coalesce the edits
+ * of a slider drag into a single edit.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0.1 2026-10-18 Accepts maps with wildcard attribute keys.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class AttributeChangeEdit extends AbstractUndoableEdit {
+
+    private final static long serialVersionUID = 1L;
+    private String presentationName;
+    /**
+     * The figures to which the new values are applied.
+     */
+    private Figure[] figures;
+    /**
+     * The figures whose old values have been recorded. These are the figures
+     * and the descendants of composite figures in pre-order.
+     */
+    private Figure[] recordedFigures;
+    private AttributeKey<?>[] keys;
+    /**
+     * The new values by key index.
+     */
+    private Object[] newValues;
+    /**
+     * The old values by recorded figure index * number of keys + key index.
+     */
+    private Object[] oldValues;
+    private boolean isAdjusting;
+
+    /**
+     * Creates a new instance and records the current values of the specified
+     * attributes of the figures. This constructor must be invoked before
+     * the new values are applied to the figures.
+     *
+     * @param presentationName The presentation name of the edit.
+     * @param figures The figures to which the new values are applied.
+     * @param newValues The new values of the attributes.
+     */
+    public AttributeChangeEdit(String presentationName,
+            Collection<? extends Figure> figures, Map<? extends AttributeKey<?>, ?> newValues) {
+        this.presentationName = presentationName;
+        this.figures = figures.toArray(new Figure[figures.size()]);
+        keys = new AttributeKey<?>[newValues.size()];
+        this.newValues = new Object[newValues.size()];
+        int i = 0;
+        for (Map.Entry<? extends AttributeKey<?>, ?> entry : newValues.entrySet()) {
+            keys[i] = entry.getKey();
+            this.newValues[i] = entry.getValue();
+            i++;
+        }
+
+        ArrayList<Figure> recorded = new ArrayList<Figure>(figures.size());
+        for (Figure f : this.figures) {
+            addRecordedFigure(recorded, f);
+        }
+        recordedFigures = recorded.toArray(new Figure[recorded.size()]);
+        oldValues = new Object[recordedFigures.length * keys.length];
+        i = 0;
+        for (Figure f : recordedFigures) {
+            for (AttributeKey<?> key : keys) {
+                oldValues[i++] = f.getAttribute(key);
+            }
+        }
+    }
+
+    private void addRecordedFigure(ArrayList<Figure> recorded, Figure f) {
+        recorded.add(f);
+        if (f instanceof CompositeFigure) {
+            for (Figure child : ((CompositeFigure) f).getChildren()) {
+                addRecordedFigure(recorded, child);
+            }
+        }
+    }
+
+    /**
+     * Sets whether the edit is adjusting. While the edit is adjusting, it
+     * absorbs subsequent edits, which change the same attributes on the same
+     * figures. The absorbing edit takes over the new values and the adjusting
+     * state of the absorbed edit.
+     */
+    public void setAdjusting(boolean newValue) {
+        isAdjusting = newValue;
+    }
+
+    public boolean isAdjusting() {
+        return isAdjusting;
+    }
+
+    @Override
+    public String getPresentationName() {
+        return presentationName;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void undo() throws CannotUndoException {
+        super.undo();
+        for (Figure f : figures) {
+            f.willChange();
+        }
+        // The figures are in pre-order, so that composite figures are
+        // restored before their children.
+        int i = 0;
+        for (Figure f : recordedFigures) {
+            for (AttributeKey<?> key : keys) {
+                f.setAttribute((AttributeKey<Object>) key, oldValues[i++]);
+            }
+        }
+        for (Figure f : figures) {
+            f.changed();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void redo() throws CannotRedoException {
+        super.redo();
+        for (Figure f : figures) {
+            f.willChange();
+            for (int i = 0; i < keys.length; i++) {
+                ((AttributeKey<Object>) keys[i]).basicSet(f, newValues[i]);
+            }
+            f.changed();
+        }
+    }
+
+    @Override
+    public boolean addEdit(UndoableEdit anEdit) {
+        if (isAdjusting && canUndo() && anEdit instanceof AttributeChangeEdit) {
+            AttributeChangeEdit that = (AttributeChangeEdit) anEdit;
+            if (Arrays.equals(this.keys, that.keys) && isSameFigures(that)) {
+                this.newValues = that.newValues;
+                this.isAdjusting = that.isAdjusting;
+                that.die();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSameFigures(AttributeChangeEdit that) {
+        if (this.figures.length != that.figures.length) {
+            return false;
+        }
+        if (Arrays.equals(this.figures, that.figures)) {
+            return true;
+        }
+        return new HashSet<Figure>(Arrays.asList(this.figures)).equals(
+                new HashSet<Figure>(Arrays.asList(that.figures)));
+    }
+
+    @Override
+    public void die() {
+        super.die();
+        figures = recordedFigures = null;
+        oldValues = newValues = null;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)AttributeKey.java  3.0  2009-04-19
+ * @(#)AttributeKey.java  3.5  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -13,9 +13,14 @@
  */
 package org.jhotdraw.draw;
 
-import java.io.Serializable;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.geom.AffineTransform;
+import java.io.*;
+import java.lang.reflect.*;
 import java.util.*;
 import javax.swing.undo.*;
+import org.jhotdraw.geom.*;
 import org.jhotdraw.util.*;
 
 /**
@@ -34,7 +39,20 @@ import org.jhotdraw.util.*;
  * See {@link AttributeKeys} for a list of useful attribute keys.
  * 
  * @author Werner Randelshofer
- * @version 3.0 2009-04-19 Added explicit
+ * @version 3.5 2026-10-18 Value types can register a typed Copier. Values
+ * of Dimension2DDouble and Insets2D.Double are copied with a Copier.
+ * <br>3.4 2026-10-18 Each key has its own ordinal, also if other keys
+ * have the same key string. Deserialized keys are resolved to the registered
+ * key. Added method getDouble.
+ * <br>3.3.2 2026-10-18 Method setUndoable uses a wildcard key type.
+ * <br>3.3.1 2026-10-18 The key registry uses wildcard types.
+ * <br>3.3 2026-10-18 Values are copied with a copy strategy, which is
+ * determined when the key is created, instead of invoking their clone
+ * method by reflection.
+ * <br>3.2 2026-10-18 Method setUndoable returns an AttributeChangeEdit.
+ * <br>3.1 2026-10-18 Each key has an ordinal, which is used for
+ * storing attributes in arrays.
+ * <br>3.0 2009-04-19 Added explicit
  * <br>2.1 2009-04-15 Added method getPresentationName. The labels are now
  * part of the attribute key.
  * <br>2.0.1 2008-02-13 Fixed comments. Removed equals and hashCode.
@@ -49,6 +67,21 @@ import org.jhotdraw.util.*;
  */
 public class AttributeKey<T> implements Serializable {
 
+    /**
+     * Copies values of an attribute type.
+     * <p>
+     * A copier is registered for a value type with method
+     * {@link AttributeKey#registerCopier}. Keys of that type use the copier
+     * for copying their values in getClone and setClone.
+     */
+    public static interface Copier<V> {
+
+        /**
+         * Returns a copy of the specified value, which is not null.
+         */
+        public V copy(V value);
+    }
+
     /**
      * Holds a String representation of the attribute key.
      */
@@ -69,6 +102,82 @@ public class AttributeKey<T> implements Serializable {
      * assignability of attribute values at runtime.
      */
     private Class<T> clazz;
+    /**
+     * The ordinal of the key.
+     */
+    private transient int ordinal;
+    /**
+     * The ordinal of the key among all keys of type Double, or -1 if the
+     * key is not of type Double.
+     */
+    private transient int doubleOrdinal;
+    /**
+     * The strategy used for copying values of this key.
+     */
+    private transient int copyStrategy;
+    /**
+     * The public clone method of the type token class, if copy strategy is
+     * COPY_BY_CLONE_METHOD.
+     */
+    private transient Method cloneMethod;
+    /**
+     * The copier of the type token class, if copy strategy is
+     * COPY_BY_COPIER.
+     */
+    private transient Copier<T> copier;
+    /** Values are immutable and are not copied. */
+    private final static int COPY_NONE = 0;
+    /** Values are copied with double[].clone(). */
+    private final static int COPY_DOUBLE_ARRAY = 1;
+    /** Values are copied with AffineTransform.clone(). */
+    private final static int COPY_AFFINE_TRANSFORM = 2;
+    /** Values are copied with the copier registered for the type token class. */
+    private final static int COPY_BY_COPIER = 3;
+    /**
+     * Values are copied by invoking the clone method of the type token class
+     * by reflection. Only the lookup of the method is done once.
+     */
+    private final static int COPY_BY_CLONE_METHOD = 4;
+    /** Values are copied by looking up their clone method by reflection. */
+    private final static int COPY_BY_REFLECTION = 5;
+    /**
+     * Immutable value classes.
+     */
+    private final static Set<Class<?>> immutableClasses = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class, Color.class, Font.class));
+    /**
+     * Maps value types to their copiers.
+     */
+    private final static HashMap<Class<?>, Copier<?>> copiers = new HashMap<Class<?>, Copier<?>>();
+
+
+    static {
+        registerCopier(Dimension2DDouble.class, new Copier<Dimension2DDouble>() {
+
+            public Dimension2DDouble copy(Dimension2DDouble value) {
+                return (Dimension2DDouble) value.clone();
+            }
+        });
+        registerCopier(Insets2D.Double.class, new Copier<Insets2D.Double>() {
+
+            public Insets2D.Double copy(Insets2D.Double value) {
+                return (Insets2D.Double) value.clone();
+            }
+        });
+    }
+    /**
+     * Maps key strings to the registered keys with that string.
+     */
+    private final static HashMap<String, ArrayList<AttributeKey<?>>> registry = new HashMap<String, ArrayList<AttributeKey<?>>>();
+    /**
+     * Holds the registered keys by their ordinal.
+     */
+    private final static ArrayList<AttributeKey<?>> registeredKeys = new ArrayList<AttributeKey<?>>();
+    /**
+     * The number of registered keys of type Double.
+     */
+    private static int doubleKeyCount;
 
     /** Creates a new instance with the specified attribute key, type token class,
      * default value null, and allowing null values. */
@@ -89,6 +198,8 @@ public class AttributeKey<T> implements Serializable {
         this.clazz = clazz;
         this.defaultValue = defaultValue;
         this.isNullValueAllowed = isNullValueAllowed;
+        register();
+        resolveCopyStrategy();
     }
 
     /** Creates a new instance with the specified attribute key, type token class,
@@ -108,6 +219,179 @@ public class AttributeKey<T> implements Serializable {
         this.defaultValue = defaultValue;
         this.isNullValueAllowed = isNullValueAllowed;
         this.labels = labels;
+        register();
+        resolveCopyStrategy();
+    }
+
+    /**
+     * Assigns an ordinal to this key.
+     * <p>
+     * Each key gets its own ordinal. Distinct keys with the same key string,
+     * for example {@link AttributeKeys#COMPOSITE_ALIGNMENT} and
+     * {@link AttributeKeys#CHILD_ALIGNMENT}, are stored in distinct slots.
+     */
+    private void register() {
+        synchronized (registry) {
+            ordinal = registeredKeys.size();
+            doubleOrdinal = (clazz == Double.class) ? doubleKeyCount++ : -1;
+            ArrayList<AttributeKey<?>> keys = registry.get(key);
+            if (keys == null) {
+                keys = new ArrayList<AttributeKey<?>>(1);
+                registry.put(key, keys);
+            }
+            keys.add(this);
+            registeredKeys.add(this);
+        }
+    }
+
+    /**
+     * Registers a copier for values of the specified type.
+     * <p>
+     * Keys, whose type token class is the specified type, copy their values
+     * with the copier, instead of invoking the clone method of the values by
+     * reflection. The copier must be registered before the keys are created.
+     *
+     * @param type The type token class of the keys.
+     * @param copier The copier.
+     */
+    public static <V> void registerCopier(Class<V> type, Copier<V> copier) {
+        synchronized (copiers) {
+            copiers.put(type, copier);
+        }
+    }
+
+    /**
+     * Determines how values of this key are copied.
+     */
+    @SuppressWarnings("unchecked")
+    private void resolveCopyStrategy() {
+        Copier<?> registeredCopier;
+        synchronized (copiers) {
+            registeredCopier = copiers.get(clazz);
+        }
+        if (clazz == null || immutableClasses.contains(clazz) || clazz.isEnum()) {
+            copyStrategy = COPY_NONE;
+        } else if (clazz == double[].class) {
+            copyStrategy = COPY_DOUBLE_ARRAY;
+        } else if (clazz == AffineTransform.class) {
+            copyStrategy = COPY_AFFINE_TRANSFORM;
+        } else if (registeredCopier != null) {
+            copier = (Copier<T>) registeredCopier;
+            copyStrategy = COPY_BY_COPIER;
+        } else {
+            try {
+                cloneMethod = clazz.getMethod("clone");
+                copyStrategy = COPY_BY_CLONE_METHOD;
+            } catch (NoSuchMethodException e) {
+                // The type token class does not have a public clone method,
+                // but subclasses may have one.
+                copyStrategy = COPY_BY_REFLECTION;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the specified value.
+     */
+    @SuppressWarnings("unchecked")
+    private T copy(T value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (copyStrategy) {
+                case COPY_NONE:
+                    return value;
+                case COPY_DOUBLE_ARRAY:
+                    return (T) ((double[]) value).clone();
+                case COPY_AFFINE_TRANSFORM:
+                    return (T) ((AffineTransform) value).clone();
+                case COPY_BY_COPIER:
+                    return copier.copy(value);
+                case COPY_BY_CLONE_METHOD:
+                    return (T) cloneMethod.invoke(value);
+                default:
+                    return (T) Methods.invoke(value, "clone");
+            }
+        } catch (NoSuchMethodException ex) {
+            InternalError e = new InternalError();
+            e.initCause(ex);
+            throw e;
+        } catch (IllegalAccessException ex) {
+            InternalError e = new InternalError();
+            e.initCause(ex);
+            throw e;
+        } catch (InvocationTargetException ex) {
+            InternalError e = new InternalError();
+            e.initCause(ex);
+            throw e;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        resolveCopyStrategy();
+    }
+
+    /**
+     * Resolves a deserialized key to the registered key with the same key
+     * string, type and default value. If there is no such key, the
+     * registered key with the same key string and type is used. Only keys,
+     * which have not been registered in this virtual machine, get a new
+     * ordinal.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        synchronized (registry) {
+            AttributeKey<?> sameType = null;
+            ArrayList<AttributeKey<?>> keys = registry.get(key);
+            if (keys != null) {
+                for (AttributeKey<?> k : keys) {
+                    if (k.clazz == clazz) {
+                        if (k.isNullValueAllowed == isNullValueAllowed &&
+                                (k.defaultValue == null ? defaultValue == null : k.defaultValue.equals(defaultValue))) {
+                            return k;
+                        }
+                        if (sameType == null) {
+                            sameType = k;
+                        }
+                    }
+                }
+            }
+            if (sameType != null) {
+                return sameType;
+            }
+            register();
+            return this;
+        }
+    }
+
+    /**
+     * Returns the ordinal of this key.
+     * <p>
+     * Ordinals are assigned in the sequence in which keys are created,
+     * starting at 0. Each key has its own ordinal.
+     * The ordinal is only valid during the lifetime of the virtual machine,
+     * it must not be stored persistently.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the ordinal of this key among all keys of type Double, or -1
+     * if this key is not of type Double.
+     */
+    public int getDoubleOrdinal() {
+        return doubleOrdinal;
+    }
+
+    /**
+     * Returns the registered key with the specified ordinal.
+     */
+    public static AttributeKey<?> getKey(int ordinal) {
+        synchronized (registry) {
+            return registeredKeys.get(ordinal);
+        }
     }
 
     /**
@@ -140,14 +424,7 @@ public class AttributeKey<T> implements Serializable {
      */
     @SuppressWarnings("unchecked")
     public T getClone(Figure f) {
-        T value = get(f);
-        try {
-            return value == null ? null : clazz.cast(Methods.invoke(value, "clone"));
-        } catch (NoSuchMethodException ex) {
-            InternalError e = new InternalError();
-            e.initCause(ex);
-            throw e;
-        }
+        return copy(get(f));
     }
 
     /**
@@ -162,6 +439,25 @@ public class AttributeKey<T> implements Serializable {
         return (value == null && !isNullValueAllowed) ? defaultValue : value;
     }
 
+    /**
+     * Gets the value of an attribute of type Double from a Figure.
+     * <p>
+     * Figures, which hold their attributes in an {@link AttributeMap},
+     * return the value without boxing it. This method is used for reading
+     * attributes, which are read each time a figure is drawn.
+     *
+     * @param f A figure.
+     * @return The value of the attribute.
+     * @throws NullPointerException if the value of the attribute is null.
+     */
+    @SuppressWarnings("unchecked")
+    public double getDouble(Figure f) {
+        if (doubleOrdinal != -1 && f instanceof AbstractAttributedFigure) {
+            return ((AbstractAttributedFigure) f).getDoubleAttribute((AttributeKey<Double>) this);
+        }
+        return ((Number) get(f)).doubleValue();
+    }
+
     /**
      * Gets the value of the attribute denoted by this AttributeKey from
      * a Map.
@@ -215,34 +511,12 @@ public class AttributeKey<T> implements Serializable {
             throw new NullPointerException("Null value not allowed for AttributeKey " + key);
         }
 
-        final Object restoreData = figure.getAttributesRestoreData();
+        UndoableEdit edit = new AttributeChangeEdit(getPresentationName(),
+                Collections.singleton(figure),
+                Collections.<AttributeKey<?>, Object>singletonMap(this, value));
         figure.willChange();
         figure.setAttribute(this, value);
         figure.changed();
-
-        UndoableEdit edit = new AbstractUndoableEdit() {
-
-            @Override
-            public String getPresentationName() {
-                return AttributeKey.this.getPresentationName();
-            }
-
-            @Override
-            public void undo() {
-                super.undo();
-                figure.willChange();
-                figure.restoreAttributesTo(restoreData);
-                figure.changed();
-            }
-
-            @Override
-            public void redo() {
-                super.redo();
-                figure.willChange();
-                figure.setAttribute(AttributeKey.this, value);
-                figure.changed();
-            }
-        };
         return edit;
 
     }
@@ -272,14 +546,7 @@ public class AttributeKey<T> implements Serializable {
      * @param value the attribute value
      */
     public void basicSetClone(Figure f, T value) {
-        try {
-            basicSet(f, value == null ? null : clazz.cast(Methods.invoke(value, "clone")));
-
-        } catch (NoSuchMethodException ex) {
-            InternalError e = new InternalError();
-            e.initCause(ex);
-            throw e;
-        }
+        basicSet(f, copy(value));
     }
 
     /**
@@ -314,13 +581,7 @@ public class AttributeKey<T> implements Serializable {
      */
     @SuppressWarnings("unchecked")
     public void setClone(Map<AttributeKey, Object> a, T value) {
-        try {
-            set(a, value == null ? null : (T) Methods.invoke(value, "clone"));
-        } catch (NoSuchMethodException ex) {
-            InternalError e = new InternalError();
-            e.initCause(ex);
-            throw e;
-        }
+        set(a, copy(value));
     }
 
     /**
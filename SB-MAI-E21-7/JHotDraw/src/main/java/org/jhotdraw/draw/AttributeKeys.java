@@ -1,5 +1,5 @@
 /*
- * @(#)AttributeKeys.java  1.5.1  2009-03-29
+ * @(#)AttributeKeys.java  1.6  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -28,7 +28,9 @@ import org.jhotdraw.geom.*;
  * and to define all needed AttributeKeys as static variables in there.
  *
  * @author Werner Randelshofer
- * @version 1.5.1 2009-03-29 Method getStroke does not attempt to create a
+ * @version 1.6 2026-10-18 The stroke and font helper methods read attributes
+ * of type Double without boxing them.
+ * <br>1.5.1 2009-03-29 Method getStroke does not attempt to create a
  * dashed line, if all dashes are 0.
  * <br>1.8 2008-05-28 Added LAYOUT_ALIGNMENT.
  * <br>1.4 2007-12-16 Added CANVAS_FILL_COLOR.
@@ -388,10 +390,10 @@ public class AttributeKeys {
         switch (STROKE_TYPE.get(f)) {
             case BASIC:
             default:
-                return STROKE_WIDTH.get(f);
+                return STROKE_WIDTH.getDouble(f);
             // break; not reached
             case DOUBLE:
-                return STROKE_WIDTH.get(f) * (1d + STROKE_INNER_WIDTH_FACTOR.get(f));
+                return STROKE_WIDTH.getDouble(f) * (1d + STROKE_INNER_WIDTH_FACTOR.getDouble(f));
             // break; not reached
         }
     }
@@ -402,17 +404,17 @@ public class AttributeKeys {
      */
     public static double getStrokeTotalMiterLimit(Figure f) {
         if (IS_STROKE_MITER_LIMIT_FACTOR.get(f)) {
-            return STROKE_MITER_LIMIT.get(f) * STROKE_WIDTH.get(f);
+            return STROKE_MITER_LIMIT.getDouble(f) * STROKE_WIDTH.getDouble(f);
         } else {
-            return STROKE_MITER_LIMIT.get(f);
+            return STROKE_MITER_LIMIT.getDouble(f);
         }
     }
 
     public static Stroke getStroke(Figure f) {
-        double strokeWidth = STROKE_WIDTH.get(f);
+        double strokeWidth = STROKE_WIDTH.getDouble(f);
         float miterLimit = (float) getStrokeTotalMiterLimit(f);
         double dashFactor = IS_STROKE_DASH_FACTOR.get(f) ? strokeWidth : 1d;
-        double dashPhase = STROKE_DASH_PHASE.get(f);
+        double dashPhase = STROKE_DASH_PHASE.getDouble(f);
         double[] ddashes = STROKE_DASHES.get(f);
         float[] dashes = null;
         boolean isAllZeroes = true;
@@ -449,7 +451,7 @@ public class AttributeKeys {
 
             case DOUBLE:
                 return new DoubleStroke(
-                        (float) (STROKE_INNER_WIDTH_FACTOR.get(f) * strokeWidth),
+                        (float) (STROKE_INNER_WIDTH_FACTOR.getDouble(f) * strokeWidth),
                         (float) strokeWidth,
                         STROKE_CAP.get(f),
                         STROKE_JOIN.get(f),
@@ -467,7 +469,7 @@ public class AttributeKeys {
      * @return A stroke suited for creating a shape for hit testing.
      */
     public static Stroke getHitStroke(Figure f) {
-        double strokeWidth = Math.max(1, STROKE_WIDTH.get(f));
+        double strokeWidth = Math.max(1, STROKE_WIDTH.getDouble(f));
         float miterLimit = (float) getStrokeTotalMiterLimit(f);
         double dashFactor = IS_STROKE_DASH_FACTOR.get(f) ? strokeWidth : 1d;
         switch (STROKE_TYPE.get(f)) {
@@ -477,17 +479,17 @@ public class AttributeKeys {
                         STROKE_CAP.get(f),
                         STROKE_JOIN.get(f),
                         miterLimit,
-                        null, Math.max(0, (float) (STROKE_DASH_PHASE.get(f) * dashFactor)));
+                        null, Math.max(0, (float) (STROKE_DASH_PHASE.getDouble(f) * dashFactor)));
             //not reached
 
             case DOUBLE:
                 return new DoubleStroke(
-                        (float) (STROKE_INNER_WIDTH_FACTOR.get(f) * strokeWidth),
+                        (float) (STROKE_INNER_WIDTH_FACTOR.getDouble(f) * strokeWidth),
                         (float) strokeWidth,
                         STROKE_CAP.get(f),
                         STROKE_JOIN.get(f),
                         miterLimit,
-                        null, Math.max(0, (float) (STROKE_DASH_PHASE.get(f).floatValue() * dashFactor)));
+                        null, Math.max(0, (float) ((float) STROKE_DASH_PHASE.getDouble(f) * dashFactor)));
             //not reached
         }
     }
@@ -498,9 +500,9 @@ public class AttributeKeys {
             return null;
         }
         if (getFontStyle(f) != Font.PLAIN) {
-            return prototype.deriveFont(getFontStyle(f), FONT_SIZE.get(f).floatValue());
+            return prototype.deriveFont(getFontStyle(f), (float) FONT_SIZE.getDouble(f));
         } else {
-            return prototype.deriveFont(FONT_SIZE.get(f).floatValue());
+            return prototype.deriveFont((float) FONT_SIZE.getDouble(f));
         }
     }
 
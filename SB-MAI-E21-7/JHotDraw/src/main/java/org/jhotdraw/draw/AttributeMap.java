@@ -0,0 +1,350 @@
+/*
+ * @(#)AttributeMap.java  1.1  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * AttributeMap is a compact map from attribute keys to attribute values.
+ * <p>
+ * The values are held in an array, which is indexed by the ordinal of the
+ * attribute key. Values of keys of type Double are held unboxed in an
+ * array of primitive doubles, which is indexed by the double ordinal of the
+ * key. Null values are supported: a key which maps to null is contained in
+ * the map.
+ * <p>
+ * Reading a value of a key of type Double through the Map interface boxes
+ * the value. Use {@link AttributeKey#getDouble} to read it without boxing.
+ * <p>
+ * Keys are distinguished by their ordinal. Each key has its own ordinal,
+ * also if another key has the same key string.
+ * <p>
+ * The entries are iterated in the sequence of the ordinals of their keys.
+ * <p>
+ * The map uses the raw type AttributeKey for its keys, because this is the
+ * key type of the attribute maps of {@link Figure}.
+ *
+ * @author Werner Randelshofer
+ * @version 1.1 2026-10-18 Added methods isUnboxed and getUnboxed.
+ * <br>1.0.1 2026-10-18 Uses wildcard types for attribute keys, where
+ * the raw type is not required by the Map interface.
+ * <br>1.0 2026-10-18 Created.
+ * @see AttributeKey#getOrdinal
+ */
+@SuppressWarnings("rawtypes")
+public class AttributeMap extends AbstractMap<AttributeKey, Object>
+        implements Cloneable, Serializable {
+
+    private final static long serialVersionUID = 1L;
+    /**
+     * Holds the values by ordinal. This is null, until a value is put
+     * which is not held in the doubles array.
+     */
+    private transient Object[] values;
+    /**
+     * Holds the values of keys of type Double by double ordinal.
+     */
+    private transient double[] doubles;
+    /**
+     * Holds a bit for each ordinal, which is set if the map contains the key.
+     */
+    private transient long[] contained;
+    /**
+     * Holds a bit for each ordinal, which is set if the value is held in the
+     * doubles array.
+     */
+    private transient long[] unboxed;
+    private transient int size;
+
+    /** Creates a new empty instance. */
+    public AttributeMap() {
+        contained = new long[1];
+        unboxed = new long[1];
+    }
+
+    /** Creates a new instance with the entries of the specified map. */
+    public AttributeMap(Map<AttributeKey, Object> map) {
+        this();
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof AttributeKey) && isSet(contained, ((AttributeKey<?>) key).getOrdinal());
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key instanceof AttributeKey) {
+            AttributeKey<?> k = (AttributeKey<?>) key;
+            return get(k.getOrdinal(), k.getDoubleOrdinal());
+        }
+        return null;
+    }
+
+    private Object get(int ordinal, int doubleOrdinal) {
+        if (isSet(unboxed, ordinal)) {
+            return doubles[doubleOrdinal];
+        }
+        return (values == null || ordinal >= values.length) ? null : values[ordinal];
+    }
+
+    /**
+     * Returns the value of a key of type Double without boxing it.
+     * Returns the specified default value, if the map does not contain
+     * a non-null value for the key.
+     */
+    public double getDouble(AttributeKey<Double> key, double defaultValue) {
+        int ordinal = key.getOrdinal();
+        if (isSet(unboxed, ordinal)) {
+            return doubles[key.getDoubleOrdinal()];
+        }
+        Object value = get(ordinal, -1);
+        return (value == null) ? defaultValue : (Double) value;
+    }
+
+    /**
+     * Returns true, if the value of the specified key is held unboxed in the
+     * doubles array.
+     */
+    boolean isUnboxed(AttributeKey<?> key) {
+        return isSet(unboxed, key.getOrdinal());
+    }
+
+    /**
+     * Returns the value of a key, which is held unboxed in the doubles array.
+     *
+     * @see #isUnboxed
+     */
+    double getUnboxed(AttributeKey<?> key) {
+        return doubles[key.getDoubleOrdinal()];
+    }
+
+    @Override
+    public Object put(AttributeKey key, Object value) {
+        int ordinal = key.getOrdinal();
+        int doubleOrdinal = key.getDoubleOrdinal();
+        Object oldValue = get(ordinal, doubleOrdinal);
+        if (!isSet(contained, ordinal)) {
+            contained = set(contained, ordinal);
+            size++;
+        }
+        if (doubleOrdinal != -1 && value instanceof Double) {
+            if (doubles == null || doubleOrdinal >= doubles.length) {
+                doubles = (doubles == null) ? new double[(doubleOrdinal & ~3) + 4] : Arrays.copyOf(doubles, (doubleOrdinal & ~3) + 4);
+            }
+            doubles[doubleOrdinal] = (Double) value;
+            unboxed = set(unboxed, ordinal);
+            if (values != null && ordinal < values.length) {
+                values[ordinal] = null;
+            }
+        } else {
+            clear(unboxed, ordinal);
+            if (value != null || (values != null && ordinal < values.length)) {
+                if (values == null || ordinal >= values.length) {
+                    values = (values == null) ? new Object[(ordinal & ~7) + 8] : Arrays.copyOf(values, (ordinal & ~7) + 8);
+                }
+                values[ordinal] = value;
+            }
+        }
+        return oldValue;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        Object oldValue = get(key);
+        removeOrdinal(((AttributeKey<?>) key).getOrdinal());
+        return oldValue;
+    }
+
+    private void removeOrdinal(int ordinal) {
+        clear(contained, ordinal);
+        clear(unboxed, ordinal);
+        if (values != null && ordinal < values.length) {
+            values[ordinal] = null;
+        }
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        values = null;
+        doubles = null;
+        contained = new long[1];
+        unboxed = new long[1];
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<AttributeKey, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<AttributeKey, Object>>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<AttributeKey, Object>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    @Override
+    public AttributeMap clone() {
+        try {
+            AttributeMap that = (AttributeMap) super.clone();
+            that.values = (values == null) ? null : values.clone();
+            that.doubles = (doubles == null) ? null : doubles.clone();
+            that.contained = contained.clone();
+            that.unboxed = unboxed.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            InternalError error = new InternalError(e.getMessage());
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * Writes the entries of the map. Ordinals are not written, because
+     * they are only valid during the lifetime of the virtual machine.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Map.Entry<AttributeKey, Object> entry : entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            AttributeKey<?> key = (AttributeKey<?>) in.readObject();
+            put(key, in.readObject());
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    private static long[] set(long[] bits, int index) {
+        int word = index >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, word + 1);
+        }
+        bits[word] |= 1L << index;
+        return bits;
+    }
+
+    private static void clear(long[] bits, int index) {
+        int word = index >>> 6;
+        if (word < bits.length) {
+            bits[word] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Iterates over the entries in the sequence of the ordinals of their keys.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<AttributeKey, Object>> {
+
+        private int next = nextOrdinal(0);
+        private int current = -1;
+
+        private int nextOrdinal(int from) {
+            for (int word = from >>> 6; word < contained.length; word++) {
+                long bits = contained[word];
+                if (word == from >>> 6) {
+                    bits &= -1L << from;
+                }
+                if (bits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            return -1;
+        }
+
+        public boolean hasNext() {
+            return next != -1;
+        }
+
+        public Map.Entry<AttributeKey, Object> next() {
+            if (next == -1) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = nextOrdinal(current + 1);
+            final AttributeKey<?> key = AttributeKey.getKey(current);
+            return new Map.Entry<AttributeKey, Object>() {
+
+                public AttributeKey getKey() {
+                    return key;
+                }
+
+                public Object getValue() {
+                    return get(key);
+                }
+
+                public Object setValue(Object value) {
+                    return put(key, value);
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (o instanceof Map.Entry) {
+                        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                        Object value = getValue();
+                        return getKey().equals(e.getKey()) &&
+                                (value == null ? e.getValue() == null : value.equals(e.getValue()));
+                    }
+                    return false;
+                }
+
+                @Override
+                public int hashCode() {
+                    Object value = getValue();
+                    return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+                }
+
+                @Override
+                public String toString() {
+                    return getKey() + "=" + getValue();
+                }
+            };
+        }
+
+        public void remove() {
+            if (current == -1 || !isSet(contained, current)) {
+                throw new IllegalStateException();
+            }
+            removeOrdinal(current);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)DefaultDragTracker.java  2.0.1  2007-11-05
+ * @(#)DefaultDragTracker.java  2.1  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -16,6 +16,7 @@ package org.jhotdraw.draw;
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.event.*;
+import java.awt.image.*;
 import java.util.*;
 
 /**
@@ -37,11 +38,17 @@ import java.util.*;
  * Role: State.<br>
  * Partners: {@link SelectAreaTracker} as State, {@link SelectionTool} as 
  * Context, {@link HandleTracker} as State. 
+ * <p>
+ * If the number of dragged figures reaches the ghost drag threshold, the
+ * figures are rasterized into an image when the drag starts. While the
+ * mouse is dragged, only the image is moved. The figures are transformed
+ * once in a single drawing update, when the mouse is released.
  *
  * @see SelectionTool
  *
  * @author Werner Randelshofer
- * @version 2.0.1 2007-11-05 Fixed a null pointer exception in method
+ * @version 2.1 2026-10-18 Added ghost drag mode for large selections.
+ * <br>2.0.1 2007-11-05 Fixed a null pointer exception in method
  * mousePressed which occured, when the user deselected the selected
  * figure using shift-click.
  * <br>2.0 2006-01-14 Changed to support double precision coordinates.
@@ -78,6 +85,26 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
      */
     protected Point2D.Double anchorPoint;
     private boolean isDragging;
+    /**
+     * The minimal number of dragged figures for which the drag tracker
+     * moves a raster image instead of the figures.
+     */
+    private int ghostDragThreshold = Integer.MAX_VALUE;
+    /**
+     * The raster image of the dragged figures. This is null, if the
+     * figures are not dragged as a raster image.
+     */
+    private BufferedImage ghostImage;
+    /**
+     * The location of the raster image in view coordinates at the time
+     * the drag started.
+     */
+    private Rectangle ghostBounds;
+    /**
+     * The area in view coordinates, where the raster image was drawn
+     * the last time.
+     */
+    private Rectangle ghostArea;
 
     /** Creates a new instance. */
     public DefaultDragTracker(Figure figure) {
@@ -125,6 +152,7 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
             anchorPoint = previousPoint = view.viewToDrawing(anchor);
             anchorOrigin = previousOrigin = new Point2D.Double(dragRect.x, dragRect.y);
         }
+        disposeGhostImage();
     }
 
     public void mouseDragged(MouseEvent evt) {
@@ -133,6 +161,9 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
             if (isDragging == false) {
                 isDragging = true;
                 updateCursor(editor.findView((Container) evt.getSource()), new Point(evt.getX(), evt.getY()));
+                if (view.getSelectionCount() >= ghostDragThreshold) {
+                    createGhostImage(view);
+                }
             }
 
             Point2D.Double currentPoint = view.viewToDrawing(new Point(evt.getX(), evt.getY()));
@@ -145,19 +176,121 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
                         constrainedRect);
             }
 
-            AffineTransform tx = new AffineTransform();
-            tx.translate(
-                    constrainedRect.x - previousOrigin.x,
-                    constrainedRect.y - previousOrigin.y);
-            Constrainer c = view.getConstrainer();
-            for (Figure f : view.getSelectedFigures()) {
+            if (ghostImage == null) {
+                AffineTransform tx = new AffineTransform();
+                tx.translate(
+                        constrainedRect.x - previousOrigin.x,
+                        constrainedRect.y - previousOrigin.y);
+                Constrainer c = view.getConstrainer();
+                for (Figure f : view.getSelectedFigures()) {
                     f.willChange();
                     f.transform(tx);
                     f.changed();
+                }
             }
 
             previousPoint = currentPoint;
             previousOrigin = new Point2D.Double(constrainedRect.x, constrainedRect.y);
+
+            if (ghostImage != null) {
+                Rectangle oldArea = ghostArea;
+                ghostArea = getGhostArea(view);
+                fireAreaInvalidated(oldArea.union(ghostArea));
+            }
+        }
+    }
+
+    /**
+     * Sets the minimal number of dragged figures for which the drag tracker
+     * moves a raster image of the figures instead of the figures themselves.
+     * Specify Integer.MAX_VALUE to always drag the figures.
+     */
+    public void setGhostDragThreshold(int newValue) {
+        ghostDragThreshold = newValue;
+    }
+
+    public int getGhostDragThreshold() {
+        return ghostDragThreshold;
+    }
+
+    /**
+     * Returns true, if the drag tracker currently drags a raster image
+     * of the figures instead of the figures themselves.
+     */
+    public boolean isGhostDragging() {
+        return ghostImage != null;
+    }
+
+    /**
+     * Rasterizes the selected figures into the ghost image. Only the part
+     * of the figures, which is visible in the view, is rasterized.
+     */
+    protected void createGhostImage(DrawingView view) {
+        Rectangle2D.Double drawingArea = null;
+        for (Figure f : view.getSelectedFigures()) {
+            if (drawingArea == null) {
+                drawingArea = f.getDrawingArea();
+            } else {
+                drawingArea.add(f.getDrawingArea());
+            }
+        }
+        Point p1 = view.drawingToView(new Point2D.Double(drawingArea.x, drawingArea.y));
+        Point p2 = view.drawingToView(new Point2D.Double(drawingArea.x + drawingArea.width, drawingArea.y + drawingArea.height));
+        Rectangle r = new Rectangle(p1.x - 1, p1.y - 1, p2.x - p1.x + 2, p2.y - p1.y + 2);
+        r = r.intersection(view.getComponent().getVisibleRect());
+        if (r.isEmpty()) {
+            return;
+        }
+
+        ghostImage = new BufferedImage(r.width, r.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = ghostImage.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        g.translate(-r.x, -r.y);
+        g.transform(view.getDrawingToViewTransform());
+        for (Figure f : getDrawing().sort(view.getSelectedFigures())) {
+            f.draw(g);
+        }
+        g.dispose();
+        ghostBounds = r;
+        ghostArea = getGhostArea(view);
+    }
+
+    /**
+     * Returns the area in view coordinates, where the ghost image is
+     * drawn at the current drag location.
+     */
+    private Rectangle getGhostArea(DrawingView view) {
+        Point p1 = view.drawingToView(anchorOrigin);
+        Point p2 = view.drawingToView(previousOrigin);
+        Rectangle r = new Rectangle(ghostBounds);
+        r.translate(p2.x - p1.x, p2.y - p1.y);
+        return r;
+    }
+
+    @Override
+    public void deactivate(DrawingEditor editor) {
+        disposeGhostImage();
+        super.deactivate(editor);
+    }
+
+    private void disposeGhostImage() {
+        if (ghostImage != null) {
+            ghostImage.flush();
+            ghostImage = null;
+            if (getView() != null) {
+                fireAreaInvalidated(ghostArea);
+            }
+        }
+    }
+
+    @Override
+    public void draw(Graphics2D g) {
+        if (ghostImage != null) {
+            Composite savedComposite = g.getComposite();
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.6f));
+            g.drawImage(ghostImage, ghostArea.x, ghostArea.y, null);
+            g.setComposite(savedComposite);
         }
     }
 
@@ -172,6 +305,17 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
             Point2D.Double newPoint = view.viewToDrawing(new Point(x, y));
 
             Collection<Figure> draggedFigures = new LinkedList<Figure>(view.getSelectedFigures());
+            if (ghostImage != null) {
+                // The figures have not been moved during the drag.
+                disposeGhostImage();
+                AffineTransform tx = new AffineTransform();
+                tx.translate(
+                        previousOrigin.x - anchorOrigin.x,
+                        previousOrigin.y - anchorOrigin.y);
+                if (!tx.isIdentity()) {
+                    transformInUpdate(draggedFigures, tx);
+                }
+            }
             Figure dropTarget = getDrawing().findFigureExcept(newPoint, draggedFigures);
             if (dropTarget != null) {
                 boolean snapBack = dropTarget.handleDrop(newPoint, draggedFigures, view);
@@ -180,12 +324,7 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
                     tx.translate(
                             anchorOrigin.x - previousOrigin.x,
                             anchorOrigin.y - previousOrigin.y);
-                    Constrainer c = view.getConstrainer();
-                    for (Figure f : draggedFigures) {
-                        f.willChange();
-                        f.transform(tx);
-                        f.changed();
-                    }
+                    transformInUpdate(draggedFigures, tx);
                     fireToolDone();
                     return;
                 }
@@ -203,6 +342,23 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
         fireToolDone();
     }
 
+    /**
+     * Transforms the specified figures in a single drawing update.
+     */
+    private void transformInUpdate(Collection<Figure> figures, AffineTransform tx) {
+        Drawing drawing = getDrawing();
+        drawing.beginUpdate();
+        try {
+            for (Figure f : figures) {
+                f.willChange();
+                f.transform(tx);
+                f.changed();
+            }
+        } finally {
+            drawing.endUpdate();
+        }
+    }
+
     public void setDraggedFigure(Figure f) {
         anchorFigure = f;
     }
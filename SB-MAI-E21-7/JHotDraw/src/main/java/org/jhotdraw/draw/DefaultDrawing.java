@@ -1,5 +1,5 @@
 /*
- * @(#)DefaultDrawing.java  2.2.2  2009-04-04
+ * @(#)DefaultDrawing.java  2.3  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -31,7 +31,9 @@ import org.jhotdraw.geom.Geom;
  *
  *
  * @author Werner Randelshofer
- * @version 2.2.2 2009-04-04 Adding figures did not invalidate sort order.
+ * @version 2.3 2026-10-18 Draws the children with the level of detail
+ * policy of the graphics.
+ * <br>2.2.2 2009-04-04 Adding figures did not invalidate sort order.
  * <br>2.2.1 Fixed NullPointerException when setting canvas size.
  * <br>2.2 2007-04-09 Methods setCanvasSize, getCanvasSize added.
  * <br>2.1 2007-02-09 Moved FigureListener and UndoableEditListener into
@@ -73,16 +75,14 @@ public class DefaultDrawing
 
     public void draw(Graphics2D g, Collection<Figure> children) {
         Rectangle2D clipBounds = g.getClipBounds();
-        if (clipBounds != null) {
-            for (Figure f : children) {
-                if (f.isVisible() && f.getDrawingArea().intersects(clipBounds)) {
-                    f.draw(g);
-                }
-            }
-        } else {
-            for (Figure f : children) {
-                if (f.isVisible()) {
+        LevelOfDetailPolicy lod = LevelOfDetailPolicy.get(g);
+        for (Figure f : children) {
+            if (f.isVisible() &&
+                    (clipBounds == null || f.getDrawingArea().intersects(clipBounds))) {
+                if (lod == null) {
                     f.draw(g);
+                } else {
+                    lod.draw(g, f);
                 }
             }
         }
@@ -1,5 +1,5 @@
 /*
- * @(#)DefaultDrawingView.java  4.6  2009-04-25
+ * @(#)DefaultDrawingView.java  5.3.2  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -22,10 +22,12 @@ import java.awt.geom.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import org.jhotdraw.app.EditableComponent;
 import org.jhotdraw.app.JHotDrawFeatures;
+import org.jhotdraw.geom.QuadTree;
 import static org.jhotdraw.draw.AttributeKeys.*;
 
 /**
@@ -36,7 +38,25 @@ import static org.jhotdraw.draw.AttributeKeys.*;
  * FIXME - Use double buffering for the drawing to improve performance.
  *
  * @author Werner Randelshofer
- * @version 4.6 2009-04-25 Center drawing in view, if view is larger than
+ * @version 5.3.2 2026-10-18 A stale render job is cancelled, and the next
+ * job is only started when it has finished. Cancelled jobs do not allocate
+ * an image.
+ * <br>5.3.1 2026-10-18 Retains the snapshot clones of the drawing
+ * only while progressive rendering is enabled.
+ * <br>5.3 2026-10-18 Added optional progressive rendering of the
+ * drawing on a worker thread.
+ * <br>5.2 2026-10-18 Added optional level of detail policy for
+ * painting.
+ * <br>5.1 2026-10-18 Delete and duplicate edits report their size
+ * and can spill image data.
+ * <br>5.0 2026-10-18 Finds handles with a spatial index. Creates
+ * aggregate handles for huge selections.
+ * <br>4.9 2026-10-18 Selection changes are fired as deltas, and
+ * handles are only created and disposed for the affected figures.
+ * <br>4.8 2026-10-18 Does not repaint figures, which are added or
+ * removed during an update transaction of the drawing, one by one.
+ * <br>4.7 2026-10-18 Added optional tile cache for the drawing.
+ * <br>4.6 2009-04-25 Center drawing in view, if view is larger than
  * the canvas size.
  * <br>4.5.3 2008-09-01 Use an ordered set for the selected figures.
  * <br>4.5.2 2008-06-09 A DrawingView must not create Handle's, if it
@@ -80,6 +100,41 @@ public class DefaultDrawingView
     private Set<Figure> selectedFigures = new LinkedHashSet<Figure>();
     //private int rainbow = 0;
     private LinkedList<Handle> selectionHandles = new LinkedList<Handle>();
+    /**
+     * Holds the selection handles of each selected figure, while the
+     * handles are valid.
+     */
+    private HashMap<Figure, java.util.List<Handle>> figureHandles = new HashMap<Figure, java.util.List<Handle>>();
+    /**
+     * Holds the handles, which have been disposed, but not yet removed from
+     * the selectionHandles list.
+     */
+    private HashSet<Handle> disposedSelectionHandles = new HashSet<Handle>();
+    /**
+     * The name of the "handleAggregationThreshold" property.
+     */
+    public final static String HANDLE_AGGREGATION_THRESHOLD_PROPERTY = "handleAggregationThreshold";
+    /**
+     * If more figures than this are selected, aggregate handles are created
+     * for the selection as a whole, instead of handles for each figure.
+     */
+    private int handleAggregationThreshold = 500;
+    /**
+     * The owner of the aggregate handles. This is null, if handles are
+     * created for each selected figure.
+     */
+    private SelectionGroupFigure selectionGroupFigure;
+    /**
+     * Spatial index over the drawing areas of the selection handles.
+     * This is null, if the index needs to be rebuilt.
+     */
+    private transient QuadTree<Handle> handleIndex;
+    /**
+     * The position of each handle in the selection handles list. The index
+     * is only built, if there are more selection handles than this.
+     */
+    private transient HashMap<Handle, Integer> handlePositions;
+    private final static int HANDLE_INDEX_THRESHOLD = 64;
     private boolean isConstrainerVisible = false;
     private Constrainer visibleConstrainer = new GridConstrainer(8, 8);
     private Constrainer invisibleConstrainer = new GridConstrainer();
@@ -99,6 +154,11 @@ public class DefaultDrawingView
         public void figureHandlesChanged(FigureEvent e) {
             invalidateHandles();
         }
+
+        @Override
+        public void figureChanged(FigureEvent e) {
+            handleIndex = null;
+        }
     };
     private ChangeListener changeHandler = new ChangeListener() {
 
@@ -107,6 +167,56 @@ public class DefaultDrawingView
         }
     };
     private transient Rectangle2D.Double cachedDrawingArea;
+    /**
+     * The name of the "tileCacheEnabled" property.
+     */
+    public final static String TILE_CACHE_ENABLED_PROPERTY = "tileCacheEnabled";
+    /**
+     * Holds the rasterized tiles of the drawing, if the tile cache is
+     * enabled. This is null, if the tile cache is disabled.
+     */
+    private transient TileCache tileCache;
+    /**
+     * The memory budget of the tile cache in bytes.
+     */
+    private long tileCacheMemoryBudget = 64L << 20;
+    /**
+     * The name of the "levelOfDetailPolicy" property.
+     */
+    public final static String LEVEL_OF_DETAIL_POLICY_PROPERTY = "levelOfDetailPolicy";
+    /**
+     * The level of detail policy used for painting the drawing. This is
+     * null, if the figures are always painted in full detail.
+     */
+    private LevelOfDetailPolicy levelOfDetailPolicy;
+    /**
+     * This is set to true while the view is printed.
+     */
+    private boolean isPrinting;
+    /**
+     * The name of the "progressiveRenderingEnabled" property.
+     */
+    public final static String PROGRESSIVE_RENDERING_ENABLED_PROPERTY = "progressiveRenderingEnabled";
+    private boolean isProgressiveRenderingEnabled;
+    /**
+     * The last complete frame of the progressive rendering. This is null,
+     * if no frame has been rendered yet.
+     */
+    private transient RenderedFrame renderedFrame;
+    /**
+     * The render job, which is in progress. This is null, if no job is
+     * in progress.
+     */
+    private transient RenderJob renderJob;
+    /**
+     * A render job checks between chunks of this many figures, whether it
+     * has been cancelled.
+     */
+    private final static int RENDER_CHUNK_SIZE = 128;
+    /**
+     * Executes the render jobs of all views.
+     */
+    private static ExecutorService renderExecutor;
 
     public void repaintHandles() {
         validateHandles();
@@ -134,20 +244,28 @@ public class DefaultDrawingView
 
         public void figureAdded(CompositeFigureEvent evt) {
             if (drawing.getChildCount() == 1 && getEmptyDrawingMessage() != null) {
+                invalidateTiles(evt.getInvalidatedArea());
                 repaint();
-            } else {
+            } else if (!drawing.isUpdating()) {
+                // During an update, the drawing fires a single
+                // areaInvalidated event for all added figures.
                 repaintDrawingArea(evt.getInvalidatedArea());
+            } else {
+                return;
             }
             invalidateDimension();
         }
 
         public void figureRemoved(CompositeFigureEvent evt) {
+            removeFromSelection(evt.getChildFigure());
             if (drawing.getChildCount() == 0 && getEmptyDrawingMessage() != null) {
+                invalidateTiles(evt.getInvalidatedArea());
                 repaint();
-            } else {
+            } else if (!drawing.isUpdating()) {
                 repaintDrawingArea(evt.getInvalidatedArea());
+            } else {
+                return;
             }
-            removeFromSelection(evt.getChildFigure());
             invalidateDimension();
         }
 
@@ -195,6 +313,9 @@ public class DefaultDrawingView
                 if (e.getAttribute().equals(CANVAS_HEIGHT) || e.getAttribute().equals(CANVAS_WIDTH)) {
                     validateViewTranslation();
                 }
+                if (tileCache != null) {
+                    tileCache.clear();
+                }
                 repaint();
             } else {
                 repaintDrawingArea(e.getInvalidatedArea());
@@ -285,7 +406,26 @@ public class DefaultDrawingView
     public void paintComponent(Graphics gr) {
         Graphics2D g = (Graphics2D) gr;
 
-        // Set rendering hints for speed
+        setPaintingHints(g);
+
+        drawBackground(g);
+        drawConstrainer(g);
+        if (isProgressiveRenderingEnabled && drawing instanceof AbstractDrawing &&
+                (drawing.getChildCount() > 0 || emptyDrawingLabel == null)) {
+            drawProgressiveDrawing(g);
+        } else if (tileCache != null) {
+            drawTiledDrawing(g);
+        } else {
+            drawDrawing(g);
+        }
+        drawHandles(g);
+        drawTool(g);
+    }
+
+    /**
+     * Sets the rendering hints for fast painting.
+     */
+    private void setPaintingHints(Graphics2D g) {
         g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
@@ -293,12 +433,6 @@ public class DefaultDrawingView
         g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
         g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
         g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, (Options.isTextAntialiased()) ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
-
-        drawBackground(g);
-        drawConstrainer(g);
-        drawDrawing(g);
-        drawHandles(g);
-        drawTool(g);
     }
 
     /**
@@ -319,7 +453,12 @@ public class DefaultDrawingView
         g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
         g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
         g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, (Options.isTextAntialiased()) ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
-        drawDrawing(g);
+        isPrinting = true;
+        try {
+            drawDrawing(g);
+        } finally {
+            isPrinting = false;
+        }
     }
 
     protected void drawBackground(Graphics2D g) {
@@ -403,6 +542,9 @@ public class DefaultDrawingView
                 tx.translate(-translate.x * scaleFactor, -translate.y * scaleFactor);
                 tx.scale(scaleFactor, scaleFactor);
                 g.setTransform(tx);
+                if (levelOfDetailPolicy != null && !isPrinting) {
+                    g.setRenderingHint(LevelOfDetailPolicy.KEY_LEVEL_OF_DETAIL, levelOfDetailPolicy);
+                }
 
                 drawing.setFontRenderContext(g.getFontRenderContext());
                 drawing.draw(g);
@@ -412,6 +554,390 @@ public class DefaultDrawingView
         }
     }
 
+    /**
+     * Draws the drawing using the tile cache.
+     * Tiles which intersect the clip bounds and which are not in the cache
+     * are rasterized before they are drawn.
+     */
+    protected void drawTiledDrawing(Graphics2D g) {
+        if (drawing != null) {
+            if (drawing.getChildCount() == 0 && emptyDrawingLabel != null) {
+                drawDrawing(g);
+            } else {
+                Rectangle clipBounds = g.getClipBounds();
+                if (clipBounds == null) {
+                    clipBounds = new Rectangle(0, 0, getWidth(), getHeight());
+                }
+                // Position of the zero coordinate point on the view
+                int x = (int) Math.round(-translate.x * scaleFactor);
+                int y = (int) Math.round(-translate.y * scaleFactor);
+                int size = TileCache.TILE_SIZE;
+
+                int tx0 = (int) Math.floor((clipBounds.x - x) / (double) size);
+                int ty0 = (int) Math.floor((clipBounds.y - y) / (double) size);
+                int tx1 = (int) Math.floor((clipBounds.x + clipBounds.width - 1 - x) / (double) size);
+                int ty1 = (int) Math.floor((clipBounds.y + clipBounds.height - 1 - y) / (double) size);
+                for (int ty = ty0; ty <= ty1; ty++) {
+                    for (int tx = tx0; tx <= tx1; tx++) {
+                        BufferedImage tile = tileCache.getTile(scaleFactor, tx, ty);
+                        if (tile == null) {
+                            tile = createTile(tx, ty);
+                            tileCache.putTile(scaleFactor, tx, ty, tile);
+                        }
+                        g.drawImage(tile, x + tx * size, y + ty * size, null);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Rasterizes the specified tile of the drawing at the current
+     * scale factor.
+     */
+    private BufferedImage createTile(int tx, int ty) {
+        int size = TileCache.TILE_SIZE;
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage tile = (gc == null) ? new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE) : gc.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+        Graphics2D g = tile.createGraphics();
+        setPaintingHints(g);
+        g.setClip(0, 0, size, size);
+        g.translate(-tx * size, -ty * size);
+        g.scale(scaleFactor, scaleFactor);
+        if (levelOfDetailPolicy != null) {
+            g.setRenderingHint(LevelOfDetailPolicy.KEY_LEVEL_OF_DETAIL, levelOfDetailPolicy);
+        }
+
+        drawing.setFontRenderContext(g.getFontRenderContext());
+        drawing.draw(g);
+
+        g.dispose();
+        return tile;
+    }
+
+    /**
+     * Discards the tiles of the tile cache which intersect the specified
+     * area.
+     *
+     * @param r An area in drawing coordinates.
+     */
+    protected void invalidateTiles(Rectangle2D.Double r) {
+        if (tileCache != null) {
+            tileCache.invalidate(r);
+        }
+    }
+
+    /**
+     * Draws the last complete frame of the progressive rendering, and
+     * starts a render job, if the frame does not show the current state of
+     * the drawing in the visible area of the view.
+     * <p>
+     * If the scale factor or the translation of the view has changed since
+     * the frame was rendered, the frame is scaled and moved accordingly.
+     */
+    protected void drawProgressiveDrawing(Graphics2D g) {
+        Rectangle viewRect = getVisibleRect();
+        if (viewRect.isEmpty()) {
+            return;
+        }
+        AbstractDrawing d = (AbstractDrawing) drawing;
+        RenderedFrame frame = renderedFrame;
+        if (frame != null && frame.drawing == d) {
+            Graphics2D gf = (Graphics2D) g.create();
+            if (frame.scaleFactor != scaleFactor || !frame.translate.equals(translate)) {
+                gf.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                gf.translate((frame.translate.x - translate.x) * scaleFactor,
+                        (frame.translate.y - translate.y) * scaleFactor);
+                gf.scale(scaleFactor / frame.scaleFactor, scaleFactor / frame.scaleFactor);
+            }
+            gf.drawImage(frame.image, frame.viewRect.x, frame.viewRect.y, null);
+            gf.dispose();
+        }
+
+        boolean isFrameCurrent = frame != null && frame.drawing == d &&
+                frame.isRenderedFor(viewRect, scaleFactor, translate) &&
+                frame.modificationCount == d.getModificationCount();
+        if (!isFrameCurrent) {
+            if (renderJob == null) {
+                renderJob = new RenderJob(d, viewRect);
+                getRenderExecutor().execute(renderJob);
+            } else if (!renderJob.frame.isRenderedFor(viewRect, scaleFactor, translate)) {
+                // The view has been zoomed or scrolled: the job is stale.
+                renderJob.cancel();
+            }
+            // While a job is in progress, we do not start another one,
+            // because each job needs a snapshot of the drawing. When the
+            // job has finished, the view is repainted, and we check again.
+        }
+    }
+
+    private static synchronized ExecutorService getRenderExecutor() {
+        if (renderExecutor == null) {
+            renderExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "DrawingView Renderer");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }
+            });
+        }
+        return renderExecutor;
+    }
+
+    /**
+     * A frame of the progressive rendering.
+     */
+    private static class RenderedFrame {
+
+        private AbstractDrawing drawing;
+        private BufferedImage image;
+        /**
+         * The area of the view covered by the frame.
+         */
+        private Rectangle viewRect;
+        private double scaleFactor;
+        private Point2D.Double translate;
+        /**
+         * The modification count of the drawing, when the frame was
+         * rendered. This is -1, if the frame has been invalidated.
+         */
+        private long modificationCount;
+
+        public boolean isRenderedFor(Rectangle viewRect, double scaleFactor, Point2D.Double translate) {
+            return this.scaleFactor == scaleFactor &&
+                    this.translate.equals(translate) &&
+                    this.viewRect.contains(viewRect);
+        }
+    }
+
+    /**
+     * Renders a snapshot of the drawing into a frame on a worker thread.
+     * The figures are drawn in z-order, in chunks of
+     * {@code RENDER_CHUNK_SIZE} figures. The job stops after a chunk, if it
+     * has been cancelled.
+     */
+    private class RenderJob implements Runnable {
+
+        private RenderedFrame frame;
+        private AbstractDrawing snapshot;
+        private LevelOfDetailPolicy levelOfDetailPolicy;
+        private volatile boolean isCancelled;
+
+        /**
+         * Creates a new job. This constructor must be invoked on the AWT
+         * Event Dispatcher Thread.
+         */
+        public RenderJob(AbstractDrawing drawing, Rectangle viewRect) {
+            frame = new RenderedFrame();
+            frame.drawing = drawing;
+            frame.viewRect = new Rectangle(viewRect);
+            frame.scaleFactor = scaleFactor;
+            frame.translate = (Point2D.Double) translate.clone();
+            frame.modificationCount = drawing.getModificationCount();
+            snapshot = drawing.createSnapshot();
+            levelOfDetailPolicy = DefaultDrawingView.this.levelOfDetailPolicy;
+        }
+
+        public void cancel() {
+            isCancelled = true;
+        }
+
+        public void run() {
+            try {
+                render();
+            } catch (Throwable t) {
+                t.printStackTrace();
+                isCancelled = true;
+            } finally {
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+                        finished();
+                    }
+                });
+            }
+        }
+
+        private void render() {
+            if (isCancelled) {
+                return;
+            }
+            Rectangle r = frame.viewRect;
+            BufferedImage image = new BufferedImage(r.width, r.height, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = image.createGraphics();
+            setPaintingHints(g);
+            g.setClip(0, 0, r.width, r.height);
+            g.translate(-r.x, -r.y);
+            g.translate(-frame.translate.x * frame.scaleFactor, -frame.translate.y * frame.scaleFactor);
+            g.scale(frame.scaleFactor, frame.scaleFactor);
+            if (levelOfDetailPolicy != null) {
+                g.setRenderingHint(LevelOfDetailPolicy.KEY_LEVEL_OF_DETAIL, levelOfDetailPolicy);
+            }
+            snapshot.setFontRenderContext(g.getFontRenderContext());
+            Rectangle2D.Double area = new Rectangle2D.Double(
+                    r.x / frame.scaleFactor + frame.translate.x,
+                    r.y / frame.scaleFactor + frame.translate.y,
+                    r.width / frame.scaleFactor,
+                    r.height / frame.scaleFactor);
+
+            java.util.List<Figure> children = snapshot.sort(snapshot.getChildren());
+            int i = 0;
+            for (Figure f : children) {
+                if (i++ % RENDER_CHUNK_SIZE == 0 && isCancelled) {
+                    break;
+                }
+                if (f.isVisible() && f.getDrawingArea().intersects(area)) {
+                    if (levelOfDetailPolicy == null) {
+                        f.draw(g);
+                    } else {
+                        levelOfDetailPolicy.draw(g, f);
+                    }
+                }
+            }
+            g.dispose();
+            frame.image = image;
+        }
+
+        /**
+         * Publishes the frame. This method is invoked on the AWT Event
+         * Dispatcher Thread.
+         */
+        private void finished() {
+            if (renderJob == this) {
+                renderJob = null;
+                if (!isCancelled && frame.image != null && isProgressiveRenderingEnabled) {
+                    renderedFrame = frame;
+                }
+                repaint();
+            }
+        }
+    }
+
+    /**
+     * Enables or disables progressive rendering.
+     * <p>
+     * If progressive rendering is enabled, the drawing is rendered on a
+     * worker thread from a snapshot of the drawing (see
+     * {@link AbstractDrawing#createSnapshot}). While a frame is rendered,
+     * the view shows the last complete frame, scaled to the current scale
+     * factor. Thus zooming a complex drawing does not block the user
+     * interface. Handles and tools are still drawn on the AWT Event
+     * Dispatcher Thread.
+     * <p>
+     * Progressive rendering is only used for drawings which are instances
+     * of AbstractDrawing.
+     */
+    public void setProgressiveRenderingEnabled(boolean newValue) {
+        boolean oldValue = isProgressiveRenderingEnabled;
+        if (newValue != oldValue) {
+            isProgressiveRenderingEnabled = newValue;
+            if (!newValue) {
+                cancelProgressiveRendering();
+            }
+            setSnapshotClonesRetained(drawing, newValue);
+            firePropertyChange(PROGRESSIVE_RENDERING_ENABLED_PROPERTY, oldValue, newValue);
+            repaint();
+        }
+    }
+
+    public boolean isProgressiveRenderingEnabled() {
+        return isProgressiveRenderingEnabled;
+    }
+
+    /**
+     * Returns true, while a frame is rendered on the worker thread.
+     */
+    public boolean isProgressiveRenderingInProgress() {
+        return renderJob != null;
+    }
+
+    /**
+     * Retains or releases the snapshot clones of the specified drawing,
+     * if it is an AbstractDrawing.
+     */
+    private void setSnapshotClonesRetained(Drawing d, boolean b) {
+        if (d instanceof AbstractDrawing) {
+            if (b) {
+                ((AbstractDrawing) d).retainSnapshotClones();
+            } else {
+                ((AbstractDrawing) d).releaseSnapshotClones();
+            }
+        }
+    }
+
+    /**
+     * Cancels the render job, and discards the last complete frame.
+     */
+    private void cancelProgressiveRendering() {
+        if (renderJob != null) {
+            renderJob.cancel();
+            renderJob = null;
+        }
+        renderedFrame = null;
+    }
+
+    /**
+     * Enables or disables the tile cache.
+     * <p>
+     * If the tile cache is enabled, the drawing is rasterized into tiles,
+     * and repaints of the view draw the tiles instead of the figures.
+     * The tiles are rasterized again, when a figure event invalidates them.
+     * This speeds up repaints, which do not change the drawing, for example
+     * scrolling or the repaints caused by handles and tools.
+     */
+    public void setTileCacheEnabled(boolean newValue) {
+        boolean oldValue = tileCache != null;
+        if (newValue != oldValue) {
+            tileCache = (newValue) ? new TileCache(tileCacheMemoryBudget) : null;
+            firePropertyChange(TILE_CACHE_ENABLED_PROPERTY, oldValue, newValue);
+            repaint();
+        }
+    }
+
+    public boolean isTileCacheEnabled() {
+        return tileCache != null;
+    }
+
+    /**
+     * Sets the maximal number of bytes used by the tile cache.
+     */
+    public void setTileCacheMemoryBudget(long newValue) {
+        tileCacheMemoryBudget = newValue;
+        if (tileCache != null) {
+            tileCache.setMemoryBudget(newValue);
+        }
+    }
+
+    public long getTileCacheMemoryBudget() {
+        return tileCacheMemoryBudget;
+    }
+
+    /**
+     * Sets the level of detail policy for painting the drawing.
+     * <p>
+     * The policy draws small figures and small text with less detail, which
+     * speeds up painting a zoomed out drawing. The policy is not used for
+     * printing. Specify null to paint all figures in full detail.
+     */
+    public void setLevelOfDetailPolicy(LevelOfDetailPolicy newValue) {
+        LevelOfDetailPolicy oldValue = levelOfDetailPolicy;
+        levelOfDetailPolicy = newValue;
+        if (tileCache != null) {
+            tileCache.clear();
+        }
+        if (renderedFrame != null) {
+            renderedFrame.modificationCount = -1;
+        }
+        firePropertyChange(LEVEL_OF_DETAIL_POLICY_PROPERTY, oldValue, newValue);
+        repaint();
+    }
+
+    public LevelOfDetailPolicy getLevelOfDetailPolicy() {
+        return levelOfDetailPolicy;
+    }
+
     protected void drawHandles(java.awt.Graphics2D g) {
         if (editor != null && editor.getActiveView() == this) {
             validateHandles();
@@ -436,11 +962,21 @@ public class DefaultDrawingView
             this.drawing.removeCompositeFigureListener(eventHandler);
             this.drawing.removeFigureListener(eventHandler);
             clearSelection();
+            if (isProgressiveRenderingEnabled) {
+                setSnapshotClonesRetained(this.drawing, false);
+            }
         }
         this.drawing = newValue;
+        if (tileCache != null) {
+            tileCache.clear();
+        }
+        cancelProgressiveRendering();
         if (this.drawing != null) {
             this.drawing.addCompositeFigureListener(eventHandler);
             this.drawing.addFigureListener(eventHandler);
+            if (isProgressiveRenderingEnabled) {
+                setSnapshotClonesRetained(this.drawing, true);
+            }
         }
         invalidateDimension();
         if (getParent() != null) {
@@ -459,6 +995,7 @@ public class DefaultDrawingView
     }
 
     protected void repaintDrawingArea(Rectangle2D.Double r) {
+        invalidateTiles(r);
         Rectangle vr = drawingToView(r);
         vr.grow(1, 1);
         repaint(vr);
@@ -477,24 +1014,17 @@ public class DefaultDrawingView
         if (DEBUG) {
             System.out.println("DefaultDrawingView" + ".addToSelection(" + figure + ")");
         }
-        Set<Figure> oldSelection = new HashSet<Figure>(selectedFigures);
         if (selectedFigures.add(figure)) {
             figure.addFigureListener(handleInvalidator);
-            Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
             Rectangle invalidatedArea = null;
             if (handlesAreValid && getEditor() != null) {
-                for (Handle h : figure.createHandles(detailLevel)) {
-                    h.setView(this);
-                    selectionHandles.add(h);
-                    h.addHandleListener(eventHandler);
-                    if (invalidatedArea == null) {
-                        invalidatedArea = h.getDrawingArea();
-                    } else {
-                        invalidatedArea.add(h.getDrawingArea());
-                    }
+                if (isHandleAggregationNeeded()) {
+                    invalidateHandles();
+                } else {
+                    invalidatedArea = addHandles(figure, detailLevel, null);
                 }
             }
-            fireSelectionChanged(oldSelection, newSelection);
+            fireSelectionChangedDelta(Collections.singleton(figure), Collections.<Figure>emptySet());
             if (invalidatedArea != null) {
                 repaint(invalidatedArea);
             }
@@ -505,48 +1035,126 @@ public class DefaultDrawingView
      * Adds a collection of figures to the current selection.
      */
     public void addToSelection(Collection<Figure> figures) {
-        Set<Figure> oldSelection = new HashSet<Figure>(selectedFigures);
-        Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
-        boolean selectionChanged = false;
+        Set<Figure> addedFigures = new LinkedHashSet<Figure>();
         Rectangle invalidatedArea = null;
         for (Figure figure : figures) {
             if (selectedFigures.add(figure)) {
-                selectionChanged = true;
-                newSelection.add(figure);
+                addedFigures.add(figure);
                 figure.addFigureListener(handleInvalidator);
                 if (handlesAreValid && getEditor() != null) {
-                    for (Handle h : figure.createHandles(detailLevel)) {
-                        h.setView(this);
-                        selectionHandles.add(h);
-                        h.addHandleListener(eventHandler);
-                        if (invalidatedArea == null) {
-                            invalidatedArea = h.getDrawingArea();
-                        } else {
-                            invalidatedArea.add(h.getDrawingArea());
-                        }
+                    if (isHandleAggregationNeeded()) {
+                        invalidateHandles();
+                    } else {
+                        invalidatedArea = addHandles(figure, detailLevel, invalidatedArea);
                     }
                 }
             }
         }
-        if (selectionChanged) {
-            fireSelectionChanged(oldSelection, newSelection);
+        if (!addedFigures.isEmpty()) {
+            fireSelectionChangedDelta(addedFigures, Collections.<Figure>emptySet());
             if (invalidatedArea != null) {
                 repaint(invalidatedArea);
             }
         }
     }
 
+    /**
+     * Creates the handles of a selected figure at the specified detail
+     * level, and adds them to the selection handles.
+     *
+     * @return The union of the specified invalidated area and the drawing
+     * areas of the handles.
+     */
+    private Rectangle addHandles(Figure figure, int level, Rectangle invalidatedArea) {
+        Collection<Handle> handles = figure.createHandles(level);
+        if (!handles.isEmpty()) {
+            handleIndex = null;
+            figureHandles.put(figure, new ArrayList<Handle>(handles));
+            for (Handle h : handles) {
+                h.setView(this);
+                selectionHandles.add(h);
+                h.addHandleListener(eventHandler);
+                if (invalidatedArea == null) {
+                    invalidatedArea = h.getDrawingArea();
+                } else {
+                    invalidatedArea.add(h.getDrawingArea());
+                }
+            }
+        }
+        return invalidatedArea;
+    }
+
+    /**
+     * Disposes the handles of a figure, which has been removed from the
+     * selection. The handles are removed from the selection handles
+     * list lazily.
+     *
+     * @return The union of the drawing areas of the handles, or null if
+     * the figure had no handles.
+     */
+    private Rectangle removeHandles(Figure figure) {
+        java.util.List<Handle> handles = figureHandles.remove(figure);
+        Rectangle invalidatedArea = null;
+        if (handles != null) {
+            handleIndex = null;
+            for (Handle h : handles) {
+                h.removeHandleListener(eventHandler);
+                if (invalidatedArea == null) {
+                    invalidatedArea = h.getDrawingArea();
+                } else {
+                    invalidatedArea.add(h.getDrawingArea());
+                }
+                if (h == activeHandle) {
+                    setActiveHandle(null);
+                }
+                if (h == secondaryHandleOwner) {
+                    for (Handle sh : secondaryHandles) {
+                        sh.removeHandleListener(eventHandler);
+                        invalidatedArea.add(sh.getDrawingArea());
+                        sh.dispose();
+                    }
+                    secondaryHandles.clear();
+                    secondaryHandleOwner = null;
+                }
+                h.dispose();
+                disposedSelectionHandles.add(h);
+            }
+        }
+        return invalidatedArea;
+    }
+
+    /**
+     * Removes the disposed handles from the selection handles list.
+     */
+    private void purgeDisposedSelectionHandles() {
+        if (!disposedSelectionHandles.isEmpty()) {
+            for (Iterator<Handle> i = selectionHandles.iterator(); i.hasNext();) {
+                if (disposedSelectionHandles.contains(i.next())) {
+                    i.remove();
+                }
+            }
+            disposedSelectionHandles.clear();
+        }
+    }
+
     /**
      * Removes a figure from the selection.
      */
     public void removeFromSelection(Figure figure) {
-        Set<Figure> oldSelection = new HashSet<Figure>(selectedFigures);
         if (selectedFigures.remove(figure)) {
-            Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
-            invalidateHandles();
+            Rectangle invalidatedArea = null;
+            if (handlesAreValid) {
+                if (selectionGroupFigure != null) {
+                    invalidateHandles();
+                } else {
+                    invalidatedArea = removeHandles(figure);
+                }
+            }
             figure.removeFigureListener(handleInvalidator);
-            fireSelectionChanged(oldSelection, newSelection);
-            repaint();
+            fireSelectionChangedDelta(Collections.<Figure>emptySet(), Collections.singleton(figure));
+            if (invalidatedArea != null) {
+                repaint(invalidatedArea);
+            }
         }
     }
 
@@ -573,18 +1181,21 @@ public class DefaultDrawingView
      */
     @FeatureEntryPoint(JHotDrawFeatures.AUTOMATIC_SELECTION)
     public void selectAll() {
-        Set<Figure> oldSelection = new HashSet<Figure>(selectedFigures);
-        selectedFigures.clear();
+        Set<Figure> removedFigures = new LinkedHashSet<Figure>(selectedFigures);
+        Set<Figure> addedFigures = new LinkedHashSet<Figure>();
 
         for (Figure figure : drawing.getChildren()) {
             if (figure.isSelectable()) {
-                selectedFigures.add(figure);
+                if (!removedFigures.remove(figure)) {
+                    addedFigures.add(figure);
+                }
             }
         }
+        selectedFigures.removeAll(removedFigures);
+        selectedFigures.addAll(addedFigures);
 
-        Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
         invalidateHandles();
-        fireSelectionChanged(oldSelection, newSelection);
+        fireSelectionChangedDelta(addedFigures, removedFigures);
         repaint();
     }
 
@@ -594,11 +1205,10 @@ public class DefaultDrawingView
     @FeatureEntryPoint(JHotDrawFeatures.AUTOMATIC_SELECTION)
     public void clearSelection() {
         if (getSelectionCount() > 0) {
-            Set<Figure> oldSelection = new HashSet<Figure>(selectedFigures);
+            Set<Figure> removedFigures = new LinkedHashSet<Figure>(selectedFigures);
             selectedFigures.clear();
-            Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
             invalidateHandles();
-            fireSelectionChanged(oldSelection, newSelection);
+            fireSelectionChangedDelta(Collections.<Figure>emptySet(), removedFigures);
         }
     //repaintDrawingArea();
     }
@@ -630,6 +1240,7 @@ public class DefaultDrawingView
      */
     private java.util.List<Handle> getSelectionHandles() {
         validateHandles();
+        purgeDisposedSelectionHandles();
         return Collections.unmodifiableList(selectionHandles);
     }
 
@@ -647,6 +1258,13 @@ public class DefaultDrawingView
     private void invalidateHandles() {
         if (handlesAreValid) {
             handlesAreValid = false;
+            purgeDisposedSelectionHandles();
+            figureHandles.clear();
+            handleIndex = null;
+            if (selectionGroupFigure != null) {
+                selectionGroupFigure.dispose();
+                selectionGroupFigure = null;
+            }
 
             Rectangle invalidatedArea = null;
             for (Handle handle : selectionHandles) {
@@ -687,21 +1305,22 @@ public class DefaultDrawingView
             selectionHandles.clear();
             Rectangle invalidatedArea = null;
             int level = detailLevel;
+            if (isHandleAggregationNeeded()) {
+                selectionGroupFigure = new SelectionGroupFigure(getDrawing(), selectedFigures);
+                level = 0;
+            }
             do {
-                for (Figure figure : getSelectedFigures()) {
-                    for (Handle handle : figure.createHandles(level)) {
-                        handle.setView(this);
-                        selectionHandles.add(handle);
-                        handle.addHandleListener(eventHandler);
-                        if (invalidatedArea == null) {
-                            invalidatedArea = handle.getDrawingArea();
-                        } else {
-                            invalidatedArea.add(handle.getDrawingArea());
-                        }
+                if (selectionGroupFigure != null) {
+                    invalidatedArea = addHandles(selectionGroupFigure, level, invalidatedArea);
+                } else {
+                    for (Figure figure : getSelectedFigures()) {
+                        invalidatedArea = addHandles(figure, level, invalidatedArea);
                     }
                 }
             } while (level-- > 0 && selectionHandles.size() == 0);
-            detailLevel = level + 1;
+            if (selectionGroupFigure == null) {
+                detailLevel = level + 1;
+            }
 
             if (invalidatedArea != null) {
                 repaint(invalidatedArea);
@@ -722,12 +1341,77 @@ public class DefaultDrawingView
                 return handle;
             }
         }
-        for (Handle handle : new ReversedList<Handle>(getSelectionHandles())) {
-            if (handle.contains(p)) {
-                return handle;
+        java.util.List<Handle> handles = getSelectionHandles();
+        if (handles.size() <= HANDLE_INDEX_THRESHOLD) {
+            for (Handle handle : new ReversedList<Handle>(handles)) {
+                if (handle.contains(p)) {
+                    return handle;
+                }
             }
+            return null;
+        }
+
+        // Look up the handles with the spatial index, and return the
+        // handle which is closest to the end of the handles list.
+        if (handleIndex == null) {
+            ArrayList<Rectangle> areas = new ArrayList<Rectangle>(handles.size());
+            Rectangle bounds = null;
+            for (Handle handle : handles) {
+                Rectangle r = handle.getDrawingArea();
+                areas.add(r);
+                if (bounds == null) {
+                    bounds = new Rectangle(r);
+                } else {
+                    bounds.add(r);
+                }
+            }
+            handleIndex = new QuadTree<Handle>(new Rectangle2D.Double(
+                    bounds.x, bounds.y, bounds.width, bounds.height));
+            handlePositions = new HashMap<Handle, Integer>();
+            int position = 0;
+            for (Handle handle : handles) {
+                Rectangle r = areas.get(position);
+                handleIndex.add(handle, new Rectangle2D.Double(r.x, r.y, r.width, r.height));
+                handlePositions.put(handle, position++);
+            }
+        }
+        Handle found = null;
+        int foundPosition = -1;
+        for (Handle handle : handleIndex.findContains(new Point2D.Double(p.x, p.y))) {
+            int position = handlePositions.get(handle);
+            if (position > foundPosition && handle.contains(p)) {
+                found = handle;
+                foundPosition = position;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns true, if the number of selected figures exceeds the handle
+     * aggregation threshold.
+     */
+    private boolean isHandleAggregationNeeded() {
+        return selectedFigures.size() > handleAggregationThreshold;
+    }
+
+    /**
+     * Sets the number of selected figures, above which aggregate handles
+     * are created for the selection as a whole, instead of handles for
+     * each figure.
+     */
+    public void setHandleAggregationThreshold(int newValue) {
+        int oldValue = handleAggregationThreshold;
+        if (newValue != oldValue) {
+            handleAggregationThreshold = newValue;
+            invalidateHandles();
+            firePropertyChange(HANDLE_AGGREGATION_THRESHOLD_PROPERTY, oldValue, newValue);
+            repaint();
         }
-        return null;
+    }
+
+    public int getHandleAggregationThreshold() {
+        return handleAggregationThreshold;
     }
 
     /**
@@ -784,24 +1468,38 @@ public class DefaultDrawingView
             Set<Figure> oldValue,
             Set<Figure> newValue) {
         if (listenerList.getListenerCount() > 0) {
-            FigureSelectionEvent event = null;
-            // Notify all listeners that have registered interest for
-            // Guaranteed to return a non-null array
-            Object[] listeners = listenerList.getListenerList();
-            // Process the listeners last to first, notifying
-            // those that are interested in this event
-            for (int i = listeners.length - 2; i >= 0; i -= 2) {
-                if (listeners[i] == FigureSelectionListener.class) {
-                    // Lazily create the event:
-                    if (event == null) {
-                        event = new FigureSelectionEvent(this, oldValue, newValue);
-                    }
-                    ((FigureSelectionListener) listeners[i + 1]).selectionChanged(event);
-                }
+            fireSelectionChanged(new FigureSelectionEvent(this, oldValue, newValue));
+        }
+    }
+
+    /**
+     * Notifies all listeners that have registered interest for
+     * notification on this event type.
+     */
+    protected void fireSelectionChanged(FigureSelectionEvent event) {
+        // Guaranteed to return a non-null array
+        Object[] listeners = listenerList.getListenerList();
+        // Process the listeners last to first, notifying
+        // those that are interested in this event
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == FigureSelectionListener.class) {
+                ((FigureSelectionListener) listeners[i + 1]).selectionChanged(event);
             }
         }
     }
 
+    /**
+     * Notifies all listeners about a change of the selection by the
+     * specified added and removed figures. This method must be invoked after
+     * the selection has been changed.
+     */
+    private void fireSelectionChangedDelta(Set<Figure> addedFigures, Set<Figure> removedFigures) {
+        if (listenerList.getListenerCount() > 0) {
+            fireSelectionChanged(new FigureSelectionEvent(this, getSelectedFigures(),
+                    addedFigures, removedFigures));
+        }
+    }
+
     protected void invalidateDimension() {
         cachedPreferredSize = null;
         cachedDrawingArea = null;
@@ -980,6 +1678,8 @@ public class DefaultDrawingView
     }
 
     protected void fireViewTransformChanged() {
+        purgeDisposedSelectionHandles();
+        handleIndex = null;
         for (Handle handle : selectionHandles) {
             handle.viewTransformChanged();
         }
@@ -1040,7 +1740,7 @@ public class DefaultDrawingView
         clearSelection();
         getDrawing().removeAll(deletedFigures);
 
-        getDrawing().fireUndoableEditHappened(new AbstractUndoableEdit() {
+        getDrawing().fireUndoableEditHappened(new DetachedFiguresEdit(deletedFigures) {
 
             @Override
             public String getPresentationName() {
@@ -1048,6 +1748,11 @@ public class DefaultDrawingView
                 return labels.getString("edit.delete.text");
             }
 
+            @Override
+            protected boolean isDetached() {
+                return canUndo();
+            }
+
             @Override
             public void undo() throws CannotUndoException {
                 super.undo();
@@ -1098,7 +1803,7 @@ public class DefaultDrawingView
 
         addToSelection(duplicates);
 
-        getDrawing().fireUndoableEditHappened(new AbstractUndoableEdit() {
+        getDrawing().fireUndoableEditHappened(new DetachedFiguresEdit(duplicates) {
 
             @Override
             public String getPresentationName() {
@@ -1106,6 +1811,11 @@ public class DefaultDrawingView
                 return labels.getString("edit.duplicate.text");
             }
 
+            @Override
+            protected boolean isDetached() {
+                return canRedo();
+            }
+
             @Override
             public void undo() throws CannotUndoException {
                 super.undo();
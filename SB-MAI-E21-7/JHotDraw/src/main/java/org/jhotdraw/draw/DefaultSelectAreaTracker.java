@@ -1,5 +1,5 @@
 /*
- * @(#)DefaultSelectAreaTracker.java  4.0  2008-05-17
+ * @(#)DefaultSelectAreaTracker.java  4.1  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -16,7 +16,9 @@ package org.jhotdraw.draw;
 import java.awt.event.*;
 import java.awt.*;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
+import org.jhotdraw.geom.Geom;
 
 /**
  * <code>DefaultSelectAreaTracker</code> implements interactions with the background
@@ -37,11 +39,17 @@ import java.util.*;
  * Role: State.<br>
  * Partners: {@link SelectionTool} as Context, {@link DragTracker} as 
  * State, {@link HandleTracker} as State. 
+ * <p>
+ * While the rubberband is dragged, the tracker outlines the figures which
+ * will be selected. The preview is updated incrementally: only figures
+ * near the area by which the rubberband has changed are tested again.
  *
  * @see SelectionTool
  *
  * @author Werner Randelshofer
- * @version 4.0 2008-05-17 Displays handles with index -1, if the mouse
+ * @version 4.1 2026-10-18 Added live selection preview. Adds the figures
+ * to the selection with a single bulk change.
+ * <br>4.0 2008-05-17 Displays handles with index -1, if the mouse
  * hovers over a figure. 
  * <br>3.0 2006-02-15 Updated to handle multiple views.
  * <br>1.0 2003-12-01 Derived from JHotDraw 5.4b1.
@@ -71,6 +79,29 @@ public class DefaultSelectAreaTracker extends AbstractTool implements SelectArea
      * hovering.
      */
     private Figure hoverFigure = null;
+    /**
+     * Whether the figures which will be selected are outlined while the
+     * rubberband is dragged.
+     */
+    private boolean isLivePreviewEnabled = true;
+    /**
+     * Preview color.
+     */
+    private Color previewColor = new Color(0x3875d7);
+    /**
+     * The figures which will be selected, with their bounds in view
+     * coordinates.
+     */
+    private HashMap<Figure, Rectangle> previewFigures = new HashMap<Figure, Rectangle>();
+    /**
+     * The rubberband in drawing coordinates, for which the preview figures
+     * have been computed. This is null, if there is no preview.
+     */
+    private Rectangle2D.Double previewBounds;
+    /**
+     * Caches the transformed bounds of the figures during a drag.
+     */
+    private HashMap<Figure, Rectangle2D.Double> figureBounds = new HashMap<Figure, Rectangle2D.Double>();
 
     /** Creates a new instance. */
     public DefaultSelectAreaTracker() {
@@ -80,13 +111,14 @@ public class DefaultSelectAreaTracker extends AbstractTool implements SelectArea
     public void mousePressed(MouseEvent evt) {
         super.mousePressed(evt);
         clearRubberBand();
+        clearPreview();
     }
 
     @Override
     public void mouseReleased(MouseEvent evt) {
         selectGroup(evt.isShiftDown());
         clearRubberBand();
-
+        clearPreview();
     }
 
     public void mouseDragged(MouseEvent evt) {
@@ -102,6 +134,138 @@ public class DefaultSelectAreaTracker extends AbstractTool implements SelectArea
             invalidatedArea = invalidatedArea.union(rubberband);
         }
         fireAreaInvalidated(invalidatedArea);
+        if (isLivePreviewEnabled) {
+            updatePreview();
+        }
+    }
+
+    /**
+     * Sets whether the figures which will be selected are outlined while
+     * the rubberband is dragged.
+     */
+    public void setLivePreviewEnabled(boolean newValue) {
+        isLivePreviewEnabled = newValue;
+    }
+
+    public boolean isLivePreviewEnabled() {
+        return isLivePreviewEnabled;
+    }
+
+    /**
+     * Returns the figures which are currently outlined by the live preview.
+     */
+    public Set<Figure> getPreviewFigures() {
+        return Collections.unmodifiableSet(previewFigures.keySet());
+    }
+
+    /**
+     * Updates the preview figures for the current rubberband.
+     * Only the figures which intersect the difference between the previous
+     * and the current rubberband can change their state, so only these
+     * figures are looked up and tested.
+     */
+    protected void updatePreview() {
+        DrawingView view = getView();
+        Drawing drawing = view.getDrawing();
+        Rectangle2D.Double bounds = view.viewToDrawing(rubberband);
+        ArrayList<Rectangle2D.Double> changedAreas = new ArrayList<Rectangle2D.Double>();
+        if (previewBounds == null) {
+            changedAreas.add(bounds);
+        } else {
+            addDifference(changedAreas, previewBounds, bounds);
+            addDifference(changedAreas, bounds, previewBounds);
+        }
+        Rectangle invalidatedArea = null;
+        for (Rectangle2D.Double area : changedAreas) {
+            // Grow the area, so that figures which touch its border are
+            // tested as well.
+            area.add(area.x - 1, area.y - 1);
+            area.add(area.x + area.width + 1, area.y + area.height + 1);
+            for (Figure f : drawing.findFigures(area)) {
+                boolean isPreviewed = previewFigures.containsKey(f);
+                boolean isWithin = f.isVisible() && f.isSelectable() &&
+                        Geom.contains(bounds, getTransformedBounds(f));
+                if (isWithin != isPreviewed) {
+                    Rectangle r;
+                    if (isWithin) {
+                        r = view.drawingToView(getTransformedBounds(f));
+                        previewFigures.put(f, r);
+                    } else {
+                        r = previewFigures.remove(f);
+                    }
+                    if (invalidatedArea == null) {
+                        invalidatedArea = new Rectangle(r);
+                    } else {
+                        invalidatedArea.add(r);
+                    }
+                }
+            }
+        }
+        previewBounds = bounds;
+        if (invalidatedArea != null) {
+            invalidatedArea.grow(1, 1);
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    /**
+     * Adds the parts of rectangle a, which are not covered by rectangle b,
+     * to the specified list.
+     */
+    private static void addDifference(java.util.List<Rectangle2D.Double> list,
+            Rectangle2D.Double a, Rectangle2D.Double b) {
+        Rectangle2D.Double i = (Rectangle2D.Double) a.createIntersection(b);
+        if (i.isEmpty()) {
+            list.add((Rectangle2D.Double) a.clone());
+            return;
+        }
+        if (i.y > a.y) {
+            list.add(new Rectangle2D.Double(a.x, a.y, a.width, i.y - a.y));
+        }
+        if (i.y + i.height < a.y + a.height) {
+            list.add(new Rectangle2D.Double(a.x, i.y + i.height, a.width, a.y + a.height - i.y - i.height));
+        }
+        if (i.x > a.x) {
+            list.add(new Rectangle2D.Double(a.x, i.y, i.x - a.x, i.height));
+        }
+        if (i.x + i.width < a.x + a.width) {
+            list.add(new Rectangle2D.Double(i.x + i.width, i.y, a.x + a.width - i.x - i.width, i.height));
+        }
+    }
+
+    /**
+     * Returns the bounds of the specified figure with its TRANSFORM
+     * attribute applied.
+     */
+    private Rectangle2D.Double getTransformedBounds(Figure f) {
+        Rectangle2D.Double r = figureBounds.get(f);
+        if (r == null) {
+            r = f.getBounds();
+            if (AttributeKeys.TRANSFORM.get(f) != null) {
+                Rectangle2D rt = AttributeKeys.TRANSFORM.get(f).createTransformedShape(r).getBounds2D();
+                r = new Rectangle2D.Double(rt.getX(), rt.getY(), rt.getWidth(), rt.getHeight());
+            }
+            figureBounds.put(f, r);
+        }
+        return r;
+    }
+
+    private void clearPreview() {
+        if (!previewFigures.isEmpty()) {
+            Rectangle invalidatedArea = null;
+            for (Rectangle r : previewFigures.values()) {
+                if (invalidatedArea == null) {
+                    invalidatedArea = new Rectangle(r);
+                } else {
+                    invalidatedArea.add(r);
+                }
+            }
+            invalidatedArea.grow(1, 1);
+            fireAreaInvalidated(invalidatedArea);
+            previewFigures.clear();
+        }
+        previewBounds = null;
+        figureBounds.clear();
     }
 
     @Override
@@ -151,6 +315,19 @@ public class DefaultSelectAreaTracker extends AbstractTool implements SelectArea
 
     @Override
     public void draw(Graphics2D g) {
+        if (!previewFigures.isEmpty()) {
+            Rectangle clip = g.getClipBounds();
+            DrawingView view = getView();
+            g.setColor(previewColor);
+            g.setStroke(rubberbandStroke);
+            for (Map.Entry<Figure, Rectangle> entry : previewFigures.entrySet()) {
+                Rectangle r = entry.getValue();
+                if ((clip == null || clip.intersects(r.x - 1, r.y - 1, r.width + 2, r.height + 2)) &&
+                        !view.isFigureSelected(entry.getKey())) {
+                    g.drawRect(r.x, r.y, r.width, r.height);
+                }
+            }
+        }
         g.setStroke(rubberbandStroke);
         g.setColor(rubberbandColor);
         g.drawRect(rubberband.x, rubberband.y, rubberband.width - 1, rubberband.height - 1);
@@ -163,11 +340,15 @@ public class DefaultSelectAreaTracker extends AbstractTool implements SelectArea
 
     private void selectGroup(boolean toggle) {
         Collection<Figure> figures = getView().findFiguresWithin(rubberband);
+        ArrayList<Figure> selectable = new ArrayList<Figure>(figures.size());
         for (Figure f : figures) {
             if (f.isSelectable()) {
-                getView().addToSelection(f);
+                selectable.add(f);
             }
         }
+        if (!selectable.isEmpty()) {
+            getView().addToSelection(selectable);
+        }
     }
 
     protected void clearHoverHandles() {
@@ -0,0 +1,152 @@
+/*
+ * @(#)DetachedFiguresEdit.java  1.0.2  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.io.*;
+import java.util.*;
+import javax.swing.undo.*;
+import org.jhotdraw.undo.*;
+
+/**
+ * Base class for edits which add figures to or remove figures from a
+ * drawing. While the figures are not part of the drawing, they are only
+ * reachable through the undo history.
+ * <p>
+ * The edit estimates its memory footprint from the image data and the
+ * buffered images of the {@link ImageHolderFigure}s among the figures and
+ * their descendants.
+ * While the figures are detached from the drawing, the UndoRedoManager may
+ * spill the image data. The figures themselves stay in memory, because
+ * other edits may refer to them.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0.2 2026-10-18 The size estimate includes the pixels of
+ * buffered images, and does not encode images.
+ * <br>1.0.1 2026-10-18 Declares a serial version UID.
+ * <br>1.0 2026-10-18 Created.
+ */
+abstract class DetachedFiguresEdit extends AbstractUndoableEdit implements SpillableEdit {
+
+    private final static long serialVersionUID = 1L;
+
+    /**
+     * The estimated number of bytes used by a figure without image data.
+     */
+    private final static int FIGURE_SIZE = 512;
+    private List<Figure> figures;
+    /**
+     * The cached size estimate. This is -1, if the estimate needs to be
+     * computed.
+     */
+    private long estimatedSize = -1;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param figures The figures, which are added or removed by the edit.
+     */
+    public DetachedFiguresEdit(List<Figure> figures) {
+        this.figures = figures;
+    }
+
+    /**
+     * Returns true, if the figures are currently detached from the drawing.
+     */
+    protected abstract boolean isDetached();
+
+    public boolean canSpill() {
+        return isDetached();
+    }
+
+    public long getEstimatedSize() {
+        if (!isDetached()) {
+            // The figures are shared with the drawing.
+            return 0;
+        }
+        if (estimatedSize == -1) {
+            long size = 0;
+            for (Figure f : figures) {
+                size += getEstimatedSize(f);
+            }
+            estimatedSize = size;
+        }
+        return estimatedSize;
+    }
+
+    private long getEstimatedSize(Figure f) {
+        long size = FIGURE_SIZE;
+        if (f instanceof ImageHolderFigure) {
+            size += ((ImageHolderFigure) f).getImageMemorySize();
+        }
+        if (f instanceof CompositeFigure) {
+            for (Figure child : ((CompositeFigure) f).getChildren()) {
+                size += getEstimatedSize(child);
+            }
+        }
+        return size;
+    }
+
+    public void writeState(ObjectOutputStream out) throws IOException {
+        ArrayList<ImageHolderFigure> holders = getImageHolders();
+        byte[][] data = new byte[holders.size()][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = holders.get(i).getImageData();
+        }
+        out.writeObject(data);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null) {
+                holders.get(i).setImage(null, null);
+            }
+        }
+        estimatedSize = -1;
+    }
+
+    public void readState(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ArrayList<ImageHolderFigure> holders = getImageHolders();
+        byte[][] data = (byte[][]) in.readObject();
+        for (int i = 0; i < data.length; i++) {
+            // The image of a figure may have been restored by another edit.
+            if (data[i] != null && holders.get(i).getImageMemorySize() == 0) {
+                holders.get(i).setImage(data[i], null);
+            }
+        }
+        estimatedSize = -1;
+    }
+
+    private ArrayList<ImageHolderFigure> getImageHolders() {
+        ArrayList<ImageHolderFigure> holders = new ArrayList<ImageHolderFigure>();
+        for (Figure f : figures) {
+            addImageHolders(f, holders);
+        }
+        return holders;
+    }
+
+    private void addImageHolders(Figure f, ArrayList<ImageHolderFigure> holders) {
+        if (f instanceof ImageHolderFigure) {
+            holders.add((ImageHolderFigure) f);
+        }
+        if (f instanceof CompositeFigure) {
+            for (Figure child : ((CompositeFigure) f).getChildren()) {
+                addImageHolders(child, holders);
+            }
+        }
+    }
+
+    @Override
+    public void die() {
+        super.die();
+        figures = Collections.emptyList();
+        estimatedSize = 0;
+    }
+}
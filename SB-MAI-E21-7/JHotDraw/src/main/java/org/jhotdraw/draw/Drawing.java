@@ -1,5 +1,5 @@
 /*
- * @(#)Drawing.java  3.2  2009-05-05
+ * @(#)Drawing.java  3.3  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -41,7 +41,8 @@ import java.io.*;
  * into the clipboard.
  *
  * @author Werner Randelshofer
- * @version 3.2 2009-05-15 Methods taking figure collections as parameters
+ * @version 3.3 2026-10-18 Added update transactions.
+ * <br>3.2 2009-05-15 Methods taking figure collections as parameters
  * now take collections of any extensions of figures as parameters.
  * <br>3.1 2009-04-15 Factored canvasSize out into an attribute.
  * <br>3.0 2007-07-17 Refactored Drawing from an independent interface
@@ -264,6 +265,37 @@ public interface Drawing extends CompositeFigure, Serializable, DOMStorable {
      */
     List<Figure> sort(Collection<? extends Figure> figures);
     
+    /**
+     * Begins an update transaction.
+     * <p>
+     * Until the matching call to {@code endUpdate}, the drawing does not
+     * fire figureChanged and areaInvalidated events. Instead, it merges
+     * their invalidated areas, and the drawing areas of added and removed
+     * figures, into a single invalidated area. The figureAdded and
+     * figureRemoved events of CompositeFigureListener's are still fired
+     * immediately.
+     * <p>
+     * Update transactions can be nested. Each call to {@code beginUpdate}
+     * must be matched by a call to {@code endUpdate}, preferably in a
+     * finally block.
+     */
+    void beginUpdate();
+
+    /**
+     * Ends an update transaction.
+     * <p>
+     * When the outermost transaction ends, the drawing fires a single
+     * areaInvalidated event for the merged invalidated area. If figures
+     * have changed during the transaction, it fires a single figureChanged
+     * event as well.
+     */
+    void endUpdate();
+
+    /**
+     * Returns true, if an update transaction is in progress.
+     */
+    boolean isUpdating();
+
     /**
      * Adds a listener for undooable edit events.
      */
@@ -1,5 +1,5 @@
 /*
- * @(#)FigureSelectionEvent.java  2.0  2007-05-14
+ * @(#)FigureSelectionEvent.java  3.0  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -18,14 +18,31 @@ import java.util.*;
 
 /**
  * FigureSelectionEvent.
+ * <p>
+ * The event describes a change of the selection of a drawing view by the
+ * figures which have been added to the selection and the figures which have
+ * been removed from it. The old and the new selection are computed lazily
+ * from the current selection of the view. Therefore listeners must request
+ * them while the event is being delivered.
  *
  * @author Werner Randelshofer
- * @version 2.0 2007-05-14 Added getters for newValue and oldValue. 
+ * @version 3.0 2026-10-18 Describes the change of the selection by the
+ * added and the removed figures.
+ * <br>2.0 2007-05-14 Added getters for newValue and oldValue. 
  * <br>1.0 2003-12-01 Derived from JHotDraw 5.4b1.
  */
 public class FigureSelectionEvent extends java.util.EventObject {
-private Set<Figure> oldValue;
-private Set<Figure> newValue;
+
+    private Set<Figure> oldValue;
+    private Set<Figure> newValue;
+    /**
+     * The selection of the view at the time the event was fired.
+     * This is null if the event has been created with the old and the new
+     * selection.
+     */
+    private Set<Figure> selection;
+    private Set<Figure> addedFigures;
+    private Set<Figure> removedFigures;
 
     /** Creates a new instance. */
     public FigureSelectionEvent(DrawingView source, Set<Figure> oldValue, Set<Figure> newValue) {
@@ -33,15 +50,64 @@ private Set<Figure> newValue;
         this.oldValue = oldValue;
         this.newValue = newValue;
     }
-    
+
+    /**
+     * Creates a new instance which describes a change of the selection by
+     * the added and the removed figures.
+     *
+     * @param source The drawing view.
+     * @param selection The selection of the view after the change.
+     * @param addedFigures The figures which have been added to the selection.
+     * @param removedFigures The figures which have been removed from the
+     * selection.
+     */
+    public FigureSelectionEvent(DrawingView source, Set<Figure> selection,
+            Set<Figure> addedFigures, Set<Figure> removedFigures) {
+        super(source);
+        this.selection = selection;
+        this.addedFigures = addedFigures;
+        this.removedFigures = removedFigures;
+    }
+
     public DrawingView getView() {
         return (DrawingView) source;
     }
-    
+
     public Set<Figure> getOldSelection() {
+        if (oldValue == null) {
+            oldValue = new HashSet<Figure>(selection);
+            oldValue.removeAll(addedFigures);
+            oldValue.addAll(removedFigures);
+        }
         return oldValue;
     }
+
     public Set<Figure> getNewSelection() {
+        if (newValue == null) {
+            newValue = new HashSet<Figure>(selection);
+        }
         return newValue;
     }
+
+    /**
+     * Returns the figures which have been added to the selection.
+     */
+    public Set<Figure> getAddedFigures() {
+        if (addedFigures == null) {
+            addedFigures = new HashSet<Figure>(newValue);
+            addedFigures.removeAll(oldValue);
+        }
+        return Collections.unmodifiableSet(addedFigures);
+    }
+
+    /**
+     * Returns the figures which have been removed from the selection.
+     */
+    public Set<Figure> getRemovedFigures() {
+        if (removedFigures == null) {
+            removedFigures = new HashSet<Figure>(oldValue);
+            removedFigures.removeAll(newValue);
+        }
+        return Collections.unmodifiableSet(removedFigures);
+    }
 }
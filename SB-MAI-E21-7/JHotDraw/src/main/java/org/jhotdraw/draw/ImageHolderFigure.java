@@ -1,5 +1,5 @@
 /*
- * @(#)ImageHolderFigure.java  2.0  2008-05-24
+ * @(#)ImageHolderFigure.java  2.1  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -21,7 +21,8 @@ import java.io.*;
  * The interface of a figure that has some editable image contents.
  *
  * @author Werner Randelshofer
- * @version 2.0 2008-05-24 Added setImage and getImageData methods. 
+ * @version 2.1 2026-10-18 Added method getImageMemorySize.
+ * <br>2.0 2008-05-24 Added setImage and getImageData methods. 
  * <br>1.0 December 14, 2006 Created.
  */
 public interface ImageHolderFigure extends Figure {
@@ -62,5 +63,13 @@ public interface ImageHolderFigure extends Figure {
      * not have an image.
      */
     public byte[] getImageData();
+    /**
+     * Returns the number of bytes used by the image data and by the pixels
+     * of the buffered image, which the figure currently holds.
+     * <p>
+     * Unlike {@code getImageData} and {@code getBufferedImage}, this method
+     * does not encode or decode the image.
+     */
+    public long getImageMemorySize();
 
 }
@@ -0,0 +1,276 @@
+/*
+ * @(#)LevelOfDetailPolicy.java  1.0.2  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.geom.*;
+
+/**
+ * A LevelOfDetailPolicy decides how much detail is drawn for a figure,
+ * depending on the size of the figure on the screen.
+ * <p>
+ * The policy reduces the work of drawing a drawing which is zoomed out:
+ * <ul>
+ * <li>Figures which are smaller than {@code minimumFigureSize} pixels
+ * are not drawn.</li>
+ * <li>Figures which are smaller than {@code boundsFigureSize} pixels
+ * are drawn as a filled rectangle.</li>
+ * <li>Text figures with a font smaller than {@code minimumTextSize} pixels
+ * are drawn as a bar.</li>
+ * <li>Figures may draw a simplified version of their paths. The simplified
+ * paths can be cached per zoom bucket, see {@link #getZoomBucket}.</li>
+ * </ul>
+ * <p>
+ * A drawing view passes the policy to the drawing with the rendering hint
+ * {@link #KEY_LEVEL_OF_DETAIL}. The drawings and figures look up the policy
+ * with {@link #get}. If the hint is not set, for example when printing or
+ * when a drawing is written with an {@link ImageOutputFormat}, all figures
+ * are drawn in full detail.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0.2 2026-10-18 Reads the font size without boxing it.
+ * <br>1.0.1 2026-10-18 The text bar and the font size of text figures
+ * take the TRANSFORM attribute into account.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class LevelOfDetailPolicy {
+
+    /**
+     * The rendering hint key for the level of detail policy.
+     */
+    public final static RenderingHints.Key KEY_LEVEL_OF_DETAIL = new RenderingHints.Key(0x4c4f44) {
+
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof LevelOfDetailPolicy;
+        }
+
+        @Override
+        public String toString() {
+            return "Level of detail policy key";
+        }
+    };
+    private double minimumFigureSize = 0.5;
+    private double boundsFigureSize = 3;
+    private double minimumTextSize = 4;
+    private double simplificationTolerance = 0.5;
+    private Color placeholderColor = Color.lightGray;
+
+    /** Creates a new instance. */
+    public LevelOfDetailPolicy() {
+    }
+
+    /**
+     * Returns the level of detail policy of the specified graphics, or null
+     * if all figures are drawn in full detail.
+     */
+    public static LevelOfDetailPolicy get(Graphics2D g) {
+        Object value = g.getRenderingHint(KEY_LEVEL_OF_DETAIL);
+        return (value instanceof LevelOfDetailPolicy) ? (LevelOfDetailPolicy) value : null;
+    }
+
+    /**
+     * Figures which are smaller than the specified number of pixels are not
+     * drawn.
+     */
+    public void setMinimumFigureSize(double newValue) {
+        minimumFigureSize = newValue;
+    }
+
+    public double getMinimumFigureSize() {
+        return minimumFigureSize;
+    }
+
+    /**
+     * Figures which are smaller than the specified number of pixels are
+     * drawn as a filled rectangle.
+     */
+    public void setBoundsFigureSize(double newValue) {
+        boundsFigureSize = newValue;
+    }
+
+    public double getBoundsFigureSize() {
+        return boundsFigureSize;
+    }
+
+    /**
+     * Text with a font size smaller than the specified number of pixels is
+     * drawn as a bar.
+     */
+    public void setMinimumTextSize(double newValue) {
+        minimumTextSize = newValue;
+    }
+
+    public double getMinimumTextSize() {
+        return minimumTextSize;
+    }
+
+    /**
+     * Sets the maximal distance in pixels, by which a simplified path may
+     * deviate from the original path.
+     */
+    public void setSimplificationTolerance(double newValue) {
+        simplificationTolerance = newValue;
+    }
+
+    public double getSimplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    /**
+     * Sets the color of the rectangles and bars, for figures which have
+     * neither a fill color nor a stroke color.
+     */
+    public void setPlaceholderColor(Color newValue) {
+        placeholderColor = newValue;
+    }
+
+    public Color getPlaceholderColor() {
+        return placeholderColor;
+    }
+
+    /**
+     * Returns the scale factor from drawing coordinates to device
+     * coordinates of the specified graphics.
+     */
+    public static double getScale(Graphics2D g) {
+        return Math.sqrt(Math.abs(g.getTransform().getDeterminant()));
+    }
+
+    /**
+     * Returns the zoom bucket of the specified graphics. The zoom bucket is
+     * the binary logarithm of the scale factor, rounded down. A path
+     * simplified for a zoom bucket deviates from the original path by at
+     * most twice the simplification tolerance, at all scale factors of the
+     * bucket.
+     */
+    public int getZoomBucket(Graphics2D g) {
+        double scale = getScale(g);
+        return (scale <= 0) ? Integer.MIN_VALUE : (int) Math.floor(Math.log(scale) / Math.log(2));
+    }
+
+    /**
+     * Draws the figure with the level of detail which suits its size on
+     * the screen.
+     */
+    public void draw(Graphics2D g, Figure f) {
+        double scale = getScale(g);
+        Rectangle2D.Double r = f.getDrawingArea();
+        double size = Math.max(r.width, r.height) * scale;
+        if (size < minimumFigureSize) {
+            return;
+        }
+        if (size < boundsFigureSize) {
+            g.setColor(getColor(f));
+            g.fill(r);
+            return;
+        }
+        if (f instanceof TextHolderFigure) {
+            TextHolderFigure t = (TextHolderFigure) f;
+            AffineTransform tx = AttributeKeys.TRANSFORM.get(f);
+            // The font size of a transformed figure is scaled with the
+            // transform, regardless of its rotation
+            double fontSize = (tx == null) ? t.getFontSize() : AttributeKeys.FONT_SIZE.getDouble(f) * Math.sqrt(Math.abs(tx.getDeterminant()));
+            if (fontSize * scale < minimumTextSize && t.getText() != null) {
+                // Draw the bar over the middle half of the text bounds
+                Rectangle2D.Double b = f.getBounds();
+                Shape bar = new Rectangle2D.Double(b.x, b.y + b.height / 4, b.width, b.height / 2);
+                if (tx != null) {
+                    bar = tx.createTransformedShape(bar);
+                }
+                Color color = t.getTextColor();
+                g.setColor(color == null ? placeholderColor : color);
+                g.fill(bar);
+                return;
+            }
+        }
+        f.draw(g);
+    }
+
+    /**
+     * Returns the color, with which a figure is drawn as a rectangle.
+     */
+    protected Color getColor(Figure f) {
+        Color color = AttributeKeys.FILL_COLOR.get(f);
+        if (color == null) {
+            color = AttributeKeys.STROKE_COLOR.get(f);
+        }
+        return (color == null) ? placeholderColor : color;
+    }
+
+    /**
+     * Returns a simplified version of the specified path for a zoom bucket.
+     * <p>
+     * Curves are flattened, and vertices which are closer to the previous
+     * vertex than the simplification tolerance are omitted. If the zoom
+     * bucket is not below zero, the path is returned unchanged.
+     *
+     * @param shape The path in the coordinates of the graphics, from which
+     * the zoom bucket was computed.
+     * @param zoomBucket The zoom bucket.
+     */
+    public Shape simplify(Shape shape, int zoomBucket) {
+        if (zoomBucket >= 0) {
+            return shape;
+        }
+        double tolerance = simplificationTolerance / Math.pow(2, zoomBucket);
+        double toleranceSq = tolerance * tolerance;
+        PathIterator i = shape.getPathIterator(null, tolerance);
+        GeneralPath path = new GeneralPath(i.getWindingRule());
+        double[] c = new double[6];
+        double moveX = 0, moveY = 0;
+        double lastX = 0, lastY = 0;
+        double pendingX = 0, pendingY = 0;
+        boolean isPending = false;
+        for (; !i.isDone(); i.next()) {
+            switch (i.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    if (isPending) {
+                        path.lineTo((float) pendingX, (float) pendingY);
+                        isPending = false;
+                    }
+                    path.moveTo((float) c[0], (float) c[1]);
+                    moveX = lastX = c[0];
+                    moveY = lastY = c[1];
+                    break;
+                case PathIterator.SEG_LINETO: {
+                    double dx = c[0] - lastX;
+                    double dy = c[1] - lastY;
+                    if (dx * dx + dy * dy < toleranceSq) {
+                        // Keep the vertex in case it is the last one of
+                        // the subpath
+                        pendingX = c[0];
+                        pendingY = c[1];
+                        isPending = true;
+                    } else {
+                        path.lineTo((float) c[0], (float) c[1]);
+                        lastX = c[0];
+                        lastY = c[1];
+                        isPending = false;
+                    }
+                    break;
+                }
+                case PathIterator.SEG_CLOSE:
+                    isPending = false;
+                    path.closePath();
+                    lastX = moveX;
+                    lastY = moveY;
+                    break;
+            }
+        }
+        if (isPending) {
+            path.lineTo((float) pendingX, (float) pendingY);
+        }
+        return path;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)QuadTreeDrawing.java  2.2.2  2009-04-04
+ * @(#)QuadTreeDrawing.java  2.10  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -16,6 +16,8 @@ package org.jhotdraw.draw;
 import dk.sdu.mmmi.featuretracer.lib.FeatureEntryPoint;
 import org.jhotdraw.geom.Dimension2DDouble;
 import org.jhotdraw.geom.QuadTree;
+import org.jhotdraw.geom.RTree;
+import org.jhotdraw.geom.SpatialIndex;
 import java.awt.*;
 import java.awt.geom.*;
 import org.jhotdraw.util.*;
@@ -24,11 +26,33 @@ import org.jhotdraw.app.JHotDrawFeatures;
 import org.jhotdraw.geom.Geom;
 
 /**
- * QuadTreeDrawing uses a QuadTree2DDouble to improve responsiveness of drawings
+ * QuadTreeDrawing uses a SpatialIndex to improve responsiveness of drawings
  * which contain many children.
+ * <p>
+ * By default, the spatial index is a {@link QuadTree}. Subclasses can
+ * override method {@code createSpatialIndex} to use a different index,
+ * for example a {@link RTree}, which performs better on drawings with
+ * huge coordinates or with many long thin figures.
  *
  * @author Werner Randelshofer
- * @version 2.2.2 2009-04-04 draw() method did not check isVisible() property.
+ * @version 2.10 2026-10-18 Defers adding children to the spatial index
+ * until the index is queried, so that cloning the drawing and creating
+ * a snapshot do not build an index.
+ * <br>2.9 2026-10-18 Checks the layer sequence of the children
+ * incrementally instead of scanning all children after each change.
+ * Attribute changes do not affect the layer sequence.
+ * <br>2.8 2026-10-18 Draws the children with the level of detail
+ * policy of the graphics.
+ * <br>2.7 2026-10-18 Method findFiguresWithin uses the spatial index
+ * and caches the transformed bounds of the children.
+ * <br>2.6 2026-10-18 Batches spatial index updates during update transactions.
+ * <br>2.5 2026-10-18 Increments the modification count when the sequence of the children is changed.
+ * <br>2.4 2026-10-18 The spatial index can be chosen by subclasses.
+ * <br>2.3 2026-10-18 Maintains a z-index for each child, so that
+ * sorting query results no longer requires a scan over all children.
+ * Figure changes update the quad tree incrementally and do not invalidate
+ * the z-order anymore.
+ * <br>2.2.2 2009-04-04 draw() method did not check isVisible() property.
  * <br>2.2.1 2008-03-26 Fixed NullPointerException when setting the
  * canvas size. Fixed cloning of quadTree and canvasSize. 
  * <br>2.2 2007-04-09 Added methods setCanvasSize, getCanvasSize.
@@ -39,9 +63,35 @@ import org.jhotdraw.geom.Geom;
  */
 public class QuadTreeDrawing extends AbstractDrawing {
 
-    private QuadTree<Figure> quadTree = new QuadTree<Figure>();
+    private SpatialIndex<Figure> spatialIndex = createSpatialIndex();
     private boolean needsSorting = false;
     private Dimension2DDouble canvasSize;
+    /**
+     * Holds the z-index of each child.
+     * <p>
+     * The z-index values are strictly increasing in the sequence of the
+     * children list, but they are not contiguous. Gaps of
+     * {@code Z_INDEX_STEP} are left between consecutive values, so that
+     * figures can be inserted, removed, brought to front and sent to back
+     * without having to renumber the other children.
+     */
+    private HashMap<Figure, Long> zIndices = new HashMap<Figure, Long>();
+    /**
+     * The gap between the z-indices of two consecutive children after
+     * renumbering.
+     */
+    private final static long Z_INDEX_STEP = 1L << 20;
+    /**
+     * Holds the children which have been added, or which have changed during
+     * an update transaction, and whose entries in the spatial index have not
+     * been updated yet.
+     */
+    private LinkedHashSet<Figure> pendingIndexUpdates = new LinkedHashSet<Figure>();
+    /**
+     * Caches the bounds of the children with their TRANSFORM attribute
+     * applied. An entry is removed, when the child changes.
+     */
+    private HashMap<Figure, Rectangle2D.Double> transformedBounds = new HashMap<Figure, Rectangle2D.Double>();
 
     @Override
     public int indexOf(Figure figure) {
@@ -51,24 +101,116 @@ public class QuadTreeDrawing extends AbstractDrawing {
     @Override
     public void basicAdd(int index, Figure figure) {
         super.basicAdd(index, figure);
-        quadTree.add(figure, figure.getDrawingArea());
-        needsSorting = true;
+        pendingIndexUpdates.add(figure);
+        insertZIndex(index, figure);
+        if (!isInLayerSequence(index)) {
+            needsSorting = true;
+        }
     }
 
     @Override
     public Figure basicRemoveChild(int index) {
         Figure figure = getChild(index);
-        quadTree.remove(figure);
-        needsSorting = true;
+        spatialIndex.remove(figure);
+        pendingIndexUpdates.remove(figure);
+        transformedBounds.remove(figure);
+        zIndices.remove(figure);
         super.basicRemoveChild(index);
         return figure;
     }
 
+    /**
+     * Assigns a z-index to a figure, which has just been inserted
+     * at the specified index of the children list.
+     * <p>
+     * Appending and prepending figures takes constant time. Inserting
+     * a figure between two figures takes constant time as long as there
+     * is a gap between their z-indices, otherwise all children are
+     * renumbered.
+     */
+    private void insertZIndex(int index, Figure figure) {
+        int size = children.size();
+        if (size == 1) {
+            zIndices.put(figure, 0L);
+        } else if (index == size - 1) {
+            zIndices.put(figure, zIndices.get(children.get(index - 1)) + Z_INDEX_STEP);
+        } else if (index == 0) {
+            zIndices.put(figure, zIndices.get(children.get(1)) - Z_INDEX_STEP);
+        } else {
+            long before = zIndices.get(children.get(index - 1));
+            long after = zIndices.get(children.get(index + 1));
+            if (after - before > 1) {
+                zIndices.put(figure, before + (after - before) / 2);
+            } else {
+                renumberZIndices();
+            }
+        }
+    }
+
+    /**
+     * Renumbers the z-indices of all children, so that they reflect
+     * the sequence of the children list.
+     */
+    private void renumberZIndices() {
+        zIndices.clear();
+        long z = 0;
+        for (Figure f : children) {
+            zIndices.put(f, z);
+            z += Z_INDEX_STEP;
+        }
+    }
+
+    /**
+     * Returns the z-index of the specified figure, or Long.MIN_VALUE if
+     * the figure is not a child of this drawing.
+     */
+    private long getZIndex(Figure f) {
+        Long z = zIndices.get(f);
+        return (z == null) ? Long.MIN_VALUE : z;
+    }
+
+    /**
+     * Updates the entries of the children in the spatial index, which have
+     * been added or which have changed during an update transaction.
+     * <p>
+     * This method is invoked before each query of the spatial index.
+     * Snapshots which are only drawn as a whole never build their index.
+     */
+    private void validateSpatialIndex() {
+        if (!pendingIndexUpdates.isEmpty()) {
+            for (Figure f : pendingIndexUpdates) {
+                spatialIndex.update(f, f.getDrawingArea());
+            }
+            pendingIndexUpdates.clear();
+        }
+    }
+
+    @Override
+    public void endUpdate() {
+        super.endUpdate();
+        if (!isUpdating()) {
+            validateSpatialIndex();
+        }
+    }
+
+    /**
+     * Returns the specified figures in z-order front to back.
+     */
+    private java.util.List<Figure> sortFrontToBack(Collection<? extends Figure> c) {
+        ensureSorted();
+        ArrayList<Figure> sorted = new ArrayList<Figure>(c);
+        Collections.sort(sorted, Collections.reverseOrder(new ZIndexComparator()));
+        return sorted;
+    }
+
     @Override
     public void draw(Graphics2D g) {
         Rectangle2D clipBounds = g.getClipBounds();
         if (clipBounds != null) {
-            Collection<Figure> c = quadTree.findIntersects(clipBounds);
+            validateSpatialIndex();
+            Collection<Figure> c = spatialIndex.findIntersects(new Rectangle2D.Double(
+                    clipBounds.getX(), clipBounds.getY(),
+                    clipBounds.getWidth(), clipBounds.getHeight()));
             Collection<Figure> toDraw = sort(c);
             draw(g, toDraw);
         } else {
@@ -82,24 +224,31 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public java.util.List<Figure> sort(Collection<? extends Figure> c) {
         ensureSorted();
         ArrayList<Figure> sorted = new ArrayList<Figure>(c.size());
-        for (Figure f : children) {
-            if (c.contains(f)) {
+        for (Figure f : c) {
+            if (zIndices.containsKey(f)) {
                 sorted.add(f);
             }
         }
+        Collections.sort(sorted, new ZIndexComparator());
         return sorted;
     }
 
     public void draw(Graphics2D g, Collection<Figure> c) {
+        LevelOfDetailPolicy lod = LevelOfDetailPolicy.get(g);
         for (Figure f : c) {
             if (f.isVisible()) {
-                f.draw(g);
+                if (lod == null) {
+                    f.draw(g);
+                } else {
+                    lod.draw(g, f);
+                }
             }
         }
     }
 
     public java.util.List<Figure> getChildren(Rectangle2D.Double bounds) {
-        return new LinkedList<Figure>(quadTree.findInside(bounds));
+        validateSpatialIndex();
+        return new LinkedList<Figure>(spatialIndex.findInside(bounds));
     }
 
     @Override
@@ -109,9 +258,10 @@ public class QuadTreeDrawing extends AbstractDrawing {
 
     @Override
     public Figure findFigureInside(Point2D.Double p) {
-        Collection<Figure> c = quadTree.findContains(p);
-        for (Figure f : getFiguresFrontToBack()) {
-            if (c.contains(f) && f.contains(p)) {
+        validateSpatialIndex();
+        Collection<Figure> c = spatialIndex.findContains(p);
+        for (Figure f : sortFrontToBack(c)) {
+            if (f.contains(p)) {
                 return f.findFigureInside(p);
             }
         }
@@ -129,7 +279,8 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public Figure findFigure(Point2D.Double p) {
-        Collection<Figure> c = quadTree.findContains(p);
+        validateSpatialIndex();
+        Collection<Figure> c = spatialIndex.findContains(p);
         switch (c.size()) {
             case 0:
                 return null;
@@ -138,8 +289,8 @@ public class QuadTreeDrawing extends AbstractDrawing {
                 return (f.contains(p)) ? f : null;
             }
             default: {
-                for (Figure f : getFiguresFrontToBack()) {
-                    if (c.contains(f) && f.contains(p)) {
+                for (Figure f : sortFrontToBack(c)) {
+                    if (f.contains(p)) {
                         return f;
                     }
                 }
@@ -149,7 +300,8 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public Figure findFigureExcept(Point2D.Double p, Figure ignore) {
-        Collection<Figure> c = quadTree.findContains(p);
+        validateSpatialIndex();
+        Collection<Figure> c = spatialIndex.findContains(p);
         switch (c.size()) {
             case 0: {
                 return null;
@@ -159,7 +311,7 @@ public class QuadTreeDrawing extends AbstractDrawing {
                 return (f == ignore || !f.contains(p)) ? null : f;
             }
             default: {
-                for (Figure f : getFiguresFrontToBack()) {
+                for (Figure f : sortFrontToBack(c)) {
                     if (f != ignore && f.contains(p)) {
                         return f;
                     }
@@ -170,17 +322,18 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public Figure findFigureExcept(Point2D.Double p, Collection<? extends Figure> ignore) {
-        Collection<Figure> c = quadTree.findContains(p);
+        validateSpatialIndex();
+        Collection<Figure> c = spatialIndex.findContains(p);
         switch (c.size()) {
             case 0: {
                 return null;
             }
             case 1: {
                 Figure f = c.iterator().next();
-                return (!ignore.contains(f) || !f.contains(p)) ? null : f;
+                return (ignore.contains(f) || !f.contains(p)) ? null : f;
             }
             default: {
-                for (Figure f : getFiguresFrontToBack()) {
+                for (Figure f : sortFrontToBack(c)) {
                     if (!ignore.contains(f) && f.contains(p)) {
                         return f;
                     }
@@ -191,37 +344,42 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public Figure findFigureBehind(Point2D.Double p, Figure figure) {
-        boolean isBehind = false;
-        for (Figure f : getFiguresFrontToBack()) {
-            if (isBehind) {
-                if (f.isVisible() && f.contains(p)) {
-                    return f;
-                }
-            } else {
-                isBehind = figure == f;
-            }
+        ensureSorted();
+        if (!zIndices.containsKey(figure)) {
+            return null;
         }
-        return null;
+        return findFigureBehind(p, getZIndex(figure));
     }
 
     public Figure findFigureBehind(Point2D.Double p, Collection<? extends Figure> children) {
-        int inFrontOf = children.size();
-        for (Figure f : getFiguresFrontToBack()) {
-            if (inFrontOf == 0) {
-                if (f.isVisible() && f.contains(p)) {
-                    return f;
-                }
-            } else {
-                if (children.contains(f)) {
-                    inFrontOf--;
-                }
+        ensureSorted();
+        long behind = Long.MAX_VALUE;
+        for (Figure f : children) {
+            if (!zIndices.containsKey(f)) {
+                return null;
+            }
+            behind = Math.min(behind, getZIndex(f));
+        }
+        return findFigureBehind(p, behind);
+    }
+
+    /**
+     * Returns the front-most visible figure, which contains the specified
+     * point and which has a z-index smaller than the specified z-index.
+     */
+    private Figure findFigureBehind(Point2D.Double p, long zIndex) {
+        validateSpatialIndex();
+        for (Figure f : sortFrontToBack(spatialIndex.findContains(p))) {
+            if (getZIndex(f) < zIndex && f.isVisible() && f.contains(p)) {
+                return f;
             }
         }
         return null;
     }
 
     public java.util.List<Figure> findFigures(Rectangle2D.Double r) {
-        LinkedList<Figure> c = new LinkedList<Figure>(quadTree.findIntersects(r));
+        validateSpatialIndex();
+        LinkedList<Figure> c = new LinkedList<Figure>(spatialIndex.findIntersects(r));
         switch (c.size()) {
             case 0:
             // fall through
@@ -232,19 +390,39 @@ public class QuadTreeDrawing extends AbstractDrawing {
         }
     }
 
+    /**
+     * Returns the visible children, whose transformed bounds are contained
+     * in the specified bounds, in z-order.
+     * <p>
+     * The candidates are looked up in the spatial index. This relies on the
+     * drawing area of a figure enclosing its transformed bounds.
+     */
     public java.util.List<Figure> findFiguresWithin(Rectangle2D.Double bounds) {
-        LinkedList<Figure> contained = new LinkedList<Figure>();
-        for (Figure f : children) {
-            Rectangle2D.Double r = f.getBounds();
+        validateSpatialIndex();
+        ArrayList<Figure> contained = new ArrayList<Figure>();
+        for (Figure f : spatialIndex.findIntersects(bounds)) {
+            if (f.isVisible() && Geom.contains(bounds, getTransformedBounds(f))) {
+                contained.add(f);
+            }
+        }
+        return (contained.size() > 1) ? sort(contained) : contained;
+    }
+
+    /**
+     * Returns the bounds of the specified child with its TRANSFORM
+     * attribute applied. The returned rectangle must not be modified.
+     */
+    private Rectangle2D.Double getTransformedBounds(Figure f) {
+        Rectangle2D.Double r = transformedBounds.get(f);
+        if (r == null) {
+            r = f.getBounds();
             if (AttributeKeys.TRANSFORM.get(f) != null) {
                 Rectangle2D rt = AttributeKeys.TRANSFORM.get(f).createTransformedShape(r).getBounds2D();
                 r = (rt instanceof Rectangle2D.Double) ? (Rectangle2D.Double) rt : new Rectangle2D.Double(rt.getX(), rt.getY(), rt.getWidth(), rt.getHeight());
             }
-            if (f.isVisible() && Geom.contains(bounds, r)) {
-                contained.add(f);
-            }
+            transformedBounds.put(f, r);
         }
-        return contained;
+        return r;
     }
 
     @Override
@@ -252,7 +430,12 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public void bringToFront(Figure figure) {
         if (children.remove(figure)) {
             children.add(figure);
-            needsSorting = true;
+            zIndices.remove(figure);
+            insertZIndex(children.size() - 1, figure);
+            if (!isInLayerSequence(children.size() - 1)) {
+                needsSorting = true;
+            }
+            incrementModificationCount();
             fireAreaInvalidated(figure.getDrawingArea());
         }
     }
@@ -262,14 +445,19 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public void sendToBack(Figure figure) {
         if (children.remove(figure)) {
             children.add(0, figure);
-            needsSorting = true;
+            zIndices.remove(figure);
+            insertZIndex(0, figure);
+            if (!isInLayerSequence(0)) {
+                needsSorting = true;
+            }
+            incrementModificationCount();
             fireAreaInvalidated(figure.getDrawingArea());
         }
     }
 
     @Override
     public boolean contains(Figure f) {
-        return children.contains(f);
+        return zIndices.containsKey(f);
     }
 
     /**
@@ -278,10 +466,25 @@ public class QuadTreeDrawing extends AbstractDrawing {
     private void ensureSorted() {
         if (needsSorting) {
             Collections.sort(children, FigureLayerComparator.INSTANCE);
+            renumberZIndices();
             needsSorting = false;
         }
     }
 
+    /**
+     * Returns true, if the layer of the child at the specified index
+     * is in sequence with the layers of its neighbours.
+     * <p>
+     * The children are kept in layer sequence incrementally: removing a
+     * child never breaks the sequence, and adding or moving a child can
+     * only break it at the position of that child.
+     */
+    private boolean isInLayerSequence(int index) {
+        int layer = children.get(index).getLayer();
+        return (index == 0 || children.get(index - 1).getLayer() <= layer) &&
+                (index == children.size() - 1 || layer <= children.get(index + 1).getLayer());
+    }
+
     @Override
     protected void setAttributeOnChildren(AttributeKey key, Object newValue) {
         // empty
@@ -300,13 +503,38 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public QuadTreeDrawing clone() {
         QuadTreeDrawing that = (QuadTreeDrawing) super.clone();
         that.canvasSize = (this.canvasSize == null) ? null : (Dimension2DDouble) this.canvasSize.clone();
-        that.quadTree = new QuadTree<Figure>();
-        for (Figure f : getChildren()) {
-            quadTree.add(f, f.getDrawingArea());
-        }
+        that.spatialIndex = that.createSpatialIndex();
+        that.pendingIndexUpdates = new LinkedHashSet<Figure>();
+        that.transformedBounds = new HashMap<Figure, Rectangle2D.Double>();
+        that.pendingIndexUpdates.addAll(that.getChildren());
+        that.zIndices = new HashMap<Figure, Long>();
+        that.renumberZIndices();
         return that;
     }
 
+    /**
+     * Compares children of this drawing by their z-index.
+     */
+    private class ZIndexComparator implements Comparator<Figure> {
+
+        public int compare(Figure f1, Figure f2) {
+            long z1 = getZIndex(f1);
+            long z2 = getZIndex(f2);
+            return (z1 < z2) ? -1 : ((z1 == z2) ? 0 : 1);
+        }
+    }
+
+    /**
+     * Creates the spatial index which is used to look up the children
+     * of this drawing by their drawing area.
+     * <p>
+     * This method is invoked once by the constructor and once by clone().
+     * The default implementation returns a {@link QuadTree}.
+     */
+    protected SpatialIndex<Figure> createSpatialIndex() {
+        return new QuadTree<Figure>();
+    }
+
     protected EventHandler createEventHandler() {
         return new QuadTreeEventHandler();
     }
@@ -318,9 +546,13 @@ public class QuadTreeDrawing extends AbstractDrawing {
 
         @Override
         public void figureChanged(FigureEvent e) {
-            quadTree.remove(e.getFigure());
-            quadTree.add(e.getFigure(), e.getFigure().getDrawingArea());
-            needsSorting = true;
+            transformedBounds.remove(e.getFigure());
+            if (isUpdating()) {
+                pendingIndexUpdates.add(e.getFigure());
+            } else {
+                pendingIndexUpdates.remove(e.getFigure());
+                spatialIndex.update(e.getFigure(), e.getFigure().getDrawingArea());
+            }
             invalidate();
             fireAreaInvalidated(e.getInvalidatedArea());
         }
@@ -0,0 +1,111 @@
+/*
+ * @(#)SelectionGroupFigure.java  1.0.1  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.util.*;
+
+/**
+ * SelectionGroupFigure is the owner of the aggregate handles, which
+ * DefaultDrawingView creates instead of the handles of each figure, when a
+ * huge number of figures is selected.
+ * <p>
+ * The figure is not part of the drawing. It holds the selected figures as
+ * its children, but the figures remain children of the drawing. When the
+ * figure will change and when it has changed, all selected figures are
+ * notified within a single update transaction of the drawing.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0.1 2026-10-18 The update transactions of the drawing do not
+ * span from willChange to changed anymore, so that an exception in between
+ * does not leave the drawing updating.
+ * <br>1.0 2026-10-18 Created.
+ */
+class SelectionGroupFigure extends GroupFigure {
+
+    private final static long serialVersionUID = 1L;
+    private Drawing drawing;
+
+    /** Creates a new instance for the specified selected figures. */
+    public SelectionGroupFigure(Drawing drawing, Collection<Figure> selectedFigures) {
+        this.drawing = drawing;
+        for (Figure f : selectedFigures) {
+            basicAdd(f);
+        }
+    }
+
+    /**
+     * Returns a bounds outline handle and transform handles for the
+     * selection as a whole.
+     */
+    @Override
+    public Collection<Handle> createHandles(int detailLevel) {
+        LinkedList<Handle> handles = new LinkedList<Handle>();
+        if (detailLevel == 0) {
+            TransformHandleKit.addGroupTransformHandles(this, handles);
+        }
+        return handles;
+    }
+
+    @Override
+    public void willChange() {
+        if (getChangingDepth() == 0) {
+            beginUpdate();
+            try {
+                for (Figure child : children) {
+                    child.willChange();
+                }
+            } finally {
+                endUpdate();
+            }
+        }
+        super.willChange();
+    }
+
+    @Override
+    public void changed() {
+        if (getChangingDepth() == 1) {
+            beginUpdate();
+            try {
+                for (Figure child : children) {
+                    child.changed();
+                }
+            } finally {
+                endUpdate();
+            }
+        }
+        super.changed();
+    }
+
+    private void beginUpdate() {
+        if (drawing != null) {
+            drawing.beginUpdate();
+        }
+    }
+
+    private void endUpdate() {
+        if (drawing != null) {
+            drawing.endUpdate();
+        }
+    }
+
+    /**
+     * Stops listening to the selected figures. The children are kept,
+     * so that undoable edits of this figure can still be undone and redone.
+     */
+    public void dispose() {
+        for (Figure child : children) {
+            child.removeFigureListener(eventHandler);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * @(#)TextOutlineCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * TextOutlineCache is a process-wide cache of the outlines of single lines
+ * of text.
+ * <p>
+ * Constructing a {@code TextLayout} and taking its outline is expensive.
+ * Drawings with many labels typically use a few fonts and many equal
+ * strings. The cache holds the outline and the metrics of a line of text by
+ * text, font, underline style and font render context, so that the layout
+ * work is done only once for all figures which show the same text.
+ * <p>
+ * The outlines are relative to the origin of the baseline. Figures apply
+ * their own transformation to the outline. The outlines are shared, and
+ * must not be modified.
+ * <p>
+ * The number of entries in the cache is bounded. If the cache is full,
+ * the least recently used entry is removed. Texts which are longer than
+ * {@link #MAX_TEXT_LENGTH} are not cached.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class TextOutlineCache {
+
+    /**
+     * The default maximal number of entries in the cache.
+     */
+    public final static int DEFAULT_MAXIMUM_SIZE = 8192;
+    /**
+     * Texts with more characters than this are not cached.
+     */
+    public final static int MAX_TEXT_LENGTH = 256;
+    private static int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private static LinkedHashMap<Key, Outline> cache = new LinkedHashMap<Key, Outline>(256, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Outline> eldest) {
+            return size() > maximumSize;
+        }
+    };
+
+    /**
+     * Prevent instance creation.
+     */
+    private TextOutlineCache() {
+    }
+
+    /**
+     * Returns the outline of the specified text.
+     *
+     * @param text The text.
+     * @param font The font.
+     * @param underline The value of the {@code TextAttribute.UNDERLINE}
+     * attribute, or null, if the text is not underlined.
+     * @param frc The font render context.
+     */
+    public static Outline getOutline(String text, Font font, Integer underline, FontRenderContext frc) {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            return new Outline(text, font, underline, frc);
+        }
+        Key key = new Key(text, font, underline, frc);
+        Outline outline;
+        synchronized (cache) {
+            outline = cache.get(key);
+        }
+        if (outline == null) {
+            // We create the outline outside of the lock. If two threads
+            // create the same outline at the same time, one of them wins.
+            outline = new Outline(text, font, underline, frc);
+            synchronized (cache) {
+                cache.put(key, outline);
+            }
+        }
+        return outline;
+    }
+
+    /**
+     * Sets the maximal number of entries in the cache.
+     */
+    public static void setMaximumSize(int newValue) {
+        synchronized (cache) {
+            maximumSize = newValue;
+            if (cache.size() > maximumSize) {
+                Iterator<Key> i = cache.keySet().iterator();
+                for (int n = cache.size() - maximumSize; n > 0; n--) {
+                    i.next();
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    public static int getMaximumSize() {
+        synchronized (cache) {
+            return maximumSize;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     */
+    public static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * The outline and the metrics of a line of text.
+     */
+    public static class Outline {
+
+        private Shape shape;
+        private Rectangle2D bounds;
+        private float advance;
+        private float ascent;
+        private float descent;
+        private float leading;
+
+        private Outline(String text, Font font, Integer underline, FontRenderContext frc) {
+            HashMap<TextAttribute, Object> textAttributes = new HashMap<TextAttribute, Object>();
+            textAttributes.put(TextAttribute.FONT, font);
+            if (underline != null) {
+                textAttributes.put(TextAttribute.UNDERLINE, underline);
+            }
+            TextLayout textLayout = new TextLayout(text, textAttributes, frc);
+            shape = textLayout.getOutline(null);
+            bounds = textLayout.getBounds();
+            advance = textLayout.getAdvance();
+            ascent = textLayout.getAscent();
+            descent = textLayout.getDescent();
+            leading = textLayout.getLeading();
+        }
+
+        /**
+         * Returns the outline of the text relative to the origin of the
+         * baseline. The returned shape must not be modified.
+         */
+        public Shape getShape() {
+            return shape;
+        }
+
+        /**
+         * Returns the bounds of the text relative to the origin of the
+         * baseline.
+         */
+        public Rectangle2D getBounds() {
+            return (Rectangle2D) bounds.clone();
+        }
+
+        public float getAdvance() {
+            return advance;
+        }
+
+        public float getAscent() {
+            return ascent;
+        }
+
+        public float getDescent() {
+            return descent;
+        }
+
+        public float getLeading() {
+            return leading;
+        }
+    }
+
+    private static class Key {
+
+        private String text;
+        private Font font;
+        private Integer underline;
+        private FontRenderContext frc;
+        private int hashCode;
+
+        public Key(String text, Font font, Integer underline, FontRenderContext frc) {
+            this.text = text;
+            this.font = font;
+            this.underline = underline;
+            this.frc = frc;
+            hashCode = ((text.hashCode() * 31 + font.hashCode()) * 31 +
+                    (underline == null ? 0 : underline.hashCode())) * 31 + frc.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.hashCode == that.hashCode &&
+                    this.text.equals(that.text) &&
+                    this.font.equals(that.font) &&
+                    (this.underline == null ? that.underline == null : this.underline.equals(that.underline)) &&
+                    this.frc.equals(that.frc);
+        }
+    }
+}
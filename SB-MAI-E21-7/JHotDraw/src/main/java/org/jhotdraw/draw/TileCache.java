@@ -0,0 +1,202 @@
+/*
+ * @(#)TileCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * A TileCache holds rasterized tiles of a drawing.
+ * <p>
+ * The drawing is rasterized at a given scale factor into square tiles
+ * of {@code TILE_SIZE} pixels. Tile (0,0) of a scale factor has its
+ * upper left corner at the origin of the drawing. Tiles of different
+ * scale factors are held side by side, so that zooming back to a
+ * previous scale factor can reuse them.
+ * <p>
+ * The cache holds at most as many tiles as fit into its memory budget.
+ * When the budget is exceeded, the least recently used tiles are
+ * discarded.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class TileCache {
+
+    /**
+     * The width and height of a tile in pixels.
+     */
+    public final static int TILE_SIZE = 256;
+    /**
+     * The maximal number of bytes used by the tiles.
+     */
+    private long memoryBudget;
+    /**
+     * The number of bytes currently used by the tiles.
+     */
+    private long memoryUsed;
+    /**
+     * The tiles in least recently used order.
+     */
+    private LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<TileKey, BufferedImage>(64, 0.75f, true);
+    /**
+     * The number of tiles for each scale factor.
+     */
+    private HashMap<Double, Integer> tileCounts = new HashMap<Double, Integer>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryBudget The maximal number of bytes used by the tiles.
+     */
+    public TileCache(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long newValue) {
+        memoryBudget = newValue;
+        evict();
+    }
+
+    /**
+     * Returns the tile at the specified tile coordinates, or null if the
+     * tile is not in the cache.
+     */
+    public BufferedImage getTile(double scaleFactor, int tileX, int tileY) {
+        return tiles.get(new TileKey(scaleFactor, tileX, tileY));
+    }
+
+    /**
+     * Puts a tile into the cache, and discards the least recently used
+     * tiles, if the memory budget is exceeded.
+     */
+    public void putTile(double scaleFactor, int tileX, int tileY, BufferedImage tile) {
+        TileKey key = new TileKey(scaleFactor, tileX, tileY);
+        BufferedImage old = tiles.put(key, tile);
+        if (old != null) {
+            memoryUsed -= getSize(old);
+        } else {
+            addTileCount(scaleFactor, 1);
+        }
+        memoryUsed += getSize(tile);
+        evict();
+    }
+
+    /**
+     * Discards all tiles which intersect the specified area.
+     *
+     * @param r An area in drawing coordinates.
+     */
+    public void invalidate(Rectangle2D.Double r) {
+        for (Map.Entry<Double, Integer> entry : new ArrayList<Map.Entry<Double, Integer>>(tileCounts.entrySet())) {
+            double scaleFactor = entry.getKey();
+            // Grow the area by one pixel to take antialiasing into account
+            int x0 = (int) Math.floor((r.x * scaleFactor - 1) / TILE_SIZE);
+            int y0 = (int) Math.floor((r.y * scaleFactor - 1) / TILE_SIZE);
+            int x1 = (int) Math.floor(((r.x + r.width) * scaleFactor + 1) / TILE_SIZE);
+            int y1 = (int) Math.floor(((r.y + r.height) * scaleFactor + 1) / TILE_SIZE);
+            if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) <= entry.getValue()) {
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        remove(new TileKey(scaleFactor, x, y));
+                    }
+                }
+            } else {
+                for (TileKey key : new ArrayList<TileKey>(tiles.keySet())) {
+                    if (key.scaleFactor == scaleFactor &&
+                            key.x >= x0 && key.x <= x1 &&
+                            key.y >= y0 && key.y <= y1) {
+                        remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all tiles.
+     */
+    public void clear() {
+        tiles.clear();
+        tileCounts.clear();
+        memoryUsed = 0;
+    }
+
+    private void remove(TileKey key) {
+        BufferedImage tile = tiles.remove(key);
+        if (tile != null) {
+            memoryUsed -= getSize(tile);
+            addTileCount(key.scaleFactor, -1);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<TileKey, BufferedImage>> i = tiles.entrySet().iterator();
+        while (memoryUsed > memoryBudget && i.hasNext()) {
+            Map.Entry<TileKey, BufferedImage> entry = i.next();
+            i.remove();
+            memoryUsed -= getSize(entry.getValue());
+            addTileCount(entry.getKey().scaleFactor, -1);
+        }
+    }
+
+    private void addTileCount(double scaleFactor, int delta) {
+        Integer count = tileCounts.get(scaleFactor);
+        int newCount = (count == null) ? delta : count + delta;
+        if (newCount <= 0) {
+            tileCounts.remove(scaleFactor);
+        } else {
+            tileCounts.put(scaleFactor, newCount);
+        }
+    }
+
+    private static long getSize(BufferedImage tile) {
+        return (long) tile.getWidth() * tile.getHeight() *
+                tile.getColorModel().getPixelSize() / 8;
+    }
+
+    private static class TileKey {
+
+        private final double scaleFactor;
+        private final int x;
+        private final int y;
+
+        public TileKey(double scaleFactor, int x, int y) {
+            this.scaleFactor = scaleFactor;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof TileKey) {
+                TileKey that = (TileKey) o;
+                return that.scaleFactor == this.scaleFactor &&
+                        that.x == this.x && that.y == this.y;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(scaleFactor);
+            return ((int) (bits ^ (bits >>> 32)) * 31 + x) * 31 + y;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)TransformEdit.java  2.0  2006-01-14
+ * @(#)TransformEdit.java  2.1  2026-10-18
  *
  * Copyright (c) 1996-2006 by the original authors of JHotDraw
  * and all its contributors.
@@ -30,7 +30,9 @@ import java.util.*;
  * FIXME - Maybe TransformEdit should be replaced by GeometryEdit?
  *
  * @author Werner Randelshofer
- * @version 2.0 2006-01-14 Changed to support double precision coordinates.
+ * @version 2.1 2026-10-18 Undo and redo are performed within an update
+ * transaction of the drawing.
+ * <br>2.0 2006-01-14 Changed to support double precision coordinates.
  * <br>1.0 2003-12-01 Derived from JHotDraw 5.4b1.
  */
 public class TransformEdit extends AbstractUndoableEdit {
@@ -81,15 +83,28 @@ public class TransformEdit extends AbstractUndoableEdit {
     
     public void redo() throws CannotRedoException {
         super.redo();
-        for (Figure f : figures) {
-            f.willChange();
-            f.transform(tx);
+        Drawing drawing = getDrawing();
+        if (drawing != null) {
+            drawing.beginUpdate();
+        }
+        try {
+            for (Figure f : figures) {
+                f.willChange();
+                f.transform(tx);
                 f.changed();
-            
+            }
+        } finally {
+            if (drawing != null) {
+                drawing.endUpdate();
+            }
         }
     }
     public void undo() throws CannotUndoException {
         super.undo();
+        Drawing drawing = getDrawing();
+        if (drawing != null) {
+            drawing.beginUpdate();
+        }
         try {
             AffineTransform inverse = tx.createInverse();
             for (Figure f : figures) {
@@ -99,7 +114,24 @@ public class TransformEdit extends AbstractUndoableEdit {
             }
         } catch (NoninvertibleTransformException e) {
             e.printStackTrace();
+        } finally {
+            if (drawing != null) {
+                drawing.endUpdate();
+            }
+        }
+    }
+    /**
+     * Returns the drawing of the figures, or null if the figures are not
+     * part of a drawing.
+     */
+    private Drawing getDrawing() {
+        if (!figures.isEmpty()) {
+            Figure f = figures.iterator().next();
+            if (f instanceof AbstractFigure) {
+                return ((AbstractFigure) f).getDrawing();
+            }
         }
+        return null;
     }
     public String toString() {
         return getClass().getName()+'@'+hashCode()+" tx:"+tx;
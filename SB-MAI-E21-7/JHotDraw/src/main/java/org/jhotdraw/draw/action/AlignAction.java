@@ -1,5 +1,5 @@
 /*
- * @(#)AlignAction.java  2.1  2008-02-27
+ * @(#)AlignAction.java  2.2  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -30,7 +30,9 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * XXX - Fire edit events
  *
  * @author  Werner Randelshofer
- * @version 2.1 2008-02-27 Only align figures which are transformable. 
+ * @version 2.2 2026-10-18 Aligns the figures within an update transaction
+ * of the drawing.
+ * <br>2.1 2008-02-27 Only align figures which are transformable. 
  * <br>2.0 2006-01-15 Changed to support double precision coordinates.
  * <br>1.0 17. March 2004  Created.
  */
@@ -53,7 +55,12 @@ public abstract class AlignAction extends AbstractSelectedAction {
     public void actionPerformed(java.awt.event.ActionEvent e) {
         CompositeEdit edit = new CompositeEdit(labels.getString("edit.align.text"));
         fireUndoableEditHappened(edit);
-        alignFigures(getView().getSelectedFigures(), getSelectionBounds());
+        getDrawing().beginUpdate();
+        try {
+            alignFigures(getView().getSelectedFigures(), getSelectionBounds());
+        } finally {
+            getDrawing().endUpdate();
+        }
         fireUndoableEditHappened(edit);
     }
     protected abstract void alignFigures(Collection selectedFigures, Rectangle2D.Double selectionBounds);
@@ -1,5 +1,5 @@
 /*
- * @(#)ApplyAttributesAction.java  2.0.1  2008-02-26
+ * @(#)ApplyAttributesAction.java  2.2.1  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -28,7 +28,11 @@ import static org.jhotdraw.draw.AttributeKeys.*;
  * ApplyAttributesAction.
  *
  * @author Werner Randelshofer
- * @version 2.1 2008-03-26 Made figures fire areInvalidated events, when
+ * @version 2.2.1 2026-10-18 Uses wildcard attribute keys for the applied
+ * attributes.
+ * <br>2.2 2026-10-18 Fire an AttributeChangeEdit, so that applying
+ * attributes can be undone.
+ * <br>2.1 2008-03-26 Made figures fire areInvalidated events, when
  * applying the attributes.
  * <br>2.0 2007-04-16 Added support exclusion of attributes.
  * <br>1.0 25. November 2003  Created.
@@ -66,12 +70,19 @@ public class ApplyAttributesAction extends AbstractSelectedAction {
         DrawingView view = getView();
         view.getDrawing().fireUndoableEditHappened(edit);
 
+        LinkedHashMap<AttributeKey<?>, Object> attributes = new LinkedHashMap<AttributeKey<?>, Object>();
+        for (Map.Entry<AttributeKey, Object> entry : editor.getDefaultAttributes().entrySet()) {
+            if (!excludedAttributes.contains(entry.getKey())) {
+                attributes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        view.getDrawing().fireUndoableEditHappened(new AttributeChangeEdit(
+                labels.getString("edit.applyAttrbutes.text"), view.getSelectedFigures(), attributes));
+
         for (Figure figure : view.getSelectedFigures()) {
             figure.willChange();
-            for (Map.Entry<AttributeKey, Object> entry : editor.getDefaultAttributes().entrySet()) {
-                if (!excludedAttributes.contains(entry.getKey())) {
-                    entry.getKey().basicSet(figure, entry.getValue());
-                }
+            for (Map.Entry<AttributeKey<?>, Object> entry : attributes.entrySet()) {
+                ((AttributeKey<Object>) entry.getKey()).basicSet(figure, entry.getValue());
             }
             figure.changed();
         }
@@ -1,5 +1,5 @@
 /*
- * @(#)AttributeAction.java  3.1  2009-04-10
+ * @(#)AttributeAction.java  3.2.1  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -24,7 +24,9 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * AttributeAction.
  *
  * @author Werner Randelshofer
- * @version 3.1 2009-04-10 Factored method applyAttributes out of method
+ * @version 3.2.1 2026-10-18 Passes wildcard attribute keys to the edit.
+ * <br>3.2 2026-10-18 Use AttributeChangeEdit for undo.
+ * <br>3.1 2009-04-10 Factored method applyAttributes out of method
  * actionPerformed to make extensions of this class easier.
  * <br>3.0 207-05-12 Method setAttribute in interface Figure does not
  * handle undo/redo anymore, we must do this by ourselves.
@@ -92,55 +94,26 @@ public class AttributeAction extends AbstractSelectedAction {
             getEditor().setDefaultAttribute(entry.getKey(), entry.getValue());
         }
 
-        final ArrayList<Figure> selectedFigures = new ArrayList<Figure>(figures);
-        final ArrayList<Object> restoreData = new ArrayList<Object>(selectedFigures.size());
-        for (Figure figure : selectedFigures) {
-            restoreData.add(figure.getAttributesRestoreData());
+        String name = (String) getValue(Actions.UNDO_PRESENTATION_NAME_KEY);
+        if (name == null) {
+            name = (String) getValue(AbstractAction.NAME);
+        }
+        if (name == null) {
+            ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
+            name = labels.getString("attribute.text");
+        }
+        LinkedHashMap<AttributeKey<?>, Object> newValues = new LinkedHashMap<AttributeKey<?>, Object>();
+        for (AttributeKey<?> key : a.keySet()) {
+            newValues.put(key, a.get(key));
+        }
+        UndoableEdit edit = new AttributeChangeEdit(name, figures, newValues);
+        for (Figure figure : figures) {
             figure.willChange();
             for (Map.Entry<AttributeKey, Object> entry : a.entrySet()) {
                 entry.getKey().basicSet(figure, entry.getValue());
             }
             figure.changed();
         }
-        UndoableEdit edit = new AbstractUndoableEdit() {
-
-            @Override
-            public String getPresentationName() {
-                String name = (String) getValue(Actions.UNDO_PRESENTATION_NAME_KEY);
-                if (name == null) {
-                    name = (String) getValue(AbstractAction.NAME);
-                }
-                if (name == null) {
-                    ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
-                    name = labels.getString("attribute.text");
-                }
-                return name;
-            }
-
-            @Override
-            public void undo() {
-                super.undo();
-                Iterator<Object> iRestore = restoreData.iterator();
-                for (Figure figure : selectedFigures) {
-                    figure.willChange();
-                    figure.restoreAttributesTo(iRestore.next());
-                    figure.changed();
-                }
-            }
-
-            @Override
-            public void redo() {
-                super.redo();
-                for (Figure figure : selectedFigures) {
-                    restoreData.add(figure.getAttributesRestoreData());
-                    figure.willChange();
-                    for (Map.Entry<AttributeKey, Object> entry : a.entrySet()) {
-                        entry.getKey().basicSet(figure, entry.getValue());
-                    }
-                    figure.changed();
-                }
-            }
-        };
         getDrawing().fireUndoableEditHappened(edit);
     }
 
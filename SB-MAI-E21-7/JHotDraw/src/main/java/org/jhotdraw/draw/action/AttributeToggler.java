@@ -1,5 +1,5 @@
 /*
- * @(#)AttributeToggler.java  4.0  2006-06-07
+ * @(#)AttributeToggler.java  4.1.1  2026-10-18
  *
  * Copyright (c) 1996-2006 by the original authors of JHotDraw
  * and all its contributors.
@@ -32,7 +32,9 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * it will apply the text action to the JTextComponent.
  *
  * @author  Werner Randelshofer
- * @version 4.0 2006-06-07 Reworked.
+ * @version 4.1.1 2026-10-18 Uses a wildcard attribute key for the edit.
+ * <br>4.1 2026-10-18 Use AttributeChangeEdit for undo.
+ * <br>4.0 2006-06-07 Reworked.
  * <br>3.0 2006-02-27 Support for compatible text action added.
  * <br>2.0 2006-02-27 Toggle attributes regardles from action state.
  * <br>1.0 27. November 2003  Created.
@@ -89,43 +91,19 @@ public class AttributeToggler<T> extends AbstractAction {
         
         //--
         final ArrayList<Figure> selectedFigures = new ArrayList<Figure>(getView().getSelectedFigures());
-        final ArrayList<Object> restoreData = new ArrayList<Object>(selectedFigures.size());
+        String name = (String) getValue(Actions.UNDO_PRESENTATION_NAME_KEY);
+        if (name == null) {
+            name = (String) getValue(AbstractAction.NAME);
+        }
+        if (name == null) {
+            ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
+            name = labels.getString("attribute.text");
+        }
+        UndoableEdit edit = new AttributeChangeEdit(name, selectedFigures,
+                Collections.<AttributeKey<?>, Object>singletonMap(key, newValue));
         for (Figure figure : selectedFigures) {
-            restoreData.add(figure.getAttributesRestoreData());
             key.set(figure, newValue);
         }
-        UndoableEdit edit = new AbstractUndoableEdit() {
-            @Override
-            public String getPresentationName() {
-                String name = (String) getValue(Actions.UNDO_PRESENTATION_NAME_KEY);
-                if (name == null) {
-                    name = (String) getValue(AbstractAction.NAME);
-                }
-                if (name == null) {
-                    ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
-                    name = labels.getString("attribute.text");
-                }
-                return name;
-            }
-            @Override
-            public void undo() {
-                super.undo();
-                Iterator<Object> iRestore = restoreData.iterator();
-                for (Figure figure : selectedFigures) {
-                    figure.willChange();
-                    figure.restoreAttributesTo(iRestore.next());
-                    figure.changed();
-                }
-            }
-            @Override
-            public void redo() {
-                super.redo();
-                for (Figure figure : selectedFigures) {
-                    restoreData.add(figure.getAttributesRestoreData());
-                    key.set(figure, newValue);
-                }
-            }
-        };
         getView().getDrawing().fireUndoableEditHappened(edit);
     }
 }
@@ -1,5 +1,5 @@
 /**
- * @(#)FontChooserHandler.java  1.0  22.05.2008
+ * @(#)FontChooserHandler.java  1.1.1  2026-10-18
  *
  * Copyright (c) 2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -27,7 +27,9 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * FontChooserHandler.
  *
  * @author Werner Randelshofer
- * @version 1.0 22.05.2008 Created.
+ * @version 1.1.1 2026-10-18 Uses a wildcard attribute key for the edit.
+ * <br>1.1 2026-10-18 Use AttributeChangeEdit for undo.
+ * <br>1.0 22.05.2008 Created.
  */
 public class FontChooserHandler extends AbstractSelectedAction
         implements PropertyChangeListener {
@@ -60,52 +62,12 @@ public class FontChooserHandler extends AbstractSelectedAction
 
     protected void applySelectedFontToFigures() {
         final ArrayList<Figure> selectedFigures = new ArrayList<Figure>(getView().getSelectedFigures());
-        final ArrayList<Object> restoreData = new ArrayList<Object>(selectedFigures.size());
+        UndoableEdit edit = new AttributeChangeEdit(AttributeKeys.FONT_FACE.getPresentationName(),
+                selectedFigures, Collections.<AttributeKey<?>, Object>singletonMap(key, fontChooser.getSelectedFont()));
         for (Figure figure : selectedFigures) {
-            restoreData.add(figure.getAttributesRestoreData());
             key.set(figure, fontChooser.getSelectedFont());
         }
         getEditor().setDefaultAttribute(key, fontChooser.getSelectedFont());
-        final Font undoValue = fontChooser.getSelectedFont();
-        UndoableEdit edit = new AbstractUndoableEdit() {
-
-            @Override
-            public String getPresentationName() {
-                return AttributeKeys.FONT_FACE.getPresentationName();
-                /*
-                String name = (String) getValue(Actions.UNDO_PRESENTATION_NAME_KEY);
-                if (name == null) {
-                    name = (String) getValue(AbstractAction.NAME);
-                }
-                if (name == null) {
-                    ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
-                    name = labels.getString("attribute.text");
-                }
-                return name;*/
-            }
-
-            @Override
-            public void undo() {
-                super.undo();
-                Iterator<Object> iRestore = restoreData.iterator();
-                for (Figure figure : selectedFigures) {
-                    figure.willChange();
-                    figure.restoreAttributesTo(iRestore.next());
-                    figure.changed();
-                }
-            }
-
-            @Override
-            public void redo() {
-                super.redo();
-                for (Figure figure : selectedFigures) {
-                    restoreData.add(figure.getAttributesRestoreData());
-                    figure.willChange();
-                    key.basicSet(figure, undoValue);
-                    figure.changed();
-                }
-            }
-        };
         fireUndoableEditHappened(edit);
     }
 
@@ -1,5 +1,5 @@
 /*
- * @(#)QuadTree.java  2.0  2006-12-06
+ * @(#)QuadTree.java  2.1  2026-10-18
  *
  * Copyright (c) 1996-2006 by the original authors of JHotDraw
  * and all its contributors.
@@ -27,12 +27,20 @@ import java.awt.*;
  * lower left and lower right quadrant of the parent rectangle. 
  *
  * @author  Werner Randelshofer
- * @version 2.0 2006-12-06 Renamed from QuadTree2DDouble to QuadTree because
+ * @version 2.1 2026-10-18 Added method update. Objects keep track of the
+ * nodes they are stored in. Implements SpatialIndex. The capacity
+ * parameters can be specified.
+ * <br>2.0 2006-12-06 Renamed from QuadTree2DDouble to QuadTree because
  * this class isn't a Shape2D class.
  * <br>1.0 2006-01-14 Derived from class QuadTree.
  */
-public class QuadTree<T> {
+public class QuadTree<T> implements SpatialIndex<T> {
     private HashMap<T,Rectangle2D.Double> outside = new HashMap<T,Rectangle2D.Double>();
+    /**
+     * Back-pointers from the objects to the nodes they are stored in.
+     * Objects which are stored in the outside map have no entry in this map.
+     */
+    private HashMap<T,ArrayList<QuadNode>> locations = new HashMap<T,ArrayList<QuadNode>>();
     private QuadNode root;
     private int maxCapacity = 32;
     private int minSize = 32;
@@ -45,6 +53,23 @@ public class QuadTree<T> {
     public QuadTree(Rectangle2D.Double bounds) {
         root = new QuadNode(bounds);
     }
+    /**
+     * Creates a new instance.
+     *
+     * @param bounds The initial bounds of the root node. The tree is
+     * reorganized, when more than maxOutside objects are outside of the bounds.
+     * @param maxCapacity The number of objects a leaf node holds before it is
+     * split.
+     * @param minSize The minimal width and height of a node.
+     * @param maxOutside The maximal number of objects outside of the bounds
+     * of the root node.
+     */
+    public QuadTree(Rectangle2D.Double bounds, int maxCapacity, int minSize, int maxOutside) {
+        root = new QuadNode(bounds);
+        this.maxCapacity = maxCapacity;
+        this.minSize = minSize;
+        this.maxOutside = maxOutside;
+    }
     
     public void add(T o, Rectangle2D.Double bounds) {
         if (root.bounds.contains(bounds)) {
@@ -61,6 +86,7 @@ public class QuadTree<T> {
         root.join();
         outside.putAll(root.objects);
         root.objects.clear();
+        locations.clear();
         
         Iterator<Map.Entry<T,Rectangle2D.Double>> i = outside.entrySet().iterator();
         Map.Entry<T,Rectangle2D.Double> entry = i.next();
@@ -80,7 +106,62 @@ public class QuadTree<T> {
     }
     public void remove(T o) {
         outside.remove(o);
-        root.remove(o);
+        ArrayList<QuadNode> nodes = locations.remove(o);
+        if (nodes != null) {
+            for (QuadNode node : nodes) {
+                node.objects.remove(o);
+            }
+        }
+    }
+    /**
+     * Updates the bounds of an object.
+     * <p>
+     * The object is only moved to different nodes, if its new bounds
+     * cross the boundary of the leaf node it is stored in, or if it
+     * enters or leaves the bounds of the tree.
+     * If the object is not in the tree yet, it is added.
+     */
+    public void update(T o, Rectangle2D.Double bounds) {
+        ArrayList<QuadNode> nodes = locations.get(o);
+        if (nodes != null) {
+            if (nodes.size() == 1) {
+                QuadNode node = nodes.get(0);
+                if (node.isLeaf() && node.bounds.contains(bounds)) {
+                    node.objects.put(o, (Rectangle2D.Double) bounds.clone());
+                    return;
+                }
+            }
+        } else if (outside.containsKey(o) && ! root.bounds.contains(bounds)) {
+            outside.put(o, (Rectangle2D.Double) bounds.clone());
+            return;
+        }
+        remove(o);
+        add(o, bounds);
+    }
+    /**
+     * Records that an object is stored in the specified node.
+     */
+    private void locate(T o, QuadNode node) {
+        ArrayList<QuadNode> nodes = locations.get(o);
+        if (nodes == null) {
+            nodes = new ArrayList<QuadNode>(1);
+            locations.put(o, nodes);
+        }
+        if (! nodes.contains(node)) {
+            nodes.add(node);
+        }
+    }
+    /**
+     * Records that an object is no longer stored in the specified node.
+     */
+    private void unlocate(T o, QuadNode node) {
+        ArrayList<QuadNode> nodes = locations.get(o);
+        if (nodes != null) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                locations.remove(o);
+            }
+        }
     }
     public Collection<T> findContains(Point2D.Double p) {
         HashSet<T> result = new HashSet<T>();
@@ -142,15 +223,6 @@ public class QuadTree<T> {
             return northEast == null;
         }
         
-        public void remove(T o) {
-            if (objects.remove(o) == null && ! isLeaf()) {
-                northEast.remove(o);
-                northWest.remove(o);
-                southEast.remove(o);
-                southWest.remove(o);
-            }
-        }
-        
         public void add(T o, Rectangle2D.Double oBounds) {
             // Do we have to split?
             if (isLeaf()
@@ -163,6 +235,7 @@ public class QuadTree<T> {
                 // We put an object into our hashtable if we are
                 // a leaf, or if the bounds of the object contain our bounds.
                 objects.put(o, oBounds);
+                locate(o, this);
             } else {
                 if (northEast.bounds.intersects(oBounds)) {
                     northEast.add(o, oBounds);
@@ -199,6 +272,7 @@ public class QuadTree<T> {
                 HashMap<T,Rectangle2D.Double> temp = objects;
                 objects = new HashMap<T,Rectangle2D.Double>();
                 for (Map.Entry<T,Rectangle2D.Double> entry : temp.entrySet()) {
+                    unlocate(entry.getKey(), this);
                     add(entry.getKey(), entry.getValue());
                 }
             }
@@ -216,6 +290,14 @@ public class QuadTree<T> {
                 objects.putAll(southWest.objects);
                 objects.putAll(southEast.objects);
                 
+                for (T o : objects.keySet()) {
+                    unlocate(o, northWest);
+                    unlocate(o, northEast);
+                    unlocate(o, southWest);
+                    unlocate(o, southEast);
+                    locate(o, this);
+                }
+                
                 northWest = null;
                 northEast = null;
                 southWest = null;
@@ -0,0 +1,543 @@
+/*
+ * @(#)RTree.java  1.0.1  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * An RTree allows to quickly find an object on a two-dimensional space.
+ * <p>
+ * Unlike a {@link QuadTree}, an RTree does not subdivide a fixed area of
+ * the space. Each node covers the minimal bounding rectangle of its
+ * entries, and each object is stored in exactly one leaf node. Therefore
+ * the tree works equally well for objects with huge coordinates, and for
+ * long thin objects, such as connection lines, which would be stored in
+ * many nodes of a QuadTree.
+ * <p>
+ * Nodes which overflow are split using the split heuristic of the
+ * R*-tree, which minimizes the margin and the overlap of the resulting
+ * nodes. Method {@code bulkLoad} builds a tree using
+ * Sort-Tile-Recursive (STR) packing, which yields nearly full nodes with
+ * little overlap.
+ *
+ * @author  Werner Randelshofer
+ * @version 1.0.1 2026-10-18 Nodes and entries are typed with the type of
+ * the stored objects.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class RTree<T> implements SpatialIndex<T> {
+
+    private int maxEntries;
+    private int minEntries;
+    private Node<T> root;
+    /**
+     * Maps objects to their leaf entries.
+     */
+    private HashMap<T, Item<T>> items = new HashMap<T, Item<T>>();
+
+    /** Creates a new instance with a maximal node capacity of 16 entries. */
+    public RTree() {
+        this(16);
+    }
+
+    /**
+     * Creates a new instance with the specified maximal node capacity.
+     * The minimal node capacity is 40 percent of the maximal capacity.
+     */
+    public RTree(int maxEntries) {
+        if (maxEntries < 4) {
+            throw new IllegalArgumentException("maxEntries must be at least 4: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = Math.max(2, (int) (maxEntries * 0.4));
+        root = new Node<T>(true, maxEntries);
+    }
+
+    public void add(T o, Rectangle2D.Double bounds) {
+        if (items.containsKey(o)) {
+            update(o, bounds);
+        } else {
+            Item<T> item = new Item<T>(o, (Rectangle2D.Double) bounds.clone());
+            items.put(o, item);
+            insert(item);
+        }
+    }
+
+    /**
+     * Updates the bounds of an object.
+     * <p>
+     * The object stays in its leaf node, if its new bounds are inside
+     * the bounds of the leaf. Otherwise it is removed and inserted again.
+     */
+    public void update(T o, Rectangle2D.Double bounds) {
+        Item<T> item = items.get(o);
+        if (item == null) {
+            add(o, bounds);
+        } else if (item.leaf.bounds.contains(bounds)) {
+            item.bounds = (Rectangle2D.Double) bounds.clone();
+        } else {
+            remove(o);
+            add(o, bounds);
+        }
+    }
+
+    public void remove(T o) {
+        Item<T> item = items.remove(o);
+        if (item != null) {
+            Node<T> leaf = item.leaf;
+            leaf.entries.remove(item);
+            item.leaf = null;
+            condense(leaf);
+        }
+    }
+
+    /**
+     * Removes all objects from the tree.
+     */
+    public void clear() {
+        items.clear();
+        root = new Node<T>(true, maxEntries);
+    }
+
+    /**
+     * Returns the number of objects in the tree.
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Adds all specified objects to the tree, and rebuilds the tree using
+     * Sort-Tile-Recursive packing.
+     * <p>
+     * This is considerably faster than adding the objects one by one, and
+     * yields a tree with better query performance.
+     */
+    public void bulkLoad(Map<? extends T, Rectangle2D.Double> objects) {
+        for (Map.Entry<? extends T, Rectangle2D.Double> entry : objects.entrySet()) {
+            Item<T> item = items.get(entry.getKey());
+            if (item == null) {
+                item = new Item<T>(entry.getKey(), null);
+                items.put(entry.getKey(), item);
+            }
+            item.bounds = (Rectangle2D.Double) entry.getValue().clone();
+        }
+
+        ArrayList<Box<T>> level = new ArrayList<Box<T>>(items.values());
+        boolean isLeafLevel = true;
+        do {
+            level = pack(level, isLeafLevel);
+            isLeafLevel = false;
+        } while (level.size() > 1);
+
+        root = (Node<T>) level.get(0);
+        root.parent = null;
+    }
+
+    /**
+     * Packs the specified boxes into nodes using Sort-Tile-Recursive
+     * packing.
+     */
+    private ArrayList<Box<T>> pack(ArrayList<Box<T>> boxes, boolean isLeafLevel) {
+        ArrayList<Box<T>> nodes = new ArrayList<Box<T>>();
+        if (boxes.isEmpty()) {
+            nodes.add(new Node<T>(isLeafLevel, maxEntries));
+            return nodes;
+        }
+        int nodeCount = (boxes.size() + maxEntries - 1) / maxEntries;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * maxEntries;
+
+        Collections.sort(boxes, CENTER_X_COMPARATOR);
+        for (int i = 0; i < boxes.size(); i += sliceSize) {
+            List<Box<T>> slice = boxes.subList(i, Math.min(i + sliceSize, boxes.size()));
+            Collections.sort(slice, CENTER_Y_COMPARATOR);
+            for (int j = 0; j < slice.size(); j += maxEntries) {
+                Node<T> node = new Node<T>(isLeafLevel, maxEntries);
+                for (Box<T> box : slice.subList(j, Math.min(j + maxEntries, slice.size()))) {
+                    node.addEntry(box);
+                }
+                node.updateBounds();
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    public Collection<T> findContains(Point2D.Double p) {
+        ArrayList<T> result = new ArrayList<T>();
+        if (!root.entries.isEmpty()) {
+            findContains(root, p, result);
+        }
+        return result;
+    }
+
+    private void findContains(Node<T> node, Point2D.Double p, ArrayList<T> result) {
+        for (Box<T> box : node.entries) {
+            if (box.bounds.contains(p)) {
+                if (node.isLeaf) {
+                    result.add(((Item<T>) box).object);
+                } else {
+                    findContains((Node<T>) box, p, result);
+                }
+            }
+        }
+    }
+
+    public Collection<T> findIntersects(Rectangle2D.Double r) {
+        ArrayList<T> result = new ArrayList<T>();
+        if (!root.entries.isEmpty()) {
+            findIntersects(root, r, result);
+        }
+        return result;
+    }
+
+    private void findIntersects(Node<T> node, Rectangle2D.Double r, ArrayList<T> result) {
+        for (Box<T> box : node.entries) {
+            if (box.bounds.intersects(r)) {
+                if (node.isLeaf) {
+                    result.add(((Item<T>) box).object);
+                } else {
+                    findIntersects((Node<T>) box, r, result);
+                }
+            }
+        }
+    }
+
+    public Collection<T> findInside(Rectangle2D.Double r) {
+        ArrayList<T> result = new ArrayList<T>();
+        if (!root.entries.isEmpty()) {
+            findInside(root, r, result);
+        }
+        return result;
+    }
+
+    private void findInside(Node<T> node, Rectangle2D.Double r, ArrayList<T> result) {
+        for (Box<T> box : node.entries) {
+            if (node.isLeaf) {
+                if (r.contains(box.bounds)) {
+                    result.add(((Item<T>) box).object);
+                }
+            } else if (box.bounds.intersects(r)) {
+                findInside((Node<T>) box, r, result);
+            }
+        }
+    }
+
+    /**
+     * Inserts an item into the leaf, which needs the least enlargement,
+     * and splits all nodes on the path to the root, which overflow.
+     */
+    private void insert(Item<T> item) {
+        Node<T> leaf = chooseLeaf(item.bounds);
+        leaf.addEntry(item);
+        for (Node<T> node = leaf; node != null;) {
+            Node<T> parent = node.parent;
+            if (node.entries.size() > maxEntries) {
+                split(node);
+            } else if (node.entries.size() == 1) {
+                node.bounds = (Rectangle2D.Double) item.bounds.clone();
+            } else {
+                node.bounds.add(item.bounds);
+            }
+            node = (parent == null && node.parent != null) ? node.parent : parent;
+        }
+    }
+
+    private Node<T> chooseLeaf(Rectangle2D.Double bounds) {
+        Node<T> node = root;
+        while (!node.isLeaf) {
+            Node<T> best = null;
+            double bestEnlargement = Double.POSITIVE_INFINITY;
+            double bestArea = Double.POSITIVE_INFINITY;
+            for (Box<T> box : node.entries) {
+                double area = area(box.bounds);
+                double enlargement = unionArea(box.bounds, bounds) - area;
+                if (enlargement < bestEnlargement ||
+                        enlargement == bestEnlargement && area < bestArea) {
+                    best = (Node<T>) box;
+                    bestEnlargement = enlargement;
+                    bestArea = area;
+                }
+            }
+            node = best;
+        }
+        return node;
+    }
+
+    /**
+     * Splits an overflowing node into two nodes using the R*-tree split
+     * heuristic. If the node is the root, a new root is created.
+     */
+    private void split(Node<T> node) {
+        ArrayList<Box<T>> entries = node.entries;
+        int count = entries.size();
+
+        // Choose the split axis with the smallest margin sum
+        List<Comparator<Box<?>>> axis = null;
+        double bestMargin = Double.POSITIVE_INFINITY;
+        for (List<Comparator<Box<?>>> comparators : AXIS_COMPARATORS) {
+            double margin = 0;
+            for (Comparator<Box<?>> c : comparators) {
+                Collections.sort(entries, c);
+                Rectangle2D.Double[] lower = prefixBounds(entries);
+                Rectangle2D.Double[] upper = suffixBounds(entries);
+                for (int k = minEntries; k <= count - minEntries; k++) {
+                    margin += margin(lower[k - 1]) + margin(upper[k]);
+                }
+            }
+            if (margin < bestMargin) {
+                bestMargin = margin;
+                axis = comparators;
+            }
+        }
+
+        // Choose the distribution with the smallest overlap, and then
+        // with the smallest area
+        Comparator<Box<?>> bestComparator = null;
+        int bestIndex = minEntries;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (Comparator<Box<?>> c : axis) {
+            Collections.sort(entries, c);
+            Rectangle2D.Double[] lower = prefixBounds(entries);
+            Rectangle2D.Double[] upper = suffixBounds(entries);
+            for (int k = minEntries; k <= count - minEntries; k++) {
+                double overlap = intersectionArea(lower[k - 1], upper[k]);
+                double area = area(lower[k - 1]) + area(upper[k]);
+                if (overlap < bestOverlap ||
+                        overlap == bestOverlap && area < bestArea) {
+                    bestComparator = c;
+                    bestIndex = k;
+                    bestOverlap = overlap;
+                    bestArea = area;
+                }
+            }
+        }
+        Collections.sort(entries, bestComparator);
+
+        Node<T> sibling = new Node<T>(node.isLeaf, maxEntries);
+        ArrayList<Box<T>> moved = new ArrayList<Box<T>>(entries.subList(bestIndex, count));
+        entries.subList(bestIndex, count).clear();
+        for (Box<T> box : moved) {
+            sibling.addEntry(box);
+        }
+        node.updateBounds();
+        sibling.updateBounds();
+
+        if (node.parent == null) {
+            Node<T> newRoot = new Node<T>(false, maxEntries);
+            newRoot.addEntry(node);
+            newRoot.addEntry(sibling);
+            newRoot.updateBounds();
+            root = newRoot;
+        } else {
+            node.parent.addEntry(sibling);
+        }
+    }
+
+    /**
+     * Removes underfull nodes on the path from the specified leaf to the
+     * root, and inserts their items again.
+     */
+    private void condense(Node<T> leaf) {
+        ArrayList<Item<T>> orphans = new ArrayList<Item<T>>();
+        Node<T> node = leaf;
+        while (node.parent != null) {
+            Node<T> parent = node.parent;
+            if (node.entries.size() < minEntries) {
+                parent.entries.remove(node);
+                node.parent = null;
+                collectItems(node, orphans);
+            } else {
+                node.updateBounds();
+            }
+            node = parent;
+        }
+        root.updateBounds();
+        if (!root.isLeaf) {
+            if (root.entries.isEmpty()) {
+                root = new Node<T>(true, maxEntries);
+            } else if (root.entries.size() == 1) {
+                root = (Node<T>) root.entries.get(0);
+                root.parent = null;
+            }
+        }
+        for (Item<T> item : orphans) {
+            insert(item);
+        }
+    }
+
+    private void collectItems(Node<T> node, ArrayList<Item<T>> result) {
+        for (Box<T> box : node.entries) {
+            if (node.isLeaf) {
+                result.add((Item<T>) box);
+            } else {
+                collectItems((Node<T>) box, result);
+            }
+        }
+    }
+
+    private static Rectangle2D.Double[] prefixBounds(ArrayList<? extends Box<?>> boxes) {
+        Rectangle2D.Double[] result = new Rectangle2D.Double[boxes.size()];
+        Rectangle2D.Double r = null;
+        for (int i = 0; i < result.length; i++) {
+            r = union(r, boxes.get(i).bounds);
+            result[i] = r;
+        }
+        return result;
+    }
+
+    private static Rectangle2D.Double[] suffixBounds(ArrayList<? extends Box<?>> boxes) {
+        Rectangle2D.Double[] result = new Rectangle2D.Double[boxes.size()];
+        Rectangle2D.Double r = null;
+        for (int i = result.length - 1; i >= 0; i--) {
+            r = union(r, boxes.get(i).bounds);
+            result[i] = r;
+        }
+        return result;
+    }
+
+    private static Rectangle2D.Double union(Rectangle2D.Double r1, Rectangle2D.Double r2) {
+        if (r1 == null) {
+            return (Rectangle2D.Double) r2.clone();
+        }
+        Rectangle2D.Double r = (Rectangle2D.Double) r1.clone();
+        r.add(r2);
+        return r;
+    }
+
+    private static double area(Rectangle2D.Double r) {
+        return r.width * r.height;
+    }
+
+    private static double margin(Rectangle2D.Double r) {
+        return r.width + r.height;
+    }
+
+    private static double unionArea(Rectangle2D.Double r1, Rectangle2D.Double r2) {
+        double w = Math.max(r1.x + r1.width, r2.x + r2.width) - Math.min(r1.x, r2.x);
+        double h = Math.max(r1.y + r1.height, r2.y + r2.height) - Math.min(r1.y, r2.y);
+        return w * h;
+    }
+
+    private static double intersectionArea(Rectangle2D.Double r1, Rectangle2D.Double r2) {
+        double w = Math.min(r1.x + r1.width, r2.x + r2.width) - Math.max(r1.x, r2.x);
+        double h = Math.min(r1.y + r1.height, r2.y + r2.height) - Math.max(r1.y, r2.y);
+        return (w <= 0 || h <= 0) ? 0 : w * h;
+    }
+
+    /**
+     * Base class for tree nodes and leaf entries.
+     */
+    private static class Box<T> {
+
+        protected Rectangle2D.Double bounds;
+    }
+
+    /**
+     * A leaf entry.
+     */
+    private static class Item<T> extends Box<T> {
+
+        private T object;
+        private Node<T> leaf;
+
+        public Item(T object, Rectangle2D.Double bounds) {
+            this.object = object;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * A tree node. The entries of a leaf node are items, the entries of
+     * an inner node are nodes.
+     */
+    private static class Node<T> extends Box<T> {
+
+        private boolean isLeaf;
+        private Node<T> parent;
+        private ArrayList<Box<T>> entries;
+
+        public Node(boolean isLeaf, int maxEntries) {
+            this.isLeaf = isLeaf;
+            this.entries = new ArrayList<Box<T>>(maxEntries + 1);
+            this.bounds = new Rectangle2D.Double();
+        }
+
+        public void addEntry(Box<T> box) {
+            entries.add(box);
+            if (isLeaf) {
+                ((Item<T>) box).leaf = this;
+            } else {
+                ((Node<T>) box).parent = this;
+            }
+        }
+
+        public void updateBounds() {
+            if (entries.isEmpty()) {
+                bounds = new Rectangle2D.Double();
+            } else {
+                bounds = (Rectangle2D.Double) entries.get(0).bounds.clone();
+                for (int i = 1, n = entries.size(); i < n; i++) {
+                    bounds.add(entries.get(i).bounds);
+                }
+            }
+        }
+    }
+
+    private final static Comparator<Box<?>> MIN_X_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.x, b2.bounds.x);
+        }
+    };
+    private final static Comparator<Box<?>> MAX_X_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.x + b1.bounds.width, b2.bounds.x + b2.bounds.width);
+        }
+    };
+    private final static Comparator<Box<?>> MIN_Y_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.y, b2.bounds.y);
+        }
+    };
+    private final static Comparator<Box<?>> MAX_Y_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.y + b1.bounds.height, b2.bounds.y + b2.bounds.height);
+        }
+    };
+    private final static Comparator<Box<?>> CENTER_X_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.getCenterX(), b2.bounds.getCenterX());
+        }
+    };
+    private final static Comparator<Box<?>> CENTER_Y_COMPARATOR = new Comparator<Box<?>>() {
+
+        public int compare(Box<?> b1, Box<?> b2) {
+            return Double.compare(b1.bounds.getCenterY(), b2.bounds.getCenterY());
+        }
+    };
+    /**
+     * The comparators for the lower and upper bounds of each split axis.
+     */
+    private final static List<List<Comparator<Box<?>>>> AXIS_COMPARATORS = Arrays.asList(
+            Arrays.asList(MIN_X_COMPARATOR, MAX_X_COMPARATOR),
+            Arrays.asList(MIN_Y_COMPARATOR, MAX_Y_COMPARATOR));
+}
@@ -0,0 +1,271 @@
+/*
+ * @(#)SegmentGrid.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+
+package org.jhotdraw.geom;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * A SegmentGrid holds the flattened outline of a shape as a list of line
+ * segments, and a uniform grid, which maps each cell to the segments whose
+ * bounds intersect the cell.
+ * <p>
+ * A SegmentGrid is used for repeated hit tests on a shape with many
+ * segments. The shape is flattened only once, and a hit test only looks
+ * at the segments near the tested point.
+ * <p>
+ * A SegmentGrid is immutable. It does not reflect changes of the shape
+ * from which it was created.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class SegmentGrid {
+
+    /**
+     * The maximal number of cells along each axis of the grid.
+     */
+    private final static int MAX_CELLS = 256;
+    /**
+     * The coordinates of the segments. Segment i starts at
+     * (coords[i*4], coords[i*4+1]) and ends at (coords[i*4+2], coords[i*4+3]).
+     */
+    private double[] coords;
+    /**
+     * Flags implicit segments, which close an open subpath. Implicit
+     * segments are not part of the outline, but they bound the interior
+     * of the shape.
+     */
+    private boolean[] isImplicit;
+    private int segmentCount;
+    private boolean isEvenOdd;
+    private double x0, y0, cellWidth, cellHeight;
+    private int columns, rows;
+    /**
+     * The indices of the segments in cell (column, row) are stored in
+     * cellSegments from cellStart[row*columns+column] up to
+     * cellStart[row*columns+column+1].
+     */
+    private int[] cellStart;
+    private int[] cellSegments;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param shape The shape.
+     * @param flatness The maximal distance of the segments from the curves
+     * of the shape.
+     */
+    public SegmentGrid(Shape shape, double flatness) {
+        coords = new double[64];
+        isImplicit = new boolean[16];
+        PathIterator i = shape.getPathIterator(null, flatness);
+        isEvenOdd = i.getWindingRule() == PathIterator.WIND_EVEN_ODD;
+        double[] c = new double[6];
+        double moveX = 0, moveY = 0, prevX = 0, prevY = 0;
+        boolean isOpen = false;
+        for (; !i.isDone(); i.next()) {
+            switch (i.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    if (isOpen) {
+                        addSegment(prevX, prevY, moveX, moveY, true);
+                    }
+                    moveX = prevX = c[0];
+                    moveY = prevY = c[1];
+                    isOpen = false;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    addSegment(prevX, prevY, c[0], c[1], false);
+                    prevX = c[0];
+                    prevY = c[1];
+                    isOpen = true;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    addSegment(prevX, prevY, moveX, moveY, false);
+                    prevX = moveX;
+                    prevY = moveY;
+                    isOpen = false;
+                    break;
+            }
+        }
+        if (isOpen) {
+            addSegment(prevX, prevY, moveX, moveY, true);
+        }
+        createGrid();
+    }
+
+    private void addSegment(double x1, double y1, double x2, double y2, boolean implicit) {
+        if (segmentCount * 4 == coords.length) {
+            coords = Arrays.copyOf(coords, coords.length * 2);
+        }
+        if (segmentCount == isImplicit.length) {
+            isImplicit = Arrays.copyOf(isImplicit, isImplicit.length * 2);
+        }
+        int j = segmentCount * 4;
+        coords[j] = x1;
+        coords[j + 1] = y1;
+        coords[j + 2] = x2;
+        coords[j + 3] = y2;
+        isImplicit[segmentCount++] = implicit;
+    }
+
+    /**
+     * Creates a grid with about as many cells as there are segments.
+     */
+    private void createGrid() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int j = 0, n = segmentCount * 4; j < n; j += 2) {
+            minX = Math.min(minX, coords[j]);
+            minY = Math.min(minY, coords[j + 1]);
+            maxX = Math.max(maxX, coords[j]);
+            maxY = Math.max(maxY, coords[j + 1]);
+        }
+        if (segmentCount == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        double width = Math.max(maxX - minX, 1e-6);
+        double height = Math.max(maxY - minY, 1e-6);
+        double cellSize = Math.sqrt(width * height / Math.max(1, segmentCount));
+        columns = (int) Math.max(1, Math.min(MAX_CELLS, Math.ceil(width / cellSize)));
+        rows = (int) Math.max(1, Math.min(MAX_CELLS, Math.ceil(height / cellSize)));
+        x0 = minX;
+        y0 = minY;
+        cellWidth = width / columns;
+        cellHeight = height / rows;
+
+        // Count the segments of each cell, then fill in the segments.
+        cellStart = new int[columns * rows + 1];
+        for (int s = 0; s < segmentCount; s++) {
+            int j = s * 4;
+            int c0 = column(Math.min(coords[j], coords[j + 2]));
+            int c1 = column(Math.max(coords[j], coords[j + 2]));
+            int r0 = row(Math.min(coords[j + 1], coords[j + 3]));
+            int r1 = row(Math.max(coords[j + 1], coords[j + 3]));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int k = 1; k < cellStart.length; k++) {
+            cellStart[k] += cellStart[k - 1];
+        }
+        cellSegments = new int[cellStart[cellStart.length - 1]];
+        int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+        for (int s = 0; s < segmentCount; s++) {
+            int j = s * 4;
+            int c0 = column(Math.min(coords[j], coords[j + 2]));
+            int c1 = column(Math.max(coords[j], coords[j + 2]));
+            int r0 = row(Math.min(coords[j + 1], coords[j + 3]));
+            int r1 = row(Math.max(coords[j + 1], coords[j + 3]));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellSegments[fill[r * columns + c]++] = s;
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - x0) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - y0) / cellHeight)));
+    }
+
+    /**
+     * Returns the number of segments.
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns true, if the outline of the shape contains the specified
+     * point. A segment contains the point, if
+     * {@link Geom#lineContainsPoint(double, double, double, double, double, double, double)}
+     * returns true for it.
+     *
+     * @param p The point to be tested.
+     * @param tolerance The tolerance for the test.
+     */
+    public boolean outlineContains(Point2D.Double p, double tolerance) {
+        // Geom.lineContainsPoint grows the bounds of a segment by this amount
+        double grow = Math.max(2, Math.ceil(tolerance));
+        if (segmentCount == 0 ||
+                p.x < x0 - grow || p.x > x0 + columns * cellWidth + grow ||
+                p.y < y0 - grow || p.y > y0 + rows * cellHeight + grow) {
+            return false;
+        }
+        int c0 = column(p.x - grow);
+        int c1 = column(p.x + grow);
+        int r0 = row(p.y - grow);
+        int r1 = row(p.y + grow);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell], n = cellStart[cell + 1]; k < n; k++) {
+                    int s = cellSegments[k];
+                    int j = s * 4;
+                    if (!isImplicit[s] && Geom.lineContainsPoint(
+                            coords[j], coords[j + 1], coords[j + 2], coords[j + 3],
+                            p.x, p.y, tolerance)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true, if the interior of the shape contains the specified
+     * point. Open subpaths are implicitly closed. The winding rule of the
+     * shape is taken into account.
+     *
+     * @param p The point to be tested.
+     */
+    public boolean contains(Point2D.Double p) {
+        if (segmentCount == 0 ||
+                p.x < x0 || p.x > x0 + columns * cellWidth ||
+                p.y < y0 || p.y > y0 + rows * cellHeight) {
+            return false;
+        }
+        // Count the crossings of a ray from the point to the right.
+        // A segment is stored in all cells of the row which it spans,
+        // so we only count it in the cell which contains the crossing.
+        int r = row(p.y);
+        int winding = 0;
+        for (int c = column(p.x); c < columns; c++) {
+            int cell = r * columns + c;
+            for (int k = cellStart[cell], n = cellStart[cell + 1]; k < n; k++) {
+                int j = cellSegments[k] * 4;
+                double x1 = coords[j], y1 = coords[j + 1];
+                double x2 = coords[j + 2], y2 = coords[j + 3];
+                if ((y1 <= p.y) == (y2 <= p.y)) {
+                    continue;
+                }
+                double x = x1 + (p.y - y1) * (x2 - x1) / (y2 - y1);
+                if (x > p.x && column(x) == c) {
+                    winding += (y2 > y1) ? 1 : -1;
+                }
+            }
+        }
+        return isEvenOdd ? (winding & 1) != 0 : winding != 0;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * @(#)SpatialIndex.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * A SpatialIndex allows to quickly find objects on a two-dimensional space
+ * by their bounds.
+ * <p>
+ * Each object is stored in the index together with a copy of its bounds.
+ * When the bounds of an object change, the index must be notified using
+ * method {@code update}.
+ *
+ * @author  Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ * @see QuadTree
+ * @see RTree
+ */
+public interface SpatialIndex<T> {
+
+    /**
+     * Adds an object with the specified bounds to the index.
+     */
+    public void add(T o, Rectangle2D.Double bounds);
+
+    /**
+     * Updates the bounds of an object in the index.
+     * If the object is not in the index yet, it is added.
+     */
+    public void update(T o, Rectangle2D.Double bounds);
+
+    /**
+     * Removes an object from the index.
+     */
+    public void remove(T o);
+
+    /**
+     * Returns all objects whose bounds contain the specified point.
+     */
+    public Collection<T> findContains(Point2D.Double p);
+
+    /**
+     * Returns all objects whose bounds intersect the specified rectangle.
+     */
+    public Collection<T> findIntersects(Rectangle2D.Double r);
+
+    /**
+     * Returns all objects whose bounds are inside the specified rectangle.
+     */
+    public Collection<T> findInside(Rectangle2D.Double r);
+}
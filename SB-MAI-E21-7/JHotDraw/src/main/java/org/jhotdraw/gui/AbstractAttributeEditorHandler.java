@@ -1,5 +1,5 @@
 /*
- * @(#)AbstractAttributeEditorHandler.java  1.0  2009-04-14
+ * @(#)AbstractAttributeEditorHandler.java  1.1.1  2026-10-18
  * 
  * Copyright (c) 2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -17,14 +17,10 @@ import org.jhotdraw.draw.FigureEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import javax.swing.undo.AbstractUndoableEdit;
-import javax.swing.undo.CannotRedoException;
-import javax.swing.undo.UndoableEdit;
+import org.jhotdraw.draw.AttributeChangeEdit;
 import org.jhotdraw.draw.AttributeKey;
 import org.jhotdraw.draw.DrawingEditor;
 import org.jhotdraw.draw.DrawingView;
@@ -38,7 +34,10 @@ import org.jhotdraw.draw.FigureSelectionListener;
  * currently selected Figure's in a DrawingEditor.
  *
  * @author Werner Randelshofer
- * @version 1.0 2009-04-14 Created.
+ * @version 1.1.1 2026-10-18 Uses wildcard attribute keys for the edit.
+ * <br>1.1 2026-10-18 Use AttributeChangeEdit, which only records
+ * the changed attributes.
+ * <br>1.0 2009-04-14 Created.
  */
 public abstract class AbstractAttributeEditorHandler<T> {
 
@@ -48,7 +47,6 @@ public abstract class AbstractAttributeEditorHandler<T> {
     protected AttributeEditor<T> attributeEditor;
     protected AttributeKey<T> attributeKey;
     protected int updateDepth;
-    protected LinkedList<Object> attributeRestoreData = new LinkedList<Object>();
     protected Map<AttributeKey, Object> defaultAttributes;
     /**
      * If this variable is set to true, the attribute editor updates the
@@ -64,7 +62,6 @@ public abstract class AbstractAttributeEditorHandler<T> {
     protected class EventHandler extends FigureAdapter implements FigureSelectionListener, PropertyChangeListener {
 
         public void selectionChanged(FigureSelectionEvent evt) {
-            attributeRestoreData = null;
             if (figuresOfInterest != null) {
                 for (Figure f : figuresOfInterest) {
                     f.removeFigureListener(this);
@@ -100,53 +97,6 @@ public abstract class AbstractAttributeEditorHandler<T> {
     }
     private EventHandler eventHandler;
 
-    private static class UndoableAttributeEdit<T> extends AbstractUndoableEdit {
-
-        private Set<Figure> editedFigures;
-        private AttributeKey<T> attributeKey;
-        private T editRedoValue;
-        protected LinkedList<Object> editUndoData;
-
-        public UndoableAttributeEdit(Set<Figure> editedFigures, AttributeKey<T> attributeKey, T editRedoValue, LinkedList<Object> editUndoData) {
-            this.editedFigures = editedFigures;
-            this.attributeKey = attributeKey;
-            this.editRedoValue = editRedoValue;
-            this.editUndoData = editUndoData;
-        }
-
-        @Override
-        public String getPresentationName() {
-            return attributeKey.toString();
-        }
-
-        @Override
-        public void undo() throws CannotRedoException {
-            super.undo();
-            Iterator<Object> di = editUndoData.iterator();
-            for (Figure f : editedFigures) {
-                f.willChange();
-                f.restoreAttributesTo(di.next());
-                f.changed();
-            }
-        }
-
-        @Override
-        public void redo() throws CannotRedoException {
-            super.redo();
-            for (Figure f : editedFigures) {
-                attributeKey.set(f, editRedoValue);
-            }
-        }
-
-        @Override
-        public boolean replaceEdit(UndoableEdit anEdit) {
-            if (anEdit instanceof UndoableAttributeEdit) {
-                return ((UndoableAttributeEdit) anEdit).editUndoData == this.editUndoData;
-            }
-            return false;
-        }
-    }
-
     public AbstractAttributeEditorHandler(AttributeKey<T> key, AttributeEditor<T> attributeEditor, DrawingEditor drawingEditor) {
         this(key, attributeEditor, drawingEditor, true);
     }
@@ -297,7 +247,6 @@ public abstract class AbstractAttributeEditorHandler<T> {
                 f.addFigureListener(eventHandler);
             }
         }
-        attributeRestoreData = null;
         updateAttributeEditor();
     }
 
@@ -334,12 +283,14 @@ public abstract class AbstractAttributeEditorHandler<T> {
             if (activeView == null || figures.isEmpty()) {
             } else {
                 T value = attributeEditor.getAttributeValue();
-                if (attributeRestoreData == null) {
-                    attributeRestoreData = new LinkedList<Object>();
-                    for (Figure f : figures) {
-                        attributeRestoreData.add(f.getAttributesRestoreData());
-                    }
+                LinkedHashMap<AttributeKey<?>, Object> newValues = new LinkedHashMap<AttributeKey<?>, Object>();
+                newValues.put(attributeKey, value);
+                for (AttributeKey<?> key : defaultAttributes.keySet()) {
+                    newValues.put(key, defaultAttributes.get(key));
                 }
+                AttributeChangeEdit edit = new AttributeChangeEdit(attributeKey.getPresentationName(), figures, newValues);
+                // Edits are coalesced while the user drags a slider
+                edit.setAdjusting(attributeEditor.getValueIsAdjusting());
                 for (Figure f : figures) {
                     f.willChange();
                     attributeKey.basicSet(f, value);
@@ -351,12 +302,7 @@ public abstract class AbstractAttributeEditorHandler<T> {
                 if (drawingEditor != null && isUpdateDrawingEditorDefaults) {
                     drawingEditor.setDefaultAttribute(attributeKey, value);
                 }
-                getActiveView().getDrawing().fireUndoableEditHappened(//
-                        new UndoableAttributeEdit<T>(new HashSet<Figure>(figures), attributeKey, value, attributeRestoreData)//
-                        );
-                if (!attributeEditor.getValueIsAdjusting()) {
-                    attributeRestoreData = null;
-                }
+                getActiveView().getDrawing().fireUndoableEditHappened(edit);
             }
         }
         updateDepth--;
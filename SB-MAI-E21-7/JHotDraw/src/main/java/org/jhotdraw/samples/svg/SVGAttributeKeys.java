@@ -1,5 +1,5 @@
 /*
- * @(#)SVGAttributeKeys.java  1.3  2007-12-16
+ * @(#)SVGAttributeKeys.java  1.5  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -22,13 +22,27 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * SVGAttributeKeys.
  *
  * @author Werner Randelshofer
- * @version 1.3 2007-12-16 Added TITLE and DESCRIPTION. 
+ * @version 1.5 2026-10-18 Registers a copier for gradients.
+ * <br>1.4 2026-10-18 Methods getFillPaint and getStrokePaint read the
+ * opacity without boxing it.
+ * <br>1.3 2007-12-16 Added TITLE and DESCRIPTION. 
  * <br>1.2 2007-04-22 Attribute Key LINK added. 
  * <br>1.1 2007-04-10 Attribute key TEXT_ALIGN added. 
  * <br>1.0 December 9, 2006 Created.
  */
 public class SVGAttributeKeys extends AttributeKeys {
      private final static ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.samples.svg.Labels");
+
+
+    static {
+        // The copier must be registered before the gradient keys are created
+        AttributeKey.registerCopier(Gradient.class, new AttributeKey.Copier<Gradient>() {
+
+            public Gradient copy(Gradient value) {
+                return (Gradient) value.clone();
+            }
+        });
+    }
    
     public enum TextAnchor {
         START, MIDDLE, END
@@ -124,7 +138,7 @@ public class SVGAttributeKeys extends AttributeKeys {
      * Returns null if the figure is not filled.
      */
     public static Paint getFillPaint(Figure f) {
-        double opacity = FILL_OPACITY.get(f);
+        double opacity = FILL_OPACITY.getDouble(f);
         if (FILL_GRADIENT.get(f) != null) {
             return FILL_GRADIENT.get(f).getPaint(f, opacity);
         }
@@ -144,7 +158,7 @@ public class SVGAttributeKeys extends AttributeKeys {
      * Returns null if the figure is not filled.
      */
     public static Paint getStrokePaint(Figure f) {
-        double opacity = STROKE_OPACITY.get(f);
+        double opacity = STROKE_OPACITY.getDouble(f);
         if (STROKE_GRADIENT.get(f) != null) {
             return STROKE_GRADIENT.get(f).getPaint(f, opacity);
         }
@@ -1,5 +1,5 @@
 /*
- * @(#)SVGView.java  2.0  2009-04-10
+ * @(#)SVGView.java  2.1.2  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -25,6 +25,7 @@ import org.jhotdraw.samples.svg.io.*;
 import org.jhotdraw.undo.*;
 import org.jhotdraw.util.*;
 import java.awt.*;
+import java.awt.event.*;
 import java.beans.*;
 import java.io.*;
 import java.lang.reflect.*;
@@ -32,19 +33,25 @@ import javax.swing.*;
 import org.jhotdraw.app.*;
 import org.jhotdraw.app.action.*;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.gui.Worker;
 
 /**
  * A view for SVG drawings.
  *
  * @author Werner Randelshofer
- * @version 2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
+ * @version 2.1.2 2026-10-18 Saves and autosaves with the streaming writer.
+ * <br>2.1.1 2026-10-18 Retains the snapshot clones of the drawing
+ * only while autosave is on.
+ * <br>2.1 2026-10-18 Writes snapshots of the drawing, so that the user
+ * can continue to edit the drawing while it is being saved. Added autosave.
+ * <br>2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
  * <br>1.3.1 2008-03-19 Method read() tries out now all supported files format.
  * <br>1.3 2007-11-25 Method clear is now invoked on a worker thread. 
  * <br>1.2 2006-12-10 Used SVGStorage for reading SVG drawing (experimental).
  * <br>1.1 2006-06-10 Extended to support DefaultDrawApplicationModel.
  * <br>1.0 2006-02-07 Created.
  */
-public class SVGView extends AbstractView implements ExportableView {
+public class SVGView extends AbstractView implements ExportableView, SnapshotView {
     public final static String GRID_VISIBLE_PROPERTY = "gridVisible";
 
     protected JFileChooser exportChooser;
@@ -56,6 +63,31 @@ public class SVGView extends AbstractView implements ExportableView {
 
     private HashMap<javax.swing.filechooser.FileFilter, InputFormat> fileFilterInputFormatMap;
     private HashMap<javax.swing.filechooser.FileFilter, OutputFormat> fileFilterOutputFormatMap;
+    /**
+     * Periodically saves the view to its autosave file.
+     */
+    private Timer autosaveTimer;
+    /**
+     * This is set to true while an autosave is in progress.
+     */
+    private boolean isAutosaving;
+    /**
+     * The autosave file of an untitled view.
+     */
+    private File untitledAutosaveFile;
+
+    /**
+     * A snapshot of the drawing of the view.
+     */
+    private static class DrawingSnapshot {
+
+        /** The drawing from which the snapshot was created. */
+        private Drawing source;
+        /** The copy of the drawing. */
+        private Drawing drawing;
+        /** The modification count of the source at the time of the snapshot. */
+        private long modificationCount;
+    }
 
     /**
      * Creates a new View.
@@ -84,6 +116,15 @@ public class SVGView extends AbstractView implements ExportableView {
                 setHasUnsavedChanges(undo.hasSignificantEdits());
             }
         });
+        if (preferences != null) {
+            setAutosaveInterval(preferences.getInt("autosaveInterval", 0));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        setAutosaveInterval(0);
+        super.dispose();
     }
 
     /**
@@ -143,20 +184,205 @@ public class SVGView extends AbstractView implements ExportableView {
 
     /**
      * Writes the view to the specified file.
+     * <p>
+     * If this method is not invoked on the AWT Event Dispatcher Thread,
+     * a snapshot of the drawing is created on the AWT Event Dispatcher
+     * Thread, and then written on the current thread.
      */
     @FeatureEntryPoint(JHotDrawFeatures.DRAWING_PERSITENCE)
     public void write(File f) throws IOException {
-        OutputStream out = null;
-        try {
-            out = new BufferedOutputStream(new FileOutputStream(f));
-            new SVGOutputFormat().write(f, svgPanel.getDrawing());
-        } finally {
-            if (out != null) {
-                out.close();
+        if (SwingUtilities.isEventDispatchThread()) {
+            write(f, createSnapshot());
+        } else {
+            final Object[] snapshot = new Object[1];
+            try {
+                SwingUtilities.invokeAndWait(new Runnable() {
+
+                    public void run() {
+                        snapshot[0] = createSnapshot();
+                    }
+                });
+            } catch (InterruptedException e) {
+                InternalError error = new InternalError();
+                error.initCause(e);
+                throw error;
+            } catch (InvocationTargetException e) {
+                InternalError error = new InternalError();
+                error.initCause(e);
+                throw error;
+            }
+            write(f, snapshot[0]);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the drawing of the view.
+     * <p>
+     * Snapshots of an {@link AbstractDrawing} share the copies of all
+     * figures which have not changed since the previous snapshot. Snapshots
+     * of other drawings are created by cloning the drawing.
+     */
+    public Object createSnapshot() {
+        DrawingSnapshot snapshot = new DrawingSnapshot();
+        snapshot.source = svgPanel.getDrawing();
+        if (snapshot.source instanceof AbstractDrawing) {
+            AbstractDrawing d = (AbstractDrawing) snapshot.source;
+            snapshot.drawing = d.createSnapshot();
+            snapshot.modificationCount = d.getModificationCount();
+        } else {
+            snapshot.drawing = (Drawing) snapshot.source.clone();
+            snapshot.modificationCount = -1;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Writes a snapshot of the view to the specified file.
+     * <p>
+     * The snapshot is written with the streaming writer, so that saving a
+     * large drawing does not need a document tree of the whole drawing
+     * in memory.
+     */
+    @FeatureEntryPoint(JHotDrawFeatures.DRAWING_PERSITENCE)
+    public void write(File f, Object snapshot) throws IOException {
+        SVGOutputFormat format = new SVGOutputFormat();
+        format.setStreaming(true);
+        format.write(f, ((DrawingSnapshot) snapshot).drawing);
+    }
+
+    public void markChangesAsSaved(Object snapshot) {
+        DrawingSnapshot s = (DrawingSnapshot) snapshot;
+        Drawing d = svgPanel.getDrawing();
+        if (s.source == d) {
+            if (!(d instanceof AbstractDrawing) ||
+                    ((AbstractDrawing) d).getModificationCount() == s.modificationCount) {
+                markChangesAsSaved();
+            }
+        }
+    }
+
+    /**
+     * Sets the interval in milliseconds at which the view is saved to its
+     * autosave file, while it has unsaved changes. The autosave file is
+     * written on the worker thread of the view, while the user continues
+     * to edit the view.
+     * <p>
+     * Set the interval to 0 to turn autosave off. Autosave is off by
+     * default, the initial value is read from the preference
+     * "autosaveInterval".
+     */
+    public void setAutosaveInterval(int newValue) {
+        if (autosaveTimer != null) {
+            autosaveTimer.stop();
+            autosaveTimer = null;
+            setSnapshotClonesRetained(svgPanel.getDrawing(), false);
+        }
+        if (newValue > 0) {
+            setSnapshotClonesRetained(svgPanel.getDrawing(), true);
+            autosaveTimer = new Timer(newValue, new ActionListener() {
+
+                public void actionPerformed(ActionEvent evt) {
+                    autosave();
+                }
+            });
+            autosaveTimer.start();
+        }
+    }
+
+    /**
+     * Retains or releases the snapshot clones of the specified drawing,
+     * if it is an AbstractDrawing. While autosave is on, the clones are
+     * retained, so that snapshots only need to copy the changed figures.
+     */
+    private void setSnapshotClonesRetained(Drawing d, boolean b) {
+        if (d instanceof AbstractDrawing) {
+            if (b) {
+                ((AbstractDrawing) d).retainSnapshotClones();
+            } else {
+                ((AbstractDrawing) d).releaseSnapshotClones();
             }
         }
     }
 
+    /**
+     * Sets the drawing of the view, and moves the undo redo manager and the
+     * snapshot clones retained for autosave from the old drawing to the new
+     * one. This method must be invoked on the AWT Event Dispatcher Thread.
+     */
+    private void setDrawing(Drawing newValue) {
+        Drawing oldValue = svgPanel.getDrawing();
+        oldValue.removeUndoableEditListener(undo);
+        if (autosaveTimer != null) {
+            setSnapshotClonesRetained(oldValue, false);
+            setSnapshotClonesRetained(newValue, true);
+        }
+        svgPanel.setDrawing(newValue);
+        newValue.addUndoableEditListener(undo);
+        undo.discardAllEdits();
+    }
+
+    /**
+     * Returns the autosave interval in milliseconds, or 0 if autosave is off.
+     */
+    public int getAutosaveInterval() {
+        return (autosaveTimer == null) ? 0 : autosaveTimer.getDelay();
+    }
+
+    /**
+     * Returns the file to which the view is autosaved.
+     * <p>
+     * This is a file with a tilde appended to the name of the file of the
+     * view. Untitled views are autosaved into a temporary file.
+     */
+    protected File getAutosaveFile() throws IOException {
+        if (getFile() != null) {
+            return new File(getFile().getPath() + "~");
+        }
+        if (untitledAutosaveFile == null) {
+            untitledAutosaveFile = File.createTempFile("Untitled", ".svg");
+            untitledAutosaveFile.deleteOnExit();
+        }
+        return untitledAutosaveFile;
+    }
+
+    /**
+     * Saves a snapshot of the view to its autosave file, if the view has
+     * unsaved changes. This method must be invoked on the AWT Event
+     * Dispatcher Thread.
+     */
+    protected void autosave() {
+        if (isAutosaving || !isEnabled() || !hasUnsavedChanges()) {
+            return;
+        }
+        final File f;
+        try {
+            f = getAutosaveFile();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        final Object snapshot = createSnapshot();
+        isAutosaving = true;
+        execute(new Worker() {
+
+            public Object construct() {
+                try {
+                    write(f, snapshot);
+                    return null;
+                } catch (IOException e) {
+                    return e;
+                }
+            }
+
+            public void finished(Object value) {
+                isAutosaving = false;
+                if (value != null) {
+                    ((Throwable) value).printStackTrace();
+                }
+            }
+        });
+    }
+
     /**
      * Reads the view from the specified file.
      */
@@ -202,10 +428,7 @@ public class SVGView extends AbstractView implements ExportableView {
             SwingUtilities.invokeAndWait(new Runnable() {
 
                 public void run() {
-                    svgPanel.getDrawing().removeUndoableEditListener(undo);
-                    svgPanel.setDrawing(drawing);
-                    svgPanel.getDrawing().addUndoableEditListener(undo);
-                    undo.discardAllEdits();
+                    setDrawing(drawing);
                 }
             });
         } catch (InterruptedException e) {
@@ -237,10 +460,7 @@ public class SVGView extends AbstractView implements ExportableView {
             SwingUtilities.invokeAndWait(new Runnable() {
 
                 public void run() {
-                    svgPanel.getDrawing().removeUndoableEditListener(undo);
-                    svgPanel.setDrawing(newDrawing);
-                    svgPanel.getDrawing().addUndoableEditListener(undo);
-                    undo.discardAllEdits();
+                    setDrawing(newDrawing);
                 }
             });
         } catch (InvocationTargetException ex) {
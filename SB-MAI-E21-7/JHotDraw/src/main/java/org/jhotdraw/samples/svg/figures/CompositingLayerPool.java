@@ -0,0 +1,141 @@
+/*
+ * @(#)CompositingLayerPool.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * CompositingLayerPool holds offscreen images, which are used by figures
+ * for compositing themselves with an opacity below 1.
+ * <p>
+ * The width and height of the pooled images are rounded up to multiples
+ * of {@code BUCKET_SIZE} pixels, so that an image can be reused for
+ * layers of similar size. Method {@code acquire} returns a cleared
+ * sub-image of a pooled image, which has exactly the requested size.
+ * Drawing into the sub-image and compositing it yields the same pixels
+ * as a freshly allocated image of the same size.
+ * <p>
+ * The pool keeps at most {@code getMaxPoolSize()} bytes of unused images.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class CompositingLayerPool {
+
+    /**
+     * Image sizes are rounded up to multiples of this number of pixels.
+     */
+    public final static int BUCKET_SIZE = 64;
+    private static CompositingLayerPool instance;
+    /**
+     * Unused images by bucket.
+     */
+    private HashMap<Dimension, LinkedList<BufferedImage>> pool = new HashMap<Dimension, LinkedList<BufferedImage>>();
+    /**
+     * Maps the sub-images handed out by acquire to their pooled images.
+     */
+    private IdentityHashMap<BufferedImage, BufferedImage> acquired = new IdentityHashMap<BufferedImage, BufferedImage>();
+    private long poolSize;
+    private long maxPoolSize;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxPoolSize The maximal number of bytes of unused images
+     * held by the pool.
+     */
+    public CompositingLayerPool(long maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * Returns the shared instance, which holds up to 32 MB of unused images.
+     */
+    public static synchronized CompositingLayerPool getInstance() {
+        if (instance == null) {
+            instance = new CompositingLayerPool(32L << 20);
+        }
+        return instance;
+    }
+
+    public synchronized long getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public synchronized void setMaxPoolSize(long newValue) {
+        maxPoolSize = newValue;
+        if (poolSize > maxPoolSize) {
+            pool.clear();
+            poolSize = 0;
+        }
+    }
+
+    /**
+     * Returns a fully transparent image of type TYPE_INT_ARGB with the
+     * specified size. The image must be returned to the pool by invoking
+     * method {@code release} when it is no longer needed.
+     */
+    public synchronized BufferedImage acquire(int width, int height) {
+        Dimension bucket = new Dimension(
+                (width + BUCKET_SIZE - 1) / BUCKET_SIZE * BUCKET_SIZE,
+                (height + BUCKET_SIZE - 1) / BUCKET_SIZE * BUCKET_SIZE);
+        LinkedList<BufferedImage> images = pool.get(bucket);
+        BufferedImage image;
+        if (images == null || images.isEmpty()) {
+            if (getSize(bucket.width, bucket.height) > maxPoolSize) {
+                // Too big for pooling
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+            image = new BufferedImage(bucket.width, bucket.height, BufferedImage.TYPE_INT_ARGB);
+        } else {
+            image = images.removeFirst();
+            poolSize -= getSize(image.getWidth(), image.getHeight());
+
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, width, height);
+            g.dispose();
+        }
+        BufferedImage subimage = image.getSubimage(0, 0, width, height);
+        acquired.put(subimage, image);
+        return subimage;
+    }
+
+    /**
+     * Returns an image, which has been obtained by method {@code acquire},
+     * to the pool.
+     */
+    public synchronized void release(BufferedImage subimage) {
+        BufferedImage image = acquired.remove(subimage);
+        if (image != null) {
+            long size = getSize(image.getWidth(), image.getHeight());
+            if (poolSize + size <= maxPoolSize) {
+                Dimension bucket = new Dimension(image.getWidth(), image.getHeight());
+                LinkedList<BufferedImage> images = pool.get(bucket);
+                if (images == null) {
+                    images = new LinkedList<BufferedImage>();
+                    pool.put(bucket, images);
+                }
+                images.add(image);
+                poolSize += size;
+            }
+        }
+    }
+
+    private static long getSize(int width, int height) {
+        return (long) width * height * 4;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)SVGAttributedFigure.java  1.0  December 10, 2006
+ * @(#)SVGAttributedFigure.java  1.1.1  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -32,7 +32,11 @@ import org.jhotdraw.xml.*;
  * SVGAttributedFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0 December 10, 2006 Created.
+ * @version 1.1.1 2026-10-18 Reads the opacity and the stroke width without
+ * boxing them.
+ * <br>1.1 2026-10-18 Reuse offscreen images for compositing from
+ * CompositingLayerPool.
+ * <br>1.0 December 10, 2006 Created.
  */
 public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
     
@@ -41,7 +45,7 @@ public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
     }
     
     public void draw(Graphics2D g)  {
-        double opacity = OPACITY.get(this);
+        double opacity = OPACITY.getDouble(this);
         opacity = Math.min(Math.max(0d, opacity), 1d);
         if (opacity != 0d) {
             if (opacity != 1d) {
@@ -54,21 +58,25 @@ public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
                 
                 if (! drawingArea.isEmpty()) {
                     
-                    BufferedImage buf = new BufferedImage(
+                    CompositingLayerPool layerPool = CompositingLayerPool.getInstance();
+                    BufferedImage buf = layerPool.acquire(
                             Math.max(1, (int) ((2 + drawingArea.width) * g.getTransform().getScaleX())),
-                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())),
-                            BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D gr = buf.createGraphics();
-                    gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
-                    gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
-                    gr.setRenderingHints(g.getRenderingHints());
-                    drawFigure(gr);
-                    gr.dispose();
-                    Composite savedComposite = g.getComposite();
-                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
-                    g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
-                            2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
-                    g.setComposite(savedComposite);
+                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())));
+                    try {
+                        Graphics2D gr = buf.createGraphics();
+                        gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
+                        gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
+                        gr.setRenderingHints(g.getRenderingHints());
+                        drawFigure(gr);
+                        gr.dispose();
+                        Composite savedComposite = g.getComposite();
+                        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
+                        g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
+                                2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
+                        g.setComposite(savedComposite);
+                    } finally {
+                        layerPool.release(buf);
+                    }
                 }
             } else {
                 drawFigure(g);
@@ -93,7 +101,7 @@ public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
             drawFill(g);
         }
         paint = SVGAttributeKeys.getStrokePaint(this);
-        if (paint != null && STROKE_WIDTH.get(this) > 0) {
+        if (paint != null && STROKE_WIDTH.getDouble(this) > 0) {
             g.setPaint(paint);
             g.setStroke(SVGAttributeKeys.getStroke(this));
             drawStroke(g);
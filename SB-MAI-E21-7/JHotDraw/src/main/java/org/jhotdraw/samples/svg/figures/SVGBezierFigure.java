@@ -1,5 +1,5 @@
 /*
- * @(#)SVGBezierFigure.java  1.0.2  2008-05-23
+ * @(#)SVGBezierFigure.java  1.1  2026-10-18
  *
  * Copyright (c) 2007-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -30,7 +30,9 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * represent a single BezierPath segment within an SVG path.
  *
  * @author Werner Randelshofer
- * @version 1.0.2 2008-05-23 Operations on segments and handleMouseClick must
+ * @version 1.1 2026-10-18 Method contains() uses a cached SegmentGrid
+ * of the path.
+ * <br>1.0.2 2008-05-23 Operations on segments and handleMouseClick must
  * take transform into account. 
  * <br>1.0.1 2008-03-20 Fixed computation of clip bounds. 
  * <br>1.0 April 14, 2007 Created.
@@ -38,6 +40,15 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
 public class SVGBezierFigure extends BezierFigure {
 
     private transient Rectangle2D.Double cachedDrawingArea;
+    /**
+     * The flattened path with a grid of its segments. This is used to
+     * perform faster hit testing on paths with many nodes.
+     */
+    private transient SegmentGrid cachedHitGrid;
+    /**
+     * The flatness of the segments of the hit grid.
+     */
+    private final static double HIT_FLATNESS = 0.5d;
 
     /** Creates a new instance. */
     public SVGBezierFigure() {
@@ -242,5 +253,44 @@ public class SVGBezierFigure extends BezierFigure {
     public void invalidate() {
         super.invalidate();
         cachedDrawingArea = null;
+        cachedHitGrid = null;
+    }
+
+    /**
+     * Returns the flattened path with a grid of its segments.
+     */
+    protected SegmentGrid getHitGrid() {
+        if (cachedHitGrid == null) {
+            cachedHitGrid = new SegmentGrid(path, HIT_FLATNESS);
+        }
+        return cachedHitGrid;
+    }
+
+    /**
+     * Performs the same hit test as BezierFigure, but uses the cached
+     * SegmentGrid instead of flattening the path on each invocation.
+     * Figures with line decorations are tested by BezierFigure.
+     */
+    @Override
+    public boolean contains(Point2D.Double p) {
+        if (START_DECORATION.get(this) != null || END_DECORATION.get(this) != null) {
+            return super.contains(p);
+        }
+        double tolerance = Math.max(2f, AttributeKeys.getStrokeTotalWidth(this) / 2d);
+        SegmentGrid grid = getHitGrid();
+        if (isClosed() || FILL_COLOR.get(this) != null && FILL_OPEN_PATH.get(this)) {
+            if (grid.contains(p)) {
+                return true;
+            }
+            double grow = AttributeKeys.getPerpendicularHitGrowth(this) * 2d;
+            if (grid.outlineContains(p, grow)) {
+                return true;
+            } else {
+                if (isClosed()) {
+                    return false;
+                }
+            }
+        }
+        return !isClosed() && grid.outlineContains(p, tolerance);
     }
 }
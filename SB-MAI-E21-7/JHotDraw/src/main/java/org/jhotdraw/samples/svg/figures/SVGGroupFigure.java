@@ -1,5 +1,5 @@
 /*
- * @(#)SVGGroupFigure.java  1.0.1  2007-07-28
+ * @(#)SVGGroupFigure.java  1.1  2026-10-18
  *
  * Copyright (c) 1996-2007 by the original authors of JHotDraw
  * and all its contributors.
@@ -27,7 +27,9 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * SVGGroupFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0.1 2007-07-28 Bounds were not computed correctly. 
+ * @version 1.1 2026-10-18 Reuse offscreen images for compositing from
+ * CompositingLayerPool.
+ * <br>1.0.1 2007-07-28 Bounds were not computed correctly. 
  * <br>1.0 July 8, 2006 Created.
  */
 public class SVGGroupFigure extends GroupFigure implements SVGFigure {
@@ -83,21 +85,25 @@ public class SVGGroupFigure extends GroupFigure implements SVGFigure {
 
                 if (!drawingArea.isEmpty()) {
 
-                    BufferedImage buf = new BufferedImage(
+                    CompositingLayerPool layerPool = CompositingLayerPool.getInstance();
+                    BufferedImage buf = layerPool.acquire(
                             Math.max(1, (int) ((2 + drawingArea.width) * g.getTransform().getScaleX())),
-                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())),
-                            BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D gr = buf.createGraphics();
-                    gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
-                    gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
-                    gr.setRenderingHints(g.getRenderingHints());
-                    super.draw(gr);
-                    gr.dispose();
-                    Composite savedComposite = g.getComposite();
-                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
-                    g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
-                            2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
-                    g.setComposite(savedComposite);
+                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())));
+                    try {
+                        Graphics2D gr = buf.createGraphics();
+                        gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
+                        gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
+                        gr.setRenderingHints(g.getRenderingHints());
+                        super.draw(gr);
+                        gr.dispose();
+                        Composite savedComposite = g.getComposite();
+                        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
+                        g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
+                                2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
+                        g.setComposite(savedComposite);
+                    } finally {
+                        layerPool.release(buf);
+                    }
                 }
             } else {
                 super.draw(g);
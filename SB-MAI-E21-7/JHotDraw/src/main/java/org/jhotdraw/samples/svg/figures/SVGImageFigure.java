@@ -1,5 +1,5 @@
  /*
- * @(#)SVGImage.java  2.1  2008-05-17
+ * @(#)SVGImage.java  2.2  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -33,7 +33,8 @@ import org.jhotdraw.geom.*;
  * SVGImage.
  *
  * @author Werner Randelshofer
- * @version 2.1 2008-05-17 Rendering hints must be copied, when creating
+ * @version 2.2 2026-10-18 Added method getImageMemorySize.
+ * <br>2.1 2008-05-17 Rendering hints must be copied, when creating
  * a local Graphics2D object. Remove transformation action was not undoable. 
  * <br>2.0.1 2008-04-13 We must catch all throwables when calling ImageIO.read(). 
  * <br>2.0 2007-04-14 Adapted for new AttributeKeys.TRANSFORM support.
@@ -392,6 +393,16 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
         return imageData;
     }
 
+    public long getImageMemorySize() {
+        long size = (imageData == null) ? 0 : imageData.length;
+        if (bufferedImage != null) {
+            DataBuffer buffer = bufferedImage.getRaster().getDataBuffer();
+            size += (long) buffer.getSize() * buffer.getNumBanks() *
+                    DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+        return size;
+    }
+
     public void loadImage(File file) throws IOException {
         InputStream in = null;
         try {
@@ -1,5 +1,5 @@
 /*
- * @(#)SVGPathFigure.java  1.2  2009-04-17
+ * @(#)SVGPathFigure.java  2.3.1  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -35,7 +35,12 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * SVGBezierFigures as its children.
  *
  * @author Werner Randelshofer
- * @version 2.1 2009-04-17 Method contains() takes now into account
+ * @version 2.3.1 2026-10-18 Reads the opacity without boxing it.
+ * <br>2.3 2026-10-18 Draws a simplified path, if the graphics has a
+ * level of detail policy.
+ * <br>2.2 2026-10-18 Method contains() uses a cached SegmentGrid
+ * of the path.
+ * <br>2.1 2009-04-17 Method contains() takes now into account
  * whether the figure is filled.
  * <br>1.1.1 2008-03-20 Attributes must be set on child figures in order
  * to ensure that the drawing area of the child figures is computed properly. 
@@ -53,6 +58,21 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
      * This is used to perform faster hit testing.
      */
     private transient Shape cachedHitShape;
+    /**
+     * The flattened path with a grid of its segments. This is used to
+     * perform faster hit testing on paths with many nodes.
+     */
+    private transient SegmentGrid cachedHitGrid;
+    /**
+     * The flatness of the segments of the hit grid.
+     */
+    private final static double HIT_FLATNESS = 0.5d;
+    /**
+     * The path simplified by the level of detail policy for the zoom bucket
+     * {@code cachedSimplifiedPathBucket}.
+     */
+    private transient Shape cachedSimplifiedPath;
+    private transient int cachedSimplifiedPathBucket;
     private final static boolean DEBUG = false;
 
     /** Creates a new instance. */
@@ -69,7 +89,7 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
 
     @FeatureEntryPoint(JHotDrawFeatures.LINE_TOOL)
     public void draw(Graphics2D g) {
-        double opacity = OPACITY.get(this);
+        double opacity = OPACITY.getDouble(this);
         opacity = Math.min(Math.max(0d, opacity), 1d);
         if (opacity != 0d) {
             if (opacity != 1d) {
@@ -131,11 +151,11 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
     }
 
     public void drawFill(Graphics2D g) {
-        g.fill(getPath());
+        g.fill(getPath(g));
     }
 
     public void drawStroke(Graphics2D g) {
-        g.draw(getPath());
+        g.draw(getPath(g));
     }
 
     @Override protected void invalidate() {
@@ -143,6 +163,8 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         cachedPath = null;
         cachedDrawingArea = null;
         cachedHitShape = null;
+        cachedHitGrid = null;
+        cachedSimplifiedPath = null;
     }
 
     protected GeneralPath getPath() {
@@ -156,6 +178,24 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         }
         return cachedPath;
     }
+    /**
+     * Returns the path for drawing on the specified graphics. If the
+     * graphics has a level of detail policy, the path is simplified for
+     * the zoom bucket of the graphics.
+     */
+    protected Shape getPath(Graphics2D g) {
+        LevelOfDetailPolicy lod = LevelOfDetailPolicy.get(g);
+        if (lod == null) {
+            return getPath();
+        }
+        int bucket = lod.getZoomBucket(g);
+        if (cachedSimplifiedPath == null || cachedSimplifiedPathBucket != bucket) {
+            cachedSimplifiedPath = lod.simplify(getPath(), bucket);
+            cachedSimplifiedPathBucket = bucket;
+        }
+        return cachedSimplifiedPath;
+    }
+
     protected Shape getHitShape() {
         if (cachedHitShape == null) {
             cachedHitShape = getPath();
@@ -167,6 +207,16 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         return cachedHitShape;
     }
 
+    /**
+     * Returns the flattened path with a grid of its segments.
+     */
+    protected SegmentGrid getHitGrid() {
+        if (cachedHitGrid == null) {
+            cachedHitGrid = new SegmentGrid(getPath(), HIT_FLATNESS);
+        }
+        return cachedHitGrid;
+    }
+
     
     // int count;
     public Rectangle2D.Double getDrawingArea() {
@@ -220,15 +270,15 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         return cachedPath.contains(p2);
          */
         double tolerance = Math.max(2f, AttributeKeys.getStrokeTotalWidth(this) / 2d);
+        SegmentGrid grid = getHitGrid();
         if (isClosed || FILL_COLOR.get(this) != null || FILL_GRADIENT.get(this)!=null) {
-            if (getPath().contains(p)) {
+            if (grid.contains(p)) {
                 return true;
             }
+            // The grown shape contains the points which are within the
+            // growth distance of the outline.
             double grow = AttributeKeys.getPerpendicularHitGrowth(this) /** 2d*/;
-            GrowStroke gs = new GrowStroke((float) grow,
-                    (float) (AttributeKeys.getStrokeTotalWidth(this) *
-                    STROKE_MITER_LIMIT.get(this)));
-            if (gs.createStrokedShape(getPath()).contains(p)) {
+            if (grid.outlineContains(p, grow)) {
                 return true;
             } else {
                 if (isClosed) {
@@ -237,7 +287,7 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
             }
         }
         if (!isClosed) {
-            if (Shapes.outlineContains(getPath(), p, tolerance)) {
+            if (grid.outlineContains(p, tolerance)) {
                 return true;
             }
         }
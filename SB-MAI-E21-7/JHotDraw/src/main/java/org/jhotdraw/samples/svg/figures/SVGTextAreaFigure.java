@@ -1,5 +1,5 @@
 /*
- * @(#)SVGTextArea.java  2.1.1  2009-03-29
+ * @(#)SVGTextArea.java  2.3  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -29,7 +29,11 @@ import org.jhotdraw.geom.*;
  * SVGTextArea.
  *
  * @author Werner Randelshofer
- * @version 2.1.1 2009-03-29 Two consecutive tab-characters in text caused
+ * @version 2.3 2026-10-18 Keeps the layouts of the paragraphs, so that only
+ * changed paragraphs are laid out again.
+ * <br>2.2 2026-10-18 Paragraphs which fit on a single line take their
+ * outline from the shared TextOutlineCache.
+ * <br>2.1.1 2009-03-29 Two consecutive tab-characters in text caused
  * ArrayIndexOutOfBoundsException.
  * <br>2.1 2008-05-31 Added method getPreferredTextSize.
  * <br>2.0.1 Rectangle returned by getDrawingArea needs to be cloned.
@@ -51,6 +55,13 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
      */
     private transient Rectangle2D.Double cachedDrawingArea;
     private transient Shape cachedTextShape;
+    /**
+     * The layouts of the paragraphs of the text shape and of the preferred
+     * text size. The layouts are kept when the figure is invalidated, and
+     * only the layouts of changed paragraphs are computed again.
+     */
+    private transient HashMap<ParagraphKey, ParagraphLayout> cachedParagraphLayouts;
+    private transient HashMap<ParagraphKey, ParagraphLayout> cachedPreferredSizeLayouts;
 
     /** Creates a new instance. */
     public SVGTextAreaFigure() {
@@ -120,6 +131,7 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
         if (cachedTextShape == null) {
             GeneralPath shape;
             cachedTextShape = shape = new GeneralPath();
+            HashMap<ParagraphKey, ParagraphLayout> layouts = new HashMap<ParagraphKey, ParagraphLayout>();
             if (getText() != null || isEditable()) {
 
                 Font font = getFont();
@@ -136,9 +148,10 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
                 float maxVerticalPos = (float) (textRect.y + textRect.height);
                 if (leftMargin < rightMargin) {
                     float tabWidth = (float) (getTabSize() * font.getStringBounds("m", getFontRenderContext()).getWidth());
+                    // The tab stops are relative to the left margin
                     float[] tabStops = new float[(int) (textRect.width / tabWidth)];
                     for (int i = 0; i < tabStops.length; i++) {
-                        tabStops[i] = (float) (textRect.x + (int) (tabWidth * (i + 1)));
+                        tabStops[i] = (float) (int) (tabWidth * (i + 1));
                     }
 
                     if (getText() != null) {
@@ -147,15 +160,12 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
                             if (paragraphs[i].length() == 0) {
                                 paragraphs[i] = " ";
                             }
-                            AttributedString as = new AttributedString(paragraphs[i]);
-                            as.addAttribute(TextAttribute.FONT, font);
-                            if (isUnderlined) {
-                                as.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_LOW_ONE_PIXEL);
-                            }
-                            int tabCount = paragraphs[i].split("\t").length - 1;
+                            ParagraphLayout layout = getParagraphLayout(
+                                    cachedParagraphLayouts, layouts,
+                                    new ParagraphKey(paragraphs[i], font, isUnderlined,
+                                    rightMargin - leftMargin, tabStops, getFontRenderContext()));
                             Rectangle2D.Double paragraphBounds = appendParagraph(
-                                    shape, as.getIterator(),
-                                    verticalPos, maxVerticalPos, leftMargin, rightMargin, tabStops, tabCount);
+                                    shape, layout, verticalPos, maxVerticalPos, leftMargin);
                             verticalPos = (float) (paragraphBounds.y + paragraphBounds.height);
                             if (verticalPos > textRect.y + textRect.height) {
                                 break;
@@ -164,38 +174,144 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
                     }
                 }
             }
+            cachedParagraphLayouts = layouts;
         }
         return cachedTextShape;
     }
 
     /**
-     * Appends a paragraph of text at the specified y location and returns
-     * the bounds of the paragraph.
-     * 
+     * Returns the layout of a paragraph. The layout is looked up in the
+     * layouts of the current and of the previous layout pass. If it is not
+     * found, the paragraph is laid out.
+     *
+     * @param oldLayouts The layouts of the previous pass, or null.
+     * @param newLayouts The layouts of the current pass. The returned
+     * layout is added to this map.
+     * @param key The paragraph.
+     */
+    private ParagraphLayout getParagraphLayout(
+            HashMap<ParagraphKey, ParagraphLayout> oldLayouts,
+            HashMap<ParagraphKey, ParagraphLayout> newLayouts,
+            ParagraphKey key) {
+        ParagraphLayout layout = newLayouts.get(key);
+        if (layout == null) {
+            if (oldLayouts != null) {
+                layout = oldLayouts.get(key);
+            }
+            if (layout == null) {
+                layout = createSingleLineLayout(key);
+                if (layout == null) {
+                    AttributedString as = new AttributedString(key.text);
+                    as.addAttribute(TextAttribute.FONT, key.font);
+                    if (key.isUnderlined) {
+                        as.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_LOW_ONE_PIXEL);
+                    }
+                    int tabCount = key.text.split("\t").length - 1;
+                    layout = createParagraphLayout(as.getIterator(), key.width, key.tabStops, tabCount);
+                }
+            }
+            newLayouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Appends the lines of a laid out paragraph at the specified location
+     * and returns the bounds of the paragraph. Lines which do not fit
+     * above maxVerticalPos are omitted.
      *
      * @param shape Shape to which to add the glyphs of the paragraph. This 
      * parameter is null, if we only want to measure the size of the paragraph.
-     * @param styledText the text of the paragraph.
+     * @param layout the layout of the paragraph.
      * @param verticalPos the top bound of the paragraph
      * @param maxVerticalPos the bottom bound of the paragraph
      * @param leftMargin the left bound of the paragraph
-     * @param rightMargin the right bound of the paragraph
-     * @param tabStops an array with tab stops
+     * @return Returns the actual bounds of the paragraph.
+     */
+    private Rectangle2D.Double appendParagraph(GeneralPath shape,
+            ParagraphLayout layout,
+            float verticalPos, float maxVerticalPos,
+            float leftMargin) {
+        Rectangle2D.Double paragraphBounds = new Rectangle2D.Double(leftMargin, verticalPos, 0, 0);
+        AffineTransform tx = new AffineTransform();
+        tx.translate(leftMargin, verticalPos);
+        for (int i = 0; i < layout.baselines.length; i++) {
+            if (verticalPos + layout.baselines[i] > maxVerticalPos) {
+                break;
+            }
+            if (shape != null) {
+                shape.append(tx.createTransformedShape(layout.outlines[i]), false);
+            }
+            Rectangle2D lineBounds = layout.bounds[i];
+            paragraphBounds.add(new Rectangle2D.Double(lineBounds.getX() + leftMargin,
+                    lineBounds.getY() + verticalPos,
+                    lineBounds.getWidth(),
+                    lineBounds.getHeight()));
+        }
+        return paragraphBounds;
+    }
+
+    /**
+     * Lays out a paragraph without tabs, which fits on a single line.
+     * The outline of the paragraph is taken from the shared
+     * {@link TextOutlineCache}, so that the paragraph does not need to be
+     * laid out with a LineBreakMeasurer.
+     *
+     * @return Returns the layout, or null if the paragraph contains tabs
+     * or does not fit on a single line.
+     */
+    private ParagraphLayout createSingleLineLayout(ParagraphKey key) {
+        if (key.text.indexOf('\t') != -1 ||
+                key.text.length() > TextOutlineCache.MAX_TEXT_LENGTH) {
+            return null;
+        }
+        TextOutlineCache.Outline outline = TextOutlineCache.getOutline(
+                key.text, key.font,
+                key.isUnderlined ? TextAttribute.UNDERLINE_LOW_ONE_PIXEL : null,
+                key.frc);
+        if (outline.getAdvance() > key.width) {
+            return null;
+        }
+        float baseline = outline.getAscent();
+        AffineTransform tx = new AffineTransform();
+        tx.translate(0, baseline);
+        Rectangle2D lineBounds = outline.getBounds();
+        lineBounds.setRect(lineBounds.getX(), lineBounds.getY() + baseline,
+                lineBounds.getWidth(), lineBounds.getHeight());
+        return new ParagraphLayout(
+                new float[]{baseline},
+                new Shape[]{tx.createTransformedShape(outline.getShape())},
+                new Rectangle2D[]{lineBounds});
+    }
+
+    /**
+     * Lays out a paragraph of text. The layout is relative to the top left
+     * corner of the paragraph.
+     * 
+     *
+     * @param styledText the text of the paragraph.
+     * @param width the width of the paragraph
+     * @param tabStops an array with tab stops relative to the left bound
+     * of the paragraph
      * @param tabCounts the number of entries in tabStops which contain actual
      *        values
-     * @return Returns the actual bounds of the paragraph.
+     * @return Returns the layout of the paragraph.
      */
     @FeatureEntryPoint(JHotDrawFeatures.TEXT_AREA_TOOL)
-    private Rectangle2D.Double appendParagraph(GeneralPath shape,
+    private ParagraphLayout createParagraphLayout(
             AttributedCharacterIterator styledText,
-            float verticalPos, float maxVerticalPos,
-            float leftMargin, float rightMargin,
+            float width,
             float[] tabStops, int tabCount) {
 
         // assume styledText is an AttributedCharacterIterator, and the number
         // of tabs in styledText is tabCount
 
-        Rectangle2D.Double paragraphBounds = new Rectangle2D.Double(leftMargin, verticalPos, 0, 0);
+        float verticalPos = 0;
+        float leftMargin = 0;
+        float rightMargin = width;
+        ArrayList<Float> baselines = new ArrayList<Float>();
+        ArrayList<Shape> outlines = new ArrayList<Shape>();
+        ArrayList<Rectangle2D> lineBoundsList = new ArrayList<Rectangle2D>();
 
         int[] tabLocations = new int[tabCount + 1];
 
@@ -216,8 +332,8 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
 
         while (measurer.getPosition() < styledText.getEndIndex()) {
 
-            // Lay out and draw each line.  All segments on a line
-            // must be computed before any drawing can occur, since
+            // Lay out each line.  All segments on a line
+            // must be computed before the line can be placed, since
             // we must know the largest ascent on the line.
             // TextLayouts are computed and stored in a List;
             // their horizontal positions are stored in a parallel
@@ -272,34 +388,46 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
             }
 
             verticalPos += maxAscent;
-            if (verticalPos > maxVerticalPos) {
-                break;
-            }
 
             Iterator<TextLayout> layoutEnum = layouts.iterator();
             Iterator<Float> positionEnum = penPositions.iterator();
 
-            // now iterate through layouts and draw them
+            // now iterate through layouts and collect their outlines
+            GeneralPath lineOutline = new GeneralPath();
+            Rectangle2D.Double lineBounds = null;
             while (layoutEnum.hasNext()) {
                 TextLayout nextLayout = layoutEnum.next();
                 float nextPosition = positionEnum.next();
                 AffineTransform tx = new AffineTransform();
                 tx.translate(nextPosition, verticalPos);
-                if (shape != null) {
-                    Shape outline = nextLayout.getOutline(tx);
-                    shape.append(outline, false);
-                }
+                lineOutline.append(nextLayout.getOutline(tx), false);
                 Rectangle2D layoutBounds = nextLayout.getBounds();
-                paragraphBounds.add(new Rectangle2D.Double(layoutBounds.getX() + nextPosition,
+                Rectangle2D.Double r = new Rectangle2D.Double(layoutBounds.getX() + nextPosition,
                         layoutBounds.getY() + verticalPos,
                         layoutBounds.getWidth(),
-                        layoutBounds.getHeight()));
+                        layoutBounds.getHeight());
+                if (lineBounds == null) {
+                    lineBounds = r;
+                } else {
+                    lineBounds.add(r);
+                }
+            }
+            if (lineBounds != null) {
+                baselines.add(verticalPos);
+                outlines.add(lineOutline);
+                lineBoundsList.add(lineBounds);
             }
 
             verticalPos += maxDescent;
         }
 
-        return paragraphBounds;
+        float[] b = new float[baselines.size()];
+        for (i = 0; i < b.length; i++) {
+            b[i] = baselines.get(i);
+        }
+        return new ParagraphLayout(b,
+                outlines.toArray(new Shape[outlines.size()]),
+                lineBoundsList.toArray(new Rectangle2D[lineBoundsList.size()]));
     }
 
     public void setBounds(Point2D.Double anchor, Point2D.Double lead) {
@@ -567,11 +695,12 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
             float rightMargin = (float) maxWidth - 1;
             float verticalPos = 0;
             float maxVerticalPos = Float.MAX_VALUE;
+            HashMap<ParagraphKey, ParagraphLayout> layouts = new HashMap<ParagraphKey, ParagraphLayout>();
             if (leftMargin < rightMargin) {
                 float tabWidth = (float) (getTabSize() * font.getStringBounds("m", getFontRenderContext()).getWidth());
                 float[] tabStops = new float[(int) (textRect.width / tabWidth)];
                 for (int i = 0; i < tabStops.length; i++) {
-                    tabStops[i] = (float) (textRect.x + (int) (tabWidth * (i + 1)));
+                    tabStops[i] = (float) (int) (tabWidth * (i + 1));
                 }
 
                 if (getText() != null) {
@@ -581,18 +710,17 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
                         if (paragraphs[i].length() == 0) {
                             paragraphs[i] = " ";
                         }
-                        AttributedString as = new AttributedString(paragraphs[i]);
-                        as.addAttribute(TextAttribute.FONT, font);
-                        if (isUnderlined) {
-                            as.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_LOW_ONE_PIXEL);
-                        }
-                        int tabCount = paragraphs[i].split("\t").length - 1;
-                        Rectangle2D.Double paragraphBounds = appendParagraph(null, as.getIterator(), verticalPos, maxVerticalPos, leftMargin, rightMargin, tabStops, tabCount);
+                        ParagraphLayout layout = getParagraphLayout(
+                                cachedPreferredSizeLayouts, layouts,
+                                new ParagraphKey(paragraphs[i], font, isUnderlined,
+                                rightMargin - leftMargin, tabStops, getFontRenderContext()));
+                        Rectangle2D.Double paragraphBounds = appendParagraph(null, layout, verticalPos, maxVerticalPos, leftMargin);
                         verticalPos = (float) (paragraphBounds.y + paragraphBounds.height);
                         textRect.add(paragraphBounds);
                     }
                 }
             }
+            cachedPreferredSizeLayouts = layouts;
         }
         return new Dimension2DDouble(Math.abs(textRect.x) + textRect.width, Math.abs(textRect.y) + textRect.height);
     }
@@ -600,7 +728,81 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
     public SVGTextAreaFigure clone() {
         SVGTextAreaFigure that = (SVGTextAreaFigure) super.clone();
         that.bounds = (Rectangle2D.Double) this.bounds.clone();
+        that.cachedParagraphLayouts = null;
+        that.cachedPreferredSizeLayouts = null;
         return that;
     }
+
+    /**
+     * Identifies the layout of a paragraph by its text and by the
+     * parameters which affect the layout.
+     */
+    private static class ParagraphKey {
+
+        private String text;
+        private Font font;
+        private boolean isUnderlined;
+        private float width;
+        private float[] tabStops;
+        private FontRenderContext frc;
+        private int hashCode;
+
+        public ParagraphKey(String text, Font font, boolean isUnderlined,
+                float width, float[] tabStops, FontRenderContext frc) {
+            this.text = text;
+            this.font = font;
+            this.isUnderlined = isUnderlined;
+            this.width = width;
+            this.tabStops = tabStops;
+            this.frc = frc;
+            hashCode = text.hashCode() * 31 + Float.floatToIntBits(width);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParagraphKey)) {
+                return false;
+            }
+            ParagraphKey that = (ParagraphKey) o;
+            return this.hashCode == that.hashCode &&
+                    this.text.equals(that.text) &&
+                    Float.floatToIntBits(this.width) == Float.floatToIntBits(that.width) &&
+                    this.isUnderlined == that.isUnderlined &&
+                    this.font.equals(that.font) &&
+                    Arrays.equals(this.tabStops, that.tabStops) &&
+                    this.frc.equals(that.frc);
+        }
+    }
+
+    /**
+     * The lines of a laid out paragraph, relative to the top left corner
+     * of the paragraph. A ParagraphLayout is immutable.
+     */
+    private static class ParagraphLayout {
+
+        /**
+         * The baseline of each line.
+         */
+        private float[] baselines;
+        /**
+         * The outline of each line.
+         */
+        private Shape[] outlines;
+        /**
+         * The bounds of each line.
+         */
+        private Rectangle2D[] bounds;
+
+        public ParagraphLayout(float[] baselines, Shape[] outlines, Rectangle2D[] bounds) {
+            this.baselines = baselines;
+            this.outlines = outlines;
+            this.bounds = bounds;
+        }
+    }
 }
 
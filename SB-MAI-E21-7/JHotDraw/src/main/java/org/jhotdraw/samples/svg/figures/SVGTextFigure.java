@@ -1,5 +1,5 @@
 /*
- * @(#)SVGText.java  2.1.1  2008-05-15
+ * @(#)SVGText.java  2.2.1  2026-10-18
  *
  * Copyright (c) 1996-2008 by the original authors of JHotDraw
  * and all its contributors.
@@ -38,7 +38,11 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * Cache outline to improve performance.
  *
  * @author Werner Randelshofer
- * @version 2.1.1 Rectangle returned by getDrawingArea needs to be cloned.
+ * @version 2.2.1 2026-10-18 Method getFontSize reads the font size without
+ * boxing it.
+ * <br>2.2 2026-10-18 Takes the text outline from the shared
+ * TextOutlineCache.
+ * <br>2.1.1 Rectangle returned by getDrawingArea needs to be cloned.
  * <br>2.1 2007-05-13 Fixed transformation issues.
  * <br>2.0 2007-04-14 Adapted for new AttributeKeys.TRANSFORM support.
  * <br>1.0 July 8, 2006 Created.
@@ -148,22 +152,19 @@ public class SVGTextFigure
                 text = " ";
             }
             
-            FontRenderContext frc = getFontRenderContext();
-            HashMap<TextAttribute,Object> textAttributes = new HashMap<TextAttribute,Object>();
-            textAttributes.put(TextAttribute.FONT, getFont());
-            if (FONT_UNDERLINE.get(this)) {
-                textAttributes.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
-            }
-            TextLayout textLayout = new TextLayout(text, textAttributes, frc);
+            TextOutlineCache.Outline outline = TextOutlineCache.getOutline(
+                    text, getFont(),
+                    FONT_UNDERLINE.get(this) ? TextAttribute.UNDERLINE_ON : null,
+                    getFontRenderContext());
             
             AffineTransform tx = new AffineTransform();
             tx.translate(coordinates[0].x, coordinates[0].y);
             switch (TEXT_ANCHOR.get(this)) {
                 case END :
-                    tx.translate(-textLayout.getAdvance(), 0);
+                    tx.translate(-outline.getAdvance(), 0);
                     break;
                 case MIDDLE :
-                    tx.translate(-textLayout.getAdvance() / 2d, 0);
+                    tx.translate(-outline.getAdvance() / 2d, 0);
                     break;
                 case START :
                     break;
@@ -175,8 +176,7 @@ public class SVGTextFigure
                 tx.preConcatenate(TRANSFORM.get(this));
             }*/
             
-            cachedTextShape = tx.createTransformedShape(textLayout.getOutline(tx));
-            cachedTextShape = textLayout.getOutline(tx);
+            cachedTextShape = tx.createTransformedShape(outline.getShape());
         }
         return cachedTextShape;
     }
@@ -316,7 +316,7 @@ public class SVGTextFigure
     
     public float getFontSize() {
         //   return FONT_SIZE.get(this).floatValue();
-        Point2D.Double p = new Point2D.Double(0, FONT_SIZE.get(this));
+        Point2D.Double p = new Point2D.Double(0, FONT_SIZE.getDouble(this));
         AffineTransform tx =  TRANSFORM.get(this);
         if (tx != null) {
             tx.transform(p, p);
@@ -1,5 +1,5 @@
 /*
- * @(#)SVGInputFormat.java  1.3  2009-04-17
+ * @(#)SVGInputFormat.java  1.6.3  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -23,17 +23,24 @@ import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import javax.imageio.*;
 import javax.swing.*;
 import javax.swing.text.*;
+import javax.xml.stream.*;
 import net.n3.nanoxml.*;
 import org.jhotdraw.draw.*;
 import org.jhotdraw.draw.InputFormat;
@@ -59,7 +66,18 @@ import org.jhotdraw.xml.css.CSSParser;
  *
  *
  * @author Werner Randelshofer
- * @version 1.3 2009-04-17 Added support for link target. Added support for
+ * @version 1.6.3 2026-10-18 The streaming reader keeps only elements,
+ * which can be referred to: the content of "defs", gradient and "symbol"
+ * elements, and elements referred to by deferred elements.
+ * <br>1.6.2 2026-10-18 Sibling elements are read in parallel in the
+ * common fork/join pool. The elements, which must be read sequentially,
+ * are determined once per read.
+ * <br>1.6.1 2026-10-18 The streaming reader releases deferred elements
+ * by identity.
+ * <br>1.6 2026-10-18 Path data is parsed by SVGPathParser.
+ * <br>1.5 2026-10-18 Added parallel reading of sibling elements.
+ * <br>1.4 2026-10-18 Added streaming reader mode.
+ * <br>1.3 2009-04-17 Added support for link target. Added support for
  * linked SVG images.
  * <br>1.2.2 2009-03-29 Ignore Transform "ref(...") attribute instead of
  * refusing to load the SVG file. Ignore malformed JPEG-image instead of
@@ -96,13 +114,34 @@ public class SVGInputFormat implements InputFormat {
     private HashMap<String, IXMLElement> identifiedElements;
     /**
      * Maps to all drawing objects from the XML elements they were created from.
+     * This map is synchronized, because elements may be read in parallel.
      */
-    private HashMap<IXMLElement, Object> elementObjects;
+    private Map<IXMLElement, Object> elementObjects;
     /**
-     * Tokenizer for parsing SVG path expressions.
-     *
+     * Parser for SVG path expressions.
+     * Each thread, which reads elements, has its own parser.
+     */
+    private ThreadLocal<SVGPathParser> toPathParser = new ThreadLocal<SVGPathParser>();
+    /**
+     * Set this to true, to read sibling elements in parallel.
+     */
+    private boolean isParallel;
+    /**
+     * Holds the elements, whose subtree contains an element that changes
+     * state shared with its siblings, or a "use" element.
+     * This set is only used, if elements are read in parallel.
+     */
+    private Set<IXMLElement> sequentialSubtrees;
+    /**
+     * Holds the elements, which must be read sequentially.
+     * This set is only used, if elements are read in parallel.
      */
-    private StreamPosTokenizer toPathTokenizer;
+    private Set<IXMLElement> sequentialElements;
+    /**
+     * A range of sibling elements is split up into tasks, which are read
+     * in parallel, only if it has more elements than this.
+     */
+    private final static int PARALLEL_THRESHOLD = 16;
 
     /**
      * Each SVG element establishes a new Viewport.
@@ -166,6 +205,41 @@ public class SVGInputFormat implements InputFormat {
      * Holds the document that is currently being read.
      */
     private IXMLElement document;
+    /**
+     * Set this to true, to read documents with the streaming reader.
+     */
+    private boolean isStreaming;
+
+    /**
+     * A child element of the topmost SVG element, which has been read by
+     * the streaming reader, but which refers to elements that have not
+     * been read yet.
+     */
+    private static class DeferredElement {
+
+        public IXMLElement element;
+        /**
+         * The ids of the elements referred to by "use" and gradient elements
+         * in the subtree of the element.
+         */
+        public HashSet<String> references;
+        /**
+         * The ids of all elements referred to by the subtree of the element,
+         * including those which have been read already.
+         */
+        public HashSet<String> hrefs;
+
+        public DeferredElement(IXMLElement element, HashSet<String> references) {
+            this.element = element;
+            this.references = references;
+            this.hrefs = new HashSet<String>(references);
+        }
+    }
+    /**
+     * Counts for each id, how many deferred elements of the streaming reader
+     * refer to it.
+     */
+    private HashMap<String, Integer> pendingReferences;
 
     /** Creates a new instance. */
     public SVGInputFormat() {
@@ -192,6 +266,98 @@ public class SVGInputFormat implements InputFormat {
     public void read(InputStream in, Drawing drawing, boolean replace) throws IOException {
         long start = System.currentTimeMillis();
         this.figures = new LinkedList<Figure>();
+        // The XML elements are compared by identity, because NanoXML
+        // compares them by their contents
+        sequentialSubtrees = Collections.newSetFromMap(new IdentityHashMap<IXMLElement, Boolean>());
+        sequentialElements = Collections.newSetFromMap(new IdentityHashMap<IXMLElement, Boolean>());
+        try {
+            if (isStreaming) {
+                readStreaming(in);
+            } else {
+                readDocument(in);
+            }
+        } finally {
+            sequentialSubtrees = null;
+            sequentialElements = null;
+        }
+
+        long end = System.currentTimeMillis();
+        if (DEBUG) {
+            System.out.println("SVGInputFormat elapsed:" + (end - start));
+        }
+        if (replace) {
+            drawing.removeAllChildren();
+        }
+        drawing.addAll(figures);
+
+
+        if (replace) {
+            Viewport viewport = viewportStack.firstElement();
+            VIEWPORT_FILL.basicSet(drawing, VIEWPORT_FILL.get(viewport.attributes));
+            VIEWPORT_FILL_OPACITY.basicSet(drawing, VIEWPORT_FILL_OPACITY.get(viewport.attributes));
+            VIEWPORT_HEIGHT.basicSet(drawing, VIEWPORT_HEIGHT.get(viewport.attributes));
+            VIEWPORT_WIDTH.basicSet(drawing, VIEWPORT_WIDTH.get(viewport.attributes));
+        }
+    }
+
+    /**
+     * Sets whether documents are read with the streaming reader.
+     * <p>
+     * The streaming reader parses the document with a
+     * {@code javax.xml.stream.XMLStreamReader}. It flattens the styles of an
+     * element as soon as its start tag has been read, and it creates the
+     * figures of a child element of the topmost SVG element as soon as the
+     * end tag of the child has been read. Afterwards the XML elements of the
+     * child are released, except for the content of "defs", gradient and
+     * "symbol" elements, which may be referred to further down in the
+     * document. A child, which refers to an element that has not been read
+     * yet, is deferred until the element has been read, and the element is
+     * kept until the child has been read.
+     * <p>
+     * The streaming reader creates the same figures as the default reader,
+     * but needs much less memory for large documents. Unlike the default
+     * reader, it does not resolve "use" elements, which refer back to an
+     * element outside of a "defs" element.
+     */
+    public void setStreaming(boolean newValue) {
+        isStreaming = newValue;
+    }
+
+    /**
+     * Returns true, if documents are read with the streaming reader.
+     */
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    /**
+     * Sets whether sibling elements are read in parallel.
+     * <p>
+     * If this is set to true, the children of "svg" and "g" elements are
+     * read with fork/join tasks in the common fork/join pool. The figures
+     * of the children are added to their parent in document order.
+     * <p>
+     * Elements, which change state that is shared with their siblings,
+     * are still read sequentially: nested "svg" elements push a viewport
+     * on the viewport stack, and gradients and solid colors become paint
+     * servers for the elements which follow them.
+     */
+    public void setParallel(boolean newValue) {
+        isParallel = newValue;
+    }
+
+    /**
+     * Returns true, if sibling elements are read in parallel.
+     */
+    public boolean isParallel() {
+        return isParallel;
+    }
+
+    /**
+     * Parses the whole document into a tree of XML elements, and then
+     * reads the figures from the tree.
+     */
+    private void readDocument(InputStream in) throws IOException {
         IXMLParser parser;
         try {
             parser = XMLParserFactory.createDefaultXMLParser();
@@ -252,35 +418,320 @@ public class SVGInputFormat implements InputFormat {
         flattenStyles(svg);
         //long end2 = System.currentTimeMillis();
 
+        if (isParallel) {
+            findSequentialSubtrees(svg);
+            findSequentialElements(svg);
+        }
         readElement(svg);
+    }
 
-        long end = System.currentTimeMillis();
-        if (DEBUG) {
-            System.out.println("SVGInputFormat elapsed:" + (end - start));
+    /**
+     * Reads the document with a streaming parser in a single pass.
+     * The figures are created in document order.
+     *
+     * @see #setStreaming
+     */
+    private void readStreaming(InputStream in) throws IOException {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        xmlInputFactory.setXMLResolver(new XMLResolver() {
+
+            public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+                // We don't load external DTD's and entities
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        });
+
+        initStorageContext(null);
+        document = null;
+        IXMLElement svg = null;
+        AffineTransform viewBoxTransform = null;
+        IXMLElement elem = null;
+        StringBuilder text = new StringBuilder();
+        // For each open element: whether the styles of its children are flattened
+        Stack<Boolean> flattenStack = new Stack<Boolean>();
+        HashSet<String> references = new HashSet<String>();
+        LinkedList<DeferredElement> deferredElements = new LinkedList<DeferredElement>();
+        pendingReferences = new HashMap<String, Integer>();
+        // The number of children of the svg element, which have been
+        // read, but have been kept, because they contain identified elements.
+        int keptCount = 0;
+
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                READ:
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT: {
+                            addPCData(elem, text);
+                            IXMLElement child = createElement(reader);
+                            if (elem == null) {
+                                document = child;
+                            } else {
+                                elem.addChild(child);
+                            }
+                            elem = child;
+
+                            boolean isFlattenChildren = false;
+                            if (svg == null) {
+                                if (elem.getName().equals("svg") &&
+                                        (elem.getNamespace() == null ||
+                                        elem.getNamespace().equals(SVG_NAMESPACE))) {
+                                    svg = elem;
+                                    flattenStyle(svg);
+                                    viewBoxTransform = readSVGViewport(svg);
+                                    isFlattenChildren = true;
+                                }
+                            } else {
+                                if (flattenStack.peek() && !isCSSStyleElement(elem) &&
+                                        (elem.getNamespace() == null ||
+                                        elem.getNamespace().equals(SVG_NAMESPACE))) {
+                                    flattenStyle(elem);
+                                    isFlattenChildren = true;
+                                }
+                                String name = elem.getName();
+                                if (name.equals("use") ||
+                                        name.equals("linearGradient") ||
+                                        name.equals("radialGradient")) {
+                                    String href = readAttribute(elem, "xlink:href", "");
+                                    if (href.startsWith("#")) {
+                                        references.add(href.substring(1));
+                                    }
+                                }
+                            }
+                            flattenStack.push(isFlattenChildren);
+                            break;
+                        }
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            if (elem != null) {
+                                text.append(reader.getText());
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT: {
+                            addPCData(elem, text);
+                            // Like NanoXML, we turn a single text child into
+                            // the content of the element
+                            if (elem.getChildrenCount() == 1 &&
+                                    elem.getChildAtIndex(0).getName() == null) {
+                                elem.setContent(elem.getChildAtIndex(0).getContent());
+                                elem.removeChildAtIndex(0);
+                            }
+                            flattenStack.pop();
+                            if (svg != null && isCSSStyleElement(elem) &&
+                                    elem.getContent() != null && !flattenStack.isEmpty() &&
+                                    flattenStack.peek()) {
+                                CSSParser cssParser = new CSSParser();
+                                cssParser.parse(elem.getContent(), styleManager);
+                            }
+                            identifyElement(elem);
+
+                            if (elem == svg) {
+                                readDeferredElements(svg, viewBoxTransform, deferredElements, keptCount, true);
+                                viewportStack.pop();
+                                break READ;
+                            } else if (svg != null && elem.getParent() == svg) {
+                                if (isParallel) {
+                                    findSequentialSubtrees(elem);
+                                }
+                                DeferredElement deferred = new DeferredElement(elem, references);
+                                deferredElements.add(deferred);
+                                for (String id : deferred.hrefs) {
+                                    Integer count = pendingReferences.get(id);
+                                    pendingReferences.put(id, (count == null) ? 1 : count + 1);
+                                }
+                                references = new HashSet<String>();
+                                keptCount = readDeferredElements(svg, viewBoxTransform, deferredElements, keptCount, false);
+                            }
+                            elem = elem.getParent();
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            IOException e = new IOException(ex.getMessage());
+            e.initCause(ex);
+            throw e;
+        } finally {
+            pendingReferences = null;
         }
-        /*if (DEBUG) System.out.println("SVGInputFormat read:"+(end1-start));
-        if (DEBUG) System.out.println("SVGInputFormat flatten:"+(end2-end1));
-        if (DEBUG) System.out.println("SVGInputFormat build:"+(end-end2));
-         */
-        if (replace) {
-            drawing.removeAllChildren();
+
+        if (svg == null) {
+            throw new IOException("'svg' element expected: " + ((document == null) ? null : document.getName()));
         }
-        drawing.addAll(figures);
+    }
 
+    /**
+     * Creates an XML element from the current start tag of the reader.
+     */
+    private IXMLElement createElement(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        String namespace = reader.getNamespaceURI();
+        IXMLElement elem = new XMLElement(
+                (prefix == null || prefix.length() == 0) ? reader.getLocalName() : prefix + ":" + reader.getLocalName(),
+                (namespace == null || namespace.length() == 0) ? null : namespace,
+                null, reader.getLocation().getLineNumber());
+        for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+            prefix = reader.getAttributePrefix(i);
+            namespace = reader.getAttributeNamespace(i);
+            elem.setAttribute(
+                    (prefix == null || prefix.length() == 0) ? reader.getAttributeLocalName(i) : prefix + ":" + reader.getAttributeLocalName(i),
+                    (namespace == null || namespace.length() == 0) ? null : namespace,
+                    reader.getAttributeValue(i));
+        }
+        return elem;
+    }
 
-        if (replace) {
-            Viewport viewport = viewportStack.firstElement();
-            VIEWPORT_FILL.basicSet(drawing, VIEWPORT_FILL.get(viewport.attributes));
-            VIEWPORT_FILL_OPACITY.basicSet(drawing, VIEWPORT_FILL_OPACITY.get(viewport.attributes));
-            VIEWPORT_HEIGHT.basicSet(drawing, VIEWPORT_HEIGHT.get(viewport.attributes));
-            VIEWPORT_WIDTH.basicSet(drawing, VIEWPORT_WIDTH.get(viewport.attributes));
+    /**
+     * Adds the text, which has been read so far, as a nameless child to the
+     * specified element. Like NanoXML, we skip text which consists of
+     * whitespace only.
+     */
+    private void addPCData(IXMLElement elem, StringBuilder text) {
+        if (text.length() > 0) {
+            if (elem != null && text.toString().trim().length() > 0) {
+                IXMLElement pcdata = new XMLElement();
+                pcdata.setContent(text.toString());
+                elem.addChild(pcdata);
+            }
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Reads the deferred child elements of the topmost SVG element in
+     * document order, until a child is encountered which refers to an
+     * element that has not been read yet.
+     *
+     * @param keptCount The number of children of the svg element, which
+     * have been read, but have been kept. The deferred elements follow
+     * these children.
+     * @param isFlush If this is true, all deferred child elements are read.
+     * References to elements that do not exist are ignored, as with
+     * the default reader.
+     * @return Returns the new number of kept children.
+     */
+    private int readDeferredElements(IXMLElement svg, AffineTransform viewBoxTransform,
+            LinkedList<DeferredElement> deferredElements, int keptCount, boolean isFlush)
+            throws IOException {
+        while (!deferredElements.isEmpty()) {
+            DeferredElement deferred = deferredElements.getFirst();
+            for (Iterator<String> i = deferred.references.iterator(); i.hasNext();) {
+                if (identifiedElements.containsKey(i.next())) {
+                    i.remove();
+                }
+            }
+            if (!isFlush && !deferred.references.isEmpty()) {
+                break;
+            }
+            deferredElements.removeFirst();
+            for (String id : deferred.hrefs) {
+                int count = pendingReferences.get(id);
+                if (count == 1) {
+                    pendingReferences.remove(id);
+                } else {
+                    pendingReferences.put(id, count - 1);
+                }
+            }
+            if (isParallel) {
+                // The subtrees of all elements referred to by the deferred
+                // element have been searched by now
+                findSequentialElements(deferred.element);
+            }
+            readSVGChildElement(deferred.element, viewBoxTransform);
+
+            if (releaseElement(deferred.element, false)) {
+                keptCount++;
+            } else {
+                // The svg element may have text children in between its
+                // child elements. Therefore we look up the deferred element
+                // by identity, instead of assuming it at index keptCount.
+                for (int i = keptCount, n = svg.getChildrenCount(); i < n; i++) {
+                    if (svg.getChildAtIndex(i) == deferred.element) {
+                        svg.removeChildAtIndex(i);
+                        break;
+                    }
+                }
+            }
+        }
+        return keptCount;
+    }
+
+    /**
+     * Releases the XML elements of a subtree, which has been read by the
+     * streaming reader. Elements, which can be referred to later on, are
+     * kept together with their subtree and their ancestors: the content of
+     * "defs", gradient and "symbol" elements, and elements, which are
+     * referred to by a deferred element that has not been read yet.
+     * <p>
+     * Other elements are removed from the identified elements, even if they
+     * have an id. Exporters give an id to almost every element, for example
+     * to each layer of a drawing.
+     *
+     * @return Returns true, if the element has been kept.
+     */
+    private boolean releaseElement(IXMLElement elem, boolean isInsideReferenceableElement) {
+        boolean isReferenceable = isInsideReferenceableElement ||
+                isReferenceableElement(elem) ||
+                isPendingReference(elem.getAttribute("id")) ||
+                isPendingReference(elem.getAttribute("xml:id"));
+        if (!isReferenceable || elementObjects.get(elem) instanceof Figure) {
+            elementObjects.remove(elem);
+        }
+        if (!isReferenceable) {
+            unidentifyElement(elem);
+        }
+        boolean isKept = isReferenceable;
+        for (int i = elem.getChildrenCount() - 1; i >= 0; i--) {
+            if (releaseElement(elem.getChildAtIndex(i), isReferenceable)) {
+                isKept = true;
+            } else {
+                elem.removeChildAtIndex(i);
+            }
+        }
+        if (!isKept) {
+            sequentialSubtrees.remove(elem);
+            sequentialElements.remove(elem);
+        }
+        return isKept;
+    }
+
+    /**
+     * Returns true, if the specified element is a "defs", gradient or
+     * "symbol" element, whose content is referred to by other elements.
+     */
+    private boolean isReferenceableElement(IXMLElement elem) {
+        if (!isSVGElement(elem)) {
+            return false;
         }
+        String name = elem.getName();
+        return name.equals("defs") ||
+                name.equals("symbol") ||
+                name.equals("linearGradient") ||
+                name.equals("radialGradient") ||
+                name.equals("solidColor");
+    }
+
+    /**
+     * Returns true, if a deferred element, which has not been read yet,
+     * refers to the specified id.
+     */
+    private boolean isPendingReference(String id) {
+        return id != null && pendingReferences.containsKey(id);
     }
 
     private void initStorageContext(IXMLElement root) {
         identifiedElements = new HashMap<String, IXMLElement>();
-        identifyElements(root);
-        elementObjects = new HashMap<IXMLElement, Object>();
+        if (root != null) {
+            identifyElements(root);
+        }
+        elementObjects = Collections.synchronizedMap(new HashMap<IXMLElement, Object>());
         viewportStack = new Stack<Viewport>();
         viewportStack.push(new Viewport());
         styleManager = new StyleManager();
@@ -293,8 +744,7 @@ public class SVGInputFormat implements InputFormat {
      */
     private void flattenStyles(IXMLElement elem)
             throws IOException {
-        if (elem.getName() != null && elem.getName().equals("style") &&
-                readAttribute(elem, "type", "").equals("text/css") &&
+        if (isCSSStyleElement(elem) &&
                 elem.getContent() != null) {
             CSSParser cssParser = new CSSParser();
             cssParser.parse(elem.getContent(), styleManager);
@@ -303,19 +753,7 @@ public class SVGInputFormat implements InputFormat {
             if (elem.getNamespace() == null ||
                     elem.getNamespace().equals(SVG_NAMESPACE)) {
 
-                String style = readAttribute(elem, "style", null);
-                if (style != null) {
-                    for (String styleProperty : style.split(";")) {
-                        String[] stylePropertyElements = styleProperty.split(":");
-                        if (stylePropertyElements.length == 2 &&
-                                !elem.hasAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE)) {
-                            //if (DEBUG) System.out.println("flatten:"+Arrays.toString(stylePropertyElements));
-                            elem.setAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE, stylePropertyElements[1].trim());
-                        }
-                    }
-                }
-
-                styleManager.applyStylesTo(elem);
+                flattenStyle(elem);
 
                 for (IXMLElement node : elem.getChildren()) {
                     if (node instanceof IXMLElement) {
@@ -327,6 +765,33 @@ public class SVGInputFormat implements InputFormat {
         }
     }
 
+    /**
+     * Flattens the CSS styles of a single element.
+     */
+    private void flattenStyle(IXMLElement elem) {
+        String style = readAttribute(elem, "style", null);
+        if (style != null) {
+            for (String styleProperty : style.split(";")) {
+                String[] stylePropertyElements = styleProperty.split(":");
+                if (stylePropertyElements.length == 2 &&
+                        !elem.hasAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE)) {
+                    //if (DEBUG) System.out.println("flatten:"+Arrays.toString(stylePropertyElements));
+                    elem.setAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE, stylePropertyElements[1].trim());
+                }
+            }
+        }
+
+        styleManager.applyStylesTo(elem);
+    }
+
+    /**
+     * Returns true, if the element is a "style" element with CSS rules.
+     */
+    private boolean isCSSStyleElement(IXMLElement elem) {
+        return elem.getName() != null && elem.getName().equals("style") &&
+                readAttribute(elem, "type", "").equals("text/css");
+    }
+
     /**
      * Reads an SVG element of any kind.
      * @return Returns the Figure, if the SVG element represents a Figure.
@@ -437,17 +902,18 @@ public class SVGInputFormat implements InputFormat {
         readOpacityAttribute(elem, a);
         CompositeFigure g = factory.createG(a);
 
-        for (IXMLElement node : elem.getChildren()) {
-            if (node instanceof IXMLElement) {
-                IXMLElement child = (IXMLElement) node;
-                Figure childFigure = readElement(child);
-                // skip invisible elements
-                if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                        !readAttribute(child, "display", "inline").equals("none")) {
-                    if (childFigure != null) {
-                        g.basicAdd(childFigure);
-                    }
+        java.util.List<IXMLElement> children = elem.getChildren();
+        for (int i = 0, n = children.size(); i < n;) {
+            int j = indexOfSequentialElement(children, i);
+            if (j > i) {
+                Figure[] childFigures = readElementsInParallel(children.subList(i, j));
+                for (int k = i; k < j; k++) {
+                    addGChildFigure(g, children.get(k), childFigures[k - i]);
                 }
+                i = j;
+            } else {
+                addGChildFigure(g, children.get(i), readElement(children.get(i)));
+                i++;
             }
         }
         readTransformAttribute(elem, a);
@@ -457,6 +923,185 @@ public class SVGInputFormat implements InputFormat {
         return g;
     }
 
+    /**
+     * Adds the figure of a child element of an SVG "g" element to the group.
+     */
+    private void addGChildFigure(CompositeFigure g, IXMLElement child, Figure childFigure) {
+        // skip invisible elements
+        if (readAttribute(child, "visibility", "visible").equals("visible") &&
+                !readAttribute(child, "display", "inline").equals("none")) {
+            if (childFigure != null) {
+                g.basicAdd(childFigure);
+            }
+        }
+    }
+
+    /**
+     * Reads a range of sibling elements. If the range is large enough,
+     * it is split up, and the parts are read in parallel.
+     */
+    private class ReadElementsTask extends RecursiveAction {
+
+        private final static long serialVersionUID = 1L;
+        private java.util.List<IXMLElement> elems;
+        private Figure[] result;
+        private int from;
+        private int to;
+        /**
+         * Holds the first IOException, which occurred while reading the range.
+         */
+        private IOException exception;
+
+        public ReadElementsTask(java.util.List<IXMLElement> elems, Figure[] result, int from, int to) {
+            this.elems = elems;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                try {
+                    for (int i = from; i < to; i++) {
+                        result[i] = readElement(elems.get(i));
+                    }
+                } catch (IOException e) {
+                    exception = e;
+                }
+            } else {
+                int mid = (from + to) / 2;
+                ReadElementsTask left = new ReadElementsTask(elems, result, from, mid);
+                ReadElementsTask right = new ReadElementsTask(elems, result, mid, to);
+                invokeAll(left, right);
+                exception = (left.exception != null) ? left.exception : right.exception;
+            }
+        }
+    }
+
+    /**
+     * Reads the specified sibling elements in parallel.
+     *
+     * @return Returns the figures of the elements in document order.
+     * The array contains null entries for elements, which do not represent
+     * a figure.
+     */
+    private Figure[] readElementsInParallel(java.util.List<IXMLElement> elems)
+            throws IOException {
+        ReadElementsTask task = new ReadElementsTask(elems, new Figure[elems.size()], 0, elems.size());
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        if (task.exception != null) {
+            throw task.exception;
+        }
+        return task.result;
+    }
+
+    /**
+     * Returns the index of the first element in the list, starting from the
+     * specified index, which must be read sequentially. Returns the size of
+     * the list, if there is no such element.
+     * <p>
+     * If elements are not read in parallel, this method returns
+     * {@code from}.
+     */
+    private int indexOfSequentialElement(java.util.List<IXMLElement> elems, int from) {
+        if (!isParallel) {
+            return from;
+        }
+        for (int i = from, n = elems.size(); i < n; i++) {
+            if (sequentialElements.contains(elems.get(i))) {
+                return i;
+            }
+        }
+        return elems.size();
+    }
+
+    /**
+     * Returns true, if the specified element is an SVG element.
+     */
+    private boolean isSVGElement(IXMLElement elem) {
+        return elem.getName() != null && (elem.getNamespace() == null ||
+                elem.getNamespace().equals(SVG_NAMESPACE));
+    }
+
+    /**
+     * Returns true, if the specified element changes state that is shared
+     * with its siblings: nested "svg" elements push a viewport, and
+     * gradients and solid colors become paint servers.
+     */
+    private boolean isSharedStateElement(IXMLElement elem) {
+        String name = elem.getName();
+        return name.equals("svg") ||
+                name.equals("linearGradient") ||
+                name.equals("radialGradient") ||
+                name.equals("solidColor");
+    }
+
+    /**
+     * Adds all elements of the specified subtree to the set of sequential
+     * subtrees, whose subtree contains a shared state element or a "use"
+     * element. The subtree is traversed once, bottom-up.
+     *
+     * @return Returns true, if the element has been added to the set.
+     */
+    private boolean findSequentialSubtrees(IXMLElement elem) {
+        if (!isSVGElement(elem)) {
+            return false;
+        }
+        boolean isSequential = isSharedStateElement(elem) || elem.getName().equals("use");
+        for (IXMLElement child : elem.getChildren()) {
+            if (findSequentialSubtrees(child)) {
+                isSequential = true;
+            }
+        }
+        if (isSequential) {
+            sequentialSubtrees.add(elem);
+        }
+        return isSequential;
+    }
+
+    /**
+     * Adds all elements of the specified subtree to the set of sequential
+     * elements, which must not be read in parallel with their siblings,
+     * because the element or one of its descendants changes state that is
+     * shared with the siblings. A "use" element is sequential, if the
+     * subtree of the element it refers to is a sequential subtree.
+     * <p>
+     * The subtree is traversed once, bottom-up. Method
+     * {@code findSequentialSubtrees} must have been invoked for the
+     * subtrees of all elements, which are referred to by "use" elements.
+     *
+     * @return Returns true, if the element has been added to the set.
+     */
+    private boolean findSequentialElements(IXMLElement elem) {
+        if (!isSVGElement(elem)) {
+            return false;
+        }
+        boolean isSequential = isSharedStateElement(elem);
+        if (elem.getName().equals("use")) {
+            String href = readAttribute(elem, "xlink:href", null);
+            if (href != null && href.startsWith("#")) {
+                IXMLElement refElem = identifiedElements.get(href.substring(1));
+                if (refElem != null && sequentialSubtrees.contains(refElem)) {
+                    isSequential = true;
+                }
+            }
+        }
+        for (IXMLElement child : elem.getChildren()) {
+            if (findSequentialElements(child)) {
+                isSequential = true;
+            }
+        }
+        if (isSequential) {
+            sequentialElements.add(elem);
+        }
+        return isSequential;
+    }
+
     /**
      * Reads an SVG "a" element.
      */
@@ -505,6 +1150,36 @@ public class SVGInputFormat implements InputFormat {
      */
     private Figure readSVGElement(IXMLElement elem)
             throws IOException {
+        AffineTransform viewBoxTransform = readSVGViewport(elem);
+
+        // Read the figures
+        java.util.List<IXMLElement> children = elem.getChildren();
+        for (int i = 0, n = children.size(); i < n;) {
+            int j = indexOfSequentialElement(children, i);
+            if (j > i) {
+                Figure[] childFigures = readElementsInParallel(children.subList(i, j));
+                for (int k = i; k < j; k++) {
+                    addSVGChildFigure(children.get(k), childFigures[k - i], viewBoxTransform);
+                }
+                i = j;
+            } else {
+                readSVGChildElement(children.get(i), viewBoxTransform);
+                i++;
+            }
+        }
+
+        viewportStack.pop();
+        return null;
+    }
+
+    /**
+     * Establishes the viewport of an SVG "svg" element, and pushes it on
+     * the viewport stack.
+     *
+     * @return Returns the viewBox transform of the element.
+     */
+    private AffineTransform readSVGViewport(IXMLElement elem)
+            throws IOException {
         // Establish a new viewport
         Viewport viewport = new Viewport();
 
@@ -565,26 +1240,32 @@ public class SVGInputFormat implements InputFormat {
         viewportStack.push(viewport);
         readViewportAttributes(elem, viewportStack.firstElement().attributes);
 
+        return viewBoxTransform;
+    }
 
-        // Read the figures
-        for (IXMLElement node : elem.getChildren()) {
-            if (node instanceof IXMLElement) {
-                IXMLElement child = (IXMLElement) node;
-                Figure childFigure = readElement(child);
-                // skip invisible elements
-                if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                        !readAttribute(child, "display", "inline").equals("none")) {
+    /**
+     * Reads a child element of an SVG "svg" element, and adds its figure
+     * to the figures of the drawing.
+     */
+    private void readSVGChildElement(IXMLElement child, AffineTransform viewBoxTransform)
+            throws IOException {
+        addSVGChildFigure(child, readElement(child), viewBoxTransform);
+    }
 
-                    if (childFigure != null) {
-                        childFigure.transform(viewBoxTransform);
-                        figures.add(childFigure);
-                    }
-                }
+    /**
+     * Adds the figure of a child element of an SVG "svg" element to the
+     * figures of the drawing.
+     */
+    private void addSVGChildFigure(IXMLElement child, Figure childFigure, AffineTransform viewBoxTransform) {
+        // skip invisible elements
+        if (readAttribute(child, "visibility", "visible").equals("visible") &&
+                !readAttribute(child, "display", "inline").equals("none")) {
+
+            if (childFigure != null) {
+                childFigure.transform(viewBoxTransform);
+                figures.add(childFigure);
             }
         }
-
-        viewportStack.pop();
-        return null;
     }
 
     /**
@@ -1364,455 +2045,16 @@ public class SVGInputFormat implements InputFormat {
      *
      * Also supports elliptical arc commands 'a' and 'A' as specified in
      * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
+     *
+     * @see SVGPathParser
      */
     private BezierPath[] toPath(IXMLElement elem, String str) throws IOException {
-        LinkedList<BezierPath> paths = new LinkedList<BezierPath>();
-
-        BezierPath path = null;
-        Point2D.Double p = new Point2D.Double();
-        Point2D.Double c1 = new Point2D.Double();
-        Point2D.Double c2 = new Point2D.Double();
-
-        StreamPosTokenizer tt;
-        if (toPathTokenizer == null) {
-            tt = new StreamPosTokenizer(new StringReader(str));
-            tt.resetSyntax();
-            tt.parseNumbers();
-            tt.parseExponents();
-            tt.parsePlusAsNumber();
-            tt.whitespaceChars(0, ' ');
-            tt.whitespaceChars(',', ',');
-            toPathTokenizer = tt;
-        } else {
-            tt = toPathTokenizer;
-            tt.setReader(new StringReader(str));
-        }
-
-
-        char nextCommand = 'M';
-        char command = 'M';
-        Commands:
-        while (tt.nextToken() != StreamPosTokenizer.TT_EOF) {
-            if (tt.ttype > 0) {
-                command = (char) tt.ttype;
-            } else {
-                command = nextCommand;
-                tt.pushBack();
-            }
-
-            BezierPath.Node node;
-
-            switch (command) {
-                case 'M':
-                    // absolute-moveto x y
-                    if (path != null) {
-                        paths.add(path);
-                    }
-                    path = new BezierPath();
-
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.moveTo(p.x, p.y);
-                    nextCommand = 'L';
-                    break;
-                case 'm':
-                    // relative-moveto dx dy
-                    if (path != null) {
-                        paths.add(path);
-                    }
-                    path = new BezierPath();
-
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.moveTo(p.x, p.y);
-                    nextCommand = 'l';
-
-                    break;
-                case 'Z':
-                case 'z':
-                    // close path
-                    p.x = path.get(0).x[0];
-                    p.y = path.get(0).y[0];
-
-                    // If the last point and the first point are the same, we
-                    // can merge them
-                    if (path.size() > 1) {
-                        BezierPath.Node first = path.get(0);
-                        BezierPath.Node last = path.get(path.size() - 1);
-                        if (first.x[0] == last.x[0] &&
-                                first.y[0] == last.y[0]) {
-                            if ((last.mask & BezierPath.C1_MASK) != 0) {
-                                first.mask |= BezierPath.C1_MASK;
-                                first.x[1] = last.x[1];
-                                first.y[1] = last.y[1];
-                            }
-                            path.remove(path.size() - 1);
-                        }
-                    }
-                    path.setClosed(true);
-
-                    break;
-                case 'L':
-                    // absolute-lineto x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'L';
-
-                    break;
-                case 'l':
-                    // relative-lineto dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'l';
-
-                    break;
-                case 'H':
-                    // absolute-horizontal-lineto x
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'H' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'H';
-
-                    break;
-                case 'h':
-                    // relative-horizontal-lineto dx
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'h' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'h';
-
-                    break;
-                case 'V':
-                    // absolute-vertical-lineto y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'V' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'V';
-
-                    break;
-                case 'v':
-                    // relative-vertical-lineto dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'v' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'v';
-
-                    break;
-                case 'C':
-                    // absolute-curveto x1 y1 x2 y2 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'C';
-                    break;
-
-                case 'c':
-                    // relative-curveto dx1 dy1 dx2 dy2 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'c';
-                    break;
-
-                case 'S':
-                    // absolute-shorthand-curveto x2 y2 x y
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'S';
-                    break;
-
-                case 's':
-                    // relative-shorthand-curveto dx2 dy2 dx dy
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 's';
-                    break;
-
-                case 'Q':
-                    // absolute-quadto x1 y1 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'Q';
-
-                    break;
-
-                case 'q':
-                    // relative-quadto dx1 dy1 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'q';
-
-                    break;
-                case 'T':
-                    // absolute-shorthand-quadto x y
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'T';
-
-                    break;
-
-                case 't':
-                    // relative-shorthand-quadto dx dy
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 's';
-
-                    break;
-
-
-                case 'A': {
-                    // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    // If rX or rY have negative signs, these are dropped;
-                    // the absolute value is used instead.
-                    double rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-
-                    path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
-
-                    nextCommand = 'A';
-                    break;
-                }
-                case 'a': {
-                    // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    // If rX or rY have negative signs, these are dropped;
-                    // the absolute value is used instead.
-                    double rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-
-                    path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
-
-                    nextCommand = 'a';
-                    break;
-                }
-                default:
-                    if (DEBUG) {
-                        System.out.println("SVGInputFormat.toPath aborting after illegal path command: " + command + " found in path " + str);
-                    }
-                    break Commands;
-                //throw new IOException("Illegal command: "+command);
-            }
+        SVGPathParser parser = toPathParser.get();
+        if (parser == null) {
+            parser = new SVGPathParser();
+            toPathParser.set(parser);
         }
-        if (path != null) {
-            paths.add(path);
-        }
-
-        return paths.toArray(new BezierPath[paths.size()]);
+        return parser.parse(str);
     }
     /* Reads core attributes as listed in
      * http://www.w3.org/TR/SVGMobile12/feature.html#CoreAttribute
@@ -1844,6 +2086,33 @@ public class SVGInputFormat implements InputFormat {
         }
     }
 
+    /**
+     * Puts a single element into the hashtable {@code identifiedElements},
+     * if it has an "id" or an "xml:id" attribute.
+     */
+    private void identifyElement(IXMLElement elem) {
+        if (elem.getAttribute("id") != null) {
+            identifiedElements.put(elem.getAttribute("id"), elem);
+        }
+        if (elem.getAttribute("xml:id") != null) {
+            identifiedElements.put(elem.getAttribute("xml:id"), elem);
+        }
+    }
+
+    /**
+     * Removes a single element from the hashtable {@code identifiedElements}.
+     */
+    private void unidentifyElement(IXMLElement elem) {
+        String id = elem.getAttribute("id");
+        if (id != null && identifiedElements.get(id) == elem) {
+            identifiedElements.remove(id);
+        }
+        id = elem.getAttribute("xml:id");
+        if (id != null && identifiedElements.get(id) == elem) {
+            identifiedElements.remove(id);
+        }
+    }
+
     /* Reads object/group opacity as described in
      * http://www.w3.org/TR/SVGMobile12/painting.html#groupOpacity
      */
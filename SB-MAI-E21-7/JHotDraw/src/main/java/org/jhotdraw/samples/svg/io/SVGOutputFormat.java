@@ -1,5 +1,5 @@
 /*
- * @(#)SVGOutputFormat.java  1.3  2009-04-17
+ * @(#)SVGOutputFormat.java  1.4.1  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -19,11 +19,13 @@ import java.awt.datatransfer.*;
 import java.awt.geom.*;
 import java.io.*;
 import java.net.*;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.*;
 import javax.swing.text.*;
+import javax.xml.stream.*;
 import net.n3.nanoxml.*;
 import org.jhotdraw.app.JHotDrawFeatures;
 import org.jhotdraw.draw.*;
@@ -40,7 +42,10 @@ import static org.jhotdraw.samples.svg.SVGConstants.*;
  * Scalable Vector Graphics SVG Tiny 1.2.
  *
  * @author Werner Randelshofer
- * @version 1.3 2009-04-17 Added support for link target.
+ * @version 1.4.1 2026-10-18 Documented that the streaming writer does not
+ * invoke writeGElement.
+ * <br>1.4 2026-10-18 Added streaming writer mode.
+ * <br>1.3 2009-04-17 Added support for link target.
  * <br>1.2.1 2009-03-29 createTextArea only added the last line of
  * a multiline text to the output.
  * <br>1.2 2007-12-16 Adapted to changes in OutputFormat.
@@ -78,6 +83,10 @@ public class SVGOutputFormat implements OutputFormat {
      * Set this to true for pretty printing.
      */
     private boolean isPrettyPrint;
+    /**
+     * Set this to true, to write documents with the streaming writer.
+     */
+    private boolean isStreaming;
     private final static HashMap<Integer, String> strokeLinejoinMap;
 
 
@@ -124,14 +133,37 @@ public class SVGOutputFormat implements OutputFormat {
         return isPrettyPrint;
     }
 
+    /**
+     * Sets whether documents are written with the streaming writer.
+     * <p>
+     * The streaming writer writes the XML elements of the figures to a
+     * {@code javax.xml.stream.XMLStreamWriter} while it traverses the
+     * figures, instead of building the whole document in memory first.
+     * The gradients are collected in a pre-pass, so that the "defs" element
+     * can be written before the figures.
+     * <p>
+     * The streaming writer produces the same elements and attributes as
+     * the default writer.
+     * <p>
+     * The streaming writer writes groups child by child, and therefore
+     * does not invoke method {@code writeGElement}. Subclasses, which
+     * override that method, should not use the streaming writer.
+     */
+    public void setStreaming(boolean newValue) {
+        isStreaming = newValue;
+    }
+
+    /**
+     * Returns true, if documents are written with the streaming writer.
+     */
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
     protected void writeElement(IXMLElement parent, Figure f) throws IOException {
         // Write link attribute as encosing "a" element
-        if (LINK.get(f) != null && LINK.get(f).trim().length() > 0) {
-            IXMLElement aElement = parent.createElement("a");
-            aElement.setAttribute("xlink:href", LINK.get(f));
-            if (LINK_TARGET.get(f) != null && LINK.get(f).trim().length() > 0) {
-                aElement.setAttribute("target", LINK_TARGET.get(f));
-            }
+        IXMLElement aElement = createLinkElement(parent, f);
+        if (aElement != null) {
             parent.addChild(aElement);
             parent = aElement;
         }
@@ -186,6 +218,22 @@ public class SVGOutputFormat implements OutputFormat {
         }
     }
 
+    /**
+     * Creates an "a" element for the link of the specified figure.
+     * Returns null, if the figure has no link.
+     */
+    protected IXMLElement createLinkElement(IXMLElement doc, Figure f) throws IOException {
+        if (LINK.get(f) != null && LINK.get(f).trim().length() > 0) {
+            IXMLElement aElement = doc.createElement("a");
+            aElement.setAttribute("xlink:href", LINK.get(f));
+            if (LINK_TARGET.get(f) != null && LINK.get(f).trim().length() > 0) {
+                aElement.setAttribute("target", LINK_TARGET.get(f));
+            }
+            return aElement;
+        }
+        return null;
+    }
+
     protected void writeCircleElement(IXMLElement parent, SVGEllipseFigure f) throws IOException {
         parent.addChild(
                 createCircle(
@@ -295,6 +343,16 @@ public class SVGOutputFormat implements OutputFormat {
         return elem;
     }
 
+    /**
+     * Writes an SVG "g" element with the elements of the children of the
+     * group.
+     * <p>
+     * This method is not invoked by the streaming writer, which writes
+     * the start tag of the group, the children and the end tag one after
+     * the other, instead of building the element of the group in memory.
+     *
+     * @see #setStreaming
+     */
     protected void writeGElement(IXMLElement parent, SVGGroupFigure f) throws IOException {
         IXMLElement elem = createG(document, f.getAttributes());
         for (Figure child : f.getChildren()) {
@@ -630,38 +688,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Computed value:  	 "none", system paint, specified <color> value or absolute IRI
         Gradient gradient = FILL_GRADIENT.get(f);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                IXMLElement gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttribute("id", "xml", id);
-                defs.addChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
+            String id = getGradientId(gradient);
             writeAttribute(elem, "fill", "url(#" + id + ")", "#000");
         } else {
             writeAttribute(elem, "fill", toColor(FILL_COLOR.get(f)), "#000");
@@ -704,38 +731,7 @@ public class SVGOutputFormat implements OutputFormat {
         // or absolute IRI
         gradient = STROKE_GRADIENT.get(f);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                IXMLElement gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttribute("id", "xml", id);
-                defs.addChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
+            String id = getGradientId(gradient);
             writeAttribute(elem, "stroke", "url(#" + id + ")", "none");
         } else {
             writeAttribute(elem, "stroke", toColor(STROKE_COLOR.get(f)), "none");
@@ -828,6 +824,45 @@ public class SVGOutputFormat implements OutputFormat {
         //Computed value:  	 Specified value, except inherit
         writeAttribute(elem, "stroke-width", STROKE_WIDTH.get(f), 1d);
     }
+    /**
+     * Returns the id of the specified gradient. If the gradient does not
+     * have an id yet, a gradient element is added to the "defs" element.
+     */
+    private String getGradientId(Gradient gradient) throws IOException {
+        String id;
+        if (gradientToIDMap.containsKey(gradient)) {
+            id = gradientToIDMap.get(gradient);
+        } else {
+            IXMLElement gradientElem;
+            if (gradient instanceof LinearGradient) {
+                LinearGradient lg = (LinearGradient) gradient;
+                gradientElem = createLinearGradient(document,
+                        lg.getX1(), lg.getY1(),
+                        lg.getX2(), lg.getY2(),
+                        lg.getStopOffsets(),
+                        lg.getStopColors(),
+                        lg.getStopOpacities(),
+                        lg.isRelativeToFigureBounds(),
+                        lg.getTransform());
+            } else /*if (gradient instanceof RadialGradient)*/ {
+                RadialGradient rg = (RadialGradient) gradient;
+                gradientElem = createRadialGradient(document,
+                        rg.getCX(), rg.getCY(),
+                        rg.getFX(), rg.getFY(),
+                        rg.getR(),
+                        rg.getStopOffsets(),
+                        rg.getStopColors(),
+                        rg.getStopOpacities(),
+                        rg.isRelativeToFigureBounds(),
+                        rg.getTransform());
+            }
+            id = getId(gradientElem);
+            gradientElem.setAttribute("id", "xml", id);
+            defs.addChild(gradientElem);
+            gradientToIDMap.put(gradient, id);
+        }
+        return id;
+    }
     /* Writes the opacity attribute.
      */
 
@@ -1331,6 +1366,11 @@ public class SVGOutputFormat implements OutputFormat {
 
         initStorageContext(document);
 
+        if (isStreaming) {
+            writeStreaming(out, figures);
+            return;
+        }
+
         defs = new XMLElement("defs");
         document.addChild(defs);
 
@@ -1351,6 +1391,170 @@ public class SVGOutputFormat implements OutputFormat {
         writer.flush();
     }
 
+    /**
+     * Writes the figures with the streaming writer.
+     *
+     * @see #setStreaming
+     */
+    private void writeStreaming(OutputStream out, java.util.List<Figure> figures) throws IOException {
+        // Collect the gradients in a pre-pass
+        defs = new XMLElement("defs");
+        for (Figure f : figures) {
+            collectGradients(f);
+        }
+
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        try {
+            XMLStreamWriter w = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            w.writeStartDocument("UTF-8", "1.0");
+            writeStartElement(w, document, 0);
+            writeXMLElement(w, defs, 1);
+            for (Figure f : figures) {
+                writeElement(w, f, 1);
+            }
+            writeEndElement(w, 0);
+            w.writeEndDocument();
+            w.flush();
+        } catch (XMLStreamException ex) {
+            IOException e = new IOException(ex.getMessage());
+            e.initCause(ex);
+            throw e;
+        }
+        writer.flush();
+    }
+
+    /**
+     * Creates gradient elements for all gradients used by the specified
+     * figure and its descendants.
+     */
+    private void collectGradients(Figure f) throws IOException {
+        if (f instanceof SVGGroupFigure) {
+            for (Figure child : ((SVGGroupFigure) f).getChildren()) {
+                collectGradients(child);
+            }
+        } else if (!(f instanceof SVGImageFigure)) {
+            // This is the same order in which writeShapeAttributes
+            // requests the gradients.
+            if (FILL_GRADIENT.get(f) != null) {
+                getGradientId(FILL_GRADIENT.get(f));
+            }
+            if (STROKE_GRADIENT.get(f) != null) {
+                getGradientId(STROKE_GRADIENT.get(f));
+            }
+        }
+    }
+
+    /**
+     * Writes a figure to the streaming writer.
+     * <p>
+     * Groups are written child by child. The elements of all other
+     * figures are created with method {@code writeElement}, written and
+     * then discarded.
+     */
+    private void writeElement(XMLStreamWriter w, Figure f, int depth)
+            throws IOException, XMLStreamException {
+        if (f instanceof SVGGroupFigure) {
+            IXMLElement aElement = createLinkElement(document, f);
+            if (aElement != null) {
+                writeStartElement(w, aElement, depth++);
+            }
+            writeStartElement(w, createG(document, f.getAttributes()), depth);
+            for (Figure child : ((SVGGroupFigure) f).getChildren()) {
+                writeElement(w, child, depth + 1);
+            }
+            writeEndElement(w, depth);
+            if (aElement != null) {
+                writeEndElement(w, --depth);
+            }
+        } else {
+            IXMLElement parent = new XMLElement();
+            writeElement(parent, f);
+            for (IXMLElement elem : parent.getChildren()) {
+                writeXMLElement(w, elem, depth);
+            }
+        }
+    }
+
+    /**
+     * Writes an XML element and its children to the streaming writer.
+     *
+     * @param depth The nesting depth of the element. This is used for
+     * pretty printing. Pass -1 for elements with mixed content, where we
+     * must not add whitespace.
+     */
+    private void writeXMLElement(XMLStreamWriter w, IXMLElement elem, int depth)
+            throws XMLStreamException {
+        if (elem.getName() == null) {
+            if (elem.getContent() != null) {
+                w.writeCharacters(elem.getContent());
+            }
+        } else if (elem.getChildrenCount() == 0 && elem.getContent() == null) {
+            writeIndent(w, depth);
+            w.writeEmptyElement(elem.getFullName());
+            writeAttributes(w, elem);
+        } else {
+            boolean isMixedContent = elem.getContent() != null;
+            for (IXMLElement child : elem.getChildren()) {
+                if (child.getName() == null) {
+                    isMixedContent = true;
+                }
+            }
+            writeIndent(w, depth);
+            w.writeStartElement(elem.getFullName());
+            writeAttributes(w, elem);
+            if (elem.getContent() != null) {
+                w.writeCharacters(elem.getContent());
+            }
+            for (IXMLElement child : elem.getChildren()) {
+                writeXMLElement(w, child, (isMixedContent || depth < 0) ? -1 : depth + 1);
+            }
+            writeEndElement(w, isMixedContent ? -1 : depth);
+        }
+    }
+
+    /**
+     * Writes the start tag of an element with its attributes.
+     */
+    private void writeStartElement(XMLStreamWriter w, IXMLElement elem, int depth)
+            throws XMLStreamException {
+        writeIndent(w, depth);
+        w.writeStartElement(elem.getFullName());
+        if (elem.getNamespace() != null) {
+            w.writeDefaultNamespace(elem.getNamespace());
+        }
+        writeAttributes(w, elem);
+    }
+
+    private void writeEndElement(XMLStreamWriter w, int depth)
+            throws XMLStreamException {
+        writeIndent(w, depth);
+        w.writeEndElement();
+    }
+
+    private void writeAttributes(XMLStreamWriter w, IXMLElement elem)
+            throws XMLStreamException {
+        for (Enumeration<?> i = elem.enumerateAttributeNames(); i.hasMoreElements();) {
+            String name = (String) i.nextElement();
+            if (name.startsWith("xmlns:")) {
+                w.writeNamespace(name.substring(6), elem.getAttribute(name));
+            } else {
+                w.writeAttribute(name, elem.getAttribute(name));
+            }
+        }
+    }
+
+    private void writeIndent(XMLStreamWriter w, int depth)
+            throws XMLStreamException {
+        if (isPrettyPrint && depth >= 0) {
+            StringBuilder buf = new StringBuilder(depth * 2 + 1);
+            buf.append('\n');
+            for (int i = 0; i < depth; i++) {
+                buf.append("  ");
+            }
+            w.writeCharacters(buf.toString());
+        }
+    }
+
     private void initStorageContext(IXMLElement root) {
         identifiedElements = new HashMap<IXMLElement, String>();
         gradientToIDMap = new HashMap<Gradient, String>();
@@ -0,0 +1,425 @@
+/*
+ * @(#)SVGPathParser.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.io;
+
+import java.io.*;
+import java.util.ArrayList;
+import org.jhotdraw.geom.*;
+
+/**
+ * SVGPathParser parses SVG path data into BezierPath objects, as specified in
+ * http://www.w3.org/TR/SVGMobile12/paths.html#PathDataBNF
+ * <p>
+ * Also supports elliptical arc commands 'a' and 'A' as specified in
+ * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
+ * <p>
+ * The parser scans the characters of the path data in a reusable char array,
+ * and converts numbers without creating intermediate objects. The
+ * coordinates are fed directly into the nodes of the BezierPath objects.
+ * <p>
+ * An instance of this class is not thread safe. Use one instance per thread.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class SVGPathParser {
+
+    /**
+     * Powers of ten, which can be represented exactly by a double.
+     */
+    private final static double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * The characters of the path data.
+     */
+    private char[] buf = new char[256];
+    /**
+     * The number of characters in buf.
+     */
+    private int len;
+    /**
+     * The position of the next character in buf.
+     */
+    private int pos;
+    /**
+     * The path data. This is only used for error messages.
+     */
+    private String str;
+
+    /** Creates a new instance. */
+    public SVGPathParser() {
+    }
+
+    /**
+     * Parses the specified path data.
+     *
+     * @return Returns one BezierPath for each moveto command.
+     * @throws IOException if the path data is malformed.
+     */
+    public BezierPath[] parse(String str) throws IOException {
+        this.str = str;
+        len = str.length();
+        if (buf.length < len) {
+            buf = new char[Math.max(len, buf.length * 2)];
+        }
+        str.getChars(0, len, buf, 0);
+        pos = 0;
+
+        ArrayList<BezierPath> paths = new ArrayList<BezierPath>();
+        BezierPath path = null;
+        // The current point
+        double x = 0, y = 0;
+
+        char nextCommand = 'M';
+        char command = 'M';
+        Commands:
+        while (skipSeparators()) {
+            char ch = buf[pos];
+            if (isNumberStart(ch)) {
+                command = nextCommand;
+            } else {
+                command = ch;
+                pos++;
+            }
+            if (path == null && command != 'M' && command != 'm') {
+                throw new IOException("moveto expected instead of '" + command + "' at position " + pos + " in " + str);
+            }
+
+            switch (command) {
+                case 'M':
+                    // absolute-moveto x y
+                    if (path != null) {
+                        paths.add(path);
+                    }
+                    path = new BezierPath();
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.moveTo(x, y);
+                    nextCommand = 'L';
+                    break;
+                case 'm':
+                    // relative-moveto dx dy
+                    if (path != null) {
+                        paths.add(path);
+                    }
+                    path = new BezierPath();
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.moveTo(x, y);
+                    nextCommand = 'l';
+                    break;
+                case 'Z':
+                case 'z': {
+                    // close path
+                    BezierPath.Node first = path.get(0);
+                    x = first.x[0];
+                    y = first.y[0];
+
+                    // If the last point and the first point are the same, we
+                    // can merge them
+                    if (path.size() > 1) {
+                        BezierPath.Node last = path.get(path.size() - 1);
+                        if (first.x[0] == last.x[0] &&
+                                first.y[0] == last.y[0]) {
+                            if ((last.mask & BezierPath.C1_MASK) != 0) {
+                                first.mask |= BezierPath.C1_MASK;
+                                first.x[1] = last.x[1];
+                                first.y[1] = last.y[1];
+                            }
+                            path.remove(path.size() - 1);
+                        }
+                    }
+                    path.setClosed(true);
+                    break;
+                }
+                case 'L':
+                    // absolute-lineto x y
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'L';
+                    break;
+                case 'l':
+                    // relative-lineto dx dy
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'l';
+                    break;
+                case 'H':
+                    // absolute-horizontal-lineto x
+                    x = nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'H';
+                    break;
+                case 'h':
+                    // relative-horizontal-lineto dx
+                    x += nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'h';
+                    break;
+                case 'V':
+                    // absolute-vertical-lineto y
+                    y = nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'V';
+                    break;
+                case 'v':
+                    // relative-vertical-lineto dy
+                    y += nextNumber(command);
+                    path.lineTo(x, y);
+                    nextCommand = 'v';
+                    break;
+                case 'C': {
+                    // absolute-curveto x1 y1 x2 y2 x y
+                    double x1 = nextNumber(command);
+                    double y1 = nextNumber(command);
+                    double x2 = nextNumber(command);
+                    double y2 = nextNumber(command);
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.curveTo(x1, y1, x2, y2, x, y);
+                    nextCommand = 'C';
+                    break;
+                }
+                case 'c': {
+                    // relative-curveto dx1 dy1 dx2 dy2 dx dy
+                    double x1 = x + nextNumber(command);
+                    double y1 = y + nextNumber(command);
+                    double x2 = x + nextNumber(command);
+                    double y2 = y + nextNumber(command);
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.curveTo(x1, y1, x2, y2, x, y);
+                    nextCommand = 'c';
+                    break;
+                }
+                case 'S': {
+                    // absolute-shorthand-curveto x2 y2 x y
+                    BezierPath.Node node = path.get(path.size() - 1);
+                    double x1 = node.x[0] * 2d - node.x[1];
+                    double y1 = node.y[0] * 2d - node.y[1];
+                    double x2 = nextNumber(command);
+                    double y2 = nextNumber(command);
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.curveTo(x1, y1, x2, y2, x, y);
+                    nextCommand = 'S';
+                    break;
+                }
+                case 's': {
+                    // relative-shorthand-curveto dx2 dy2 dx dy
+                    BezierPath.Node node = path.get(path.size() - 1);
+                    double x1 = node.x[0] * 2d - node.x[1];
+                    double y1 = node.y[0] * 2d - node.y[1];
+                    double x2 = x + nextNumber(command);
+                    double y2 = y + nextNumber(command);
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.curveTo(x1, y1, x2, y2, x, y);
+                    nextCommand = 's';
+                    break;
+                }
+                case 'Q': {
+                    // absolute-quadto x1 y1 x y
+                    double x1 = nextNumber(command);
+                    double y1 = nextNumber(command);
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.quadTo(x1, y1, x, y);
+                    nextCommand = 'Q';
+                    break;
+                }
+                case 'q': {
+                    // relative-quadto dx1 dy1 dx dy
+                    double x1 = x + nextNumber(command);
+                    double y1 = y + nextNumber(command);
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.quadTo(x1, y1, x, y);
+                    nextCommand = 'q';
+                    break;
+                }
+                case 'T': {
+                    // absolute-shorthand-quadto x y
+                    BezierPath.Node node = path.get(path.size() - 1);
+                    double x1 = node.x[0] * 2d - node.x[1];
+                    double y1 = node.y[0] * 2d - node.y[1];
+                    x = nextNumber(command);
+                    y = nextNumber(command);
+                    path.quadTo(x1, y1, x, y);
+                    nextCommand = 'T';
+                    break;
+                }
+                case 't': {
+                    // relative-shorthand-quadto dx dy
+                    BezierPath.Node node = path.get(path.size() - 1);
+                    double x1 = node.x[0] * 2d - node.x[1];
+                    double y1 = node.y[0] * 2d - node.y[1];
+                    x += nextNumber(command);
+                    y += nextNumber(command);
+                    path.quadTo(x1, y1, x, y);
+                    nextCommand = 't';
+                    break;
+                }
+                case 'A':
+                case 'a': {
+                    // elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
+                    // If rX or rY have negative signs, these are dropped;
+                    // the absolute value is used instead.
+                    double rx = nextNumber(command);
+                    double ry = nextNumber(command);
+                    double xAxisRotation = nextNumber(command);
+                    boolean largeArcFlag = nextFlag(command);
+                    boolean sweepFlag = nextFlag(command);
+                    if (command == 'A') {
+                        x = nextNumber(command);
+                        y = nextNumber(command);
+                    } else {
+                        x += nextNumber(command);
+                        y += nextNumber(command);
+                    }
+                    path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, x, y);
+                    nextCommand = command;
+                    break;
+                }
+                default:
+                    // We abort after an illegal path command, and keep the
+                    // paths that we have read so far.
+                    break Commands;
+            }
+        }
+        if (path != null) {
+            paths.add(path);
+        }
+        this.str = null;
+
+        return paths.toArray(new BezierPath[paths.size()]);
+    }
+
+    /**
+     * Skips whitespace and a comma.
+     *
+     * @return Returns false, if the end of the path data has been reached.
+     */
+    private boolean skipSeparators() {
+        while (pos < len && buf[pos] <= ' ') {
+            pos++;
+        }
+        if (pos < len && buf[pos] == ',') {
+            pos++;
+            while (pos < len && buf[pos] <= ' ') {
+                pos++;
+            }
+        }
+        return pos < len;
+    }
+
+    private static boolean isNumberStart(char ch) {
+        return (ch >= '0' && ch <= '9') || ch == '.' || ch == '-' || ch == '+';
+    }
+
+    /**
+     * Reads a flag of an elliptical arc command. A flag consists of a single
+     * character, so that flags do not need to be separated from each other
+     * and from the following number.
+     */
+    private boolean nextFlag(char command) throws IOException {
+        skipSeparators();
+        if (pos < len && (buf[pos] == '0' || buf[pos] == '1')) {
+            return buf[pos++] == '1';
+        }
+        throw new IOException("Flag missing for '" + command + "' at position " + pos + " in " + str);
+    }
+
+    /**
+     * Reads a number.
+     * <p>
+     * Numbers with up to 15 significant digits and with a small exponent are
+     * computed from their decimal digits with a single multiplication or
+     * division, which yields the same double as {@code Double.parseDouble}.
+     * All other numbers are converted with {@code Double.parseDouble}.
+     */
+    private double nextNumber(char command) throws IOException {
+        skipSeparators();
+        int start = pos;
+        boolean isNegative = false;
+        if (pos < len && (buf[pos] == '-' || buf[pos] == '+')) {
+            isNegative = buf[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        for (; pos < len && buf[pos] >= '0' && buf[pos] <= '9'; pos++) {
+            hasDigits = true;
+            mantissa = mantissa * 10 + (buf[pos] - '0');
+            if (mantissa != 0 && ++significantDigits > 15) {
+                // Too many digits for the fast path. Avoid overflow.
+                mantissa /= 10;
+                exponent++;
+            }
+        }
+        if (pos < len && buf[pos] == '.') {
+            pos++;
+            for (; pos < len && buf[pos] >= '0' && buf[pos] <= '9'; pos++) {
+                hasDigits = true;
+                if (significantDigits < 15) {
+                    mantissa = mantissa * 10 + (buf[pos] - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                } else {
+                    significantDigits++;
+                }
+            }
+        }
+        if (!hasDigits) {
+            throw new IOException("Number missing for '" + command + "' at position " + start + " in " + str);
+        }
+        if (pos < len && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            boolean isNegativeExponent = false;
+            if (pos < len && (buf[pos] == '-' || buf[pos] == '+')) {
+                isNegativeExponent = buf[pos] == '-';
+                pos++;
+            }
+            if (pos >= len || buf[pos] < '0' || buf[pos] > '9') {
+                throw new IOException("Exponent missing for '" + command + "' at position " + start + " in " + str);
+            }
+            int exp = 0;
+            for (; pos < len && buf[pos] >= '0' && buf[pos] <= '9'; pos++) {
+                if (exp < 10000) {
+                    exp = exp * 10 + (buf[pos] - '0');
+                }
+            }
+            exponent += isNegativeExponent ? -exp : exp;
+        }
+
+        double value;
+        if (significantDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            if (isNegative) {
+                value = -value;
+            }
+        } else {
+            value = Double.parseDouble(new String(buf, start, pos - start));
+        }
+        return value;
+    }
+}
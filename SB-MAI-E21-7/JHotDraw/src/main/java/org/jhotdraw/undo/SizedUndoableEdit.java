@@ -0,0 +1,37 @@
+/*
+ * @(#)SizedUndoableEdit.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+
+package org.jhotdraw.undo;
+
+import javax.swing.undo.*;
+
+/**
+ * An UndoableEdit which can estimate the amount of memory it holds on to.
+ * <p>
+ * The UndoRedoManager uses the estimate to keep the memory used by its
+ * history within a budget. Edits which do not implement this interface are
+ * considered to use no memory.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ * @see UndoRedoManager#setMemoryBudget
+ */
+public interface SizedUndoableEdit extends UndoableEdit {
+    /**
+     * Returns the estimated number of bytes, which are only reachable
+     * through this edit. Objects which are shared with the model, are not
+     * included in the estimate.
+     */
+    public long getEstimatedSize();
+}
@@ -0,0 +1,52 @@
+/*
+ * @(#)SpillableEdit.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+
+package org.jhotdraw.undo;
+
+import java.io.*;
+
+/**
+ * A SizedUndoableEdit which can write its bulky state to a stream and
+ * release it from memory.
+ * <p>
+ * The UndoRedoManager spills old edits, when its history exceeds the memory
+ * budget. The state is compressed and written to a temporary file. Before
+ * the edit is undone or redone, the UndoRedoManager reads the state back.
+ * <p>
+ * An edit must only spill state, which is not referenced by the model or
+ * by other edits. Objects whose identity matters, such as figures, must
+ * stay in memory, because deserialization creates copies of them.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public interface SpillableEdit extends SizedUndoableEdit {
+    /**
+     * Returns true, if the edit can currently write its state.
+     */
+    public boolean canSpill();
+
+    /**
+     * Writes the state of the edit to the specified stream, and releases
+     * it. After this method has been invoked, getEstimatedSize must only
+     * report the memory which is still held by the edit.
+     */
+    public void writeState(ObjectOutputStream out) throws IOException;
+
+    /**
+     * Reads the state, which was written by writeState, back from the
+     * specified stream.
+     */
+    public void readState(ObjectInputStream in) throws IOException, ClassNotFoundException;
+}
@@ -1,5 +1,5 @@
 /*
- * @(#)UndoRedoManager.java 1.3.1  2006-04-12
+ * @(#)UndoRedoManager.java 1.4.1  2026-10-18
  *
  * Copyright (c) 1996-2006 by the original authors of JHotDraw
  * and all its contributors.
@@ -16,18 +16,32 @@ package org.jhotdraw.undo;
 
 import java.awt.event.*;
 import java.beans.*;
+import java.io.*;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.undo.*;
 import java.util.*;
+import java.util.zip.*;
 import org.jhotdraw.util.*;
 
 /**
  * Same as javax.swing.UndoManager but provides actions for undo and
  * redo operations.
+ * <p>
+ * The UndoRedoManager keeps the memory used by its history within a budget.
+ * Edits report their memory footprint by implementing
+ * {@link SizedUndoableEdit}. When the history exceeds the budget, the state
+ * of the oldest {@link SpillableEdit}s is compressed and written to a
+ * temporary file. The state is read back, before the edit is undone or
+ * redone. If spilling is not sufficient, the oldest edits are discarded.
+ * The temporary file is compacted, when most of its bytes belong to edits,
+ * which have been read back or discarded.
  *
  * @author  Werner Randelshofer
- * @version 1.3.1 2006-04-12 Method setLocale added.
+ * @version 1.4.1 2026-10-18 Compact the spill file.
+ * <br>1.4 2026-10-18 Enforce a memory budget by spilling old edits to
+ * a temporary file.
+ * <br>1.3.1 2006-04-12 Method setLocale added.
  * <br>1.3 2006-02-28 Support for PropertyChangeListener added.
  * <br>1.2.2 2006-02-25 Configure actions from resource bundle.
  * <br>1.2.1 2003-11-02 Adapted to changes in ResourceBundleUtil.
@@ -64,6 +78,63 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
      */
     private boolean undoOrRedoInProgress;
     
+    /**
+     * The default memory budget in bytes.
+     */
+    public final static long DEFAULT_MEMORY_BUDGET = 32L * 1024L * 1024L;
+    /**
+     * The name of the memory budget property.
+     */
+    public final static String MEMORY_BUDGET_PROPERTY = "memoryBudget";
+    /**
+     * The maximal number of bytes used by the edits in memory.
+     */
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    /**
+     * The records of the spilled edits.
+     */
+    private IdentityHashMap<UndoableEdit, SpillRecord> spillRecords = new IdentityHashMap<UndoableEdit, SpillRecord>();
+    /**
+     * Edits which failed to write their state. These edits are not
+     * spilled again.
+     */
+    private Set<UndoableEdit> unspillableEdits = Collections.newSetFromMap(new IdentityHashMap<UndoableEdit, Boolean>());
+    /**
+     * The temporary file which holds the state of the spilled edits.
+     * This is null, until the first edit is spilled.
+     */
+    private File spillFile;
+    private RandomAccessFile spillData;
+    /**
+     * The number of bytes written to the spill file.
+     */
+    private long spillFileLength;
+    /**
+     * The number of bytes in the spill file, which belong to edits that
+     * have been read back or discarded.
+     */
+    private long spillFileDeadBytes;
+    /**
+     * The spill file is compacted, when it has at least this many dead
+     * bytes, and more dead bytes than live bytes.
+     */
+    private final static long MIN_COMPACTION_DEAD_BYTES = 64 * 1024;
+    /**
+     * Mirrors the package private index of the next add of UndoManager.
+     */
+    private int nextAddIndex;
+    
+    /**
+     * Describes where the compressed state of a spilled edit is stored.
+     * If the state could not be written to the spill file, it is held
+     * in memory.
+     */
+    private static class SpillRecord {
+        long offset;
+        int length;
+        byte[] data;
+    }
+    
     /**
      * Sending this UndoableEdit event to the UndoRedoManager
      * disables the Undo and Redo functions of the manager.
@@ -151,7 +222,11 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
      * Discards all edits.
      */
     public void discardAllEdits() {
+        spillRecords.clear();
+        unspillableEdits.clear();
+        closeSpillFile();
         super.discardAllEdits();
+        nextAddIndex = 0;
         updateActions();
         setHasSignificantEdits(false);
     }
@@ -192,7 +267,19 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             anEdit.die();
             return true;
         }
+        if (nextAddIndex > 0 && !spillRecords.isEmpty()) {
+            // The last edit may absorb the new edit, so it needs its state.
+            try {
+                readSpilledEdits(nextAddIndex - 1, nextAddIndex - 1);
+            } catch (IOException e) {
+                if (DEBUG) e.printStackTrace();
+            }
+        }
         boolean success = super.addEdit(anEdit);
+        nextAddIndex = edits.size();
+        if (success) {
+            enforceMemoryBudget();
+        }
         updateActions();
         if (success && anEdit.isSignificant() && editToBeUndone() == anEdit) {
             setHasSignificantEdits(true);
@@ -253,9 +340,17 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
     throws CannotUndoException {
         undoOrRedoInProgress = true;
         try {
+            try {
+                readSpilledEditsForUndo();
+            } catch (IOException e) {
+                CannotUndoException ex = new CannotUndoException();
+                ex.initCause(e);
+                throw ex;
+            }
             super.undo();
         } finally {
             undoOrRedoInProgress = false;
+            enforceMemoryBudget();
             updateActions();
         }
     }
@@ -269,9 +364,17 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
     throws CannotUndoException {
         undoOrRedoInProgress = true;
         try {
+            try {
+                readSpilledEditsForRedo();
+            } catch (IOException e) {
+                CannotRedoException ex = new CannotRedoException();
+                ex.initCause(e);
+                throw ex;
+            }
             super.redo();
         } finally {
             undoOrRedoInProgress = false;
+            enforceMemoryBudget();
             updateActions();
         }
     }
@@ -288,10 +391,322 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             super.undoOrRedo();
         } finally {
             undoOrRedoInProgress = false;
+            enforceMemoryBudget();
             updateActions();
         }
     }
     
+    /**
+     * Sets the maximal number of bytes, which are used by the edits in
+     * memory. If the history exceeds the budget, the state of the oldest
+     * spillable edits is written to a temporary file. If this is not
+     * sufficient, the oldest edits are discarded.
+     * <p>
+     * The budget is only enforced for edits, which implement
+     * SizedUndoableEdit. The edits next to the insertion point are never
+     * spilled or discarded.
+     */
+    public void setMemoryBudget(long newValue) {
+        long oldValue = memoryBudget;
+        memoryBudget = newValue;
+        firePropertyChange(MEMORY_BUDGET_PROPERTY, oldValue, newValue);
+        enforceMemoryBudget();
+        updateActions();
+    }
+    
+    /**
+     * Returns the maximal number of bytes, which are used by the edits in
+     * memory.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+    
+    /**
+     * Returns the estimated number of bytes, which are used by the edits
+     * in memory.
+     */
+    public long getEstimatedSize() {
+        long size = 0;
+        for (UndoableEdit edit : edits) {
+            size += getEstimatedSize(edit);
+        }
+        return size;
+    }
+    
+    private long getEstimatedSize(UndoableEdit edit) {
+        long size = (edit instanceof SizedUndoableEdit) ? ((SizedUndoableEdit) edit).getEstimatedSize() : 0;
+        SpillRecord record = spillRecords.get(edit);
+        if (record != null && record.data != null) {
+            size += record.data.length;
+        }
+        return size;
+    }
+    
+    /**
+     * Returns true, if the state of the specified edit has been written
+     * to the spill file, and has not been read back yet.
+     */
+    public boolean isSpilled(UndoableEdit edit) {
+        return spillRecords.containsKey(edit);
+    }
+    
+    /**
+     * Spills the oldest edits, until the edits in memory are within the
+     * memory budget. If this is not sufficient, discards the oldest edits.
+     */
+    private void enforceMemoryBudget() {
+        long size = getEstimatedSize();
+        if (size <= memoryBudget) {
+            return;
+        }
+        for (int i = 0, n = edits.size(); i < n && size > memoryBudget; i++) {
+            if (i == nextAddIndex - 1 || i == nextAddIndex) {
+                continue;
+            }
+            UndoableEdit edit = edits.get(i);
+            if ((edit instanceof SpillableEdit) && !spillRecords.containsKey(edit) &&
+                    !unspillableEdits.contains(edit) && ((SpillableEdit) edit).canSpill()) {
+                long oldSize = getEstimatedSize(edit);
+                spill((SpillableEdit) edit);
+                size -= oldSize - getEstimatedSize(edit);
+            }
+        }
+        int count = 0;
+        while (size > memoryBudget && count < nextAddIndex - 1) {
+            size -= getEstimatedSize(edits.get(count));
+            count++;
+        }
+        if (count > 0) {
+            trimEdits(0, count - 1);
+        }
+    }
+    
+    private void spill(SpillableEdit edit) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(buf, deflater));
+            edit.writeState(out);
+            out.close();
+        } catch (IOException e) {
+            if (DEBUG) e.printStackTrace();
+            unspillableEdits.add(edit);
+            return;
+        } finally {
+            deflater.end();
+        }
+        
+        SpillRecord record = new SpillRecord();
+        record.length = buf.size();
+        try {
+            if (spillData == null) {
+                spillFile = File.createTempFile("undo", ".tmp");
+                spillFile.deleteOnExit();
+                spillData = new RandomAccessFile(spillFile, "rw");
+            }
+            record.offset = spillFileLength;
+            spillData.seek(record.offset);
+            spillData.write(buf.toByteArray());
+            spillFileLength += record.length;
+        } catch (IOException e) {
+            // The edit has already released its state, so we keep the
+            // compressed state in memory.
+            if (DEBUG) e.printStackTrace();
+            record.data = buf.toByteArray();
+        }
+        spillRecords.put(edit, record);
+    }
+    
+    /**
+     * Reads the state of the spilled edits back, which will be undone by
+     * the next invocation of undo.
+     */
+    private void readSpilledEditsForUndo() throws IOException {
+        if (!isInProgress()) {
+            readSpilledEdits(0, edits.size() - 1);
+        } else {
+            UndoableEdit edit = editToBeUndone();
+            if (edit != null) {
+                readSpilledEdits(edits.indexOf(edit), nextAddIndex - 1);
+            }
+        }
+    }
+    
+    /**
+     * Reads the state of the spilled edits back, which will be redone by
+     * the next invocation of redo.
+     */
+    private void readSpilledEditsForRedo() throws IOException {
+        if (!isInProgress()) {
+            readSpilledEdits(0, edits.size() - 1);
+        } else {
+            UndoableEdit edit = editToBeRedone();
+            if (edit != null) {
+                readSpilledEdits(nextAddIndex, edits.indexOf(edit));
+            }
+        }
+    }
+    
+    private void readSpilledEdits(int from, int to) throws IOException {
+        if (spillRecords.isEmpty()) {
+            return;
+        }
+        for (int i = from; i <= to; i++) {
+            UndoableEdit edit = edits.get(i);
+            SpillRecord record = spillRecords.get(edit);
+            if (record != null) {
+                byte[] data = record.data;
+                if (data == null) {
+                    data = new byte[record.length];
+                    spillData.seek(record.offset);
+                    spillData.readFully(data);
+                }
+                ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+                try {
+                    ((SpillableEdit) edit).readState(in);
+                } catch (ClassNotFoundException e) {
+                    IOException ex = new IOException(e.getMessage());
+                    ex.initCause(e);
+                    throw ex;
+                } finally {
+                    in.close();
+                }
+                removeSpillRecord(edit);
+            }
+        }
+        compactSpillFile();
+    }
+
+    /**
+     * Removes the record of the specified edit, and counts the bytes of
+     * the record in the spill file as dead bytes.
+     */
+    private void removeSpillRecord(UndoableEdit edit) {
+        SpillRecord record = spillRecords.remove(edit);
+        if (record != null && record.data == null) {
+            spillFileDeadBytes += record.length;
+        }
+    }
+
+    /**
+     * Closes the spill file, if no edit is spilled anymore. Rewrites the
+     * spill file, if it has more dead bytes than live bytes.
+     */
+    private void compactSpillFile() {
+        if (spillRecords.isEmpty()) {
+            closeSpillFile();
+            return;
+        }
+        if (spillData == null || spillFileDeadBytes < MIN_COMPACTION_DEAD_BYTES ||
+                spillFileDeadBytes <= spillFileLength - spillFileDeadBytes) {
+            return;
+        }
+        ArrayList<SpillRecord> records = new ArrayList<SpillRecord>();
+        for (SpillRecord record : spillRecords.values()) {
+            if (record.data == null) {
+                records.add(record);
+            }
+        }
+        long[] offsets = new long[records.size()];
+        File newFile = null;
+        RandomAccessFile newData = null;
+        try {
+            newFile = File.createTempFile("undo", ".tmp");
+            newFile.deleteOnExit();
+            newData = new RandomAccessFile(newFile, "rw");
+            long length = 0;
+            for (int i = 0, n = records.size(); i < n; i++) {
+                SpillRecord record = records.get(i);
+                byte[] data = new byte[record.length];
+                spillData.seek(record.offset);
+                spillData.readFully(data);
+                offsets[i] = length;
+                newData.write(data);
+                length += data.length;
+            }
+            closeSpillFile();
+            for (int i = 0, n = records.size(); i < n; i++) {
+                records.get(i).offset = offsets[i];
+            }
+            spillFile = newFile;
+            spillData = newData;
+            spillFileLength = length;
+        } catch (IOException e) {
+            // We keep the old spill file.
+            if (DEBUG) e.printStackTrace();
+            if (newData != null) {
+                try {
+                    newData.close();
+                } catch (IOException ex) {
+                    if (DEBUG) ex.printStackTrace();
+                }
+            }
+            if (newFile != null) {
+                newFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to the spill file, or 0 if there
+     * is no spill file.
+     */
+    long getSpillFileLength() {
+        return spillFileLength;
+    }
+    
+    /**
+     * Removes edits in the specified range and discards the records of
+     * the edits which have been spilled.
+     */
+    @Override
+    protected void trimEdits(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            UndoableEdit edit = edits.get(i);
+            removeSpillRecord(edit);
+            unspillableEdits.remove(edit);
+        }
+        super.trimEdits(from, to);
+        if (from <= to) {
+            if (nextAddIndex > to) {
+                nextAddIndex -= to - from + 1;
+            } else if (nextAddIndex >= from) {
+                nextAddIndex = from;
+            }
+        }
+        compactSpillFile();
+    }
+    
+    @Override
+    protected void undoTo(UndoableEdit edit) throws CannotUndoException {
+        int index = edits.indexOf(edit);
+        super.undoTo(edit);
+        nextAddIndex = index;
+    }
+    
+    @Override
+    protected void redoTo(UndoableEdit edit) throws CannotRedoException {
+        int index = edits.indexOf(edit);
+        super.redoTo(edit);
+        nextAddIndex = index + 1;
+    }
+    
+    private void closeSpillFile() {
+        if (spillData != null) {
+            try {
+                spillData.close();
+            } catch (IOException e) {
+                if (DEBUG) e.printStackTrace();
+            }
+            spillFile.delete();
+            spillData = null;
+            spillFile = null;
+        }
+        spillFileLength = 0;
+        spillFileDeadBytes = 0;
+    }
+    
     public void addPropertyChangeListener(PropertyChangeListener listener) {
         propertySupport.addPropertyChangeListener(listener);
     }
@@ -311,6 +726,9 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
     protected void firePropertyChange(String propertyName, int oldValue, int newValue) {
         propertySupport.firePropertyChange(propertyName, oldValue, newValue);
     }
+    protected void firePropertyChange(String propertyName, long oldValue, long newValue) {
+        propertySupport.firePropertyChange(propertyName, Long.valueOf(oldValue), Long.valueOf(newValue));
+    }
     protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
         propertySupport.firePropertyChange(propertyName, oldValue, newValue);
     }
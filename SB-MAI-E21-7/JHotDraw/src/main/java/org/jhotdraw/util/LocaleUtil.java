@@ -1,5 +1,5 @@
 /*
- * @(#)LocaleUtil.java  1.0  22. Mai 2006
+ * @(#)LocaleUtil.java  1.1  2026-10-18
  *
  * Copyright (c) 1996-2009 by the original authors of JHotDraw
  * and all its contributors.
@@ -21,7 +21,9 @@ import java.util.*;
  * their own locale.
  *
  * @author Werner Randelshofer
- * @version 1.0 22. Mai 2006 Created.
+ * @version 1.1 2026-10-18 Setting the default locale discards the shared
+ * ResourceBundleUtil instances.
+ * <br>1.0 22. Mai 2006 Created.
  */
 public class LocaleUtil {
     private static Locale defaultLocale;
@@ -32,6 +34,7 @@ public class LocaleUtil {
     
     public static void setDefault(Locale newValue) {
         defaultLocale = newValue;
+        ResourceBundleUtil.clearCache();
     }
     public static Locale getDefault() {
         return (defaultLocale == null) ? Locale.getDefault() : defaultLocale;
@@ -0,0 +1,97 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import javax.swing.undo.UndoManager;
+import org.jhotdraw.samples.svg.figures.SVGGroupFigure;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.jhotdraw.draw.AttributeKeys.*;
+
+/**
+ * Tests of class AttributeChangeEdit.
+ */
+public class AttributeChangeEditTest {
+
+    private Map<AttributeKey<?>, Object> map(AttributeKey<?> key, Object value) {
+        return Collections.<AttributeKey<?>, Object>singletonMap(key, value);
+    }
+
+    private void apply(Figure f, AttributeKey<Double> key, double value) {
+        f.willChange();
+        key.basicSet(f, value);
+        f.changed();
+    }
+
+    @Test
+    public void testUndoRedo() {
+        ArrayList<Figure> figures = new ArrayList<Figure>();
+        for (int i = 0; i < 10; i++) {
+            SVGRectFigure f = new SVGRectFigure(i, i, 10, 10);
+            STROKE_WIDTH.basicSet(f, (double) i);
+            figures.add(f);
+        }
+        AttributeChangeEdit edit = new AttributeChangeEdit("strokeWidth", figures, map(STROKE_WIDTH, 5d));
+        for (Figure f : figures) {
+            apply(f, STROKE_WIDTH, 5d);
+        }
+
+        edit.undo();
+        for (int i = 0; i < 10; i++) {
+            assertEquals((double) i, STROKE_WIDTH.get(figures.get(i)), 0d);
+        }
+        edit.redo();
+        for (Figure f : figures) {
+            assertEquals(5d, STROKE_WIDTH.get(f), 0d);
+        }
+    }
+
+    @Test
+    public void testUndoRestoresChildrenOfComposite() {
+        SVGGroupFigure group = new SVGGroupFigure();
+        SVGRectFigure child1 = new SVGRectFigure(0, 0, 10, 10);
+        SVGRectFigure child2 = new SVGRectFigure(20, 0, 10, 10);
+        FILL_COLOR.basicSet(child1, Color.red);
+        FILL_COLOR.basicSet(child2, Color.blue);
+        group.basicAdd(child1);
+        group.basicAdd(child2);
+
+        AttributeChangeEdit edit = new AttributeChangeEdit("fillColor",
+                Collections.singleton(group), map(FILL_COLOR, Color.green));
+        FILL_COLOR.set(group, Color.green);
+        assertEquals(Color.green, FILL_COLOR.get(child1));
+
+        edit.undo();
+        assertEquals(Color.red, FILL_COLOR.get(child1));
+        assertEquals(Color.blue, FILL_COLOR.get(child2));
+    }
+
+    @Test
+    public void testCoalescing() {
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        UndoManager undo = new UndoManager();
+        for (int i = 1; i <= 20; i++) {
+            AttributeChangeEdit edit = new AttributeChangeEdit("strokeWidth",
+                    Collections.singleton(f), map(STROKE_WIDTH, (double) i));
+            edit.setAdjusting(i < 20);
+            apply(f, STROKE_WIDTH, i);
+            undo.addEdit(edit);
+        }
+        // The following edit is not coalesced, because the slider drag ended
+        AttributeChangeEdit edit = new AttributeChangeEdit("strokeWidth",
+                Collections.singleton(f), map(STROKE_WIDTH, 30d));
+        apply(f, STROKE_WIDTH, 30d);
+        undo.addEdit(edit);
+
+        undo.undo();
+        assertEquals(20d, STROKE_WIDTH.get(f), 0d);
+        undo.undo();
+        assertEquals(1d, STROKE_WIDTH.get(f), 0d);
+        assertFalse(undo.canUndo());
+        undo.redo();
+        assertEquals(20d, STROKE_WIDTH.get(f), 0d);
+    }
+}
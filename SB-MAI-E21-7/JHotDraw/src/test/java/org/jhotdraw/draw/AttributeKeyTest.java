@@ -0,0 +1,113 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import org.jhotdraw.geom.Dimension2DDouble;
+import org.jhotdraw.geom.Insets2D;
+import org.jhotdraw.samples.svg.Gradient;
+import org.jhotdraw.samples.svg.LinearGradient;
+import org.jhotdraw.samples.svg.SVGAttributeKeys;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.jhotdraw.draw.AttributeKeys.*;
+
+/**
+ * Tests the copying of attribute values by AttributeKey.getClone and
+ * AttributeKey.setClone.
+ */
+public class AttributeKeyTest {
+
+    @Test
+    public void testGetCloneCopiesMutableValues() {
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        double[] dashes = {1, 2};
+        AffineTransform tx = AffineTransform.getRotateInstance(0.5);
+        Gradient gradient = new LinearGradient(0, 0, 1, 1,
+                new double[]{0, 1}, new Color[]{Color.red, Color.blue},
+                new double[]{1, 1}, true, new AffineTransform());
+        STROKE_DASHES.basicSet(f, dashes);
+        TRANSFORM.basicSet(f, tx);
+        SVGAttributeKeys.FILL_GRADIENT.basicSet(f, gradient);
+
+        double[] dashesClone = STROKE_DASHES.getClone(f);
+        assertNotSame(dashes, dashesClone);
+        assertTrue(Arrays.equals(dashes, dashesClone));
+
+        AffineTransform txClone = TRANSFORM.getClone(f);
+        assertNotSame(tx, txClone);
+        assertEquals(tx, txClone);
+
+        Gradient gradientClone = SVGAttributeKeys.FILL_GRADIENT.getClone(f);
+        assertNotSame(gradient, gradientClone);
+        assertTrue(gradientClone instanceof LinearGradient);
+    }
+
+    @Test
+    public void testGetCloneSharesImmutableValues() {
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        Font font = new Font("Dialog", Font.PLAIN, 12);
+        FILL_COLOR.basicSet(f, Color.green);
+        FONT_FACE.basicSet(f, font);
+        STROKE_WIDTH.basicSet(f, 3d);
+
+        assertSame(Color.green, FILL_COLOR.getClone(f));
+        assertSame(font, FONT_FACE.getClone(f));
+        assertEquals(3d, STROKE_WIDTH.getClone(f), 0d);
+    }
+
+    @Test
+    public void testSetCloneCopiesMutableValues() {
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        AffineTransform tx = AffineTransform.getScaleInstance(2, 3);
+        TRANSFORM.setClone(f, tx);
+        tx.translate(5, 5);
+
+        assertEquals(AffineTransform.getScaleInstance(2, 3), TRANSFORM.get(f));
+        assertNull(STROKE_DASHES.getClone(new SVGRectFigure()));
+    }
+
+    @Test
+    public void testGetCloneCopiesGeometryValues() {
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        Dimension2DDouble offset = new Dimension2DDouble(1, 2);
+        Insets2D.Double insets = new Insets2D.Double(1, 2, 3, 4);
+        TEXT_SHADOW_OFFSET.basicSet(f, offset);
+        LAYOUT_INSETS.basicSet(f, insets);
+
+        Dimension2DDouble offsetClone = TEXT_SHADOW_OFFSET.getClone(f);
+        assertNotSame(offset, offsetClone);
+        assertEquals(offset, offsetClone);
+        Insets2D.Double insetsClone = LAYOUT_INSETS.getClone(f);
+        assertNotSame(insets, insetsClone);
+        assertEquals(insets, insetsClone);
+    }
+
+    /**
+     * A mutable value type, which counts how often it has been copied.
+     */
+    private static class Counter {
+
+        private static int copies;
+    }
+
+    @Test
+    public void testRegisteredCopierIsUsed() {
+        AttributeKey.registerCopier(Counter.class, new AttributeKey.Copier<Counter>() {
+
+            public Counter copy(Counter value) {
+                Counter.copies++;
+                return new Counter();
+            }
+        });
+        AttributeKey<Counter> key = new AttributeKey<Counter>("counter", Counter.class);
+        SVGRectFigure f = new SVGRectFigure(0, 0, 10, 10);
+        Counter counter = new Counter();
+        key.basicSetClone(f, counter);
+        assertNotSame(counter, key.get(f));
+        assertNotSame(key.get(f), key.getClone(f));
+        assertEquals(2, Counter.copies);
+    }
+}
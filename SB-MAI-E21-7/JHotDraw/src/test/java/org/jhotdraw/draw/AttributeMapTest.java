@@ -0,0 +1,139 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.jhotdraw.draw.AttributeKeys.*;
+
+/**
+ * Tests of class AttributeMap.
+ * <p>
+ * The map is compared against a HashMap with the same entries.
+ */
+public class AttributeMapTest {
+
+    private AttributeMap createMap(Map<AttributeKey, Object> expected) {
+        AttributeMap map = new AttributeMap();
+        map.put(STROKE_WIDTH, 2.5);
+        map.put(FILL_COLOR, Color.red);
+        map.put(STROKE_COLOR, null);
+        map.put(FONT_SIZE, 12d);
+        expected.put(STROKE_WIDTH, 2.5);
+        expected.put(FILL_COLOR, Color.red);
+        expected.put(STROKE_COLOR, null);
+        expected.put(FONT_SIZE, 12d);
+        return map;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        HashMap<AttributeKey, Object> expected = new HashMap<AttributeKey, Object>();
+        AttributeMap map = createMap(expected);
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertTrue(map.containsKey(STROKE_COLOR));
+        assertNull(map.get(STROKE_COLOR));
+        assertFalse(map.containsKey(TEXT_COLOR));
+        assertEquals(2.5, map.getDouble(STROKE_WIDTH, 1d), 0d);
+        assertEquals(1d, map.getDouble(STROKE_MITER_LIMIT, 1d), 0d);
+
+        assertEquals(2.5, map.put(STROKE_WIDTH, null));
+        assertNull(map.get(STROKE_WIDTH));
+        assertEquals(Color.red, map.remove(FILL_COLOR));
+        assertNull(map.remove(FILL_COLOR));
+        expected.put(STROKE_WIDTH, null);
+        expected.remove(FILL_COLOR);
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.size());
+    }
+
+    @Test
+    public void testIterator() {
+        HashMap<AttributeKey, Object> expected = new HashMap<AttributeKey, Object>();
+        AttributeMap map = createMap(expected);
+        int previous = -1;
+        for (Map.Entry<AttributeKey, Object> entry : map.entrySet()) {
+            assertTrue(entry.getKey().getOrdinal() > previous);
+            previous = entry.getKey().getOrdinal();
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+        }
+        for (Iterator<AttributeKey> i = map.keySet().iterator(); i.hasNext();) {
+            if (i.next() == FONT_SIZE) {
+                i.remove();
+            }
+        }
+        expected.remove(FONT_SIZE);
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testCloneAndSerialize() throws Exception {
+        HashMap<AttributeKey, Object> expected = new HashMap<AttributeKey, Object>();
+        AttributeMap map = createMap(expected);
+        AttributeMap clone = map.clone();
+        map.put(STROKE_WIDTH, 7d);
+        assertEquals(expected, clone);
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buf);
+        out.writeObject(clone);
+        out.close();
+        Object read = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray())).readObject();
+        assertEquals(expected, read);
+    }
+
+    @Test
+    public void testKeysWithSameKeyStringHaveOwnSlots() {
+        assertEquals(COMPOSITE_ALIGNMENT.getKey(), CHILD_ALIGNMENT.getKey());
+        AttributeMap map = new AttributeMap();
+        map.put(COMPOSITE_ALIGNMENT, Alignment.CENTER);
+        map.put(CHILD_ALIGNMENT, null);
+        assertEquals(2, map.size());
+        assertEquals(Alignment.CENTER, map.get(COMPOSITE_ALIGNMENT));
+        assertTrue(map.containsKey(CHILD_ALIGNMENT));
+        assertNull(map.get(CHILD_ALIGNMENT));
+
+        // Iteration returns the keys, which have been put
+        Iterator<AttributeKey> i = map.keySet().iterator();
+        assertSame(COMPOSITE_ALIGNMENT, i.next());
+        assertSame(CHILD_ALIGNMENT, i.next());
+        assertFalse(i.hasNext());
+    }
+
+    @Test
+    public void testDeserializedKeysAreRegisteredKeys() throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buf);
+        out.writeObject(COMPOSITE_ALIGNMENT);
+        out.writeObject(CHILD_ALIGNMENT);
+        out.writeObject(STROKE_WIDTH);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        assertSame(COMPOSITE_ALIGNMENT, in.readObject());
+        assertSame(CHILD_ALIGNMENT, in.readObject());
+        assertSame(STROKE_WIDTH, in.readObject());
+    }
+
+    @Test
+    public void testGetDouble() {
+        BezierFigure f = new BezierFigure();
+        assertEquals(STROKE_WIDTH.getDefaultValue(), STROKE_WIDTH.getDouble(f), 0d);
+        STROKE_WIDTH.basicSet(f, 3.5);
+        assertEquals(3.5, STROKE_WIDTH.getDouble(f), 0d);
+        // A null value can not be unboxed
+        f.setAttribute(CANVAS_WIDTH, null);
+        try {
+            CANVAS_WIDTH.getDouble(f);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.jhotdraw.draw;
+
+import java.util.Collection;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+
+/**
+ * A rectangle figure, which counts the invocations of createHandles.
+ */
+class CountingFigure extends SVGRectFigure {
+
+    int createHandlesCount;
+
+    CountingFigure(double x, double y) {
+        super(x, y, 10, 10);
+    }
+
+    @Override
+    public Collection<Handle> createHandles(int detailLevel) {
+        createHandlesCount++;
+        return super.createHandles(detailLevel);
+    }
+}
@@ -0,0 +1,155 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import org.jhotdraw.geom.QuadTree;
+import org.jhotdraw.geom.SpatialIndex;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of method AbstractDrawing.createSnapshot.
+ */
+public class DrawingSnapshotTest {
+
+    private QuadTreeDrawing createDrawing() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        for (int i = 0; i < 3; i++) {
+            drawing.add(new SVGRectFigure(i * 20, 0, 10, 10));
+        }
+        return drawing;
+    }
+
+    /**
+     * Counts the objects, which are added to a spatial index.
+     */
+    private static class CountingQuadTree extends QuadTree<Figure> {
+
+        static int addCount;
+
+        @Override
+        public void add(Figure o, Rectangle2D.Double bounds) {
+            addCount++;
+            super.add(o, bounds);
+        }
+    }
+
+    @Test
+    public void testSnapshotIndexIsBuiltOnFirstQuery() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing() {
+
+            @Override
+            protected SpatialIndex<Figure> createSpatialIndex() {
+                return new CountingQuadTree();
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            drawing.add(new SVGRectFigure(i * 20, 0, 10, 10));
+        }
+        assertNotNull(drawing.findFigure(new Point2D.Double(5, 5)));
+
+        CountingQuadTree.addCount = 0;
+        AbstractDrawing snapshot = drawing.createSnapshot();
+        assertEquals(0, CountingQuadTree.addCount);
+
+        assertSame(snapshot.getChild(2), snapshot.findFigure(new Point2D.Double(45, 5)));
+        assertEquals(3, CountingQuadTree.addCount);
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByChanges() {
+        QuadTreeDrawing drawing = createDrawing();
+        AbstractDrawing snapshot = drawing.createSnapshot();
+
+        Figure f = drawing.getChild(1);
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(100, 100));
+        f.changed();
+        drawing.remove(drawing.getChild(0));
+
+        assertEquals(3, snapshot.getChildCount());
+        assertEquals(20d, snapshot.getChild(1).getBounds().x, 0d);
+        assertNotSame(f, snapshot.getChild(1));
+        assertSame(snapshot.getChild(2), snapshot.findFigure(new Point2D.Double(45, 5)));
+    }
+
+    @Test
+    public void testUnchangedChildrenAreShared() {
+        QuadTreeDrawing drawing = createDrawing();
+        drawing.retainSnapshotClones();
+        AbstractDrawing snapshot1 = drawing.createSnapshot();
+
+        Figure f = drawing.getChild(1);
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(100, 100));
+        f.changed();
+        AbstractDrawing snapshot2 = drawing.createSnapshot();
+
+        assertSame(snapshot1.getChild(0), snapshot2.getChild(0));
+        assertNotSame(snapshot1.getChild(1), snapshot2.getChild(1));
+        assertSame(snapshot1.getChild(2), snapshot2.getChild(2));
+        assertEquals(120d, snapshot2.getChild(1).getBounds().x, 0d);
+    }
+
+    @Test
+    public void testClonesAreOnlyKeptWhileRetained() {
+        QuadTreeDrawing drawing = createDrawing();
+        AbstractDrawing snapshot1 = drawing.createSnapshot();
+        AbstractDrawing snapshot2 = drawing.createSnapshot();
+        assertNotSame(snapshot1.getChild(0), snapshot2.getChild(0));
+
+        drawing.retainSnapshotClones();
+        drawing.retainSnapshotClones();
+        snapshot1 = drawing.createSnapshot();
+        drawing.releaseSnapshotClones();
+        snapshot2 = drawing.createSnapshot();
+        assertSame(snapshot1.getChild(0), snapshot2.getChild(0));
+
+        drawing.releaseSnapshotClones();
+        snapshot2 = drawing.createSnapshot();
+        assertNotSame(snapshot1.getChild(0), snapshot2.getChild(0));
+    }
+
+    @Test(expected = InternalError.class)
+    public void testReleaseWithoutRetain() {
+        createDrawing().releaseSnapshotClones();
+    }
+
+    @Test
+    public void testInvalidatedAreaDoesNotChangeModificationCount() {
+        QuadTreeDrawing drawing = createDrawing();
+        drawing.retainSnapshotClones();
+        AbstractDrawing snapshot1 = drawing.createSnapshot();
+        long count = drawing.getModificationCount();
+
+        // Repainting a figure does not change the model
+        ((AbstractFigure) drawing.getChild(1)).fireAreaInvalidated();
+        assertEquals(count, drawing.getModificationCount());
+        assertSame(snapshot1.getChild(1), drawing.createSnapshot().getChild(1));
+    }
+
+    @Test
+    public void testModificationCount() {
+        QuadTreeDrawing drawing = createDrawing();
+        long count = drawing.getModificationCount();
+        drawing.createSnapshot();
+        assertEquals(count, drawing.getModificationCount());
+
+        drawing.bringToFront(drawing.getChild(0));
+        assertTrue(drawing.getModificationCount() > count);
+        count = drawing.getModificationCount();
+
+        Figure f = drawing.getChild(0);
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(1, 1));
+        f.changed();
+        assertTrue(drawing.getModificationCount() > count);
+        count = drawing.getModificationCount();
+
+        drawing.setAttribute(AttributeKeys.CANVAS_FILL_COLOR, Color.RED);
+        assertTrue(drawing.getModificationCount() > count);
+    }
+}
@@ -0,0 +1,92 @@
+package org.jhotdraw.draw;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the update transactions of AbstractDrawing.
+ */
+public class DrawingUpdateTest {
+
+    /**
+     * Counts the events fired by a drawing.
+     */
+    private static class EventCounter extends FigureAdapter {
+
+        int areaInvalidated;
+        Rectangle2D.Double invalidatedArea;
+
+        @Override
+        public void areaInvalidated(FigureEvent e) {
+            areaInvalidated++;
+            invalidatedArea = e.getInvalidatedArea();
+        }
+    }
+
+    private ArrayList<Figure> createFigures(int n) {
+        ArrayList<Figure> figures = new ArrayList<Figure>();
+        for (int i = 0; i < n; i++) {
+            figures.add(new SVGRectFigure(i * 20, 0, 10, 10));
+        }
+        return figures;
+    }
+
+    @Test
+    public void testEventsAreMergedIntoSummaryEvent() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        drawing.addAll(createFigures(10));
+        EventCounter counter = new EventCounter();
+        drawing.addFigureListener(counter);
+
+        drawing.beginUpdate();
+        for (Figure f : drawing.getChildren()) {
+            f.willChange();
+            f.transform(AffineTransform.getTranslateInstance(0, 100));
+            f.changed();
+        }
+        assertTrue(drawing.isUpdating());
+        assertEquals(0, counter.areaInvalidated);
+        drawing.endUpdate();
+
+        assertFalse(drawing.isUpdating());
+        assertEquals(1, counter.areaInvalidated);
+        assertTrue(counter.invalidatedArea.contains(new Rectangle2D.Double(0, 0, 190, 110)));
+    }
+
+    @Test
+    public void testAddAllFiresSingleAreaInvalidatedEvent() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        EventCounter counter = new EventCounter();
+        drawing.addFigureListener(counter);
+
+        drawing.addAll(createFigures(10));
+
+        assertEquals(10, drawing.getChildCount());
+        assertEquals(1, counter.areaInvalidated);
+        assertTrue(counter.invalidatedArea.contains(new Rectangle2D.Double(0, 0, 190, 10)));
+    }
+
+    @Test
+    public void testSpatialIndexIsUpdatedDuringTransaction() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        drawing.addAll(createFigures(3));
+        Figure f = drawing.getChild(1);
+
+        drawing.beginUpdate();
+        drawing.beginUpdate();
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(500, 500));
+        f.changed();
+        drawing.endUpdate();
+        assertSame(f, drawing.findFigure(new Point2D.Double(525, 505)));
+        assertNull(drawing.findFigure(new Point2D.Double(25, 5)));
+        drawing.endUpdate();
+
+        assertSame(f, drawing.findFigure(new Point2D.Double(525, 505)));
+    }
+}
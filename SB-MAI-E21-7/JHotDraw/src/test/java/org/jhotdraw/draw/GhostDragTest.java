@@ -0,0 +1,89 @@
+package org.jhotdraw.draw;
+
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the ghost drag mode of DefaultDragTracker.
+ */
+public class GhostDragTest {
+
+    private QuadTreeDrawing drawing;
+    private DefaultDrawingView view;
+    private DefaultDragTracker tracker;
+    private int editCount;
+
+    private void setUp(int ghostDragThreshold) {
+        drawing = new QuadTreeDrawing();
+        for (int i = 0; i < 20; i++) {
+            drawing.add(new SVGRectFigure(i * 20, 0, 10, 10));
+        }
+        drawing.addUndoableEditListener(new UndoableEditListener() {
+
+            public void undoableEditHappened(UndoableEditEvent e) {
+                editCount++;
+            }
+        });
+        view = new DefaultDrawingView();
+        view.setSize(1000, 1000);
+        view.setDrawing(drawing);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+        view.selectAll();
+        tracker = new DefaultDragTracker(drawing.getChild(0));
+        tracker.setGhostDragThreshold(ghostDragThreshold);
+        editor.setTool(tracker);
+    }
+
+    private MouseEvent createEvent(int id, int x, int y) {
+        return new MouseEvent(view, id, 0, MouseEvent.BUTTON1_DOWN_MASK, x, y, 1, false, MouseEvent.BUTTON1);
+    }
+
+    private void drag() {
+        tracker.mousePressed(createEvent(MouseEvent.MOUSE_PRESSED, 5, 5));
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 25, 5));
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 55, 45));
+    }
+
+    @Test
+    public void testFiguresAreMovedOnReleaseInGhostMode() {
+        setUp(10);
+        ArrayList<Rectangle2D.Double> oldBounds = new ArrayList<Rectangle2D.Double>();
+        for (Figure f : drawing.getChildren()) {
+            oldBounds.add(f.getBounds());
+        }
+
+        drag();
+        assertTrue(tracker.isGhostDragging());
+        for (int i = 0; i < oldBounds.size(); i++) {
+            assertEquals(oldBounds.get(i), drawing.getChild(i).getBounds());
+        }
+
+        tracker.mouseReleased(createEvent(MouseEvent.MOUSE_RELEASED, 55, 45));
+        assertFalse(tracker.isGhostDragging());
+        for (int i = 0; i < oldBounds.size(); i++) {
+            Rectangle2D.Double b = drawing.getChild(i).getBounds();
+            assertEquals(oldBounds.get(i).x + 50, b.x, 1e-6);
+            assertEquals(oldBounds.get(i).y + 40, b.y, 1e-6);
+        }
+        assertEquals(1, editCount);
+        assertSame(drawing.getChild(0), drawing.findFigure(new java.awt.geom.Point2D.Double(55, 45)));
+    }
+
+    @Test
+    public void testFiguresAreMovedWhileDraggingBelowThreshold() {
+        setUp(100);
+        drag();
+        assertFalse(tracker.isGhostDragging());
+        assertEquals(50, drawing.getChild(0).getBounds().x, 1e-6);
+
+        tracker.mouseReleased(createEvent(MouseEvent.MOUSE_RELEASED, 55, 45));
+        assertEquals(1, editCount);
+    }
+}
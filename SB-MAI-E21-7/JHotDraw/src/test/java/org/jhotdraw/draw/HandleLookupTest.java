@@ -0,0 +1,119 @@
+package org.jhotdraw.draw;
+
+import java.awt.Point;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the handle lookup and the aggregate handles of DefaultDrawingView.
+ */
+public class HandleLookupTest {
+
+    private DefaultDrawingView createView(ArrayList<CountingFigure> figures, int n) {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        for (int i = 0; i < n; i++) {
+            CountingFigure f = new CountingFigure(i * 50, 0);
+            figures.add(f);
+            drawing.add(f);
+        }
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+        return view;
+    }
+
+    @Test
+    public void testFindHandleWithSpatialIndex() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures, 30);
+        view.addToSelection(new ArrayList<Figure>(figures));
+
+        for (CountingFigure f : figures) {
+            Point p = view.drawingToView(new Point2D.Double(f.getBounds().getMaxX(), f.getBounds().getMaxY()));
+            Handle h = view.findHandle(p);
+            assertNotNull(h);
+            assertSame(f, h.getOwner());
+        }
+        assertNull(view.findHandle(view.drawingToView(new Point2D.Double(25, 100))));
+
+        // Move a figure, the index must follow the handles
+        CountingFigure f = figures.get(3);
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(0, 200));
+        f.changed();
+        Point p = view.drawingToView(new Point2D.Double(f.getBounds().getMaxX(), f.getBounds().getMaxY()));
+        assertSame(f, view.findHandle(p).getOwner());
+    }
+
+    @Test
+    public void testAggregateHandles() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures, 10);
+        view.setHandleAggregationThreshold(5);
+        view.addToSelection(new ArrayList<Figure>(figures));
+
+        Point p = view.drawingToView(new Point2D.Double(460, 10));
+        Handle h = view.findHandle(p);
+        assertNotNull(h);
+        assertTrue(h.getOwner() instanceof SelectionGroupFigure);
+        for (CountingFigure f : figures) {
+            assertEquals(0, f.createHandlesCount);
+        }
+
+        // Below the threshold, each figure has its own handles again
+        for (int i = 9; i >= 5; i--) {
+            view.removeFromSelection(figures.get(i));
+        }
+        p = view.drawingToView(new Point2D.Double(210, 10));
+        assertSame(figures.get(4), view.findHandle(p).getOwner());
+    }
+
+    @Test
+    public void testSelectionGroupFigureTransformsSelection() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures, 10);
+        SelectionGroupFigure group = new SelectionGroupFigure(view.getDrawing(), new ArrayList<Figure>(figures));
+
+        group.willChange();
+        assertFalse(view.getDrawing().isUpdating());
+        group.transform(AffineTransform.getTranslateInstance(5, 7));
+        group.changed();
+
+        assertFalse(view.getDrawing().isUpdating());
+        assertEquals(5d, figures.get(0).getBounds().x, 1e-9);
+        assertEquals(7d, figures.get(9).getBounds().y, 1e-9);
+        assertSame(figures.get(9), view.getDrawing().findFigure(new Point2D.Double(460, 12)));
+    }
+
+    @Test
+    public void testSelectionGroupFigureEndsUpdateOnException() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures, 3);
+        CountingFigure failing = new CountingFigure(0, 100) {
+
+            @Override
+            public void changed() {
+                super.changed();
+                throw new IllegalStateException();
+            }
+        };
+        view.getDrawing().add(failing);
+        ArrayList<Figure> selection = new ArrayList<Figure>(figures);
+        selection.add(failing);
+        SelectionGroupFigure group = new SelectionGroupFigure(view.getDrawing(), selection);
+
+        group.willChange();
+        group.transform(AffineTransform.getTranslateInstance(5, 7));
+        try {
+            group.changed();
+            fail("The exception must be passed on");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertFalse(view.getDrawing().isUpdating());
+    }
+}
@@ -0,0 +1,73 @@
+package org.jhotdraw.draw;
+
+import java.util.List;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that QuadTreeDrawing keeps its children in layer sequence.
+ */
+public class LayerOrderTest {
+
+    /**
+     * A figure with a fixed layer.
+     */
+    private static class LayeredFigure extends SVGRectFigure {
+
+        private final int layer;
+
+        LayeredFigure(int layer) {
+            super(0, 0, 10, 10);
+            this.layer = layer;
+        }
+
+        @Override
+        public int getLayer() {
+            return layer;
+        }
+    }
+
+    private void assertLayerSequence(List<Figure> figures) {
+        for (int i = 1; i < figures.size(); i++) {
+            assertTrue(figures.get(i - 1).getLayer() <= figures.get(i).getLayer());
+        }
+    }
+
+    @Test
+    public void testAddKeepsLayerSequence() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        LayeredFigure a = new LayeredFigure(0);
+        LayeredFigure b = new LayeredFigure(1);
+        LayeredFigure c = new LayeredFigure(0);
+        drawing.add(a);
+        drawing.add(b);
+        drawing.add(c);
+
+        List<Figure> frontToBack = drawing.getFiguresFrontToBack();
+        assertSame(b, frontToBack.get(0));
+        assertSame(c, frontToBack.get(1));
+        assertSame(a, frontToBack.get(2));
+        assertLayerSequence(drawing.getChildren());
+    }
+
+    @Test
+    public void testBringToFrontAndSendToBackStayWithinLayer() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        LayeredFigure low = new LayeredFigure(0);
+        LayeredFigure high = new LayeredFigure(1);
+        LayeredFigure other = new LayeredFigure(1);
+        drawing.add(high);
+        drawing.add(other);
+        drawing.add(low);
+
+        drawing.bringToFront(low);
+        assertSame(low, drawing.sort(drawing.getChildren()).get(0));
+        drawing.sendToBack(high);
+        List<Figure> sorted = drawing.sort(drawing.getChildren());
+        assertSame(low, sorted.get(0));
+        assertSame(high, sorted.get(1));
+        assertSame(other, sorted.get(2));
+        assertLayerSequence(drawing.getChildren());
+    }
+}
@@ -0,0 +1,167 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.jhotdraw.samples.svg.figures.SVGTextFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of LevelOfDetailPolicy.
+ */
+public class LevelOfDetailTest {
+
+    private int drawCount;
+
+    private class CountingFigure extends SVGRectFigure {
+
+        public CountingFigure(double x, double y, double w, double h) {
+            super(x, y, w, h);
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            drawCount++;
+            super.draw(g);
+        }
+    }
+
+    private class CountingTextFigure extends SVGTextFigure {
+
+        public CountingTextFigure(String text) {
+            super(text);
+            setBounds(new Point2D.Double(100, 100), new Point2D.Double(100, 100));
+            setAttribute(AttributeKeys.FONT_SIZE, 12d);
+            setAttribute(AttributeKeys.FILL_COLOR, Color.RED);
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            drawCount++;
+            super.draw(g);
+        }
+    }
+
+    private DefaultDrawingView createView() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        drawing.add(new CountingFigure(0, 0, 10, 10));
+        drawing.add(new CountingFigure(20, 0, 1000, 1000));
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setSize(200, 200);
+        view.setDrawing(drawing);
+        view.setScaleFactor(0.1);
+        return view;
+    }
+
+    private void paint(DefaultDrawingView view, boolean isPrinting) {
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, 200, 200);
+        if (isPrinting) {
+            view.printComponent(g);
+        } else {
+            view.paintComponent(g);
+        }
+        g.dispose();
+    }
+
+    @Test
+    public void testSmallFiguresAreNotDrawnInDetail() {
+        DefaultDrawingView view = createView();
+        paint(view, false);
+        assertEquals(2, drawCount);
+
+        drawCount = 0;
+        view.setLevelOfDetailPolicy(new LevelOfDetailPolicy());
+        paint(view, false);
+        assertEquals(1, drawCount);
+    }
+
+    @Test
+    public void testPrintingUsesFullDetail() {
+        DefaultDrawingView view = createView();
+        view.setLevelOfDetailPolicy(new LevelOfDetailPolicy());
+        paint(view, true);
+        assertEquals(2, drawCount);
+    }
+
+    @Test
+    public void testTransformedTextSize() {
+        LevelOfDetailPolicy lod = new LevelOfDetailPolicy();
+        lod.setMinimumTextSize(20);
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+
+        CountingTextFigure f = new CountingTextFigure("Hello");
+        lod.draw(g, f);
+        assertEquals(0, drawCount);
+
+        // The transform enlarges the font beyond the minimum text size,
+        // regardless of its rotation
+        AffineTransform tx = AffineTransform.getRotateInstance(Math.PI / 2, 100, 100);
+        tx.scale(2, 2);
+        f.setAttribute(AttributeKeys.TRANSFORM, tx);
+        lod.draw(g, f);
+        assertEquals(1, drawCount);
+
+        lod.setMinimumTextSize(30);
+        lod.draw(g, f);
+        assertEquals(1, drawCount);
+        g.dispose();
+    }
+
+    @Test
+    public void testTransformedTextBar() {
+        LevelOfDetailPolicy lod = new LevelOfDetailPolicy();
+        lod.setMinimumTextSize(20);
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+
+        CountingTextFigure f = new CountingTextFigure("Hello World");
+        AffineTransform tx = AffineTransform.getRotateInstance(Math.PI / 2, 100, 100);
+        f.setAttribute(AttributeKeys.TRANSFORM, tx);
+        lod.draw(g, f);
+        g.dispose();
+
+        assertEquals(0, drawCount);
+        Rectangle2D.Double b = f.getBounds();
+        Point2D.Double center = new Point2D.Double(b.getCenterX(), b.getCenterY());
+        Point2D.Double end = new Point2D.Double(b.getMaxX() - 2, b.getCenterY());
+        Point2D.Double p = (Point2D.Double) tx.transform(center, new Point2D.Double());
+        assertEquals(Color.RED.getRGB(), img.getRGB((int) p.x, (int) p.y));
+        p = (Point2D.Double) tx.transform(end, new Point2D.Double());
+        assertEquals(Color.RED.getRGB(), img.getRGB((int) p.x, (int) p.y));
+        // The untransformed bar is not drawn
+        assertEquals(0, img.getRGB((int) end.x, (int) end.y));
+    }
+
+    @Test
+    public void testSimplifiedPathHasFewerVertices() {
+        GeneralPath path = new GeneralPath();
+        path.moveTo(0, 0);
+        for (int i = 1; i <= 1000; i++) {
+            path.lineTo(i, (i % 2) * 0.1f);
+        }
+        LevelOfDetailPolicy lod = new LevelOfDetailPolicy();
+        assertSame(path, lod.simplify(path, 0));
+        Shape simplified = lod.simplify(path, -4);
+        int count = 0;
+        float[] c = new float[6];
+        float lastX = 0;
+        for (PathIterator i = simplified.getPathIterator(null); !i.isDone(); i.next()) {
+            i.currentSegment(c);
+            lastX = c[0];
+            count++;
+        }
+        assertTrue(count < 200);
+        assertEquals(1000f, lastX, 0f);
+    }
+}
@@ -0,0 +1,149 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import javax.swing.SwingUtilities;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the progressive rendering mode of DefaultDrawingView.
+ */
+public class ProgressiveRenderingTest {
+
+    private volatile Thread drawingThread;
+    /**
+     * The figures wait for this latch, before they draw themselves.
+     */
+    private final CountDownLatch drawLatch = new CountDownLatch(1);
+    private int snapshotCount;
+
+    private class RecordingFigure extends SVGRectFigure {
+
+        public RecordingFigure(double x, double y, double w, double h) {
+            super(x, y, w, h);
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            drawingThread = Thread.currentThread();
+            try {
+                drawLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.draw(g);
+        }
+    }
+
+    private class CountingDrawing extends QuadTreeDrawing {
+
+        @Override
+        public AbstractDrawing createSnapshot() {
+            snapshotCount++;
+            return super.createSnapshot();
+        }
+    }
+
+    private DefaultDrawingView createView() {
+        QuadTreeDrawing drawing = new CountingDrawing();
+        Figure f = new RecordingFigure(10, 10, 40, 40);
+        AttributeKeys.FILL_COLOR.set(f, Color.red);
+        drawing.add(f);
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setSize(200, 200);
+        view.setDrawing(drawing);
+        view.setProgressiveRenderingEnabled(true);
+        return view;
+    }
+
+    private BufferedImage paint(DefaultDrawingView view) {
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, 200, 200);
+        view.paintComponent(g);
+        g.dispose();
+        return img;
+    }
+
+    private void waitForRendering(final DefaultDrawingView view) throws Exception {
+        final boolean[] isInProgress = {true};
+        for (int i = 0; i < 500 && isInProgress[0]; i++) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(new Runnable() {
+
+                public void run() {
+                    isInProgress[0] = view.isProgressiveRenderingInProgress();
+                }
+            });
+        }
+        assertFalse(isInProgress[0]);
+    }
+
+    @Test
+    public void testDrawingIsRenderedOnWorkerThread() throws Exception {
+        drawLatch.countDown();
+        DefaultDrawingView view = createView();
+        BufferedImage img = paint(view);
+        assertTrue(view.isProgressiveRenderingInProgress());
+        assertEquals(Color.white.getRGB(), img.getRGB(30, 30));
+
+        waitForRendering(view);
+        assertNotNull(drawingThread);
+        assertNotSame(Thread.currentThread(), drawingThread);
+        img = paint(view);
+        assertEquals(Color.red.getRGB(), img.getRGB(30, 30));
+        assertFalse(view.isProgressiveRenderingInProgress());
+    }
+
+    @Test
+    public void testLastFrameIsScaledWhileRendering() throws Exception {
+        drawLatch.countDown();
+        DefaultDrawingView view = createView();
+        paint(view);
+        waitForRendering(view);
+
+        view.setScaleFactor(2);
+        BufferedImage img = paint(view);
+        assertTrue(view.isProgressiveRenderingInProgress());
+        // The figure covers 20..100 at scale 2
+        assertEquals(Color.red.getRGB(), img.getRGB(90, 90));
+        waitForRendering(view);
+        img = paint(view);
+        assertEquals(Color.red.getRGB(), img.getRGB(90, 90));
+        assertFalse(view.isProgressiveRenderingInProgress());
+    }
+
+    @Test
+    public void testStaleJobsAreCoalesced() throws Exception {
+        DefaultDrawingView view = createView();
+        paint(view);
+        assertEquals(1, snapshotCount);
+        for (int i = 0; i < 500 && drawingThread == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(drawingThread);
+
+        // While the job is blocked, the view is zoomed repeatedly
+        try {
+            for (int i = 2; i <= 6; i++) {
+                view.setScaleFactor(i / 2d);
+                paint(view);
+            }
+            assertEquals(1, snapshotCount);
+        } finally {
+            drawLatch.countDown();
+        }
+        waitForRendering(view);
+        paint(view);
+        assertEquals(2, snapshotCount);
+        waitForRendering(view);
+        // The figure covers 30..150 at scale 3
+        BufferedImage img = paint(view);
+        assertEquals(Color.red.getRGB(), img.getRGB(140, 140));
+        assertEquals(2, snapshotCount);
+    }
+}
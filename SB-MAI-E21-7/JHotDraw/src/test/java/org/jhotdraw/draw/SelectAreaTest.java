@@ -0,0 +1,86 @@
+package org.jhotdraw.draw;
+
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the area selection of DefaultSelectAreaTracker.
+ */
+public class SelectAreaTest {
+
+    private QuadTreeDrawing drawing;
+    private DefaultDrawingView view;
+    private DefaultSelectAreaTracker tracker;
+    private int selectionEventCount;
+
+    private void setUp() {
+        drawing = new QuadTreeDrawing();
+        for (int i = 0; i < 20; i++) {
+            drawing.add(new SVGRectFigure(i * 20, 0, 10, 10));
+        }
+        view = new DefaultDrawingView();
+        view.setSize(1000, 1000);
+        view.setDrawing(drawing);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+        view.addFigureSelectionListener(new FigureSelectionListener() {
+
+            public void selectionChanged(FigureSelectionEvent evt) {
+                selectionEventCount++;
+            }
+        });
+        tracker = new DefaultSelectAreaTracker();
+        editor.setTool(tracker);
+    }
+
+    private MouseEvent createEvent(int id, int x, int y) {
+        return new MouseEvent(view, id, 0, MouseEvent.BUTTON1_DOWN_MASK, x, y, 1, false, MouseEvent.BUTTON1);
+    }
+
+    @Test
+    public void testAreaSelectionFiresOneEvent() {
+        setUp();
+        tracker.mousePressed(createEvent(MouseEvent.MOUSE_PRESSED, -5, -5));
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 195, 20));
+        tracker.mouseReleased(createEvent(MouseEvent.MOUSE_RELEASED, 195, 20));
+        assertEquals(10, view.getSelectionCount());
+        assertEquals(1, selectionEventCount);
+    }
+
+    @Test
+    public void testLivePreviewFollowsRubberband() {
+        setUp();
+        tracker.mousePressed(createEvent(MouseEvent.MOUSE_PRESSED, -5, -5));
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 95, 20));
+        assertEquals(5, tracker.getPreviewFigures().size());
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 195, 20));
+        assertEquals(10, tracker.getPreviewFigures().size());
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 55, 20));
+        assertEquals(3, tracker.getPreviewFigures().size());
+        tracker.mouseDragged(createEvent(MouseEvent.MOUSE_DRAGGED, 55, 5));
+        assertEquals(0, tracker.getPreviewFigures().size());
+        assertEquals(0, view.getSelectionCount());
+        tracker.mouseReleased(createEvent(MouseEvent.MOUSE_RELEASED, 55, 5));
+        assertEquals(0, tracker.getPreviewFigures().size());
+    }
+
+    @Test
+    public void testFindFiguresWithinUsesTransformedBounds() {
+        setUp();
+        Figure f = drawing.getChild(0);
+        f.willChange();
+        f.transform(AffineTransform.getTranslateInstance(500, 500));
+        f.changed();
+        assertEquals(0, drawing.findFiguresWithin(new Rectangle2D.Double(-5, -5, 20, 20)).size());
+        assertEquals(1, drawing.findFiguresWithin(new Rectangle2D.Double(495, 495, 20, 20)).size());
+        f.willChange();
+        AttributeKeys.TRANSFORM.basicSet(f, AffineTransform.getTranslateInstance(0, 100));
+        f.changed();
+        assertEquals(0, drawing.findFiguresWithin(new Rectangle2D.Double(495, 495, 20, 20)).size());
+        assertSame(f, drawing.findFiguresWithin(new Rectangle2D.Double(495, 595, 20, 20)).get(0));
+    }
+}
@@ -0,0 +1,94 @@
+package org.jhotdraw.draw;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the selection of DefaultDrawingView.
+ */
+public class SelectionDeltaTest {
+
+    /**
+     * Records the last selection event.
+     */
+    private static class SelectionRecorder implements FigureSelectionListener {
+
+        Set<Figure> added, removed, oldSelection, newSelection;
+
+        public void selectionChanged(FigureSelectionEvent evt) {
+            added = evt.getAddedFigures();
+            removed = evt.getRemovedFigures();
+            oldSelection = evt.getOldSelection();
+            newSelection = evt.getNewSelection();
+        }
+    }
+
+    private DefaultDrawingView createView(ArrayList<CountingFigure> figures) {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        for (int i = 0; i < 3; i++) {
+            CountingFigure f = new CountingFigure(i * 50, 0);
+            figures.add(f);
+            drawing.add(f);
+        }
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        return view;
+    }
+
+    @Test
+    public void testEventsDescribeDelta() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures);
+        SelectionRecorder recorder = new SelectionRecorder();
+        view.addFigureSelectionListener(recorder);
+
+        view.addToSelection(figures.get(0));
+        assertEquals(Collections.singleton(figures.get(0)), recorder.added);
+        assertTrue(recorder.removed.isEmpty());
+        assertTrue(recorder.oldSelection.isEmpty());
+
+        view.addToSelection(new ArrayList<Figure>(figures));
+        assertEquals(new HashSet<Figure>(figures.subList(1, 3)), recorder.added);
+        assertEquals(Collections.singleton(figures.get(0)), recorder.oldSelection);
+        assertEquals(new HashSet<Figure>(figures), recorder.newSelection);
+
+        view.removeFromSelection(figures.get(1));
+        assertEquals(Collections.singleton(figures.get(1)), recorder.removed);
+        assertEquals(new HashSet<Figure>(figures), recorder.oldSelection);
+        assertEquals(2, recorder.newSelection.size());
+
+        view.clearSelection();
+        assertEquals(2, recorder.removed.size());
+        assertTrue(recorder.newSelection.isEmpty());
+    }
+
+    @Test
+    public void testRemovingFigureDoesNotRecreateOtherHandles() {
+        ArrayList<CountingFigure> figures = new ArrayList<CountingFigure>();
+        DefaultDrawingView view = createView(figures);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+
+        view.addToSelection(new ArrayList<Figure>(figures));
+        view.findHandle(new Point(-100, -100));
+        int[] counts = new int[3];
+        for (int i = 0; i < 3; i++) {
+            counts[i] = figures.get(i).createHandlesCount;
+        }
+
+        assertTrue(counts[0] > 0);
+
+        view.removeFromSelection(figures.get(1));
+        view.findHandle(new Point(-100, -100));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(counts[i], figures.get(i).createHandlesCount);
+        }
+        assertEquals(2, view.getSelectionCount());
+    }
+}
@@ -0,0 +1,74 @@
+package org.jhotdraw.draw;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import org.jhotdraw.samples.svg.figures.SVGTextAreaFigure;
+import org.jhotdraw.samples.svg.figures.SVGTextFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of TextOutlineCache.
+ */
+public class TextOutlineCacheTest {
+
+    private FontRenderContext frc = new FontRenderContext(new AffineTransform(), true, true);
+    private Font font = new Font("Dialog", Font.PLAIN, 12);
+
+    @Test
+    public void testEqualTextsShareOutline() {
+        TextOutlineCache.clear();
+        TextOutlineCache.Outline a = TextOutlineCache.getOutline("Label", font, null, frc);
+        assertSame(a, TextOutlineCache.getOutline(new String("Label"), new Font("Dialog", Font.PLAIN, 12), null, frc));
+        assertNotSame(a, TextOutlineCache.getOutline("Label", font, TextAttribute.UNDERLINE_ON, frc));
+        assertNotSame(a, TextOutlineCache.getOutline("Label", font.deriveFont(14f), null, frc));
+        assertEquals(3, TextOutlineCache.size());
+
+        TextLayout layout = new TextLayout("Label", font, frc);
+        assertEquals(layout.getAdvance(), a.getAdvance(), 1e-6);
+        assertEquals(layout.getOutline(null).getBounds2D(), a.getShape().getBounds2D());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        TextOutlineCache.clear();
+        int oldSize = TextOutlineCache.getMaximumSize();
+        try {
+            TextOutlineCache.setMaximumSize(10);
+            TextOutlineCache.Outline first = TextOutlineCache.getOutline("0", font, null, frc);
+            for (int i = 1; i < 20; i++) {
+                TextOutlineCache.getOutline(Integer.toString(i), font, null, frc);
+            }
+            assertEquals(10, TextOutlineCache.size());
+            assertNotSame(first, TextOutlineCache.getOutline("0", font, null, frc));
+        } finally {
+            TextOutlineCache.setMaximumSize(oldSize);
+        }
+    }
+
+    @Test
+    public void testTextFiguresUseCachedOutline() {
+        TextOutlineCache.clear();
+        SVGTextFigure f = new SVGTextFigure("Label");
+        f.willChange();
+        f.setBounds(new Point2D.Double(10, 20), new Point2D.Double(10, 20));
+        f.changed();
+        Rectangle2D b = f.getBounds();
+        int size = TextOutlineCache.size();
+        SVGTextFigure g = new SVGTextFigure("Label");
+        g.willChange();
+        g.setBounds(new Point2D.Double(30, 20), new Point2D.Double(30, 20));
+        g.changed();
+        assertEquals(b.getX() + 20, g.getBounds().getX(), 1e-6);
+        assertEquals(size, TextOutlineCache.size());
+
+        SVGTextAreaFigure a = new SVGTextAreaFigure("Label");
+        a.setBounds(new Point2D.Double(0, 0), new Point2D.Double(200, 100));
+        assertTrue(a.getPreferredTextSize(Double.MAX_VALUE).width > 0);
+    }
+}
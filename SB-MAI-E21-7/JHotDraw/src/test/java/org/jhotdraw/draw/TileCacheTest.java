@@ -0,0 +1,100 @@
+package org.jhotdraw.draw;
+
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of TileCache.
+ */
+public class TileCacheTest {
+
+    private final static int SIZE = TileCache.TILE_SIZE;
+    /**
+     * The number of bytes used by a tile created by createTile.
+     */
+    private final static long TILE_BYTES = (long) SIZE * SIZE * 4;
+
+    private BufferedImage createTile() {
+        return new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTilesAreEvicted() {
+        TileCache cache = new TileCache(3 * TILE_BYTES);
+        BufferedImage t0 = createTile();
+        BufferedImage t1 = createTile();
+        BufferedImage t2 = createTile();
+        cache.putTile(1.0, 0, 0, t0);
+        cache.putTile(1.0, 1, 0, t1);
+        cache.putTile(1.0, 2, 0, t2);
+
+        // Touch tile 0, so that tile 1 becomes the least recently used one
+        assertSame(t0, cache.getTile(1.0, 0, 0));
+        BufferedImage t3 = createTile();
+        cache.putTile(1.0, 3, 0, t3);
+
+        assertSame(t0, cache.getTile(1.0, 0, 0));
+        assertNull(cache.getTile(1.0, 1, 0));
+        assertSame(t2, cache.getTile(1.0, 2, 0));
+        assertSame(t3, cache.getTile(1.0, 3, 0));
+    }
+
+    @Test
+    public void testReducingMemoryBudgetEvictsTiles() {
+        TileCache cache = new TileCache(4 * TILE_BYTES);
+        for (int x = 0; x < 4; x++) {
+            cache.putTile(1.0, x, 0, createTile());
+        }
+        // Replacing a tile must not count its memory twice
+        cache.putTile(1.0, 3, 0, createTile());
+        // Accessing the tiles in sequence keeps their LRU order
+        for (int x = 0; x < 4; x++) {
+            assertNotNull(cache.getTile(1.0, x, 0));
+        }
+
+        cache.setMemoryBudget(2 * TILE_BYTES);
+        assertNull(cache.getTile(1.0, 0, 0));
+        assertNull(cache.getTile(1.0, 1, 0));
+        assertNotNull(cache.getTile(1.0, 2, 0));
+        assertNotNull(cache.getTile(1.0, 3, 0));
+    }
+
+    @Test
+    public void testInvalidateDiscardsIntersectingTiles() {
+        TileCache cache = new TileCache(100 * TILE_BYTES);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                cache.putTile(1.0, x, y, createTile());
+                cache.putTile(2.0, x, y, createTile());
+            }
+        }
+
+        // The area lies in the middle of tile (1,1) at scale 1, and
+        // covers tiles (2,2) and (3,2) at scale 2
+        cache.invalidate(new Rectangle2D.Double(SIZE + 10, SIZE + 10, SIZE / 2, 10));
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                boolean isInvalid = x == 1 && y == 1;
+                assertEquals(isInvalid, cache.getTile(1.0, x, y) == null);
+                isInvalid = (x == 2 || x == 3) && y == 2;
+                assertEquals(isInvalid, cache.getTile(2.0, x, y) == null);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidateLargeArea() {
+        TileCache cache = new TileCache(100 * TILE_BYTES);
+        cache.putTile(1.0, -2, 5, createTile());
+        cache.putTile(1.0, 40, 40, createTile());
+
+        // The area covers more tiles than the cache holds
+        cache.invalidate(new Rectangle2D.Double(-10 * SIZE, 0, 20 * SIZE, 20 * SIZE));
+
+        assertNull(cache.getTile(1.0, -2, 5));
+        assertNotNull(cache.getTile(1.0, 40, 40));
+    }
+}
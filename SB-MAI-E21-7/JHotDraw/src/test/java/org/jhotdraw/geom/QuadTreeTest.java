@@ -0,0 +1,65 @@
+package org.jhotdraw.geom;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class QuadTree.
+ */
+public class QuadTreeTest {
+
+    private QuadTree<String> tree;
+
+    @Before
+    public void setUp() {
+        tree = new QuadTree<String>(new Rectangle2D.Double(0, 0, 800, 600));
+        // Fill the tree so that the root node gets split
+        for (int i = 0; i < 100; i++) {
+            tree.add("f" + i, new Rectangle2D.Double(i * 7, i * 5, 10, 10));
+        }
+    }
+
+    @Test
+    public void testUpdateWithinLeaf() {
+        tree.add("a", new Rectangle2D.Double(10, 10, 5, 5));
+        tree.update("a", new Rectangle2D.Double(12, 12, 5, 5));
+
+        assertTrue(tree.findContains(new Point2D.Double(16, 16)).contains("a"));
+        assertFalse(tree.findContains(new Point2D.Double(11, 11)).contains("a"));
+    }
+
+    @Test
+    public void testUpdateAcrossNodes() {
+        tree.add("a", new Rectangle2D.Double(10, 10, 5, 5));
+        tree.update("a", new Rectangle2D.Double(700, 500, 5, 5));
+
+        assertTrue(tree.findContains(new Point2D.Double(702, 502)).contains("a"));
+        assertFalse(tree.findContains(new Point2D.Double(12, 12)).contains("a"));
+    }
+
+    @Test
+    public void testUpdateOutsideAndBack() {
+        tree.add("a", new Rectangle2D.Double(10, 10, 5, 5));
+        tree.update("a", new Rectangle2D.Double(-100, -100, 5, 5));
+        assertTrue(tree.findContains(new Point2D.Double(-98, -98)).contains("a"));
+
+        tree.update("a", new Rectangle2D.Double(400, 300, 5, 5));
+        assertTrue(tree.findContains(new Point2D.Double(402, 302)).contains("a"));
+        assertFalse(tree.findContains(new Point2D.Double(-98, -98)).contains("a"));
+    }
+
+    @Test
+    public void testRemoveAfterUpdate() {
+        tree.add("a", new Rectangle2D.Double(10, 10, 300, 300));
+        tree.update("a", new Rectangle2D.Double(200, 100, 400, 300));
+        tree.remove("a");
+
+        Collection<String> found = tree.findIntersects(new Rectangle2D.Double(0, 0, 800, 600));
+        assertFalse(found.contains("a"));
+        assertEquals(100, found.size());
+    }
+}
@@ -0,0 +1,117 @@
+package org.jhotdraw.geom;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class RTree.
+ * <p>
+ * The results of the tree are compared against a linear scan over
+ * randomly generated rectangles.
+ */
+public class RTreeTest {
+
+    private Random random = new Random(42);
+
+    private Rectangle2D.Double createBounds() {
+        return new Rectangle2D.Double(
+                random.nextDouble() * 1e6, random.nextDouble() * 1e6,
+                1 + random.nextDouble() * 1000, 1 + random.nextDouble() * 50);
+    }
+
+    private void assertSameResults(RTree<Integer> tree, Map<Integer, Rectangle2D.Double> expected) {
+        for (int i = 0; i < 50; i++) {
+            Rectangle2D.Double r = new Rectangle2D.Double(
+                    random.nextDouble() * 1e6, random.nextDouble() * 1e6, 5e4, 5e4);
+            HashSet<Integer> intersects = new HashSet<Integer>();
+            HashSet<Integer> inside = new HashSet<Integer>();
+            HashSet<Integer> contains = new HashSet<Integer>();
+            Point2D.Double p = new Point2D.Double(r.getCenterX(), r.getCenterY());
+            for (Map.Entry<Integer, Rectangle2D.Double> entry : expected.entrySet()) {
+                if (entry.getValue().intersects(r)) {
+                    intersects.add(entry.getKey());
+                }
+                if (r.contains(entry.getValue())) {
+                    inside.add(entry.getKey());
+                }
+                if (entry.getValue().contains(p)) {
+                    contains.add(entry.getKey());
+                }
+            }
+            assertEquals(intersects, new HashSet<Integer>(tree.findIntersects(r)));
+            assertEquals(inside, new HashSet<Integer>(tree.findInside(r)));
+            assertEquals(contains, new HashSet<Integer>(tree.findContains(p)));
+        }
+        assertEquals(expected.size(), tree.size());
+    }
+
+    @Test
+    public void testAddUpdateRemove() {
+        RTree<Integer> tree = new RTree<Integer>(8);
+        HashMap<Integer, Rectangle2D.Double> expected = new HashMap<Integer, Rectangle2D.Double>();
+        for (int i = 0; i < 2000; i++) {
+            Rectangle2D.Double r = createBounds();
+            tree.add(i, r);
+            expected.put(i, r);
+        }
+        assertSameResults(tree, expected);
+
+        for (int i = 0; i < 2000; i += 3) {
+            Rectangle2D.Double r = expected.get(i);
+            r = new Rectangle2D.Double(r.x + 3, r.y - 2, r.width, r.height);
+            tree.update(i, r);
+            expected.put(i, r);
+        }
+        for (int i = 1; i < 2000; i += 3) {
+            Rectangle2D.Double r = createBounds();
+            tree.update(i, r);
+            expected.put(i, r);
+        }
+        assertSameResults(tree, expected);
+
+        for (int i = 0; i < 2000; i += 2) {
+            tree.remove(i);
+            expected.remove(i);
+        }
+        assertSameResults(tree, expected);
+    }
+
+    @Test
+    public void testBulkLoad() {
+        RTree<Integer> tree = new RTree<Integer>();
+        HashMap<Integer, Rectangle2D.Double> expected = new HashMap<Integer, Rectangle2D.Double>();
+        for (int i = 0; i < 5000; i++) {
+            expected.put(i, createBounds());
+        }
+        tree.bulkLoad(expected);
+        assertSameResults(tree, expected);
+
+        for (int i = 5000; i < 5500; i++) {
+            Rectangle2D.Double r = createBounds();
+            tree.add(i, r);
+            expected.put(i, r);
+        }
+        for (int i = 0; i < 5000; i += 4) {
+            tree.remove(i);
+            expected.remove(i);
+        }
+        assertSameResults(tree, expected);
+    }
+
+    @Test
+    public void testEmptyTree() {
+        RTree<Integer> tree = new RTree<Integer>();
+        assertTrue(tree.findContains(new Point2D.Double(0, 0)).isEmpty());
+
+        tree.add(1, new Rectangle2D.Double(10, 10, 10, 10));
+        tree.remove(1);
+        assertTrue(tree.findIntersects(new Rectangle2D.Double(0, 0, 100, 100)).isEmpty());
+        assertEquals(0, tree.size());
+    }
+}
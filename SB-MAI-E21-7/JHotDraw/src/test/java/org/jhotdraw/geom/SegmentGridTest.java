@@ -0,0 +1,66 @@
+package org.jhotdraw.geom;
+
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Point2D;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class SegmentGrid.
+ */
+public class SegmentGridTest {
+
+    private GeneralPath createPolyline(Random r, int n, boolean isClosed, int windingRule) {
+        GeneralPath path = new GeneralPath(windingRule);
+        path.moveTo(r.nextFloat() * 500, r.nextFloat() * 500);
+        for (int i = 1; i < n; i++) {
+            path.lineTo(r.nextFloat() * 500, r.nextFloat() * 500);
+        }
+        if (isClosed) {
+            path.closePath();
+        }
+        return path;
+    }
+
+    @Test
+    public void testOutlineContainsMatchesShapes() {
+        Random r = new Random(1);
+        GeneralPath path = createPolyline(r, 500, false, GeneralPath.WIND_NON_ZERO);
+        SegmentGrid grid = new SegmentGrid(path, 1);
+
+        for (int i = 0; i < 2000; i++) {
+            Point2D.Double p = new Point2D.Double(r.nextDouble() * 520 - 10, r.nextDouble() * 520 - 10);
+            assertEquals(Shapes.outlineContains(path, p, 3), grid.outlineContains(p, 3));
+        }
+    }
+
+    @Test
+    public void testContainsMatchesPath() {
+        Random r = new Random(2);
+        for (int rule : new int[]{GeneralPath.WIND_NON_ZERO, GeneralPath.WIND_EVEN_ODD}) {
+            GeneralPath path = createPolyline(r, 200, true, rule);
+            SegmentGrid grid = new SegmentGrid(path, 1);
+
+            for (int i = 0; i < 2000; i++) {
+                Point2D.Double p = new Point2D.Double(r.nextDouble() * 520 - 10, r.nextDouble() * 520 - 10);
+                assertEquals(path.contains(p), grid.contains(p));
+            }
+        }
+    }
+
+    @Test
+    public void testOpenSubpathIsImplicitlyClosed() {
+        GeneralPath path = new GeneralPath();
+        path.moveTo(0, 0);
+        path.lineTo(100, 0);
+        path.lineTo(100, 100);
+        SegmentGrid grid = new SegmentGrid(path, 1);
+
+        assertTrue(grid.contains(new Point2D.Double(90, 10)));
+        assertFalse(grid.contains(new Point2D.Double(10, 90)));
+        // The implicit segment from (100,100) to (0,0) is not part of the outline
+        assertFalse(grid.outlineContains(new Point2D.Double(50, 50), 2));
+        assertTrue(grid.outlineContains(new Point2D.Double(50, 1), 2));
+    }
+}
@@ -0,0 +1,92 @@
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of CompositingLayerPool.
+ */
+public class CompositingLayerPoolTest {
+
+    private void fill(BufferedImage image, Color color) {
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+    }
+
+    @Test
+    public void testPooledLayerIsClearedBeforeReuse() {
+        CompositingLayerPool pool = new CompositingLayerPool(1L << 20);
+        BufferedImage first = pool.acquire(50, 50);
+        fill(first, Color.RED);
+        pool.release(first);
+
+        BufferedImage second = pool.acquire(40, 30);
+        assertEquals(40, second.getWidth());
+        assertEquals(30, second.getHeight());
+        // The layer shares the raster of the pooled image
+        assertSame(first.getRaster().getDataBuffer(), second.getRaster().getDataBuffer());
+        for (int y = 0; y < second.getHeight(); y++) {
+            for (int x = 0; x < second.getWidth(); x++) {
+                assertEquals(0, second.getRGB(x, y));
+            }
+        }
+        pool.release(second);
+    }
+
+    @Test
+    public void testLayerTooBigForPoolIsNotPooled() {
+        CompositingLayerPool pool = new CompositingLayerPool(64 * 64 * 4);
+        BufferedImage big = pool.acquire(100, 100);
+        pool.release(big);
+        BufferedImage other = pool.acquire(100, 100);
+        assertNotSame(big.getRaster().getDataBuffer(), other.getRaster().getDataBuffer());
+    }
+
+    private SVGRectFigure createTranslucentFigure(Color color, double width, double height) {
+        SVGRectFigure f = new SVGRectFigure(10.5, 10.5, width, height);
+        f.setAttribute(FILL_COLOR, color);
+        f.setAttribute(STROKE_COLOR, Color.BLACK);
+        f.setAttribute(OPACITY, 0.5d);
+        return f;
+    }
+
+    private BufferedImage render(SVGRectFigure f) {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        fill(image, Color.LIGHT_GRAY);
+        Graphics2D g = image.createGraphics();
+        f.draw(g);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    public void testTranslucentFigureRendersLikeFreshLayer() {
+        CompositingLayerPool pool = CompositingLayerPool.getInstance();
+        long savedMaxPoolSize = pool.getMaxPoolSize();
+        try {
+            // Without pooling, each layer is a freshly allocated image
+            pool.setMaxPoolSize(0);
+            BufferedImage expected = render(createTranslucentFigure(Color.BLUE, 50, 40));
+
+            // Leave a dirty layer of a larger size in the same bucket
+            // in the pool
+            pool.setMaxPoolSize(1L << 20);
+            render(createTranslucentFigure(Color.RED, 58, 58));
+            BufferedImage actual = render(createTranslucentFigure(Color.BLUE, 50, 40));
+
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+                }
+            }
+        } finally {
+            pool.setMaxPoolSize(savedMaxPoolSize);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import org.jhotdraw.geom.Dimension2DDouble;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the paragraph layout of SVGTextAreaFigure.
+ */
+public class SVGTextAreaFigureTest {
+
+    private final static String TEXT =
+            "The quick brown fox jumps over the lazy dog.\n" +
+            "Pack my box with five dozen liquor jugs, and do it quickly.\n" +
+            "\n" +
+            "Column\tColumn\tColumn\n" +
+            "How vexingly quick daft zebras jump!";
+
+    private SVGTextAreaFigure createFigure(String text) {
+        SVGTextAreaFigure f = new SVGTextAreaFigure(text);
+        f.willChange();
+        f.setBounds(new Point2D.Double(10, 10), new Point2D.Double(130, 400));
+        f.changed();
+        return f;
+    }
+
+    private void assertSameLayout(SVGTextAreaFigure expected, SVGTextAreaFigure actual) {
+        Dimension2DDouble e = expected.getPreferredTextSize(120);
+        Dimension2DDouble a = actual.getPreferredTextSize(120);
+        assertEquals(e.width, a.width, 1e-3);
+        assertEquals(e.height, a.height, 1e-3);
+        assertEquals(expected.isTextOverflow(), actual.isTextOverflow());
+    }
+
+    @Test
+    public void testEditedTextIsLaidOutLikeNewText() {
+        SVGTextAreaFigure f = createFigure(TEXT);
+        f.getPreferredTextSize(120);
+        f.isTextOverflow();
+        String edited = TEXT.replace("lazy dog", "lazy dog and the sleepy cat");
+        f.willChange();
+        f.setText(edited);
+        f.changed();
+        assertSameLayout(createFigure(edited), f);
+    }
+
+    @Test
+    public void testTranslationMovesText() {
+        SVGTextAreaFigure f = createFigure(TEXT);
+        SVGTextAreaFigure g = createFigure(TEXT);
+        g.willChange();
+        g.transform(AffineTransform.getTranslateInstance(1000, 500));
+        g.changed();
+        assertSameLayout(f, g);
+        int hits = 0;
+        for (int y = 10; y < 400; y += 2) {
+            for (int x = 10; x < 130; x += 2) {
+                boolean isHit = f.contains(new Point2D.Double(x, y));
+                assertEquals(isHit, g.contains(new Point2D.Double(x + 1000, y + 500)));
+                if (isHit) {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(hits > 0);
+    }
+}
@@ -0,0 +1,248 @@
+package org.jhotdraw.samples.svg.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.n3.nanoxml.IXMLElement;
+import org.jhotdraw.draw.AttributeKey;
+import org.jhotdraw.draw.CompositeFigure;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.Figure;
+import org.jhotdraw.draw.QuadTreeDrawing;
+import org.jhotdraw.samples.svg.LinearGradient;
+import org.jhotdraw.samples.svg.figures.SVGGroupFigure;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.junit.Test;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class SVGInputFormat.
+ */
+public class SVGInputFormatTest {
+
+    /**
+     * A document with text in between the children of the svg element,
+     * and with "use" elements and gradients, which refer to elements
+     * further down in the document and to elements in "defs".
+     */
+    private final static String FORWARD_REFERENCES =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"" +
+            " width=\"400\" height=\"300\">\n" +
+            "  text before the first child\n" +
+            "  <defs><rect id=\"r0\" x=\"10\" y=\"10\" width=\"20\" height=\"20\" fill=\"red\"/></defs>\n" +
+            "  <rect id=\"r1\" x=\"10\" y=\"10\" width=\"20\" height=\"20\" fill=\"red\"/>\n" +
+            "  <rect x=\"40\" y=\"10\" width=\"20\" height=\"20\" fill=\"green\"/>\n" +
+            "  text in between\n" +
+            "  <use xlink:href=\"#later\" x=\"100\" y=\"50\"/>\n" +
+            "  <rect x=\"70\" y=\"10\" width=\"20\" height=\"20\" fill=\"blue\"/>\n" +
+            "  <use xlink:href=\"#r0\" x=\"0\" y=\"100\"/>\n" +
+            "  more text\n" +
+            "  <linearGradient id=\"g2\" xlink:href=\"#g1\" x1=\"0\" y1=\"0\" x2=\"1\" y2=\"0\"/>\n" +
+            "  <rect x=\"100\" y=\"10\" width=\"20\" height=\"20\" fill=\"url(#g2)\"/>\n" +
+            "  <linearGradient id=\"g1\">\n" +
+            "    <stop offset=\"0\" stop-color=\"yellow\"/>\n" +
+            "    <stop offset=\"1\" stop-color=\"navy\"/>\n" +
+            "  </linearGradient>\n" +
+            "  <g id=\"later\">\n" +
+            "    <rect x=\"0\" y=\"0\" width=\"10\" height=\"10\" fill=\"url(#g1)\"/>\n" +
+            "    <circle cx=\"20\" cy=\"20\" r=\"5\" fill=\"black\"/>\n" +
+            "  </g>\n" +
+            "  <rect x=\"130\" y=\"10\" width=\"20\" height=\"20\" fill=\"url(#g2)\"/>\n" +
+            "  trailing text\n" +
+            "</svg>\n";
+
+    /**
+     * Creates a document with many sibling elements, which are read in
+     * parallel, in between gradients, "use" elements and nested "svg"
+     * elements, which must be read sequentially.
+     */
+    private static String createSiblingsDocument() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"" +
+                " width=\"1000\" height=\"1000\">\n");
+        buf.append("<linearGradient id=\"g0\"><stop offset=\"0\" stop-color=\"red\"/>" +
+                "<stop offset=\"1\" stop-color=\"blue\"/></linearGradient>\n");
+        buf.append("<defs><g id=\"withGradient\"><radialGradient id=\"g1\" xlink:href=\"#g0\"/>" +
+                "<rect width=\"5\" height=\"5\" fill=\"url(#g1)\"/></g></defs>\n");
+        for (int group = 0; group < 3; group++) {
+            buf.append("<g>\n");
+            for (int i = 0; i < 60; i++) {
+                int x = group * 300 + (i % 10) * 20;
+                int y = (i / 10) * 20;
+                if (i % 17 == 5) {
+                    buf.append("<use xlink:href=\"#withGradient\" x=\"" + x + "\" y=\"" + y + "\"/>\n");
+                } else if (i % 13 == 7) {
+                    buf.append("<use xlink:href=\"#plain\" x=\"" + x + "\" y=\"" + y + "\"/>\n");
+                } else if (i == 30) {
+                    // A nested viewport changes the meaning of percentages
+                    buf.append("<svg x=\"" + x + "\" y=\"" + y + "\" width=\"50\" height=\"50\" viewBox=\"0 0 10 10\">" +
+                            "<rect width=\"50%\" height=\"50%\"/></svg>\n");
+                } else if (i % 11 == 3) {
+                    buf.append("<g><rect x=\"" + x + "\" y=\"" + y + "\" width=\"5\" height=\"5\" fill=\"url(#g0)\"/>" +
+                            "<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"3\"/></g>\n");
+                } else {
+                    buf.append("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"1%\" height=\"1%\" fill=\"" +
+                            ((i % 3 == 0) ? "url(#g0)" : "green") + "\"/>\n");
+                }
+            }
+            buf.append("</g>\n");
+        }
+        for (int i = 0; i < 40; i++) {
+            buf.append("<ellipse cx=\"" + (i * 20) + "\" cy=\"900\" rx=\"8\" ry=\"4\" fill=\"url(#g0)\"/>\n");
+        }
+        buf.append("<g id=\"plain\"><rect width=\"3\" height=\"3\"/></g>\n");
+        buf.append("</svg>\n");
+        return buf.toString();
+    }
+
+    /**
+     * Creates a document as written by Inkscape, in which every element
+     * has an id, and the figures are on layers.
+     */
+    private static String createLayersDocument() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"" +
+                " xmlns:inkscape=\"http://www.inkscape.org/namespaces/inkscape\"" +
+                " xmlns:sodipodi=\"http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd\"" +
+                " id=\"svg2\" width=\"1000\" height=\"1000\">\n");
+        buf.append("<defs id=\"defs4\"><linearGradient id=\"linearGradient1\">" +
+                "<stop id=\"stop1\" offset=\"0\" stop-color=\"red\"/>" +
+                "<stop id=\"stop2\" offset=\"1\" stop-color=\"blue\"/></linearGradient>" +
+                "<rect id=\"marker\" width=\"4\" height=\"4\" fill=\"black\"/></defs>\n");
+        buf.append("<sodipodi:namedview id=\"base\" inkscape:zoom=\"1\"/>\n");
+        for (int layer = 1; layer <= 2; layer++) {
+            buf.append("<g id=\"layer" + layer + "\" inkscape:label=\"Layer " + layer + "\"" +
+                    " inkscape:groupmode=\"layer\">\n");
+            for (int i = 0; i < 20; i++) {
+                buf.append("<rect id=\"rect" + layer + "_" + i + "\" x=\"" + (i * 30) + "\" y=\"" + (layer * 100) +
+                        "\" width=\"20\" height=\"20\" fill=\"" + ((i % 2 == 0) ? "url(#linearGradient1)" : "green") + "\"/>\n");
+            }
+            buf.append("<use id=\"use" + layer + "\" xlink:href=\"#marker\" x=\"0\" y=\"" + (layer * 100 + 50) + "\"/>\n");
+            buf.append("</g>\n");
+        }
+        buf.append("</svg>\n");
+        return buf.toString();
+    }
+
+    /**
+     * Returns the document, which has been kept by the streaming reader.
+     */
+    private static IXMLElement getDocument(SVGInputFormat format) throws Exception {
+        Field documentField = SVGInputFormat.class.getDeclaredField("document");
+        documentField.setAccessible(true);
+        return (IXMLElement) documentField.get(format);
+    }
+
+    /**
+     * Returns the names of the elements, which have been kept by the
+     * streaming reader.
+     */
+    private static List<String> getKeptElements(IXMLElement svg) {
+        ArrayList<String> kept = new ArrayList<String>();
+        for (IXMLElement child : svg.getChildren()) {
+            if (child.getName() != null) {
+                kept.add(child.getName());
+            }
+        }
+        return kept;
+    }
+
+    static Drawing read(String svg, boolean isStreaming, boolean isParallel) throws IOException {
+        SVGInputFormat format = new SVGInputFormat();
+        format.setStreaming(isStreaming);
+        format.setParallel(isParallel);
+        Drawing drawing = new QuadTreeDrawing();
+        format.read(new ByteArrayInputStream(svg.getBytes("UTF-8")), drawing, true);
+        return drawing;
+    }
+
+    /**
+     * Asserts that two lists of figures have the same classes, bounds and
+     * attributes, recursively.
+     */
+    static void assertSameFigures(List<Figure> expected, List<Figure> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Figure e = expected.get(i);
+            Figure a = actual.get(i);
+            assertEquals(e.getClass(), a.getClass());
+            assertEquals(e.getBounds(), a.getBounds());
+            assertEquals(new HashMap<AttributeKey, Object>(e.getAttributes()),
+                    new HashMap<AttributeKey, Object>(a.getAttributes()));
+            if (e instanceof CompositeFigure) {
+                assertSameFigures(((CompositeFigure) e).getChildren(), ((CompositeFigure) a).getChildren());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingReaderCreatesSameFigures() throws IOException {
+        Drawing expected = read(FORWARD_REFERENCES, false, false);
+        Drawing actual = read(FORWARD_REFERENCES, true, false);
+
+        assertEquals(8, expected.getChildCount());
+        assertSameFigures(expected.getChildren(), actual.getChildren());
+    }
+
+    @Test
+    public void testStreamingReaderResolvesForwardReferences() throws IOException {
+        List<Figure> figures = read(FORWARD_REFERENCES, true, false).getChildren();
+
+        // The "use" element refers to the group further down
+        assertTrue(figures.get(2) instanceof SVGGroupFigure);
+        assertEquals(2, ((SVGGroupFigure) figures.get(2)).getChildCount());
+        // The gradient refers to the stops of a gradient further down
+        SVGRectFigure rect = (SVGRectFigure) figures.get(5);
+        LinearGradient gradient = (LinearGradient) FILL_GRADIENT.get(rect);
+        assertNotNull(gradient);
+        assertEquals(2, gradient.getStopColors().length);
+    }
+
+    @Test
+    public void testParallelReaderCreatesSameFigures() throws IOException {
+        String svg = createSiblingsDocument();
+        Drawing expected = read(svg, false, false);
+
+        assertEquals(47, expected.getChildCount());
+        assertSameFigures(expected.getChildren(), read(svg, false, true).getChildren());
+        assertSameFigures(expected.getChildren(), read(svg, true, true).getChildren());
+    }
+
+    @Test
+    public void testStreamingReaderKeepsOnlyReferenceableElements() throws Exception {
+        SVGInputFormat format = new SVGInputFormat();
+        format.setStreaming(true);
+        format.read(new ByteArrayInputStream(FORWARD_REFERENCES.getBytes("UTF-8")), new QuadTreeDrawing(), true);
+
+        // The identified rect and the group, which has been referred to
+        // by a "use" element further up, are released
+        assertEquals(Arrays.asList("defs", "linearGradient", "linearGradient"),
+                getKeptElements(getDocument(format)));
+    }
+
+    @Test
+    public void testStreamingReaderReleasesLayers() throws Exception {
+        String svg = createLayersDocument();
+        Drawing expected = read(svg, false, false);
+        assertEquals(2, expected.getChildCount());
+        assertSameFigures(expected.getChildren(), read(svg, true, false).getChildren());
+
+        SVGInputFormat format = new SVGInputFormat();
+        format.setStreaming(true);
+        format.read(new ByteArrayInputStream(svg.getBytes("UTF-8")), new QuadTreeDrawing(), true);
+        assertEquals(Arrays.asList("defs"), getKeptElements(getDocument(format)));
+        Field identifiedElementsField = SVGInputFormat.class.getDeclaredField("identifiedElements");
+        identifiedElementsField.setAccessible(true);
+        Map<?, ?> identifiedElements = (Map<?, ?>) identifiedElementsField.get(format);
+        assertFalse(identifiedElements.containsKey("layer1"));
+        assertFalse(identifiedElements.containsKey("rect2_3"));
+        assertTrue(identifiedElements.containsKey("marker"));
+    }
+}
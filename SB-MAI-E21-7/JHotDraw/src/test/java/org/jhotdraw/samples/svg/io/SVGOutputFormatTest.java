@@ -0,0 +1,79 @@
+package org.jhotdraw.samples.svg.io;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.QuadTreeDrawing;
+import org.jhotdraw.samples.svg.LinearGradient;
+import org.jhotdraw.samples.svg.figures.SVGEllipseFigure;
+import org.jhotdraw.samples.svg.figures.SVGGroupFigure;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.jhotdraw.samples.svg.figures.SVGTextFigure;
+import org.junit.Test;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class SVGOutputFormat.
+ */
+public class SVGOutputFormatTest {
+
+    private Drawing createDrawing() {
+        Drawing drawing = new QuadTreeDrawing();
+        LinearGradient gradient = new LinearGradient(0, 0, 1, 0,
+                new double[]{0, 1}, new Color[]{Color.RED, Color.BLUE}, new double[]{1, 1},
+                true, new AffineTransform());
+
+        SVGRectFigure rect = new SVGRectFigure(10, 10, 40, 30);
+        rect.setAttribute(FILL_COLOR, Color.YELLOW);
+        rect.setAttribute(LINK, "http://www.jhotdraw.org/");
+        drawing.add(rect);
+        drawing.add(new SVGEllipseFigure(60, 10, 40, 20));
+        drawing.add(new SVGEllipseFigure(110, 10, 20, 20));
+
+        SVGGroupFigure group = new SVGGroupFigure();
+        group.setAttribute(LINK, "http://www.jhotdraw.org/group");
+        SVGRectFigure gradientRect = new SVGRectFigure(10, 60, 40, 30);
+        gradientRect.setAttribute(FILL_GRADIENT, gradient);
+        group.add(gradientRect);
+        SVGGroupFigure nested = new SVGGroupFigure();
+        SVGEllipseFigure gradientEllipse = new SVGEllipseFigure(60, 60, 30, 30);
+        gradientEllipse.setAttribute(FILL_GRADIENT, gradient);
+        nested.add(gradientEllipse);
+        nested.add(new SVGRectFigure(100, 60, 10, 10));
+        group.add(nested);
+        drawing.add(group);
+
+        SVGTextFigure text = new SVGTextFigure("Text & <markup>");
+        text.setBounds(new Point2D.Double(10, 120), new Point2D.Double(100, 140));
+        drawing.add(text);
+        return drawing;
+    }
+
+    private String write(Drawing drawing, boolean isStreaming, boolean isPrettyPrint) throws IOException {
+        SVGOutputFormat format = new SVGOutputFormat();
+        format.setStreaming(isStreaming);
+        format.setPrettyPrint(isPrettyPrint);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.write(out, drawing);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testStreamingWriterWritesSameFigures() throws IOException {
+        Drawing drawing = createDrawing();
+        Drawing expected = SVGInputFormatTest.read(write(drawing, false, false), false, false);
+
+        assertEquals(drawing.getChildCount(), expected.getChildCount());
+        assertEquals("http://www.jhotdraw.org/", LINK.get(expected.getChild(0)));
+        SVGGroupFigure group = (SVGGroupFigure) expected.getChild(3);
+        assertNotNull(FILL_GRADIENT.get(group.getChild(0)));
+        SVGInputFormatTest.assertSameFigures(expected.getChildren(),
+                SVGInputFormatTest.read(write(drawing, true, false), false, false).getChildren());
+        SVGInputFormatTest.assertSameFigures(expected.getChildren(),
+                SVGInputFormatTest.read(write(drawing, true, true), false, false).getChildren());
+    }
+}
@@ -0,0 +1,65 @@
+package org.jhotdraw.samples.svg.io;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import org.jhotdraw.geom.BezierPath;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class SVGPathParser.
+ */
+public class SVGPathParserTest {
+
+    private SVGPathParser parser = new SVGPathParser();
+
+    @Test
+    public void testNumbersAreCorrectlyRounded() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+            String x = Double.toString(v);
+            String y = String.format(Locale.US, "%." + random.nextInt(12) + "f", v);
+            BezierPath[] paths = parser.parse("M" + x + "," + y);
+            assertEquals(1, paths.length);
+            assertEquals(Double.parseDouble(x), paths[0].get(0).x[0], 0d);
+            assertEquals(Double.parseDouble(y), paths[0].get(0).y[0], 0d);
+        }
+    }
+
+    @Test
+    public void testCompactSyntax() throws IOException {
+        BezierPath[] paths = parser.parse("M10-20l.5.5");
+        assertEquals(2, paths[0].size());
+        assertEquals(10.5, paths[0].get(1).x[0], 0d);
+        assertEquals(-19.5, paths[0].get(1).y[0], 0d);
+
+        paths = parser.parse("M1e2,1E-1 3 4");
+        assertEquals(100d, paths[0].get(0).x[0], 0d);
+        assertEquals(0.1, paths[0].get(0).y[0], 0d);
+        assertEquals(3d, paths[0].get(1).x[0], 0d);
+
+        // Arc flags need not be separated
+        paths = parser.parse("M0 0a1 1 0 0110 10");
+        BezierPath.Node last = paths[0].get(paths[0].size() - 1);
+        assertEquals(10d, last.x[0], 1e-6);
+        assertEquals(10d, last.y[0], 1e-6);
+    }
+
+    @Test
+    public void testSubpaths() throws IOException {
+        BezierPath[] paths = parser.parse("M 1 1 L 2 2 3 3 z m 1 1 l 1 1");
+        assertEquals(2, paths.length);
+        assertTrue(paths[0].isClosed());
+        assertEquals(3, paths[0].size());
+        assertFalse(paths[1].isClosed());
+        assertEquals(2d, paths[1].get(0).x[0], 0d);
+        assertEquals(3d, paths[1].get(1).y[0], 0d);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingNumber() throws IOException {
+        parser.parse("M 1 1 L 2");
+    }
+}
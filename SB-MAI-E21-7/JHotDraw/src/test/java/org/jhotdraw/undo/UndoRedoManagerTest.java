@@ -0,0 +1,189 @@
+package org.jhotdraw.undo;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import javax.swing.undo.*;
+import org.jhotdraw.draw.*;
+import org.jhotdraw.samples.svg.figures.SVGImageFigure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the memory budget of UndoRedoManager.
+ */
+public class UndoRedoManagerTest {
+
+    /**
+     * An edit which holds on to a byte array of random bytes, which
+     * can not be compressed.
+     */
+    private static class PayloadEdit extends AbstractUndoableEdit implements SpillableEdit {
+
+        byte[] payload;
+        byte[] expected;
+
+        PayloadEdit(int size, int seed) {
+            payload = new byte[size];
+            new Random(seed).nextBytes(payload);
+            expected = payload.clone();
+        }
+
+        public long getEstimatedSize() {
+            return (payload == null) ? 0 : payload.length;
+        }
+
+        public boolean canSpill() {
+            return true;
+        }
+
+        public void writeState(ObjectOutputStream out) throws IOException {
+            out.writeObject(payload);
+            payload = null;
+        }
+
+        public void readState(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            payload = (byte[]) in.readObject();
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            assertArrayEquals(expected, payload);
+        }
+
+        @Override
+        public void redo() {
+            super.redo();
+            assertArrayEquals(expected, payload);
+        }
+    }
+
+    /**
+     * An edit which holds on to memory, but can not be spilled.
+     */
+    private static class SizedEdit extends AbstractUndoableEdit implements SizedUndoableEdit {
+
+        public long getEstimatedSize() {
+            return 1000;
+        }
+    }
+
+    @Test
+    public void testOldEditsAreSpilledAndReadBack() {
+        UndoRedoManager manager = new UndoRedoManager();
+        manager.setMemoryBudget(2500);
+        PayloadEdit[] edits = new PayloadEdit[5];
+        for (int i = 0; i < edits.length; i++) {
+            edits[i] = new PayloadEdit(1000, i + 1);
+            manager.addEdit(edits[i]);
+        }
+
+        assertTrue(manager.getEstimatedSize() <= 2500);
+        assertTrue(manager.isSpilled(edits[0]));
+        assertFalse(manager.isSpilled(edits[4]));
+
+        for (int i = edits.length - 1; i >= 0; i--) {
+            manager.undo();
+            assertFalse(manager.isSpilled(edits[i]));
+        }
+        assertFalse(manager.canUndo());
+        for (int i = 0; i < edits.length; i++) {
+            manager.redo();
+        }
+        assertFalse(manager.canRedo());
+        assertTrue(manager.getEstimatedSize() <= 2500);
+    }
+
+    @Test
+    public void testSpillFileIsCompacted() {
+        UndoRedoManager manager = new UndoRedoManager();
+        manager.setMemoryBudget(10000);
+        for (int i = 0; i < 40; i++) {
+            manager.addEdit(new PayloadEdit(4000, i + 1));
+        }
+
+        // Each undo and redo reads an edit back and spills another one
+        for (int cycle = 0; cycle < 5; cycle++) {
+            for (int i = 0; i < 30; i++) {
+                manager.undo();
+            }
+            for (int i = 0; i < 30; i++) {
+                manager.redo();
+            }
+        }
+        // At most 40 edits are spilled, the file may hold as many dead
+        // bytes as live bytes, plus the minimal number of dead bytes
+        assertTrue(manager.getSpillFileLength() <= 2 * 40 * 4100 + 64 * 1024);
+        assertTrue(manager.getSpillFileLength() > 0);
+
+        manager.discardAllEdits();
+        assertEquals(0, manager.getSpillFileLength());
+    }
+
+    @Test
+    public void testEditsAreDiscardedIfTheyCannotBeSpilled() {
+        UndoRedoManager manager = new UndoRedoManager();
+        manager.setMemoryBudget(2500);
+        for (int i = 0; i < 5; i++) {
+            manager.addEdit(new SizedEdit());
+        }
+
+        assertEquals(2000, manager.getEstimatedSize());
+        manager.undo();
+        manager.undo();
+        assertFalse(manager.canUndo());
+    }
+
+    @Test
+    public void testDeletedImageDataIsSpilled() throws IOException {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+        UndoRedoManager manager = new UndoRedoManager();
+        manager.setMemoryBudget(1000);
+        drawing.addUndoableEditListener(manager);
+
+        SVGImageFigure image = new SVGImageFigure(0, 0, 10, 10);
+        byte[] data = new byte[10000];
+        Arrays.fill(data, (byte) 7);
+        image.setImage(data, null);
+        drawing.add(image);
+        view.addToSelection(image);
+        view.delete();
+        manager.addEdit(new AbstractUndoableEdit());
+
+        assertEquals(0, drawing.getChildCount());
+        assertNull(image.getImageData());
+
+        manager.undo();
+        manager.undo();
+        assertSame(image, drawing.getChild(0));
+        assertArrayEquals(data, image.getImageData());
+    }
+
+    @Test
+    public void testDeletedBufferedImageIsEstimated() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        editor.add(view);
+        UndoRedoManager manager = new UndoRedoManager();
+        drawing.addUndoableEditListener(manager);
+
+        SVGImageFigure image = new SVGImageFigure(0, 0, 10, 10);
+        image.setBufferedImage(new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(200 * 100 * 4, image.getImageMemorySize());
+        drawing.add(image);
+        view.addToSelection(image);
+        view.delete();
+
+        // The pixels are counted, and the image is not encoded
+        assertTrue(manager.getEstimatedSize() >= 200 * 100 * 4);
+        assertEquals(200 * 100 * 4, image.getImageMemorySize());
+    }
+}
@@ -0,0 +1,64 @@
+package org.jhotdraw.util;
+
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of class ResourceBundleUtil.
+ */
+public class ResourceBundleUtilTest {
+
+    private final static String BASE_NAME = ResourceBundleUtilTest.class.getName() + "$Labels";
+
+    /**
+     * The resource bundle used by the tests.
+     */
+    public static class Labels extends ListResourceBundle {
+
+        protected Object[][] getContents() {
+            return new Object[][]{
+                        {"imagedir", "/org/jhotdraw/images"},
+                        {"undo.icon", "${imagedir}/undo.png"},
+                        {"name.test", "Test"},
+                        {"name.default", "Default"},
+                        {"title.text", "${name.[$testmodifier]} ${imagedir}"},
+                        {"broken.text", "${missing}"},};
+        }
+    }
+
+    @Test
+    public void testGetBundleReturnsSharedInstance() {
+        ResourceBundleUtil labels = ResourceBundleUtil.getBundle(BASE_NAME, Locale.ENGLISH);
+        assertSame(labels, ResourceBundleUtil.getBundle(BASE_NAME, Locale.ENGLISH));
+        assertNotSame(labels, ResourceBundleUtil.getBundle(BASE_NAME, Locale.GERMAN));
+
+        ResourceBundleUtil.clearCache();
+        assertNotSame(labels, ResourceBundleUtil.getBundle(BASE_NAME, Locale.ENGLISH));
+    }
+
+    @Test
+    public void testPlaceholders() {
+        ResourceBundleUtil labels = ResourceBundleUtil.getBundle(BASE_NAME, Locale.ENGLISH);
+        assertEquals("/org/jhotdraw/images/undo.png", labels.getString("undo.icon"));
+        assertEquals("broken.text", labels.getString("broken.text"));
+        assertNull(labels.getTextProperty("broken"));
+        assertNull(labels.getToolTipTextProperty("title"));
+        assertEquals("nothing", labels.getString("nothing"));
+    }
+
+    @Test
+    public void testPropertyNameModifierInvalidatesResolvedStrings() {
+        ResourceBundleUtil labels = ResourceBundleUtil.getBundle(BASE_NAME, Locale.ENGLISH);
+        try {
+            ResourceBundleUtil.putPropertyNameModifier("testmodifier", "test", "default");
+            assertEquals("Test /org/jhotdraw/images", labels.getTextProperty("title"));
+
+            ResourceBundleUtil.putPropertyNameModifier("testmodifier", "other", "default");
+            assertEquals("Default /org/jhotdraw/images", labels.getTextProperty("title"));
+        } finally {
+            ResourceBundleUtil.removePropertyNameModifier("testmodifier");
+        }
+    }
+}